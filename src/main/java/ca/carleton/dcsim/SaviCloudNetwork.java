@@ -16,6 +16,7 @@ import edu.uwo.csd.dcsim.host.Rack;
 import edu.uwo.csd.dcsim.management.AutonomicManager;
 import edu.uwo.csd.dcsim.management.capabilities.HostManager;
 import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+import edu.uwo.csd.dcsim.management.policies.BatchHostMonitoringPolicy;
 import edu.uwo.csd.dcsim.management.policies.HostMonitoringPolicy;
 import edu.uwo.csd.dcsim.management.policies.HostOperationsPolicy;
 
@@ -24,6 +25,14 @@ import edu.uwo.csd.dcsim.management.policies.HostOperationsPolicy;
  */
 public class SaviCloudNetwork extends DataCentreManager {
 
+  /**
+   * How host status is monitored: by a monitor on each host, or by one monitor per rack or cluster
+   * sending the status of all of its hosts in a single message
+   */
+  public enum Monitoring {
+    PER_HOST, PER_RACK, PER_CLUSTER
+  }
+
   private final Simulation simulation;
   private final HostPoolManager hostPool;
   private final AutonomicManager autonomicMgr;
@@ -91,6 +100,7 @@ public class SaviCloudNetwork extends DataCentreManager {
 
     double[][] latencies;
     Map<DataCentre, Integer> dc2index;
+    Monitoring monitoring = Monitoring.PER_HOST;
 
     public Builder(Simulation simulation) {
       if (simulation == null) {
@@ -124,6 +134,11 @@ public class SaviCloudNetwork extends DataCentreManager {
       return this;
     }
 
+    public Builder monitoring(Monitoring monitoring) {
+      this.monitoring = monitoring;
+      return this;
+    }
+
     @Override
     public SaviCloudNetwork build() {
       if (dataCentres == null) {
@@ -149,17 +164,32 @@ public class SaviCloudNetwork extends DataCentreManager {
       //turn hosts off by default
       for (DataCentre dc : dataCentres) {
         for (Cluster cluster : dc.clusters()) {
+          List<Host> clusterHosts = new ArrayList<>();
           for (Rack rack : cluster.racks()) {
             for (Host host : rack.hosts()) {
               host.setState(Host.HostState.OFF);
               AutonomicManager hostAM = new AutonomicManager(simulation, new HostManager(host));
-              hostAM.installPolicy(new HostMonitoringPolicy(autonomicManager), SimTime.seconds(1000), //Jeevithan minutes(5)
-            		  SimTime.seconds(1000)+5);//Jeevithan SimTime.minutes(simulation.getRandom().nextInt(4)));
+              if (monitoring == Monitoring.PER_HOST) {
+                hostAM.installPolicy(new HostMonitoringPolicy(autonomicManager), SimTime.seconds(1000), //Jeevithan minutes(5)
+                		  SimTime.seconds(1000)+5);//Jeevithan SimTime.minutes(simulation.getRandom().nextInt(4)));
+              } else {
+                //only send the final status when the host stops; the group monitor reports the rest
+                hostAM.installPolicy(new HostMonitoringPolicy(autonomicManager));
+              }
               hostAM.installPolicy(new HostOperationsPolicy());
               host.installAutonomicManager(hostAM);
 
               hostPool.addHost(host, hostAM);
             }
+
+            if (monitoring == Monitoring.PER_RACK) {
+              installGroupMonitor(rack.hosts());
+            }
+            clusterHosts.addAll(rack.hosts());
+          }
+
+          if (monitoring == Monitoring.PER_CLUSTER) {
+            installGroupMonitor(clusterHosts);
           }
         }
       }
@@ -167,6 +197,12 @@ public class SaviCloudNetwork extends DataCentreManager {
       return new SaviCloudNetwork(this);
     }
 
+    private void installGroupMonitor(List<Host> hosts) {
+      AutonomicManager monitor = new AutonomicManager(simulation);
+      monitor.installPolicy(new BatchHostMonitoringPolicy(autonomicManager, hosts),
+                            SimTime.seconds(1000), SimTime.seconds(1000) + 5);
+    }
+
 
     public Builder applicationPool(ApplicationManager appPool) {
       this.applicationPool = appPool;
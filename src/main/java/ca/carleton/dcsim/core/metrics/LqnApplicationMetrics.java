@@ -6,6 +6,7 @@ import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -18,22 +19,28 @@ import edu.uwo.csd.dcsim.application.VmmApplication;
 import edu.uwo.csd.dcsim.common.Utility;
 import edu.uwo.csd.dcsim.core.Simulation;
 import edu.uwo.csd.dcsim.core.metrics.MetricCollection;
+import edu.uwo.csd.dcsim.core.metrics.QuantileSketch;
 import edu.uwo.csd.dcsim.core.metrics.WeightedMetric;
+import edu.uwo.csd.dcsim.core.metrics.WeightedMetricTable;
 
 /**
  * @author Derek Hawker
  */
 public class LqnApplicationMetrics extends MetricCollection {
 
-  Map<Application, WeightedMetric> cpuUnderProvision = new HashMap<Application, WeightedMetric>();
-  Map<Application, WeightedMetric> cpuDemand = new HashMap<Application, WeightedMetric>();
+  //per application metrics, one row per application in order of first recording
+  List<Application> rowApplications = new ArrayList<Application>();
+  int[] rows = new int[0]; //row + 1 of each application, by application id (0 if no row)
 
-  Map<Application, WeightedMetric> slaPenalty = new HashMap<Application, WeightedMetric>();
-  Map<Application, Long> slaAchieved = new HashMap<Application, Long>();
-  Map<Application, Long> totalTime = new HashMap<Application, Long>();
-  Map<Application, WeightedMetric> responseTime = new HashMap<Application, WeightedMetric>();
-  Map<Application, WeightedMetric> throughput = new HashMap<Application, WeightedMetric>();
-  Map<Application, WeightedMetric> size = new HashMap<Application, WeightedMetric>();
+  WeightedMetricTable cpuUnderProvision = new WeightedMetricTable();
+  WeightedMetricTable cpuDemand = new WeightedMetricTable();
+
+  WeightedMetricTable slaPenalty = new WeightedMetricTable();
+  long[] slaAchieved = new long[16];
+  long[] totalTime = new long[16];
+  WeightedMetricTable responseTime = new WeightedMetricTable();
+  WeightedMetricTable throughput = new WeightedMetricTable();
+  WeightedMetricTable size = new WeightedMetricTable();
 
   WeightedMetric aggregateCpuUnderProvision = new WeightedMetric();
   WeightedMetric aggregateCpuDemand = new WeightedMetric();
@@ -41,6 +48,12 @@ public class LqnApplicationMetrics extends MetricCollection {
   WeightedMetric aggregateResponseTime = new WeightedMetric();
   WeightedMetric aggregateThroughput = new WeightedMetric();
 
+  //distributions of response time and SLA penalty, per application and over all applications
+  List<QuantileSketch> responseTimeSketch = new ArrayList<QuantileSketch>();
+  List<QuantileSketch> slaPenaltySketch = new ArrayList<QuantileSketch>();
+  QuantileSketch aggregateResponseTimeSketch = new QuantileSketch();
+  QuantileSketch aggregateSlaPenaltySketch = new QuantileSketch();
+
   DescriptiveStatistics slaPenaltyStats;
   DescriptiveStatistics slaAchievementStats;
   DescriptiveStatistics responseTimeStats;
@@ -61,6 +74,36 @@ public class LqnApplicationMetrics extends MetricCollection {
     }
   }
 
+  /**
+   * Get the row of an application in the metric tables, adding a row on its first recording
+   */
+  private int getRow(Application application) {
+    int id = application.id();
+    if (id >= rows.length) {
+      rows = Arrays.copyOf(rows, Math.max(id + 1, rows.length * 2));
+    }
+
+    if (rows[id] == 0) {
+      int row = rowApplications.size();
+      rowApplications.add(application);
+      cpuUnderProvision.addRow();
+      cpuDemand.addRow();
+      slaPenalty.addRow();
+      responseTime.addRow();
+      throughput.addRow();
+      size.addRow();
+      responseTimeSketch.add(new QuantileSketch());
+      slaPenaltySketch.add(new QuantileSketch());
+      if (row == slaAchieved.length) {
+        slaAchieved = Arrays.copyOf(slaAchieved, row * 2);
+        totalTime = Arrays.copyOf(totalTime, row * 2);
+      }
+      rows[id] = row + 1;
+    }
+
+    return rows[id] - 1;
+  }
+
   @Override
   public void recordApplicationMetrics(Collection<Application> applications) {
 
@@ -72,6 +115,9 @@ public class LqnApplicationMetrics extends MetricCollection {
     double interactiveApplications = 0;
 
     double val;
+    long elapsedTime = simulation.getElapsedTime();
+    double elapsedSeconds = simulation.getElapsedSeconds();
+
     for (Application application : applications) {
 
       //we don't want to record stats for Vmm applications
@@ -89,55 +135,44 @@ public class LqnApplicationMetrics extends MetricCollection {
         continue;
       }
 
-      if (!cpuUnderProvision.containsKey(application)) {
-        cpuUnderProvision.put(application, new WeightedMetric());
-        cpuDemand.put(application, new WeightedMetric());
-        slaPenalty.put(application, new WeightedMetric());
-        slaAchieved.put(application, 0l);
-        totalTime.put(application, 0l);
-        size.put(application, new WeightedMetric());
-      }
+      int row = getRow(application);
 
       //record the size of the application as VMs/Max VMs
-      size.get(application).add(application.getSize() / (double) application.getMaxSize(),
-                                simulation.getElapsedTime());
+      size.add(row, application.getSize() / (double) application.getMaxSize(), elapsedTime);
 
       if (application.getTotalCpuDemand() > application.getTotalCpuScheduled()) {
         val = (double) application.getTotalCpuDemand() - application.getTotalCpuScheduled();
-        cpuUnderProvision.get(application).add(val, simulation.getElapsedTime());
+        cpuUnderProvision.add(row, val, elapsedTime);
         currentCpuUnderProvision += val;
       }
       val = (double) application.getTotalCpuDemand();
-      cpuDemand.get(application).add(val, simulation.getElapsedTime());
+      cpuDemand.add(row, val, elapsedTime);
       currentCpuDemand += val;
 
       if (application.getSla() != null) {
         val = application.getSla().calculatePenalty();
 
-        slaPenalty.get(application).add(val, simulation.getElapsedSeconds());
+        slaPenalty.add(row, val, elapsedSeconds);
+        slaPenaltySketch.get(row).add(val, elapsedSeconds);
         currentSlaPenalty += val;
 
         if (application.getSla().evaluate()) {
-          slaAchieved.put(application, slaAchieved.get(application) + simulation.getElapsedTime());
+          slaAchieved[row] += elapsedTime;
         }
 
       }
-      totalTime.put(application, totalTime.get(application) + simulation.getElapsedTime());
-
-      if (!responseTime.containsKey(application)) {
-        responseTime.put(application, new WeightedMetric());
-        throughput.put(application, new WeightedMetric());
-      }
+      totalTime[row] += elapsedTime;
 
       if (application instanceof LqnApplication) {
         LqnApplication lqnApplication = (LqnApplication) application;
 
         val = lqnApplication.getResponseTime();
-        responseTime.get(lqnApplication).add(val, simulation.getElapsedTime());
+        responseTime.add(row, val, elapsedTime);
+        responseTimeSketch.get(row).add(val, elapsedTime);
         currentResponseTime += val;
 
         val = lqnApplication.getThroughput();
-        throughput.get(lqnApplication).add(val, simulation.getElapsedTime());
+        throughput.add(row, val, elapsedTime);
         currentThroughput += val;
 
         ++interactiveApplications;
@@ -163,54 +198,79 @@ public class LqnApplicationMetrics extends MetricCollection {
     throughputStats = new DescriptiveStatistics();
     sizeStats = new DescriptiveStatistics();
 
-    for (Application application : slaPenalty.keySet()) {
-      slaPenaltyStats.addValue(slaPenalty.get(application).getSum());
-    }
-
-    for (Application application : slaAchieved.keySet()) {
-      slaAchievementStats
-          .addValue(slaAchieved.get(application) / (double) totalTime.get(application));
-    }
+    aggregateResponseTimeSketch = QuantileSketch.merge(responseTimeSketch);
+    aggregateSlaPenaltySketch = QuantileSketch.merge(slaPenaltySketch);
 
-    for (Application application : responseTime.keySet()) {
-      responseTimeStats.addValue(responseTime.get(application).getMean());
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      slaPenaltyStats.addValue(slaPenalty.getSum(row));
+      slaAchievementStats.addValue(slaAchieved[row] / (double) totalTime[row]);
+      responseTimeStats.addValue(responseTime.getMean(row));
+      throughputStats.addValue(throughput.getMean(row));
+      sizeStats.addValue(size.getMean(row));
     }
+  }
 
-    for (Application application : throughput.keySet()) {
-      throughputStats.addValue(throughput.get(application).getMean());
+  /**
+   * Get the per application metrics of a table, by application
+   */
+  private Map<Application, WeightedMetric> toMap(WeightedMetricTable table) {
+    Map<Application, WeightedMetric> map = new HashMap<Application, WeightedMetric>();
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      map.put(rowApplications.get(row), table.get(row));
     }
+    return map;
+  }
 
-    for (Application application : size.keySet()) {
-      sizeStats.addValue(size.get(application).getMean());
+  private Map<Application, Long> toMap(long[] column) {
+    Map<Application, Long> map = new HashMap<Application, Long>();
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      map.put(rowApplications.get(row), column[row]);
     }
+    return map;
   }
 
   public Map<Application, WeightedMetric> getCpuUnderProvision() {
-    return cpuUnderProvision;
+    return toMap(cpuUnderProvision);
   }
 
   public Map<Application, WeightedMetric> getCpuDemand() {
-    return cpuDemand;
+    return toMap(cpuDemand);
   }
 
   public Map<Application, WeightedMetric> getSlaPenalty() {
-    return slaPenalty;
+    return toMap(slaPenalty);
   }
 
   public Map<Application, Long> getSlaAchieved() {
-    return slaAchieved;
+    return toMap(slaAchieved);
   }
 
   public Map<Application, Long> getAppTotalTime() {
-    return totalTime;
+    return toMap(totalTime);
   }
 
   public Map<Application, WeightedMetric> getResponseTime() {
-    return responseTime;
+    return toMap(responseTime);
   }
 
   public Map<Application, WeightedMetric> getThroughput() {
-    return throughput;
+    return toMap(throughput);
+  }
+
+  public Map<Application, QuantileSketch> getResponseTimeSketch() {
+    Map<Application, QuantileSketch> map = new HashMap<Application, QuantileSketch>();
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      map.put(rowApplications.get(row), responseTimeSketch.get(row));
+    }
+    return map;
+  }
+
+  public Map<Application, QuantileSketch> getSlaPenaltySketch() {
+    Map<Application, QuantileSketch> map = new HashMap<Application, QuantileSketch>();
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      map.put(rowApplications.get(row), slaPenaltySketch.get(row));
+    }
+    return map;
   }
 
   public WeightedMetric getAggregateCpuUnderProvision() {
@@ -233,6 +293,22 @@ public class LqnApplicationMetrics extends MetricCollection {
     return aggregateThroughput;
   }
 
+  /**
+   * Get the distribution of the response times of all applications. Available once the
+   * simulation is complete.
+   */
+  public QuantileSketch getAggregateResponseTimeSketch() {
+    return aggregateResponseTimeSketch;
+  }
+
+  /**
+   * Get the distribution of the SLA penalty rates of all applications. Available once the
+   * simulation is complete.
+   */
+  public QuantileSketch getAggregateSlaPenaltySketch() {
+    return aggregateSlaPenaltySketch;
+  }
+
   public DescriptiveStatistics getSlaPenaltyStats() {
     return slaPenaltyStats;
   }
@@ -282,7 +358,7 @@ public class LqnApplicationMetrics extends MetricCollection {
   }
 
   public long getTotalApplicationCount() {
-    return cpuUnderProvision.keySet().size();
+    return rowApplications.size();
   }
 
   public void setApplicationsSpawned(long applicationsSpawned) {
@@ -395,6 +471,13 @@ public class LqnApplicationMetrics extends MetricCollection {
         .roundDouble(getSlaPenaltyStats().getPercentile(25), Simulation.getMetricPrecision()));
     out.info("    min: " + Utility
         .roundDouble(getSlaPenaltyStats().getMin(), Simulation.getMetricPrecision()));
+    out.info("  penalty rate");
+    out.info("    p99: " + Utility.roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.99),
+                                                Simulation.getMetricPrecision()));
+    out.info("    p95: " + Utility.roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.95),
+                                                Simulation.getMetricPrecision()));
+    out.info("    p50: " + Utility.roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.5),
+                                                Simulation.getMetricPrecision()));
     out.info("Response Time");
     out.info("    max: " + Utility
         .roundDouble(getAggregateResponseTime().getMax(), Simulation.getMetricPrecision()));
@@ -402,6 +485,12 @@ public class LqnApplicationMetrics extends MetricCollection {
         .roundDouble(getAggregateResponseTime().getMean(), Simulation.getMetricPrecision()));
     out.info("    min: " + Utility
         .roundDouble(getAggregateResponseTime().getMin(), Simulation.getMetricPrecision()));
+    out.info("    p99: " + Utility.roundDouble(getAggregateResponseTimeSketch().getQuantile(0.99),
+                                                Simulation.getMetricPrecision()));
+    out.info("    p95: " + Utility.roundDouble(getAggregateResponseTimeSketch().getQuantile(0.95),
+                                                Simulation.getMetricPrecision()));
+    out.info("    p50: " + Utility.roundDouble(getAggregateResponseTimeSketch().getQuantile(0.5),
+                                                Simulation.getMetricPrecision()));
     out.info("Throughput");
     out.info("    max: " + Utility
         .roundDouble(getAggregateThroughput().getMax(), Simulation.getMetricPrecision()));
@@ -491,6 +580,15 @@ public class LqnApplicationMetrics extends MetricCollection {
         .roundDouble(getSlaPenaltyStats().getPercentile(25), Simulation.getMetricPrecision())));
     metrics.add(new ImmutablePair<String, Object>("lqn_slaApplicationMin", Utility
         .roundDouble(getSlaPenaltyStats().getMin(), Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("lqn_slaPenaltyRateP99", Utility
+        .roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.99),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("lqn_slaPenaltyRateP95", Utility
+        .roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.95),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("lqn_slaPenaltyRateP50", Utility
+        .roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.5),
+                     Simulation.getMetricPrecision())));
 
     metrics.add(new ImmutablePair<String, Object>("lqn_responseTimeMax", Utility
         .roundDouble(getAggregateResponseTime().getMax(), Simulation.getMetricPrecision())));
@@ -499,6 +597,15 @@ public class LqnApplicationMetrics extends MetricCollection {
                                           getAggregateResponseTime().getMean()));
     metrics.add(new ImmutablePair<String, Object>("lqn_responseTimeMin", Utility
         .roundDouble(getAggregateResponseTime().getMin(), Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("lqn_responseTimeP99", Utility
+        .roundDouble(getAggregateResponseTimeSketch().getQuantile(0.99),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("lqn_responseTimeP95", Utility
+        .roundDouble(getAggregateResponseTimeSketch().getQuantile(0.95),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("lqn_responseTimeP50", Utility
+        .roundDouble(getAggregateResponseTimeSketch().getQuantile(0.5),
+                     Simulation.getMetricPrecision())));
 
     metrics.add(new ImmutablePair<String, Object>("lqn_throughputMax", Utility
         .roundDouble(getAggregateThroughput().getMax(), Simulation.getMetricPrecision())));
@@ -3,18 +3,17 @@ package ca.carleton.dcsim.policies;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.OptionalDouble;
 import java.util.stream.Collectors;
 
 import ca.carleton.lqn.LinearizedTask;
 import ca.carleton.lqn.LqnGraph;
 import edu.uwo.csd.dcsim.DataCentre;
-import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.management.ConsolidationEngine;
 import edu.uwo.csd.dcsim.management.HostData;
 import edu.uwo.csd.dcsim.management.HostDataComparator;
 import edu.uwo.csd.dcsim.management.Policy;
+import edu.uwo.csd.dcsim.management.SandboxConsolidationEngine;
 import edu.uwo.csd.dcsim.management.VmStatus;
 import edu.uwo.csd.dcsim.management.VmStatusComparator;
 import edu.uwo.csd.dcsim.management.action.ConcurrentManagementActionExecutor;
@@ -36,6 +35,8 @@ public class LqnLocationPolicy extends Policy {
   private final LqnGraph lqnModel;
   private final DataCentre edges;
 
+  private final SandboxConsolidationEngine engine;
+
   public LqnLocationPolicy(double lowerThreshold,
                            double upperThreshold,
                            double targetUtilization,
@@ -46,6 +47,8 @@ public class LqnLocationPolicy extends Policy {
     this.lowerThreshold = lowerThreshold;
     this.upperThreshold = upperThreshold;
     this.targetUtilization = targetUtilization;
+
+    engine = new SandboxConsolidationEngine(targetUtilization);
     this.lqnModel = lqnModel;
     this.edges = edges;
   }
@@ -146,51 +149,23 @@ public class LqnLocationPolicy extends Policy {
     ConcurrentManagementActionExecutor migrations = new ConcurrentManagementActionExecutor();
     ConcurrentManagementActionExecutor shutdownActions = new ConcurrentManagementActionExecutor();
 
-    HashSet<HostData> usedSources = new HashSet<HostData>();
-    HashSet<HostData> usedTargets = new HashSet<HostData>();
-
-    for (HostData source : sources) {
-      if (!usedTargets
-          .contains(source)) {        // Check that the source host hasn't been used as a target.
-        List<VmStatus> vmList = this.orderSourceVms(source.getCurrentStatus().getVms());
-
-        for (VmStatus vm : vmList) {
-
-          for (HostData target : targets) {
-            if (source != target &&
-                !usedSources.contains(target) &&
-                //Check that the target host hasn't been used as a source.
-                HostData.canHost(vm, target.getSandboxStatus(), target.hostDecription()) &&
-                //target has capability and capacity to host VM
-                (target.getSandboxStatus().resourcesInUse().cpu() + vm.getResourceInUse().cpu())
-                / target.hostDecription().cpu()
-                <= targetUtilization) {                                //target will not exceed target utilization
-
-              //modify host and vm states to indicate the future migration. Note we can do this because
-              //we are using the designated 'sandbox' host status
-              source.getSandboxStatus().migrate(vm, target.getSandboxStatus());
-
-              //invalidate source and target status, as we know them to be incorrect until the next status update arrives
-              source.invalidateStatus(simulation.getSimulationTime());
-              target.invalidateStatus(simulation.getSimulationTime());
-
-              migrations.addAction(new MigrationAction(source.getHostManager(),
-                                                       source.getHost(),
-                                                       target.getHost(),
-                                                       vm.getId()));
-
-              //if the host will be empty after this migration, instruct it to shut down
-              if (source.getSandboxStatus().getVms().size() == 0) {
-                shutdownActions.addAction(new ShutdownHostAction(source.getHost()));
-              }
-
-              usedTargets.add(target);
-              usedSources.add(source);
-
-              break;
-            }
-          }
-        }
+    for (ConsolidationEngine.Migration<HostData, VmStatus> migration
+        : engine.plan(sources, targets)) {
+      HostData source = migration.getSource();
+      HostData target = migration.getTarget();
+
+      //invalidate source and target status, as we know them to be incorrect until the next status update arrives
+      source.invalidateStatus(simulation.getSimulationTime());
+      target.invalidateStatus(simulation.getSimulationTime());
+
+      migrations.addAction(new MigrationAction(source.getHostManager(),
+                                               source.getHost(),
+                                               target.getHost(),
+                                               migration.getVm().getId()));
+
+      //if the host will be empty after this migration, instruct it to shut down
+      if (migration.isSourceEmptied()) {
+        shutdownActions.addAction(new ShutdownHostAction(source.getHost()));
       }
     }
 
@@ -233,16 +208,11 @@ public class LqnLocationPolicy extends Policy {
   }
 
   private double averageCpu(HostData host) {
-    OptionalDouble avg = host.getHistory()
-        .stream()
-        .filter(status -> status.getState() == Host.HostState.ON)
-        .mapToInt(status -> status.resourcesInUse().cpu())
-        .average();
-
-    return avg.isPresent() ? avg.getAsDouble() : 0.0;
+    return host.getStatusHistory().getAverageCpuInUse();
   }
 
 
+
   private List<VmStatus> orderSourceVms(List<VmStatus> sourceVms) {
 
     ArrayList<VmStatus> sources = new ArrayList<VmStatus>(sourceVms);
@@ -6,10 +6,8 @@ import java.util.Collections;
 import java.util.List;
 
 import ca.carleton.dcsim.examples.core_edge.DatacentreCommon;
-import edu.uwo.csd.dcsim.host.Host;
 import edu.uwo.csd.dcsim.management.HostData;
 import edu.uwo.csd.dcsim.management.HostDataComparator;
-import edu.uwo.csd.dcsim.management.HostStatus;
 import edu.uwo.csd.dcsim.management.Policy;
 import edu.uwo.csd.dcsim.management.VmStatus;
 import edu.uwo.csd.dcsim.management.VmStatusComparator;
@@ -86,18 +84,8 @@ public class ReplicationPolicy extends Policy {
       if (host.isStatusValid()) {
 
         // Calculate host's avg CPU utilization in the last window of time
-        double avgCpuInUse = 0;
-        int count = 0;
-        for (HostStatus status : host.getHistory()) {
-          //only consider times when the host is powered on TODO should there be events from hosts that are off?
-          if (status.getState() == Host.HostState.ON) {
-            avgCpuInUse += status.resourcesInUse().cpu();
-            ++count;
-          }
-        }
-        if (count != 0) {
-          avgCpuInUse = avgCpuInUse / count;
-        }
+        //only consider times when the host is powered on TODO should there be events from hosts that are off?
+        double avgCpuInUse = host.getStatusHistory().getAverageCpuInUse();
 
         double
             avgCpuUtilization =
@@ -136,7 +124,7 @@ public class ReplicationPolicy extends Policy {
     // Remove VMs with less CPU load than the CPU load by which the source
     // host is stressed.
     double cpuExcess =
-        source.getCurrentStatus().resourcesInUse().cpu()
+        source.getCurrentStatus().cpuInUse()
         - source.hostDecription().cpu() * this.upperThreshold;
     for (VmStatus vm : sourceVms) {
       if (vm.getResourceInUse().cpu() >= cpuExcess) {
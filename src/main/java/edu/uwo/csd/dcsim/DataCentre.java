@@ -17,6 +17,7 @@ import edu.uwo.csd.dcsim.core.Simulation;
 import edu.uwo.csd.dcsim.core.SimulationEventListener;
 import edu.uwo.csd.dcsim.host.Cluster;
 import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.HostAggregate;
 import edu.uwo.csd.dcsim.host.Link;
 import edu.uwo.csd.dcsim.host.Rack;
 import edu.uwo.csd.dcsim.host.Switch;
@@ -42,6 +43,7 @@ public class DataCentre implements SimulationEventListener {
   private final int hashCode;
 
   private final Simulation simulation;
+  private final HostAggregate aggregate;
 
   public DataCentre(Builder builder) {
     this(builder.dataNetworkSwitch,
@@ -62,6 +64,7 @@ public class DataCentre implements SimulationEventListener {
     this.dataNetworkSwitch = dataNetworkSwitch;
     this.mgmtNetworkSwitch = mgmtNetworkSwitch;
     this.clusters = Collections.unmodifiableList(clusters);
+    this.aggregate = simulation.getHostAggregator().createAggregate();
 
     this.hashCode = new HashCodeBuilder()
         .append(id)
@@ -111,15 +114,14 @@ public class DataCentre implements SimulationEventListener {
 
 
   public double getCurrentPowerConsumption() {
-    double power = 0;
-    for (Cluster cluster : clusters) {
-      for (Rack rack : cluster.racks()) {
-        for (Host host : rack.hosts()) {
-          power += host.getCurrentPowerConsumption();
-        }
-      }
-    }
-    return power;
+    return aggregate.getPowerConsumption();
+  }
+
+  /**
+   * Get the running totals of the DataCentre's hosts
+   */
+  public HostAggregate getAggregate() {
+    return aggregate;
   }
 
   public int numHosts() {
@@ -0,0 +1,184 @@
+package edu.uwo.csd.dcsim.application;
+
+/**
+ * Accelerates a fixed-point iteration x = g(x) using damped Anderson acceleration. With a depth of
+ * 0 this is a plain damped (relaxed) iteration, x' = x + damping * (g(x) - x). With a depth of m,
+ * the step is corrected using the residuals of the last m iterates, which typically cuts the number
+ * of iterations needed on oscillating or slowly converging problems. Used by InteractiveApplication
+ * to converge utilization against host scheduling.
+ */
+public class FixedPointAccelerator {
+
+  //regularization of the least-squares problem, relative to its diagonal
+  private static final double REGULARIZATION = 1e-10;
+
+  private final double damping;
+  private final int depth;
+
+  private int size = 0;
+  private int count = 0; //number of iterates held in the history
+  private int head = 0; //index of the most recent iterate in the history
+  private double[][] xHistory;
+  private double[][] fHistory;
+
+  private final double[][] normal;
+  private final double[] rhs;
+  private final double[] gamma;
+
+  public FixedPointAccelerator(double damping, int depth) {
+    if (damping <= 0 || damping > 1) {
+      throw new IllegalArgumentException("Damping must be in (0, 1]");
+    }
+    if (depth < 0) {
+      throw new IllegalArgumentException("Depth must be non-negative");
+    }
+
+    this.damping = damping;
+    this.depth = depth;
+
+    xHistory = new double[depth + 1][0];
+    fHistory = new double[depth + 1][0];
+    normal = new double[depth][depth];
+    rhs = new double[depth];
+    gamma = new double[depth];
+  }
+
+  /**
+   * Discard the iteration history and prepare for a problem of the given size
+   */
+  public void reset(int size) {
+    if (xHistory[0].length < size) {
+      for (int i = 0; i <= depth; ++i) {
+        xHistory[i] = new double[size];
+        fHistory[i] = new double[size];
+      }
+    }
+    this.size = size;
+    count = 0;
+    head = 0;
+  }
+
+  /**
+   * Compute the next iterate from the current iterate x and the value of the map g(x). The next
+   * iterate is written into x.
+   *
+   * @return The largest absolute residual |g(x) - x| of the current iterate
+   */
+  public double next(double[] x, double[] g) {
+    head = (head + 1) % (depth + 1);
+    double[] xk = xHistory[head];
+    double[] fk = fHistory[head];
+
+    double residual = 0;
+    for (int i = 0; i < size; ++i) {
+      xk[i] = x[i];
+      fk[i] = g[i] - x[i];
+      residual = Math.max(residual, Math.abs(fk[i]));
+    }
+    count = Math.min(count + 1, depth + 1);
+
+    int m = solveLeastSquares(count - 1);
+
+    for (int i = 0; i < size; ++i) {
+      x[i] = xk[i] + damping * fk[i];
+    }
+    for (int j = 0; j < m; ++j) {
+      double[] xNewer = xHistory[index(j)];
+      double[] xOlder = xHistory[index(j + 1)];
+      double[] fNewer = fHistory[index(j)];
+      double[] fOlder = fHistory[index(j + 1)];
+      for (int i = 0; i < size; ++i) {
+        x[i] -= gamma[j] * ((xNewer[i] - xOlder[i]) + damping * (fNewer[i] - fOlder[i]));
+      }
+    }
+
+    return residual;
+  }
+
+  /**
+   * Solve min ||f_k - dF * gamma|| over the last m residual differences via the normal equations,
+   * returning the number of differences used (0 if the system is singular).
+   */
+  private int solveLeastSquares(int m) {
+    if (m == 0) {
+      return 0;
+    }
+
+    double[] fk = fHistory[head];
+    for (int a = 0; a < m; ++a) {
+      double[] fa = fHistory[index(a)];
+      double[] faOlder = fHistory[index(a + 1)];
+      double b = 0;
+      for (int i = 0; i < size; ++i) {
+        b += (fa[i] - faOlder[i]) * fk[i];
+      }
+      rhs[a] = b;
+
+      for (int c = a; c < m; ++c) {
+        double[] fc = fHistory[index(c)];
+        double[] fcOlder = fHistory[index(c + 1)];
+        double dot = 0;
+        for (int i = 0; i < size; ++i) {
+          dot += (fa[i] - faOlder[i]) * (fc[i] - fcOlder[i]);
+        }
+        normal[a][c] = dot;
+        normal[c][a] = dot;
+      }
+    }
+    for (int a = 0; a < m; ++a) {
+      normal[a][a] += REGULARIZATION * normal[a][a] + Double.MIN_NORMAL;
+    }
+
+    //Gaussian elimination with partial pivoting
+    for (int col = 0; col < m; ++col) {
+      int pivot = col;
+      for (int row = col + 1; row < m; ++row) {
+        if (Math.abs(normal[row][col]) > Math.abs(normal[pivot][col])) {
+          pivot = row;
+        }
+      }
+      if (Math.abs(normal[pivot][col]) < 1e-300) {
+        return 0;
+      }
+      double[] tmpRow = normal[col];
+      normal[col] = normal[pivot];
+      normal[pivot] = tmpRow;
+      double tmp = rhs[col];
+      rhs[col] = rhs[pivot];
+      rhs[pivot] = tmp;
+
+      for (int row = col + 1; row < m; ++row) {
+        double factor = normal[row][col] / normal[col][col];
+        for (int c = col; c < m; ++c) {
+          normal[row][c] -= factor * normal[col][c];
+        }
+        rhs[row] -= factor * rhs[col];
+      }
+    }
+    for (int row = m - 1; row >= 0; --row) {
+      double sum = rhs[row];
+      for (int c = row + 1; c < m; ++c) {
+        sum -= normal[row][c] * gamma[c];
+      }
+      gamma[row] = sum / normal[row][row];
+    }
+
+    return m;
+  }
+
+  /**
+   * Get the history index of the iterate 'age' iterations before the most recent one
+   */
+  private int index(int age) {
+    return (head - age + depth + 1) % (depth + 1);
+  }
+
+  public double getDamping() {
+    return damping;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+}
@@ -1,6 +1,7 @@
 package edu.uwo.csd.dcsim.application;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import edu.uwo.csd.dcsim.application.loadbalancer.LoadBalancer;
@@ -14,9 +15,25 @@ import edu.uwo.csd.dcsim.host.Resource;
  */
 public class InteractiveApplication extends Application {
 
+  /**
+   * Methods of converging application utilization against host scheduling. HEURISTIC stops once the
+   * mean utilization change of each instance over recent rounds drops below 2%. DAMPED and ANDERSON
+   * iterate until no instance utilization changes by more than schedulingTolerance, relaxing each
+   * step by schedulingDamping and, for ANDERSON, extrapolating from the last
+   * schedulingAndersonDepth rounds.
+   */
+  public enum SchedulingConvergence {
+    HEURISTIC, DAMPED, ANDERSON
+  }
+
   private static boolean approximateMVAPropertyChecked = false;
   public static boolean approximateMVA = false;
 
+  public static SchedulingConvergence schedulingConvergence = SchedulingConvergence.HEURISTIC;
+  public static double schedulingTolerance = 0.005;
+  public static double schedulingDamping = 0.7;
+  public static int schedulingAndersonDepth = 2;
+
   private static final double maxQueueError = 0.01f;
 
   private Workload workload;
@@ -30,6 +47,28 @@ public class InteractiveApplication extends Application {
 
   int schedulingRounds;
 
+  //task instances of the application, gathered once per simulation step for the MVA solver
+  private final List<InteractiveTaskInstance> instances = new ArrayList<>();
+  private final MvaSolver mva = new MvaSolver();
+
+  //throughput and utilization of each instance in the MVA solution of the current scheduling round
+  private double[] mvaThroughputs = new double[0];
+  private double[] mvaUtilizations = new double[0];
+
+  //additional request classes, solved with Bard-Schweitzer MVA alongside the application's own workload (class 0)
+  private final List<RequestClass> requestClasses = new ArrayList<>();
+  private final List<RequestClass> requestClassesView =
+      Collections.unmodifiableList(requestClasses);
+  private MultiClassMvaSolver multiClassMva = null;
+  private int[] instanceTasks = new int[0]; //index of the task of each instance
+  private double[] instanceShares = new double[0]; //load balancer share of each instance
+  private double[] classResponseTimes = new double[1];
+  private double[] classThroughputs = new double[1];
+
+  //state for accelerated convergence of utilization, unused with the HEURISTIC method
+  private FixedPointAccelerator accelerator = null;
+  private double[] utilizationIterate = new double[0];
+
 //  private InteractiveApplication(Simulation simulation,
 //                                 Workload workload,
 //                                 double thinkTime){
@@ -47,12 +86,30 @@ public class InteractiveApplication extends Application {
       addTask(task);
     }
 
-    //if we haven't checked for the 'approximateMVA' property yet, do so now
+    for (RequestClass requestClass : builder.requestClasses) {
+      addRequestClass(requestClass);
+    }
+
+    //if we haven't checked for the 'approximateMVA' and scheduling properties yet, do so now
     if (!approximateMVAPropertyChecked) {
       approximateMVAPropertyChecked = true;
       if (Simulation.hasProperty("approximateMVA")) {
         approximateMVA = Boolean.parseBoolean(Simulation.getProperty("approximateMVA"));
       }
+      if (Simulation.hasProperty("schedulingConvergence")) {
+        schedulingConvergence = SchedulingConvergence.valueOf(
+            Simulation.getProperty("schedulingConvergence").trim().toUpperCase());
+      }
+      if (Simulation.hasProperty("schedulingTolerance")) {
+        schedulingTolerance = Double.parseDouble(Simulation.getProperty("schedulingTolerance"));
+      }
+      if (Simulation.hasProperty("schedulingDamping")) {
+        schedulingDamping = Double.parseDouble(Simulation.getProperty("schedulingDamping"));
+      }
+      if (Simulation.hasProperty("schedulingAndersonDepth")) {
+        schedulingAndersonDepth =
+            Integer.parseInt(Simulation.getProperty("schedulingAndersonDepth"));
+      }
     }
   }
 
@@ -60,10 +117,29 @@ public class InteractiveApplication extends Application {
   public void initializeScheduling() {
 
     schedulingRounds = 0;
+    instances.clear();
 
-    //reset scheduled resources and demand
+    int nInstances = 0;
     for (InteractiveTask task : tasks) {
+      nInstances += task.getInstances().size();
+    }
+    if (mvaThroughputs.length < nInstances) {
+      mvaThroughputs = new double[nInstances];
+      mvaUtilizations = new double[nInstances];
+      instanceTasks = new int[nInstances];
+      instanceShares = new double[nInstances];
+    }
+
+    //reset scheduled resources and demand
+    for (int t = 0; t < tasks.size(); ++t) {
+      InteractiveTask task = tasks.get(t);
       for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
+        if (!requestClasses.isEmpty()) {
+          instanceTasks[instances.size()] = t;
+          instanceShares[instances.size()] = task.getLoadBalancer().getInstanceShare(instance);
+        }
+        instances.add(instance);
+
         //use the VMs max CPU capacity, as it may be on a different speed core than the Task size specifies
         instance.resourceScheduled = task.getResourceSize()
             .withCpu(instance.getVM().getMaxCpu());
@@ -111,145 +187,225 @@ public class InteractiveApplication extends Application {
       }
       throughput = 0;
       responseTime = Double.MAX_VALUE;
+      for (int c = 0; c < classThroughputs.length; ++c) {
+        classThroughputs[c] = 0;
+        classResponseTimes[c] = Double.MAX_VALUE;
+      }
       return false;
     }
 
-    //calculate effective service time
-    for (InteractiveTask task : tasks) {
-      for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
-        if (instance.getResourceDemand().cpu() > instance.getResourceScheduled().cpu()) {
-          instance.setEffectiveServiceTime(
-              instance.getServiceTime() * (instance.getResourceDemand().cpu() /
-                                           (float) instance.getResourceScheduled().cpu()));
-        } else {
-          instance.setEffectiveServiceTime(instance.getServiceTime());
-        }
+    //calculate effective service time, and pack instances into the MVA solver
+    mva.reset(instances.size());
+    for (int k = 0; k < instances.size(); ++k) {
+      InteractiveTaskInstance instance = instances.get(k);
+      if (instance.getResourceDemand().cpu() > instance.getResourceScheduled().cpu()) {
+        instance.setEffectiveServiceTime(
+            instance.getServiceTime() * (instance.getResourceDemand().cpu() /
+                                         (float) instance.getResourceScheduled().cpu()));
+      } else {
+        instance.setEffectiveServiceTime(instance.getServiceTime());
       }
+      mva.set(k, instance.getEffectiveServiceTime(), instance.getVisitRatio());
     }
 
-    //calculate new values for application model using MVA or Schweitzer's approximate MVA, depending on user setting
-    if (!approximateMVA) {
-      //execute MVA algorithm
-      for (InteractiveTask task : tasks) {
-        for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
-          instance.setQueueLength(0);
-        }
+    if (requestClasses.isEmpty()) {
+      //calculate new values for application model using MVA or Schweitzer's approximate MVA, depending on user setting
+      MvaCache mvaCache = simulation.getMvaCache();
+      if (mvaCache != null) {
+        mvaCache.solve(mva, approximateMVA, nClients, thinkTime, maxQueueError);
+      } else if (!approximateMVA) {
+        mva.solve(nClients, thinkTime);
+      } else {
+        mva.solveApproximate(nClients, thinkTime, maxQueueError);
+      }
+      responseTime = mva.getResponseTime();
+      throughput = mva.getThroughput();
+      classResponseTimes[0] = responseTime;
+      classThroughputs[0] = throughput;
+
+      for (int k = 0; k < instances.size(); ++k) {
+        InteractiveTaskInstance instance = instances.get(k);
+        instance.setResponseTime(mva.getResponseTime(k));
+        instance.setQueueLength(mva.getQueueLength(k));
+        mvaThroughputs[k] = throughput * instance.getVisitRatio();
+        mvaUtilizations[k] = throughput * instance.getServiceTime() * instance.getVisitRatio();
       }
+    } else {
+      solveRequestClasses(nClients);
+    }
 
-      for (int i = 1; i <= nClients; ++i) {
+    //calculate instance throughput and utilization
+    boolean updated;
+    if (schedulingConvergence == SchedulingConvergence.HEURISTIC) {
+      updated = updateUtilization();
+    } else {
+      updated = updateUtilizationAccelerated();
+    }
 
-        responseTime = 0;
-        for (InteractiveTask task : tasks) {
-          for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
-            instance.setResponseTime(
-                instance.getEffectiveServiceTime() * (instance.getQueueLength() + 1));
+    //calculate instance demand
+    for (InteractiveTaskInstance instance : instances) {
+      Resource taskSize = instance.getTask().getResourceSize();
+
+      int cpu = (int) ((instance.getVM().getMaxCpu() * instance.getUtilization()) * (
+          instance.getEffectiveServiceTime() / instance.getServiceTime()));
+      instance.setResourceDemand(
+          Resource.create(
+              instance.getResourceDemand().numCpus(),
+              instance.getResourceDemand().numCores(),
+              cpu,
+              taskSize.memory(),
+              taskSize.bandwidth(),
+              taskSize.storage()));
+
+      if (instance.getFullDemand() == null) {
+        //the first time demand is calculated, we get the full resource demand assuming full resource availability (no contention)
+        instance.setFullDemand(instance.getResourceDemand());
+      }
+    }
 
-            responseTime += instance.getResponseTime() * instance.getVisitRatio();
-          }
-        }
+    //return true if utilization values changed (there was an update made), false otherwise
+    return updated;
+  }
 
-        throughput = i / (thinkTime + responseTime);
+  /**
+   * Solve the application's own workload (class 0) together with its additional request classes
+   * using Bard-Schweitzer approximate MVA, as exact multi-class MVA is exponential in the number of
+   * classes. Instance response time is the mean over classes weighted by visit rate, and instance
+   * queue length, throughput and utilization are summed over classes.
+   */
+  private void solveRequestClasses(int nClients) {
+    int nClasses = requestClasses.size() + 1;
+    int n = instances.size();
 
-        for (InteractiveTask task : tasks) {
-          for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
-            instance
-                .setQueueLength(throughput * instance.getVisitRatio() * instance.getResponseTime());
-          }
-        }
+    if (multiClassMva == null) {
+      multiClassMva = new MultiClassMvaSolver();
+    }
+    multiClassMva.reset(nClasses, n);
 
-      }
-      //end of MVA
-    } else {
-      //execute Schweitzer's approximate MVA algorithm
-      int nInstances = 0;
-      for (InteractiveTask task : tasks) {
-        nInstances += task.getInteractiveTaskInstances().size();
-      }
+    multiClassMva.setClass(0, nClients, thinkTime);
+    for (int k = 0; k < n; ++k) {
+      multiClassMva.set(0, k, mva.getServiceTime(k), mva.getVisitRatio(k));
+    }
 
-      for (InteractiveTask task : tasks) {
-        for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
-          instance.setQueueLength(nClients / (double) nInstances);
-        }
+    for (int c = 1; c < nClasses; ++c) {
+      RequestClass requestClass = requestClasses.get(c - 1);
+      multiClassMva.setClass(c, requestClass.getWorkload().getWorkOutputLevel(),
+                             requestClass.getThinkTime());
+
+      for (int k = 0; k < n; ++k) {
+        InteractiveTaskInstance instance = instances.get(k);
+        InteractiveTask task = tasks.get(instanceTasks[k]);
+
+        //scale the class service time with the instance speed and contention, as for the task's normal service time
+        double serviceTime = requestClass.getServiceTime(instanceTasks[k])
+                             * (instance.getEffectiveServiceTime() / task.getNormalServiceTime());
+        multiClassMva.set(c, k, serviceTime,
+                          requestClass.getVisitRatio(instanceTasks[k]) * instanceShares[k]);
       }
+    }
 
-      double maxChange = Double.MAX_VALUE;
-      while (maxChange > maxQueueError) {
-
-        responseTime = 0;
-        for (InteractiveTask task : tasks) {
-          for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
-            if (nClients > 0) {
-              instance.setResponseTime(
-                  instance.getEffectiveServiceTime() * (1 + (((nClients - 1) / (double) nClients)
-                                                             * instance.getQueueLength())));
-            } else {
-              instance.setResponseTime(
-                  0); //prevent responseTime from becoming NaN if there are no clients
-            }
-
-            responseTime += instance.getResponseTime() * instance.getVisitRatio();
-          }
-        }
+    multiClassMva.solve(maxQueueError);
 
-        throughput = nClients / (thinkTime + responseTime);
-
-        maxChange = 0;
-        for (InteractiveTask task : tasks) {
-          for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
-            maxChange = Math.max(
-                maxChange, Math.abs(
-                    instance.getQueueLength() - (
-                        throughput * instance.getVisitRatio() * instance.getResponseTime())));
-            instance.setQueueLength(
-                throughput * instance.getVisitRatio() * instance.getResponseTime());
-          }
-        }
+    responseTime = multiClassMva.getResponseTime();
+    throughput = multiClassMva.getThroughput();
+    for (int c = 0; c < nClasses; ++c) {
+      classResponseTimes[c] = multiClassMva.getResponseTime(c);
+      classThroughputs[c] = multiClassMva.getThroughput(c);
+    }
 
+    for (int k = 0; k < n; ++k) {
+      InteractiveTaskInstance instance = instances.get(k);
+      //utilization is taken at the uncontended service time
+      double contention = instance.getEffectiveServiceTime() / instance.getServiceTime();
+
+      double queueLength = 0;
+      double visits = 0;
+      double busy = 0;
+      double weightedResponseTime = 0;
+      for (int c = 0; c < nClasses; ++c) {
+        double classVisits = multiClassMva.getThroughput(c) * multiClassMva.getVisitRatio(c, k);
+        queueLength += multiClassMva.getQueueLength(c, k);
+        visits += classVisits;
+        busy += classVisits * multiClassMva.getServiceTime(c, k);
+        weightedResponseTime += classVisits * multiClassMva.getResponseTime(c, k);
       }
-      //end of Schweitzer's approximate MVA
+
+      instance.setResponseTime(visits > 0 ? weightedResponseTime / visits : 0);
+      instance.setQueueLength(queueLength);
+      mvaThroughputs[k] = visits;
+      mvaUtilizations[k] = busy / contention;
     }
+  }
 
-    //calculate instance throughput, utilization, demand
+  /**
+   * Set instance throughput and utilization from the MVA solution, using the HEURISTIC convergence
+   * method.
+   *
+   * @return true if utilization values changed enough to warrant another scheduling round
+   */
+  private boolean updateUtilization() {
     boolean updated = false;
-    for (InteractiveTask task : tasks) {
-      for (InteractiveTaskInstance instance : task.getInteractiveTaskInstances()) {
-        instance.setThroughput(throughput * instance.getVisitRatio());
+    for (int k = 0; k < instances.size(); ++k) {
+      InteractiveTaskInstance instance = instances.get(k);
+      instance.setThroughput(mvaThroughputs[k]);
+
+      double lastUtilization = instance.getUtilization();
+      instance.setUtilization(mvaUtilizations[k]);
+
+      instance.getUtilizationDeltas()
+          .addValue(Math.abs(lastUtilization - instance.getUtilization()));
+
+      if (instance.getUtilizationDeltas().getMean() > 0.02
+          //mean change is greater than 2% utilization
+          && instance.getUtilizationDeltas().getStandardDeviation() > 0
+          //checks to ensure that all utilization changes are not equal (prevents thrashing with > 0.02 difference)
+          && Math.abs(lastUtilization - instance.getUtilization())
+             > 0) {        //allows early termination if no change
+        updated = true;
+      }
+    }
+    return updated;
+  }
 
-        double lastUtilization = instance.getUtilization();
-        instance.setUtilization(throughput * instance.getServiceTime() * instance.getVisitRatio());
+  /**
+   * Set instance throughput and utilization from the MVA solution, treating utilization as the
+   * iterate of a fixed-point iteration accelerated by the DAMPED or ANDERSON convergence method.
+   *
+   * @return true if any utilization value is further than schedulingTolerance from the MVA solution
+   */
+  private boolean updateUtilizationAccelerated() {
+    int n = instances.size();
 
-        instance.getUtilizationDeltas()
-            .addValue(Math.abs(lastUtilization - instance.getUtilization()));
+    if (accelerator == null) {
+      accelerator = new FixedPointAccelerator(
+          schedulingDamping,
+          schedulingConvergence == SchedulingConvergence.ANDERSON ? schedulingAndersonDepth : 0);
+    }
+    if (utilizationIterate.length < n) {
+      utilizationIterate = new double[n];
+    }
 
-        if (instance.getUtilizationDeltas().getMean() > 0.02
-            //mean change is greater than 2% utilization
-            && instance.getUtilizationDeltas().getStandardDeviation() > 0
-            //checks to ensure that all utilization changes are not equal (prevents thrashing with > 0.02 difference)
-            && Math.abs(lastUtilization - instance.getUtilization())
-               > 0) {        //allows early termination if no change
-          updated = true;
-        }
+    for (int k = 0; k < n; ++k) {
+      InteractiveTaskInstance instance = instances.get(k);
+      instance.setThroughput(mvaThroughputs[k]);
+      utilizationIterate[k] = instance.getUtilization();
+    }
 
-        int cpu = (int) ((instance.getVM().getMaxCpu() * instance.getUtilization()) * (
-            instance.getEffectiveServiceTime() / instance.getServiceTime()));
-        instance.setResourceDemand(
-            Resource.create(
-                instance.getResourceDemand().numCpus(),
-                instance.getResourceDemand().numCores(),
-                cpu,
-                task.getResourceSize().memory(),
-                task.getResourceSize().bandwidth(),
-                task.getResourceSize().storage()));
-
-        if (instance.getFullDemand() == null) {
-          //the first time demand is calculated, we get the full resource demand assuming full resource availability (no contention)
-          instance.setFullDemand(instance.getResourceDemand());
-        }
+    //the first round of a step is solved without contention, and starts a new iteration from its solution
+    if (schedulingRounds == 1) {
+      accelerator.reset(n);
+      for (int k = 0; k < n; ++k) {
+        instances.get(k).setUtilization(mvaUtilizations[k]);
       }
+      return true;
     }
 
-    //return true if utilization values changed (there was an update made), false otherwise
-    return updated;
+    double residual = accelerator.next(utilizationIterate, mvaUtilizations);
+    for (int k = 0; k < n; ++k) {
+      instances.get(k).setUtilization(Math.min(1, Math.max(0, utilizationIterate[k])));
+    }
+
+    return residual > schedulingTolerance;
   }
 
   @Override
@@ -298,128 +454,181 @@ public class InteractiveApplication extends Application {
                                             double responseTimeLimit,
                                             double utilizationLimit) {
 
-    double responseTime = 0;
-    double throughput = 0;
-    int nClients;
-    ArrayList<DummyTask> dummyTasks = new ArrayList<>();
-    List<InteractiveTask> tasks = application.getInteractiveTasks();
+    MvaSolver mva = createMaxWorkloadSolver(application);
+    double thinkTime = application.getThinkTime();
 
-    //build array of tasks, one for each task instances, assuming each task has maxTaskSize instances
-    for (InteractiveTask task : tasks) {
+    //the bounds guarantee that upperBound clients exceed a limit, so the recursion never needs to go past it
+    long upperBound = maxWorkloadUpperBound(mva, thinkTime, responseTimeLimit, utilizationLimit);
 
-      for (int i = 0; i < task.getMaxInstances(); ++i) {
-        dummyTasks.add(new DummyTask(task.getNormalServiceTime(),
-                                     task.getVisitRatio() / task.getMaxInstances()));
-      }
-    }
+    return maxWorkloadExactMVA(mva, thinkTime, responseTimeLimit, utilizationLimit,
+                               (int) upperBound - 1);
+  }
 
-    //Use MVA algorithm to find the number of clients, terminating when the response time exceeds the limit OR a task utilization reaches 1
-    for (DummyTask t : dummyTasks) {
-      t.queueLength = 0;
-    }
+  public static int calculateMaxWorkloadApproxMVA(InteractiveApplication application,
+                                                  double responseTimeLimit,
+                                                  double utilizationLimit) {
 
-    boolean done = false;
+    MvaSolver mva = createMaxWorkloadSolver(application);
+    double thinkTime = application.getThinkTime();
 
-    nClients = 0;
-    while (responseTime <= responseTimeLimit && !done) {
-      ++nClients;
+    //bracket the answer with the asymptotic bounds: 'lower' clients are always within the limits, 'upper' never is.
+    //Schweitzer's approximation only roughly obeys the bounds, so the bracket is verified and widened if needed
+    long lower = maxWorkloadLowerBound(mva, thinkTime, responseTimeLimit, utilizationLimit);
+    long upper = maxWorkloadUpperBound(mva, thinkTime, responseTimeLimit, utilizationLimit);
 
-      responseTime = 0;
-      for (DummyTask t : dummyTasks) {
-        t.responseTime = t.serviceTime * (t.queueLength + 1);
-        responseTime += t.responseTime * t.visits;
+    if (lower > 0 && !withinApproxWorkloadLimits(mva, (int) lower, thinkTime,
+                                                 responseTimeLimit, utilizationLimit)) {
+      upper = lower;
+      lower = 0;
+    } else {
+      while (upper <= Integer.MAX_VALUE
+             && withinApproxWorkloadLimits(mva, (int) upper, thinkTime, responseTimeLimit,
+                                           utilizationLimit)) {
+        lower = upper;
+        upper *= 2;
       }
+      upper = Math.min(upper, (long) Integer.MAX_VALUE + 1);
+    }
 
-      throughput = nClients / (application.getThinkTime() + responseTime);
-
-      for (DummyTask t : dummyTasks) {
-        t.queueLength = throughput * t.visits * t.responseTime;
+    //bisect, keeping 'lower' within the limits and 'upper' outside of them. Response time and
+    //utilization grow with the number of clients, so this finds the boundary that stepping through
+    //every number of clients would, unless an iteration overshoots the utilization limit at fewer
+    //clients than the boundary
+    while (upper - lower > 1) {
+      long nClients = (lower + upper) / 2;
+      if (withinApproxWorkloadLimits(mva, (int) nClients, thinkTime, responseTimeLimit,
+                                     utilizationLimit)) {
+        lower = nClients;
+      } else {
+        upper = nClients;
+      }
+    }
 
-        t.utilization = throughput * t.serviceTime * t.visits;
+    //confirm the boundary with exact MVA, stepping down to the last number of clients within the
+    //limits if the approximation overshoots them (the exact recursion visits every client count up
+    //to 'lower', but costs one pass over the stations per count rather than an iterative solve)
+    if (lower > 0) {
+      lower = maxWorkloadExactMVA(mva, thinkTime, responseTimeLimit, utilizationLimit,
+                                  (int) lower);
+    }
 
-        //terminate if utilization reaches utilization limit on one task instance
-        if (t.utilization >= utilizationLimit) {
-          done = true;
-        }
+    return (int) lower;
+  }
 
+  /**
+   * Step through the exact MVA recursion until the response time exceeds the limit OR a task
+   * utilization reaches the limit, returning the last number of clients within the limits, or
+   * maxClients if the limits are not reached before then.
+   */
+  private static int maxWorkloadExactMVA(MvaSolver mva,
+                                         double thinkTime,
+                                         double responseTimeLimit,
+                                         double utilizationLimit,
+                                         int maxClients) {
+    mva.solve(0, thinkTime); //start the recursion from an empty network
+
+    for (int nClients = 1; nClients <= maxClients; ++nClients) {
+      mva.step(nClients, thinkTime);
+      if (!withinWorkloadLimits(mva, responseTimeLimit, utilizationLimit)) {
+        return nClients - 1;
       }
-
     }
 
-    return nClients - 1;
-
+    return maxClients;
   }
 
-  public static int calculateMaxWorkloadApproxMVA(InteractiveApplication application,
-                                                  double responseTimeLimit,
-                                                  double utilizationLimit) {
-
-    double responseTime = 0;
-    double throughput = 0;
-    int nClients;
-    ArrayList<DummyTask> dummyTasks = new ArrayList<DummyTask>();
-    List<InteractiveTask> tasks = application.getInteractiveTasks();
+  /**
+   * Build an MVA solver for the application, with one station for each task instance, assuming each
+   * task has maxInstances instances
+   */
+  private static MvaSolver createMaxWorkloadSolver(InteractiveApplication application) {
+    MvaSolver mva = new MvaSolver();
 
-    //build array of tasks, one for each task instances, assuming each task has maxTaskSize instances
-    for (InteractiveTask task : tasks) {
+    int size = 0;
+    for (InteractiveTask task : application.tasks) {
+      size += task.getMaxInstances();
+    }
+    mva.reset(size);
 
+    int station = 0;
+    for (InteractiveTask task : application.tasks) {
       for (int i = 0; i < task.getMaxInstances(); ++i) {
-        DummyTask
-            dummy =
-            new DummyTask(task.getNormalServiceTime(),
-                          task.getVisitRatio() / task.getMaxInstances());
-        dummyTasks.add(dummy);
-
+        mva.set(station++, task.getNormalServiceTime(),
+                task.getVisitRatio() / task.getMaxInstances());
       }
     }
 
-    //Use MVA algorithm to find the number of clients, terminating when the response time exceeds the limit OR a task utilization reaches 1
-    for (DummyTask t : dummyTasks) {
-      t.queueLength = 0;
-    }
-
-    boolean done = false;
+    return mva;
+  }
 
-    nClients = 0;
-    while (responseTime <= responseTimeLimit && !done) {
-      ++nClients;
+  private static boolean withinWorkloadLimits(MvaSolver mva,
+                                              double responseTimeLimit,
+                                              double utilizationLimit) {
+    return mva.getResponseTime() <= responseTimeLimit
+           && mva.getMaxUtilization() < utilizationLimit;
+  }
 
-      throughput = 0;
-      for (DummyTask t : dummyTasks) {
-        t.queueLength = nClients / dummyTasks.size();
-      }
+  private static boolean withinApproxWorkloadLimits(MvaSolver mva,
+                                                    int nClients,
+                                                    double thinkTime,
+                                                    double responseTimeLimit,
+                                                    double utilizationLimit) {
+    //as the search always has, start from the clients split evenly (in whole clients) between the
+    //stations, and stop at any iteration that reaches the utilization limit
+    mva.solveApproximate(nClients, thinkTime, maxQueueError, nClients / mva.size());
+    return mva.getResponseTime() <= responseTimeLimit
+           && mva.getPeakUtilization() < utilizationLimit;
+  }
 
-      double maxChange = Double.MAX_VALUE;
-      while (maxChange > maxQueueError) {
+  /**
+   * Get a number of clients that is guaranteed to be within the limits, using the pessimistic
+   * bounds R(N) <= N * D and X(N) <= N / (D + Z), where D is the total demand and Z the think time.
+   */
+  private static long maxWorkloadLowerBound(MvaSolver mva,
+                                            double thinkTime,
+                                            double responseTimeLimit,
+                                            double utilizationLimit) {
+    double totalDemand = 0;
+    double maxDemand = 0;
+    for (int k = 0; k < mva.size(); ++k) {
+      double demand = mva.getServiceTime(k) * mva.getVisitRatio(k);
+      totalDemand += demand;
+      maxDemand = Math.max(maxDemand, demand);
+    }
 
-        responseTime = 0;
-        for (DummyTask t : dummyTasks) {
-          t.responseTime =
-              t.serviceTime * (1 + ((nClients - 1) / (double) nClients) * t.queueLength);
-          responseTime += t.responseTime * t.visits;
-        }
+    double bound = Math.min(Math.floor(responseTimeLimit / totalDemand),
+                            Math.ceil(utilizationLimit * (totalDemand + thinkTime) / maxDemand) - 1);
 
-        throughput = nClients / (application.getThinkTime() + responseTime);
+    return (long) Math.max(0, Math.min(bound, Integer.MAX_VALUE));
+  }
 
-        maxChange = 0;
-        for (DummyTask t : dummyTasks) {
-          maxChange = Math.max(maxChange,
-                               Math.abs(t.queueLength - throughput * t.visits * t.responseTime));
-          t.queueLength = throughput * t.visits * t.responseTime;
-          t.utilization = throughput * t.serviceTime * t.visits;
+  /**
+   * Get a number of clients that is guaranteed to exceed one of the limits, using the asymptotic
+   * bounds R(N) >= N * Dmax - Z and X(N) >= N / (N * D + Z), where D is the total demand, Dmax the
+   * largest demand at any station and Z the think time.
+   */
+  private static long maxWorkloadUpperBound(MvaSolver mva,
+                                            double thinkTime,
+                                            double responseTimeLimit,
+                                            double utilizationLimit) {
+    double totalDemand = 0;
+    double maxDemand = 0;
+    for (int k = 0; k < mva.size(); ++k) {
+      double demand = mva.getServiceTime(k) * mva.getVisitRatio(k);
+      totalDemand += demand;
+      maxDemand = Math.max(maxDemand, demand);
+    }
 
-          //terminate if utilization reaches utilization limit on one task instance
-          if (t.utilization >= utilizationLimit) {
-            done = true;
-          }
-        }
-      }
+    double bound = Math.floor((responseTimeLimit + thinkTime) / maxDemand) + 1;
+    if (maxDemand > utilizationLimit * totalDemand) {
+      bound = Math.min(bound, Math.ceil(
+          utilizationLimit * thinkTime / (maxDemand - utilizationLimit * totalDemand)));
     }
 
-    return nClients - 1;
+    //one extra client keeps the bound clear of rounding error in the MVA solution at the boundary
+    return (long) Math.max(1, Math.min(bound + 1, Integer.MAX_VALUE));
   }
 
-
   public double getThinkTime() {
     return thinkTime;
   }
@@ -436,6 +645,45 @@ public class InteractiveApplication extends Application {
     return throughput;
   }
 
+  /**
+   * Get the number of request classes of the application, including its own workload (class 0)
+   */
+  public int getNumRequestClasses() {
+    return requestClasses.size() + 1;
+  }
+
+  /**
+   * Get the name of a request class. Class 0, the application's own workload, is named "default".
+   */
+  public String getRequestClassName(int requestClass) {
+    if (requestClass == 0) {
+      return "default";
+    }
+    return requestClasses.get(requestClass - 1).getName();
+  }
+
+  /**
+   * Get the additional request classes of the application, not including its own workload, as an
+   * unmodifiable view that reflects classes added later
+   */
+  public List<RequestClass> getRequestClasses() {
+    return requestClassesView;
+  }
+
+  public double getClassResponseTime(int requestClass) {
+    return classResponseTimes[requestClass];
+  }
+
+  public double getClassThroughput(int requestClass) {
+    return classThroughputs[requestClass];
+  }
+
+  public void addRequestClass(RequestClass requestClass) {
+    requestClasses.add(requestClass);
+    classResponseTimes = new double[requestClasses.size() + 1];
+    classThroughputs = new double[requestClasses.size() + 1];
+  }
+
   /**
    * Get the Workload for this Service
    */
@@ -474,6 +722,7 @@ public class InteractiveApplication extends Application {
     private Workload workload;
     private double thinkTime;
     ArrayList<InteractiveTask.Builder> tasks = new ArrayList<InteractiveTask.Builder>();
+    ArrayList<RequestClass> requestClasses = new ArrayList<RequestClass>();
 
     public Builder(Simulation simulation) {
       this.simulation = simulation;
@@ -519,23 +768,31 @@ public class InteractiveApplication extends Application {
       return this;
     }
 
+    /**
+     * Add a request class, with its own workload and think time, and a service time and visit
+     * ratio for each task in the order the tasks are added. The workload and think time set on the
+     * builder form the default class, using the service times and visit ratios of the tasks.
+     */
+    public Builder requestClass(String name,
+                                Workload workload,
+                                float thinkTime,
+                                double[] serviceTimes,
+                                double[] visitRatios) {
+      requestClasses.add(new RequestClass(name, workload, thinkTime, serviceTimes, visitRatios));
+      return this;
+    }
+
     @Override
     public InteractiveApplication build() {
+      for (RequestClass requestClass : requestClasses) {
+        if (requestClass.getNumTasks() != tasks.size()) {
+          throw new IllegalStateException("Request class " + requestClass.getName()
+                                          + " must have a service time and visit ratio for each task");
+        }
+      }
       return new InteractiveApplication(this);
     }
 
   }
 
-  static class DummyTask {
-    double serviceTime;
-    double visits;
-    double queueLength;
-    double responseTime;
-    double utilization;
-
-    public DummyTask(double serviceTime, double visits) {
-      this.serviceTime = serviceTime;
-      this.visits = visits;
-    }
-  }
 }
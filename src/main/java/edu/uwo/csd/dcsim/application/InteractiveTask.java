@@ -111,6 +111,9 @@ public class InteractiveTask extends Task {
     //if the application is active, ensure that the workload is enabled
     if (application.isActive()) {
       application.getWorkload().setEnabled(true);
+      for (RequestClass requestClass : application.getRequestClasses()) {
+        requestClass.getWorkload().setEnabled(true);
+      }
     }
   }
 
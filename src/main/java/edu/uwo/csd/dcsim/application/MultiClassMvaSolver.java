@@ -0,0 +1,207 @@
+package edu.uwo.csd.dcsim.application;
+
+/**
+ * Solves a closed, multi-class queueing network using the Bard-Schweitzer approximate MVA. Exact
+ * multi-class MVA has a state space that grows with the product of the class populations, while
+ * each Bard-Schweitzer iteration costs O(C * K) for C classes and K stations. The queue length
+ * seen by an arriving class c customer at station k is approximated by the total queue length at
+ * k, less the fraction 1 / N_c of the class c customers:
+ * <p>
+ * R_ck = s_ck * (1 + sum_j q_jk - q_ck / N_c)
+ * <p>
+ * With a single class this is Schweitzer's approximation, as used by {@link MvaSolver}. As in
+ * MvaSolver, the parameters and solution are held in primitive arrays (indexed class * stations +
+ * station) that are reused between solutions.
+ */
+public class MultiClassMvaSolver {
+
+  private double[] serviceTimes = new double[0];
+  private double[] visitRatios = new double[0];
+  private double[] queueLengths = new double[0];
+  private double[] responseTimes = new double[0];
+  private double[] totalQueueLengths = new double[0];
+
+  private int[] populations = new int[0];
+  private double[] thinkTimes = new double[0];
+  private double[] classResponseTimes = new double[0];
+  private double[] classThroughputs = new double[0];
+
+  private int classes = 0;
+  private int stations = 0;
+  private int iterations = 0;
+
+  /**
+   * Prepare the solver for a network with the given number of classes and stations, growing the
+   * internal arrays if required.
+   */
+  public void reset(int classes, int stations) {
+    int size = classes * stations;
+    if (serviceTimes.length < size) {
+      int capacity = Math.max(size, serviceTimes.length * 2);
+      serviceTimes = new double[capacity];
+      visitRatios = new double[capacity];
+      queueLengths = new double[capacity];
+      responseTimes = new double[capacity];
+    }
+    if (totalQueueLengths.length < stations) {
+      totalQueueLengths = new double[Math.max(stations, totalQueueLengths.length * 2)];
+    }
+    if (populations.length < classes) {
+      int capacity = Math.max(classes, populations.length * 2);
+      populations = new int[capacity];
+      thinkTimes = new double[capacity];
+      classResponseTimes = new double[capacity];
+      classThroughputs = new double[capacity];
+    }
+    this.classes = classes;
+    this.stations = stations;
+  }
+
+  /**
+   * Set the population and think time of a class
+   */
+  public void setClass(int requestClass, int nClients, double thinkTime) {
+    populations[requestClass] = nClients;
+    thinkTimes[requestClass] = thinkTime;
+  }
+
+  /**
+   * Set the service time and visit ratio of a class at a station
+   */
+  public void set(int requestClass, int station, double serviceTime, double visitRatio) {
+    int i = requestClass * stations + station;
+    serviceTimes[i] = serviceTime;
+    visitRatios[i] = visitRatio;
+  }
+
+  /**
+   * Solve the network, iterating until no queue length changes by more than maxQueueError.
+   */
+  public void solve(double maxQueueError) {
+    double[] s = serviceTimes;
+    double[] v = visitRatios;
+    double[] q = queueLengths;
+    double[] r = responseTimes;
+    double[] total = totalQueueLengths;
+
+    //start with each class spread evenly over the stations
+    for (int c = 0; c < classes; ++c) {
+      double initial = populations[c] / (double) stations;
+      for (int k = 0, i = c * stations; k < stations; ++k, ++i) {
+        q[i] = initial;
+      }
+    }
+
+    iterations = 0;
+    double maxChange = Double.MAX_VALUE;
+    while (maxChange > maxQueueError) {
+      ++iterations;
+
+      for (int k = 0; k < stations; ++k) {
+        total[k] = 0;
+      }
+      for (int c = 0; c < classes; ++c) {
+        for (int k = 0, i = c * stations; k < stations; ++k, ++i) {
+          total[k] += q[i];
+        }
+      }
+
+      maxChange = 0;
+      for (int c = 0; c < classes; ++c) {
+        int nClients = populations[c];
+        int base = c * stations;
+
+        double totalResponseTime = 0;
+        for (int k = 0, i = base; k < stations; ++k, ++i) {
+          if (nClients > 0) {
+            r[i] = s[i] * (1 + total[k] - q[i] / nClients);
+          } else {
+            r[i] = 0; //prevent responseTime from becoming NaN if there are no clients
+          }
+          totalResponseTime += r[i] * v[i];
+        }
+
+        double x = nClients / (thinkTimes[c] + totalResponseTime);
+
+        for (int k = 0, i = base; k < stations; ++k, ++i) {
+          double queueLength = x * v[i] * r[i];
+          maxChange = Math.max(maxChange, Math.abs(q[i] - queueLength));
+          q[i] = queueLength;
+        }
+
+        classResponseTimes[c] = totalResponseTime;
+        classThroughputs[c] = x;
+      }
+    }
+  }
+
+  public int getNumClasses() {
+    return classes;
+  }
+
+  public int getNumStations() {
+    return stations;
+  }
+
+  /**
+   * Get the number of iterations taken by the last solution
+   */
+  public int getIterations() {
+    return iterations;
+  }
+
+  public double getQueueLength(int requestClass, int station) {
+    return queueLengths[requestClass * stations + station];
+  }
+
+  public double getResponseTime(int requestClass, int station) {
+    return responseTimes[requestClass * stations + station];
+  }
+
+  public double getServiceTime(int requestClass, int station) {
+    return serviceTimes[requestClass * stations + station];
+  }
+
+  public double getVisitRatio(int requestClass, int station) {
+    return visitRatios[requestClass * stations + station];
+  }
+
+  /**
+   * Get the response time of a class (sum of its station response times weighted by visit ratio)
+   */
+  public double getResponseTime(int requestClass) {
+    return classResponseTimes[requestClass];
+  }
+
+  public double getThroughput(int requestClass) {
+    return classThroughputs[requestClass];
+  }
+
+  /**
+   * Get the total throughput of all classes
+   */
+  public double getThroughput() {
+    double throughput = 0;
+    for (int c = 0; c < classes; ++c) {
+      throughput += classThroughputs[c];
+    }
+    return throughput;
+  }
+
+  /**
+   * Get the mean response time over all classes, weighted by class throughput
+   */
+  public double getResponseTime() {
+    double throughput = getThroughput();
+    if (throughput == 0) {
+      return 0;
+    }
+
+    double responseTime = 0;
+    for (int c = 0; c < classes; ++c) {
+      responseTime += classThroughputs[c] * classResponseTimes[c];
+    }
+    return responseTime / throughput;
+  }
+
+}
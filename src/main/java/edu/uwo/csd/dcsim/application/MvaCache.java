@@ -0,0 +1,155 @@
+package edu.uwo.csd.dcsim.application;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memoizes MVA solutions across the InteractiveApplications of a Simulation. Applications generated
+ * from the same template share their task structure, service times and visit ratios, so the same
+ * MVA problem is often solved many times. Problems are keyed by their service times, visit ratios
+ * and think time, rounded to a tolerance, together with the number of clients and the algorithm
+ * used. The least recently used solutions are evicted once the cache holds maxEntries solutions.
+ */
+public class MvaCache {
+
+  private final int maxEntries;
+  private final double tolerance;
+  private final Map<Key, Solution> solutions;
+
+  private long hits = 0;
+  private long misses = 0;
+
+  /**
+   * Create a new MvaCache.
+   *
+   * @param maxEntries The maximum number of solutions to hold.
+   * @param tolerance  The tolerance to which service times, visit ratios and think time are
+   *                   rounded when matching problems. Zero requires an exact match.
+   */
+  public MvaCache(final int maxEntries, double tolerance) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("MvaCache must hold at least one entry");
+    }
+
+    this.maxEntries = maxEntries;
+    this.tolerance = tolerance;
+
+    solutions = new LinkedHashMap<Key, Solution>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Solution> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Solve the network loaded into the solver, using exact or Schweitzer's approximate MVA, reusing
+   * a previous solution of a matching problem if one is held.
+   */
+  public void solve(MvaSolver mva, boolean approximate, int nClients, double thinkTime,
+                    double maxQueueError) {
+
+    Key key = new Key(mva, approximate, nClients, thinkTime);
+    Solution solution = solutions.get(key);
+
+    if (solution != null) {
+      ++hits;
+      mva.setSolution(solution.queueLengths, solution.responseTimes, solution.responseTime,
+                      solution.throughput);
+    } else {
+      ++misses;
+      if (approximate) {
+        mva.solveApproximate(nClients, thinkTime, maxQueueError);
+      } else {
+        mva.solve(nClients, thinkTime);
+      }
+      solutions.put(key, new Solution(mva));
+    }
+  }
+
+  private long round(double value) {
+    if (tolerance > 0) {
+      return Math.round(value / tolerance);
+    }
+    return Double.doubleToLongBits(value);
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public double getHitRatio() {
+    return (hits + misses) == 0 ? 0 : hits / (double) (hits + misses);
+  }
+
+  public int size() {
+    return solutions.size();
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public void clear() {
+    solutions.clear();
+  }
+
+  private class Key {
+
+    private final long[] parameters;
+    private final int hashCode;
+
+    public Key(MvaSolver mva, boolean approximate, int nClients, double thinkTime) {
+      int size = mva.size();
+      parameters = new long[2 * size + 3];
+
+      for (int k = 0; k < size; ++k) {
+        parameters[2 * k] = round(mva.getServiceTime(k));
+        parameters[2 * k + 1] = round(mva.getVisitRatio(k));
+      }
+      parameters[2 * size] = round(thinkTime);
+      parameters[2 * size + 1] = nClients;
+      parameters[2 * size + 2] = approximate ? 1 : 0;
+
+      hashCode = Arrays.hashCode(parameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o ||
+             o instanceof Key &&
+             hashCode == ((Key) o).hashCode &&
+             Arrays.equals(parameters, ((Key) o).parameters);
+    }
+  }
+
+  private static class Solution {
+
+    private final double[] queueLengths;
+    private final double[] responseTimes;
+    private final double responseTime;
+    private final double throughput;
+
+    public Solution(MvaSolver mva) {
+      queueLengths = new double[mva.size()];
+      responseTimes = new double[mva.size()];
+      for (int k = 0; k < mva.size(); ++k) {
+        queueLengths[k] = mva.getQueueLength(k);
+        responseTimes[k] = mva.getResponseTime(k);
+      }
+      responseTime = mva.getResponseTime();
+      throughput = mva.getThroughput();
+    }
+  }
+
+}
@@ -0,0 +1,206 @@
+package edu.uwo.csd.dcsim.application;
+
+import java.util.Arrays;
+
+/**
+ * Solves the closed, single-class queueing network of an InteractiveApplication using exact Mean
+ * Value Analysis or Schweitzer's approximate MVA. Service times, visit ratios, queue lengths and
+ * response times of the stations (task instances) are held in primitive arrays that are reused
+ * between solutions, so that solving does not allocate once the solver has grown to the size of
+ * the network. Callers load the stations with {@link #set(int, double, double)}, solve, and read
+ * the results back per station.
+ */
+public class MvaSolver {
+
+  private double[] serviceTimes = new double[0];
+  private double[] visitRatios = new double[0];
+  private double[] queueLengths = new double[0];
+  private double[] responseTimes = new double[0];
+  private int size = 0;
+
+  private double responseTime = 0;
+  private double throughput = 0;
+  private double peakThroughput = 0; //highest throughput of any iteration of an approximate solution
+
+  /**
+   * Prepare the solver for a network of the given number of stations, growing the internal arrays
+   * if required.
+   */
+  public void reset(int size) {
+    if (serviceTimes.length < size) {
+      int capacity = Math.max(size, serviceTimes.length * 2);
+      serviceTimes = new double[capacity];
+      visitRatios = new double[capacity];
+      queueLengths = new double[capacity];
+      responseTimes = new double[capacity];
+    }
+    this.size = size;
+  }
+
+  /**
+   * Set the service time and visit ratio of a station
+   */
+  public void set(int station, double serviceTime, double visitRatio) {
+    serviceTimes[station] = serviceTime;
+    visitRatios[station] = visitRatio;
+  }
+
+  /**
+   * Solve the network for the given number of clients using exact MVA.
+   */
+  public void solve(int nClients, double thinkTime) {
+    Arrays.fill(queueLengths, 0, size, 0);
+    Arrays.fill(responseTimes, 0, size, 0);
+    responseTime = 0;
+    throughput = 0;
+    for (int i = 1; i <= nClients; ++i) {
+      step(i, thinkTime);
+    }
+  }
+
+  /**
+   * Perform a single step of the exact MVA recursion, advancing the network from nClients - 1 to
+   * nClients clients. Queue lengths must hold the solution for nClients - 1 clients (zero for the
+   * first step).
+   */
+  public void step(int nClients, double thinkTime) {
+    double[] s = serviceTimes;
+    double[] v = visitRatios;
+    double[] q = queueLengths;
+    double[] r = responseTimes;
+
+    double totalResponseTime = 0;
+    for (int k = 0; k < size; ++k) {
+      r[k] = s[k] * (q[k] + 1);
+      totalResponseTime += r[k] * v[k];
+    }
+
+    double x = nClients / (thinkTime + totalResponseTime);
+
+    for (int k = 0; k < size; ++k) {
+      q[k] = x * v[k] * r[k];
+    }
+
+    responseTime = totalResponseTime;
+    throughput = x;
+  }
+
+  /**
+   * Solve the network for the given number of clients using Schweitzer's approximate MVA, iterating
+   * until no queue length changes by more than maxQueueError.
+   */
+  public void solveApproximate(int nClients, double thinkTime, double maxQueueError) {
+    solveApproximate(nClients, thinkTime, maxQueueError, nClients / (double) size);
+  }
+
+  /**
+   * Solve the network using Schweitzer's approximate MVA, starting the iteration from the given
+   * queue length at every station.
+   */
+  public void solveApproximate(int nClients, double thinkTime, double maxQueueError,
+                               double initialQueueLength) {
+    double[] s = serviceTimes;
+    double[] v = visitRatios;
+    double[] q = queueLengths;
+    double[] r = responseTimes;
+
+    Arrays.fill(q, 0, size, initialQueueLength);
+
+    double x = 0;
+    peakThroughput = 0;
+    double totalResponseTime = 0;
+    double maxChange = Double.MAX_VALUE;
+    while (maxChange > maxQueueError) {
+
+      totalResponseTime = 0;
+      for (int k = 0; k < size; ++k) {
+        if (nClients > 0) {
+          r[k] = s[k] * (1 + (((nClients - 1) / (double) nClients) * q[k]));
+        } else {
+          r[k] = 0; //prevent responseTime from becoming NaN if there are no clients
+        }
+        totalResponseTime += r[k] * v[k];
+      }
+
+      x = nClients / (thinkTime + totalResponseTime);
+      peakThroughput = Math.max(peakThroughput, x);
+
+      maxChange = 0;
+      for (int k = 0; k < size; ++k) {
+        double queueLength = x * v[k] * r[k];
+        maxChange = Math.max(maxChange, Math.abs(q[k] - queueLength));
+        q[k] = queueLength;
+      }
+    }
+
+    responseTime = totalResponseTime;
+    throughput = x;
+  }
+
+  /**
+   * Load a previously computed solution of the network into the solver
+   */
+  void setSolution(double[] queueLengths, double[] responseTimes, double responseTime,
+                   double throughput) {
+    System.arraycopy(queueLengths, 0, this.queueLengths, 0, size);
+    System.arraycopy(responseTimes, 0, this.responseTimes, 0, size);
+    this.responseTime = responseTime;
+    this.throughput = throughput;
+  }
+
+  /**
+   * Get the highest utilization (throughput * service time * visit ratio) of any station in the
+   * current solution
+   */
+  public double getMaxUtilization() {
+    double max = 0;
+    for (int k = 0; k < size; ++k) {
+      max = Math.max(max, throughput * serviceTimes[k] * visitRatios[k]);
+    }
+    return max;
+  }
+
+  /**
+   * Get the highest utilization of any station at any iteration of the last approximate solution,
+   * which may exceed that of the solution itself while the queue lengths settle
+   */
+  public double getPeakUtilization() {
+    double max = 0;
+    for (int k = 0; k < size; ++k) {
+      max = Math.max(max, peakThroughput * serviceTimes[k] * visitRatios[k]);
+    }
+    return max;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public double getServiceTime(int station) {
+    return serviceTimes[station];
+  }
+
+  public double getVisitRatio(int station) {
+    return visitRatios[station];
+  }
+
+  public double getQueueLength(int station) {
+    return queueLengths[station];
+  }
+
+  public double getResponseTime(int station) {
+    return responseTimes[station];
+  }
+
+  /**
+   * Get the response time of the network (sum of station response times weighted by visit ratio)
+   */
+  public double getResponseTime() {
+    return responseTime;
+  }
+
+  public double getThroughput() {
+    return throughput;
+  }
+
+}
@@ -0,0 +1,65 @@
+package edu.uwo.csd.dcsim.application;
+
+import edu.uwo.csd.dcsim.application.workload.Workload;
+
+/**
+ * A class of requests in an InteractiveApplication with more than one type of client. Each class has
+ * its own closed population (driven by its Workload), think time, and service time and visit ratio
+ * at each task of the application, given in the order the tasks were added. The service time of a
+ * class at a task instance is scaled with the instance's speed and migration penalty in the same
+ * way as the task's normal service time, and its visit ratio is split between instances by the
+ * task load balancer.
+ */
+public class RequestClass {
+
+  private final String name;
+  private final Workload workload;
+  private final double thinkTime;
+  private final double[] serviceTimes;
+  private final double[] visitRatios;
+
+  public RequestClass(String name, Workload workload, double thinkTime, double[] serviceTimes,
+                      double[] visitRatios) {
+    if (serviceTimes.length != visitRatios.length) {
+      throw new IllegalArgumentException(
+          "Request class " + name + " must have a service time and visit ratio for each task");
+    }
+
+    this.name = name;
+    this.workload = workload;
+    this.thinkTime = thinkTime;
+    this.serviceTimes = serviceTimes.clone();
+    this.visitRatios = visitRatios.clone();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Workload getWorkload() {
+    return workload;
+  }
+
+  public double getThinkTime() {
+    return thinkTime;
+  }
+
+  public int getNumTasks() {
+    return serviceTimes.length;
+  }
+
+  /**
+   * Get the service time of this class at the task with the given index
+   */
+  public double getServiceTime(int task) {
+    return serviceTimes[task];
+  }
+
+  /**
+   * Get the visit ratio of this class at the task with the given index
+   */
+  public double getVisitRatio(int task) {
+    return visitRatios[task];
+  }
+
+}
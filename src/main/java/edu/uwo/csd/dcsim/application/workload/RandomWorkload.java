@@ -55,6 +55,11 @@ public class RandomWorkload extends Workload {
     return workLevel;
   }
 
+  @Override
+  protected long getUpdateInterval() {
+    return stepSize;
+  }
+
   @Override
   protected long updateWorkLevel() {
     workLevel = generateRandomWorkLevel();
@@ -0,0 +1,131 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import edu.uwo.csd.dcsim.core.Simulation;
+
+/**
+ * StreamingTraceWorkload sets the incoming work level based on a trace file, like TraceWorkload,
+ * but reads the trace sequentially with a TraceStreamReader rather than loading it into memory.
+ * This allows workloads to be driven by traces larger than the heap. The scale factor, offset and
+ * ramp up behave as in TraceWorkload. At the end of the trace the workload wraps around to the
+ * start of the trace or, if wrap around is disabled, drops to zero.
+ * <p>
+ * The read ahead buffer holds 'traceStreamReadAhead' chunks of 'traceStreamChunkSize' values. The
+ * trace is closed when the simulation run ends, or earlier by close().
+ */
+public class StreamingTraceWorkload extends Workload {
+
+  private static boolean propertiesChecked = false;
+  private static int chunkSize = 4096;
+  private static int readAheadChunks = 16;
+
+  int scaleFactor = 1; //the factor by which to scale work values
+  TraceStreamReader reader;
+
+  double currentValue; //the trace value at the current position
+
+  int rampUpPosition;
+  int rampUpSteps = 0;
+
+  /**
+   * Create a new StreamingTraceWorkload.
+   *
+   * @param fileName    The file name of the trace to use.
+   * @param scaleFactor The factor by which to scale trace workload values. Traces values are in the
+   *                    range [0, 1], so workload values are in the range [0, scaleFactor]
+   * @param offset      The offset in simulation time to start the trace at.
+   * @param wrapAround  Return to the start of the trace at its end, rather than dropping to zero.
+   */
+  public StreamingTraceWorkload(Simulation simulation, String fileName, int scaleFactor,
+                                long offset, boolean wrapAround) {
+    super(simulation,
+          false); //start trace workload NOT enabled -  application should enable the workload
+
+    if (!propertiesChecked) {
+      propertiesChecked = true;
+      if (Simulation.hasProperty("traceStreamChunkSize")) {
+        chunkSize = Integer.parseInt(Simulation.getProperty("traceStreamChunkSize"));
+      }
+      if (Simulation.hasProperty("traceStreamReadAhead")) {
+        readAheadChunks = Integer.parseInt(Simulation.getProperty("traceStreamReadAhead"));
+      }
+    }
+
+    this.scaleFactor = scaleFactor;
+
+    reader = new TraceStreamReader(fileName, offset, wrapAround, chunkSize, readAheadChunks);
+    simulation.addResource(reader);
+
+    currentValue = nextValue();
+  }
+
+  public StreamingTraceWorkload(Simulation simulation, String fileName, int scaleFactor,
+                                long offset) {
+    this(simulation, fileName, scaleFactor, offset, true);
+  }
+
+  public StreamingTraceWorkload(Simulation simulation, String fileName, long offset) {
+    this(simulation, fileName, 1, offset, true);
+  }
+
+  public void setRampUp(long time) {
+    rampUpPosition = 0;
+    rampUpSteps = (int) Math.ceil(time / (double) reader.getStepSize());
+  }
+
+  private double nextValue() {
+    double value = reader.next();
+    if (Double.isNaN(value)) {
+      return 0; //end of trace
+    }
+    return value;
+  }
+
+  @Override
+  protected int getCurrentWorkLevel() {
+
+    int level = (int) (currentValue * scaleFactor);
+
+    if (rampUpPosition < rampUpSteps) {
+      level = (int) Math.floor(level * (rampUpPosition / (double) rampUpSteps));
+    }
+
+    return level;
+  }
+
+  @Override
+  protected long updateWorkLevel() {
+
+    if (enabled) {
+      if (rampUpPosition < rampUpSteps) {
+        ++rampUpPosition;
+      } else {
+        currentValue = nextValue();
+      }
+    }
+
+    //align updates with the step size, as in TraceWorkload
+    return (simulation.getSimulationTime() - (simulation.getSimulationTime() % reader
+        .getStepSize())) + reader.getStepSize();
+  }
+
+  @Override
+  protected long getUpdateInterval() {
+    return reader.getStepSize();
+  }
+
+  /**
+   * Stop reading the trace, as if its end had been reached without wrapping around
+   */
+  public void close() {
+    reader.close();
+  }
+
+  public void setScaleFactor(int scaleFactor) {
+    this.scaleFactor = scaleFactor;
+  }
+
+  public int getScaleFactor() {
+    return scaleFactor;
+  }
+
+}
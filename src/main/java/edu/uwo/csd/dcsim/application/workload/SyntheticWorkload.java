@@ -0,0 +1,91 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import edu.uwo.csd.dcsim.application.workload.generator.WorkloadGenerator;
+import edu.uwo.csd.dcsim.core.Simulation;
+
+/**
+ * SyntheticWorkload sets the incoming work level from a series produced by a WorkloadGenerator,
+ * in place of a trace file. The series is generated into a primitive array in chunks of chunkSize
+ * steps as the simulation reaches them, so no random numbers are drawn on each update; a chunk size
+ * covering the whole simulation generates the series up front. As with TraceWorkload, updates fall
+ * on multiples of the step size, and the workload starts disabled until the application enables
+ * it.
+ */
+public class SyntheticWorkload extends Workload {
+
+  private static final int DEFAULT_CHUNK_SIZE = 1024;
+
+  int scaleFactor = 1; //the factor by which to scale work values
+  WorkloadGenerator generator;
+
+  double[] values; //the current chunk of the series
+  int currentPosition; //the current position in the chunk
+
+  /**
+   * Create a new SyntheticWorkload.
+   *
+   * @param generator   The generator of the series.
+   * @param scaleFactor The factor by which to scale series values. Series values are in the range
+   *                    [0, 1], so workload values are in the range [0, scaleFactor]
+   * @param chunkSize   The number of steps of the series to generate at a time.
+   */
+  public SyntheticWorkload(Simulation simulation, WorkloadGenerator generator, int scaleFactor,
+                           int chunkSize) {
+    super(simulation,
+          false); //start workload NOT enabled -  application should enable the workload
+
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+
+    this.generator = generator;
+    this.scaleFactor = scaleFactor;
+
+    values = new double[chunkSize];
+    generator.generate(values, 0, chunkSize);
+    currentPosition = 0;
+  }
+
+  public SyntheticWorkload(Simulation simulation, WorkloadGenerator generator, int scaleFactor) {
+    this(simulation, generator, scaleFactor, DEFAULT_CHUNK_SIZE);
+  }
+
+  @Override
+  protected int getCurrentWorkLevel() {
+    return (int) (values[currentPosition] * scaleFactor);
+  }
+
+  @Override
+  protected long updateWorkLevel() {
+
+    if (enabled) {
+      ++currentPosition;
+      if (currentPosition >= values.length) {
+        generator.generate(values, 0, values.length);
+        currentPosition = 0;
+      }
+    }
+
+    //align updates with the step size, as in TraceWorkload
+    return (simulation.getSimulationTime() - (simulation.getSimulationTime() % generator
+        .getStepSize())) + generator.getStepSize();
+  }
+
+  @Override
+  protected long getUpdateInterval() {
+    return generator.getStepSize();
+  }
+
+  public void setScaleFactor(int scaleFactor) {
+    this.scaleFactor = scaleFactor;
+  }
+
+  public int getScaleFactor() {
+    return scaleFactor;
+  }
+
+  public WorkloadGenerator getGenerator() {
+    return generator;
+  }
+
+}
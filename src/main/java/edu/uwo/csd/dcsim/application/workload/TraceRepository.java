@@ -0,0 +1,228 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds the workload traces in use by the simulations running in this JVM, so that simulations
+ * run concurrently or in sequence share a single copy of each trace. Each trace is loaded exactly
+ * once, even if several threads request it at the same time, and threads loading different traces
+ * do not wait for each other. A trace is referenced by each owner (normally a Simulation) that
+ * acquires it, and is evicted from the repository once every owner has released it. Owners are
+ * held weakly: the traces of an owner that is garbage collected without releasing them, such as a
+ * simulation that is never run, are released as the repository is next used.
+ */
+public class TraceRepository {
+
+  private static final TraceRepository instance = new TraceRepository();
+
+  //guarded by 'this'
+  private final Map<String, Entry> entries = new HashMap<String, Entry>();
+  private final Map<Owner, Set<String>> owners = new HashMap<Owner, Set<String>>();
+  private final ReferenceQueue<Object> collectedOwners = new ReferenceQueue<Object>();
+
+  private long hits = 0;
+  private long misses = 0;
+  private long loads = 0;
+  private long loadTime = 0; //nanoseconds
+  private long evictions = 0;
+
+  TraceRepository() {
+  }
+
+  public static TraceRepository getInstance() {
+    return instance;
+  }
+
+  /**
+   * Get a trace, loading it if it is not already held, and record that the owner references it.
+   * If another thread is loading the trace, wait for it to complete.
+   */
+  public WorkloadTrace acquire(Object owner, String fileName) {
+    Entry entry;
+    synchronized (this) {
+      releaseCollectedOwners();
+
+      entry = entries.get(fileName);
+      if (entry == null) {
+        entry = new Entry(fileName);
+        entries.put(fileName, entry);
+        ++misses;
+      } else {
+        ++hits;
+      }
+
+      Set<String> traces = owners.get(new Owner(owner, null));
+      if (traces == null) {
+        traces = new HashSet<String>();
+        owners.put(new Owner(owner, collectedOwners), traces);
+      }
+      if (traces.add(fileName)) {
+        ++entry.references;
+      }
+    }
+
+    try {
+      return entry.getTrace();
+    } catch (RuntimeException e) {
+      //the trace could not be loaded, so don't hold a reference to it
+      release(owner, fileName);
+      throw e;
+    }
+  }
+
+  /**
+   * Release all traces referenced by the owner, evicting any that are no longer referenced
+   */
+  public synchronized void release(Object owner) {
+    releaseCollectedOwners();
+    release(owners.remove(new Owner(owner, null)));
+  }
+
+  private synchronized void release(Object owner, String fileName) {
+    Owner key = new Owner(owner, null);
+    Set<String> traces = owners.get(key);
+    if (traces != null && traces.remove(fileName)) {
+      if (traces.isEmpty()) {
+        owners.remove(key);
+      }
+      dereference(fileName);
+    }
+  }
+
+  private void release(Set<String> traces) {
+    if (traces != null) {
+      for (String fileName : traces) {
+        dereference(fileName);
+      }
+    }
+  }
+
+  /**
+   * Release the traces of owners that have been garbage collected
+   */
+  private void releaseCollectedOwners() {
+    Reference<?> owner;
+    while ((owner = collectedOwners.poll()) != null) {
+      release(owners.remove(owner));
+    }
+  }
+
+  private void dereference(String fileName) {
+    Entry entry = entries.get(fileName);
+    if (--entry.references == 0) {
+      entries.remove(fileName);
+      ++evictions;
+    }
+  }
+
+  private synchronized void recordLoad(long time) {
+    ++loads;
+    loadTime += time;
+  }
+
+  /**
+   * Get the number of requests for a trace already held by the repository
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Get the number of requests for a trace not held by the repository
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized double getHitRatio() {
+    return (hits + misses) == 0 ? 0 : hits / (double) (hits + misses);
+  }
+
+  /**
+   * Get the number of traces loaded from file
+   */
+  public synchronized long getLoads() {
+    return loads;
+  }
+
+  /**
+   * Get the total time spent loading traces, in milliseconds
+   */
+  public synchronized double getLoadTime() {
+    return loadTime / 1000000d;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Get the number of traces currently held
+   */
+  public synchronized int size() {
+    releaseCollectedOwners();
+    return entries.size();
+  }
+
+  public synchronized boolean contains(String fileName) {
+    releaseCollectedOwners();
+    return entries.containsKey(fileName);
+  }
+
+  /**
+   * A weak reference to an owner, equal to another reference to the same owner
+   */
+  private static final class Owner extends WeakReference<Object> {
+
+    private final int hashCode;
+
+    public Owner(Object owner, ReferenceQueue<Object> queue) {
+      super(owner, queue);
+      hashCode = System.identityHashCode(owner);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof Owner)) {
+        return false;
+      }
+      Object owner = get();
+      return owner != null && owner == ((Owner) o).get();
+    }
+  }
+
+  private class Entry {
+
+    private final String fileName;
+    private WorkloadTrace trace = null; //guarded by this Entry
+    private int references = 0; //guarded by the repository
+
+    public Entry(String fileName) {
+      this.fileName = fileName;
+    }
+
+    public synchronized WorkloadTrace getTrace() {
+      if (trace == null) {
+        long start = System.nanoTime();
+        trace = WorkloadTrace.load(fileName);
+        recordLoad(System.nanoTime() - start);
+      }
+      return trace;
+    }
+  }
+
+}
@@ -0,0 +1,435 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads the values of a workload trace sequentially, for traces too large to hold in memory. Values
+ * are read ahead in chunks into a bounded queue, so that reading the trace overlaps with the
+ * simulation and memory use is limited to readAheadChunks * chunkSize values. Both text and binary
+ * traces (see {@link WorkloadTrace}) are supported; text traces not starting at time 0 are given
+ * an initial value of 0, as when loaded by WorkloadTrace.
+ * <p>
+ * Readers share a small pool of I/O threads. When half of a reader's read ahead chunks have been
+ * used, a task is submitted to the pool to fill its queue again, so that many readers do not need
+ * a thread each. The file is closed when the reader is closed or the end of the trace is reached
+ * (unless wrapping around).
+ */
+public class TraceStreamReader implements Closeable {
+
+  private static final double[] END = new double[0]; //marks the end of the trace in the queue
+  private static final int IO_THREADS = 4;
+
+  private final String fileName;
+  private final long stepSize;
+  private final ReadAhead readAhead;
+
+  private double[] chunk = null;
+  private int index = 0;
+  private boolean ended = false;
+
+  /**
+   * Create a new TraceStreamReader and start reading ahead.
+   *
+   * @param fileName        The file name of the trace.
+   * @param offset          The time (ms) into the trace at which to start reading. If the trace is
+   *                        shorter, the offset wraps around the trace.
+   * @param wrapAround      Return to the start of the trace after the last value, rather than
+   *                        ending.
+   * @param chunkSize       The number of values read at a time.
+   * @param readAheadChunks The maximum number of chunks read ahead of the simulation. More are
+   *                        read once at most half of them remain.
+   */
+  public TraceStreamReader(String fileName, long offset, boolean wrapAround, int chunkSize,
+                           int readAheadChunks) {
+    if (chunkSize <= 0 || readAheadChunks <= 0) {
+      throw new IllegalArgumentException("Chunk size and read ahead must be positive");
+    }
+
+    this.fileName = fileName;
+
+    //open the trace here to get the step size, and report a missing or invalid trace immediately
+    Source source = open(fileName);
+    stepSize = source.getStepSize();
+
+    readAhead = new ReadAhead(fileName, source, offset / stepSize, wrapAround, chunkSize,
+                              readAheadChunks);
+    readAhead.request();
+  }
+
+  /**
+   * Get the next value of the trace, waiting for it to be read if necessary
+   *
+   * @return The next value, or NaN if the end of the trace has been reached
+   */
+  public double next() {
+    if (chunk == null || index == chunk.length) {
+      if (ended) {
+        return Double.NaN;
+      }
+
+      try {
+        chunk = readAhead.queue.take();
+        readAhead.request();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted reading trace file '" + fileName + "'", e);
+      }
+      index = 0;
+
+      if (chunk == END) {
+        ended = true;
+        if (readAhead.error != null) {
+          throw new RuntimeException("Could not read trace file '" + fileName + "'",
+                                     readAhead.error);
+        }
+        return Double.NaN;
+      }
+    }
+
+    return chunk[index++];
+  }
+
+  /**
+   * Get the step size of the trace, in milliseconds
+   */
+  public long getStepSize() {
+    return stepSize;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public boolean isClosed() {
+    return readAhead.closed;
+  }
+
+  /**
+   * Stop reading ahead, and discard any values read
+   */
+  @Override
+  public void close() {
+    readAhead.closed = true;
+    readAhead.queue.clear();
+    chunk = null;
+    ended = true;
+    readAhead.request(); //to close the file
+  }
+
+  private static Source open(String fileName) {
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+          new FileInputStream(fileName)));
+      in.mark(4);
+      int magic;
+      try {
+        magic = in.readInt();
+      } catch (EOFException e) {
+        magic = 0;
+      }
+      in.reset();
+
+      if (magic == WorkloadTrace.MAGIC) {
+        return new BinarySource(fileName, in);
+      }
+      in.close();
+      return new TextSource(fileName);
+
+    } catch (FileNotFoundException e) {
+      throw new RuntimeException("Could not find trace file '" + fileName + "'", e);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not load trace file '" + fileName + "'", e);
+    }
+  }
+
+  /**
+   * The threads shared by all readers. Created when first used.
+   */
+  private static final class Executor {
+
+    static final ExecutorService INSTANCE =
+        Executors.newFixedThreadPool(IO_THREADS, runnable -> {
+          Thread thread = new Thread(runnable, "trace-stream-reader");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Fills the queue with chunks of the trace on the shared threads. At most one task per reader is
+   * submitted or running at a time, so the source is only read by one thread at a time.
+   */
+  private static class ReadAhead implements Runnable {
+
+    private final String fileName;
+    private final boolean wrapAround;
+    private final int chunkSize;
+    private final int lowWater; //the number of chunks at or below which the queue is filled
+    private final BlockingQueue<double[]> queue;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private Source source;
+    private long skip;
+    private boolean atEnd = false; //the source is closed, and END is to be queued
+    private volatile boolean finished = false; //the source is closed, and nothing more is queued
+
+    private volatile boolean closed = false;
+    private volatile Exception error = null;
+
+    public ReadAhead(String fileName, Source source, long skip, boolean wrapAround, int chunkSize,
+                     int readAheadChunks) {
+      this.fileName = fileName;
+      this.source = source;
+      this.skip = skip;
+      this.wrapAround = wrapAround;
+      this.chunkSize = chunkSize;
+      this.lowWater = readAheadChunks / 2;
+      this.queue = new ArrayBlockingQueue<double[]>(readAheadChunks);
+    }
+
+    /**
+     * Submit a task to fill the queue, if it is running low and no task is already running
+     */
+    public void request() {
+      if (needsFill() && running.compareAndSet(false, true)) {
+        Executor.INSTANCE.execute(this);
+      }
+    }
+
+    private boolean needsFill() {
+      return !finished && (closed || queue.size() <= lowWater);
+    }
+
+    @Override
+    public void run() {
+      //check again after finishing, as a request made while filling is dropped
+      do {
+        fill();
+        running.set(false);
+      } while (needsFill() && running.compareAndSet(false, true));
+    }
+
+    private void fill() {
+      try {
+        if (skip > 0) {
+          skipValues();
+          skip = 0;
+        }
+
+        while (!atEnd && !closed && queue.remainingCapacity() > 0) {
+          double[] values = new double[chunkSize];
+          int n = source.read(values);
+
+          if (n == 0) {
+            source.close();
+            if (wrapAround) {
+              source = open(fileName);
+              n = source.read(values);
+            }
+            if (n == 0) {
+              atEnd = true; //end of the trace, or an empty trace
+              break;
+            }
+          }
+
+          queue.offer(n == chunkSize ? values : Arrays.copyOf(values, n));
+        }
+      } catch (Exception e) {
+        error = e;
+        atEnd = true;
+      }
+
+      if (closed || (atEnd && queue.offer(END))) {
+        closeSource();
+        finished = true;
+      }
+    }
+
+    private void closeSource() {
+      try {
+        source.close();
+      } catch (IOException e) {
+        //ignore, no more values will be read
+      }
+    }
+
+    /**
+     * Skip the initial values. If the end of the trace is reached, the length of the trace is
+     * known, and the remaining skip is reduced modulo the length.
+     */
+    private void skipValues() throws IOException {
+      long skipped = source.skip(skip);
+      if (skipped < skip) {
+        source.close();
+        source = open(fileName);
+        if (skipped > 0) {
+          source.skip((skip - skipped) % skipped);
+        }
+      }
+    }
+  }
+
+  private interface Source extends Closeable {
+
+    long getStepSize();
+
+    /**
+     * Read values into the array, returning the number read (0 at the end of the trace)
+     */
+    int read(double[] values) throws IOException;
+
+    /**
+     * Skip values, returning the number skipped (fewer than n at the end of the trace)
+     */
+    long skip(long n) throws IOException;
+  }
+
+  private static class TextSource implements Source {
+
+    private final BufferedReader input;
+    private final long stepSize;
+    private boolean first = true;
+    private String pending = null; //a line read but not yet returned
+
+    public TextSource(String fileName) throws IOException {
+      input = new BufferedReader(new FileReader(fileName));
+
+      //read first line, which should contain the step size
+      String line = input.readLine();
+      if (line == null) {
+        input.close();
+        throw new IOException("Trace file '" + fileName + "' is empty");
+      }
+      stepSize = Long.parseLong(line.trim()) * 1000; //file is in seconds, simulation runs in ms
+    }
+
+    @Override
+    public long getStepSize() {
+      return stepSize;
+    }
+
+    private boolean hasNext() throws IOException {
+      if (pending == null) {
+        pending = input.readLine();
+      }
+      return pending != null;
+    }
+
+    private double nextValue() throws IOException {
+      int seperator = pending.indexOf(',');
+
+      //if 0 not first, assume (0, 0) as initial time/workload pair
+      if (first) {
+        first = false;
+        if (Long.parseLong(pending.substring(0, seperator).trim()) != 0) {
+          return 0;
+        }
+      }
+
+      double value = Double.parseDouble(pending.substring(seperator + 1).trim());
+      pending = null;
+      return value;
+    }
+
+    @Override
+    public int read(double[] values) throws IOException {
+      int n = 0;
+      while (n < values.length && hasNext()) {
+        values[n++] = nextValue();
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = 0;
+      while (skipped < n && hasNext()) {
+        nextValue();
+        ++skipped;
+      }
+      return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
+
+  private static class BinarySource implements Source {
+
+    private final DataInputStream input;
+    private final int valueBytes;
+    private final int size;
+    private final long stepSize;
+    private long position = 0;
+
+    public BinarySource(String fileName, DataInputStream input) throws IOException {
+      this.input = input;
+
+      input.readInt(); //magic
+      if (input.readInt() != WorkloadTrace.VERSION) {
+        input.close();
+        throw new IOException("Unsupported version of binary trace file '" + fileName + "'");
+      }
+      valueBytes = input.readInt();
+      size = input.readInt();
+      stepSize = input.readLong();
+      input.readLong(); //time of last value
+
+      if (valueBytes != 4 && valueBytes != 8) {
+        input.close();
+        throw new IOException("Corrupt binary trace file '" + fileName + "'");
+      }
+    }
+
+    @Override
+    public long getStepSize() {
+      return stepSize;
+    }
+
+    @Override
+    public int read(double[] values) throws IOException {
+      int n = (int) Math.min(values.length, size - position);
+      for (int i = 0; i < n; ++i) {
+        values[i] = valueBytes == 4 ? input.readFloat() : input.readDouble();
+      }
+      position += n;
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long count = Math.min(n, size - position);
+      long bytes = count * valueBytes;
+      while (bytes > 0) {
+        long skipped = input.skip(bytes);
+        if (skipped <= 0) {
+          throw new EOFException("Binary trace file is shorter than its header specifies");
+        }
+        bytes -= skipped;
+      }
+      position += count;
+      return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
+
+}
@@ -45,6 +45,15 @@ public abstract class Workload implements SimulationEventListener {
    */
   protected abstract long updateWorkLevel();
 
+  /**
+   * Get the fixed interval (ms) between updates of the workload level, if updates always fall on
+   * multiples of the interval, or 0 otherwise. Workloads with an update interval can be updated by
+   * the simulation's WorkloadClock rather than by their own events.
+   */
+  protected long getUpdateInterval() {
+    return 0;
+  }
+
   public int getWorkOutputLevel() {
     if (!enabled) {
       return 0;
@@ -66,7 +75,10 @@ public abstract class Workload implements SimulationEventListener {
     if (e instanceof DaemonRunEvent) {
       long nextEventTime = updateWorkLevel();
       if (nextEventTime > simulation.getSimulationTime()) {
-        simulation.sendEvent(new DaemonRunEvent(this), nextEventTime);
+        WorkloadClock clock = simulation.getWorkloadClock();
+        if (clock == null || !clock.register(this, nextEventTime)) {
+          simulation.sendEvent(new DaemonRunEvent(this), nextEventTime);
+        }
       }
     }
   }
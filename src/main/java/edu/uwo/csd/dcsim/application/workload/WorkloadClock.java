@@ -0,0 +1,154 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.uwo.csd.dcsim.core.Event;
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.core.SimulationEventListener;
+import edu.uwo.csd.dcsim.core.events.DaemonRunEvent;
+
+/**
+ * Updates all workloads sharing an update interval from a single repeating tick event, rather than
+ * each workload scheduling its own update event. Workloads whose updates fall on multiples of
+ * their update interval (see {@link Workload#getUpdateInterval()}), such as TraceWorkload, join
+ * the tick for their interval after their first update. A workload leaves the tick, and returns to
+ * scheduling its own events, if an update does not return the next tick time.
+ * <p>
+ * Enabled by the 'coalesceWorkloadUpdates' property. Workloads updated by a tick are updated
+ * together, in the order they joined, rather than interleaved with other events at the same time.
+ */
+public class WorkloadClock {
+
+  private final Simulation simulation;
+  private final Map<Long, Tick> ticks = new HashMap<Long, Tick>();
+
+  private long tickCount = 0;
+  private long updateCount = 0;
+
+  public WorkloadClock(Simulation simulation) {
+    this.simulation = simulation;
+  }
+
+  /**
+   * Register a workload to be updated by the tick for its update interval, starting at
+   * nextUpdate.
+   *
+   * @return false if the workload cannot be updated by a tick, and must schedule its own update
+   */
+  public boolean register(Workload workload, long nextUpdate) {
+    long interval = workload.getUpdateInterval();
+    if (interval <= 0 || nextUpdate % interval != 0) {
+      return false;
+    }
+
+    Tick tick = ticks.get(interval);
+    if (tick == null) {
+      tick = new Tick(interval);
+      ticks.put(interval, tick);
+    }
+    tick.add(workload, nextUpdate);
+
+    return true;
+  }
+
+  /**
+   * Get the number of tick events run
+   */
+  public long getTickCount() {
+    return tickCount;
+  }
+
+  /**
+   * Get the number of workload updates made by tick events
+   */
+  public long getUpdateCount() {
+    return updateCount;
+  }
+
+  /**
+   * Get the number of workloads currently updated by tick events
+   */
+  public int size() {
+    int size = 0;
+    for (Tick tick : ticks.values()) {
+      size += tick.count;
+    }
+    return size;
+  }
+
+  private class Tick implements SimulationEventListener {
+
+    private final long interval;
+    private Workload[] workloads = new Workload[16];
+    private long[] due = new long[16]; //time of the next update of each workload
+    private int count = 0;
+    private long nextTick = -1; //time of the scheduled tick event, -1 if none is scheduled
+
+    public Tick(long interval) {
+      this.interval = interval;
+    }
+
+    public void add(Workload workload, long nextUpdate) {
+      if (count == workloads.length) {
+        workloads = Arrays.copyOf(workloads, count * 2);
+        due = Arrays.copyOf(due, count * 2);
+      }
+      workloads[count] = workload;
+      due[count] = nextUpdate;
+      ++count;
+
+      //nextUpdate is the next multiple of the interval, so it is never before a scheduled tick
+      if (nextTick == -1) {
+        nextTick = nextUpdate;
+        simulation.sendEvent(new DaemonRunEvent(this), nextTick);
+      }
+    }
+
+    private void remove(int i) {
+      System.arraycopy(workloads, i + 1, workloads, i, count - i - 1);
+      System.arraycopy(due, i + 1, due, i, count - i - 1);
+      workloads[--count] = null;
+    }
+
+    @Override
+    public void handleEvent(Event e) {
+      //the tick time, which may be earlier than the simulation time if events are being quantized
+      long time = nextTick;
+      long next = time + interval;
+      ++tickCount;
+
+      int i = 0;
+      while (i < count) {
+        //workloads that joined during this tick's time step are first updated by the next tick
+        if (due[i] != time) {
+          ++i;
+          continue;
+        }
+
+        Workload workload = workloads[i];
+        long nextUpdate = workload.updateWorkLevel();
+        ++updateCount;
+
+        if (nextUpdate == next) {
+          due[i++] = next;
+        } else {
+          remove(i);
+          if (nextUpdate > simulation.getSimulationTime()) {
+            simulation.sendEvent(new DaemonRunEvent(workload), nextUpdate);
+          }
+        }
+      }
+
+      if (count > 0) {
+        nextTick = next;
+        simulation.sendEvent(new DaemonRunEvent(this), nextTick);
+      } else {
+        nextTick = -1;
+        ticks.remove(interval);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,233 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A workload trace, holding a workload value in the range [0, 1] for each step of the trace. Traces
+ * are loaded from either of two formats:
+ * <p>
+ * Text traces list the step size (in seconds) on the first line, followed by one 'time, value' pair
+ * per line, with times in seconds.
+ * <p>
+ * Binary traces, produced from text traces by {@link WorkloadTraceConverter}, hold a fixed size
+ * header followed by a column of float or double values. Binary traces are memory mapped rather
+ * than read, so they load almost instantly and the pages are shared between all simulations
+ * running on the machine. A single mapping is limited to 2 GB, so the values are mapped in segments
+ * of SEGMENT_VALUES values each. The header (big endian) is:
+ * <pre>
+ *   int  magic ("DCTR")
+ *   int  version
+ *   int  bytes per value (4 = float, 8 = double)
+ *   int  number of values
+ *   long step size (ms)
+ *   long time of the last value (ms)
+ * </pre>
+ */
+public class WorkloadTrace {
+
+  static final int MAGIC = 0x44435452; //"DCTR"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 32;
+  static final int SEGMENT_SHIFT = 27;
+  static final int SEGMENT_VALUES = 1 << SEGMENT_SHIFT; //at most 1 GB, with 8 byte values
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+  private final String fileName;
+  private final long stepSize;
+  private final long lastTime;
+  private final int size;
+
+  private final double[] values; //values of a text trace, null if the trace is binary
+  private final ByteBuffer[] segments; //mapped values of a binary trace, null if text
+  private final int valueBytes;
+
+  private WorkloadTrace(String fileName, long stepSize, long lastTime, double[] values) {
+    this.fileName = fileName;
+    this.stepSize = stepSize;
+    this.lastTime = lastTime;
+    this.size = values.length;
+    this.values = values;
+    this.segments = null;
+    this.valueBytes = 8;
+  }
+
+  /**
+   * Read the header of a binary trace from the file, positioned after the magic number, and map
+   * its values
+   */
+  private WorkloadTrace(String fileName, RandomAccessFile file) throws IOException {
+    if (file.readInt() != VERSION) {
+      throw new RuntimeException("Unsupported version of binary trace file '" + fileName + "'");
+    }
+
+    this.fileName = fileName;
+    this.valueBytes = file.readInt();
+    this.size = file.readInt();
+    this.stepSize = file.readLong();
+    this.lastTime = file.readLong();
+    this.values = null;
+
+    if ((valueBytes != 4 && valueBytes != 8) || size < 0
+        || file.length() < HEADER_SIZE + (long) size * valueBytes) {
+      throw new RuntimeException("Corrupt binary trace file '" + fileName + "'");
+    }
+
+    //the mappings remain valid after the file is closed
+    FileChannel channel = file.getChannel();
+    segments = new ByteBuffer[(int) ((size + (long) SEGMENT_VALUES - 1) >> SEGMENT_SHIFT)];
+    for (int i = 0; i < segments.length; ++i) {
+      long first = (long) i << SEGMENT_SHIFT;
+      long count = Math.min(SEGMENT_VALUES, size - first);
+      segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * valueBytes,
+                                count * valueBytes);
+    }
+  }
+
+  /**
+   * Load a trace, detecting whether the file is a binary or text trace
+   */
+  public static WorkloadTrace load(String fileName) {
+    try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+      if (file.length() >= HEADER_SIZE && file.readInt() == MAGIC) {
+        return new WorkloadTrace(fileName, file);
+      }
+    } catch (FileNotFoundException e) {
+      throw new RuntimeException("Could not find trace file '" + fileName + "'", e);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not load trace file '" + fileName + "'", e);
+    }
+
+    return loadText(fileName);
+  }
+
+  private static WorkloadTrace loadText(String fileName) {
+    long[] times = new long[1024];
+    double[] values = new double[1024];
+    int size = 0;
+    long stepSize;
+
+    try (BufferedReader input = new BufferedReader(new FileReader(fileName))) {
+
+      String line;
+
+      //read first line, which should contain the step size
+      line = input.readLine();
+      stepSize = Long.parseLong(line.trim()) * 1000; //file is in seconds, simulation runs in ms
+
+      int seperator;
+      while ((line = input.readLine()) != null) {
+        if (size == times.length) {
+          times = Arrays.copyOf(times, size * 2);
+          values = Arrays.copyOf(values, size * 2);
+        }
+        seperator = line.indexOf(',');
+        times[size] = Long.parseLong(line.substring(0, seperator).trim())
+                      * 1000; //file is in seconds, simulation runs in ms
+        values[size] = Double.parseDouble(line.substring(seperator + 1).trim());
+        ++size;
+      }
+
+    } catch (FileNotFoundException e) {
+      throw new RuntimeException("Could not find trace file '" + fileName + "'", e);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not load trace file '" + fileName + "'", e);
+    }
+
+    //if 0 not first, assume (0, 0) as initial time/workload pair
+    if (size == 0 || times[0] != 0) {
+      double[] shifted = new double[size + 1];
+      System.arraycopy(values, 0, shifted, 1, size);
+      return new WorkloadTrace(fileName, stepSize, size == 0 ? 0 : times[size - 1], shifted);
+    }
+
+    return new WorkloadTrace(fileName, stepSize, times[size - 1], Arrays.copyOf(values, size));
+  }
+
+  /**
+   * Write the trace to a binary trace file.
+   *
+   * @param singlePrecision Store values as floats rather than doubles, halving the file size.
+   */
+  public void writeBinary(String outputFileName, boolean singlePrecision) throws IOException {
+    int bytes = singlePrecision ? 4 : 8;
+
+    try (RandomAccessFile file = new RandomAccessFile(outputFileName, "rw")) {
+      file.setLength(0);
+      FileChannel channel = file.getChannel();
+
+      //written through a fixed size buffer, as the trace may be larger than a single buffer
+      ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+      out.putInt(MAGIC);
+      out.putInt(VERSION);
+      out.putInt(bytes);
+      out.putInt(size);
+      out.putLong(stepSize);
+      out.putLong(lastTime);
+      for (int i = 0; i < size; ++i) {
+        if (out.remaining() < bytes) {
+          write(channel, out);
+        }
+        if (singlePrecision) {
+          out.putFloat((float) getValue(i));
+        } else {
+          out.putDouble(getValue(i));
+        }
+      }
+      write(channel, out);
+    }
+  }
+
+  private static void write(FileChannel channel, ByteBuffer out) throws IOException {
+    out.flip();
+    while (out.hasRemaining()) {
+      channel.write(out);
+    }
+    out.clear();
+  }
+
+  /**
+   * Get the workload value at a position in the trace
+   */
+  public double getValue(int position) {
+    if (values != null) {
+      return values[position];
+    }
+    ByteBuffer segment = segments[position >>> SEGMENT_SHIFT];
+    int index = position & (SEGMENT_VALUES - 1);
+    if (valueBytes == 4) {
+      return segment.getFloat(index * 4);
+    }
+    return segment.getDouble(index * 8);
+  }
+
+  /**
+   * Get the number of values (steps) in the trace
+   */
+  public int size() {
+    return size;
+  }
+
+  public long getLastTime() {
+    return lastTime;
+  }
+
+  public long getStepSize() {
+    return stepSize;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public boolean isBinary() {
+    return segments != null;
+  }
+
+}
@@ -0,0 +1,40 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import java.io.IOException;
+
+/**
+ * Converts text workload traces into the binary trace format read by {@link WorkloadTrace}, which
+ * TraceWorkload memory maps instead of parsing.
+ * <p>
+ * Usage: WorkloadTraceConverter [-float] input output [input output ...]
+ * <p>
+ * With -float, values are stored in single precision, halving the size of the binary trace at the
+ * cost of rounding the trace values.
+ */
+public class WorkloadTraceConverter {
+
+  public static void convert(String inputFileName, String outputFileName, boolean singlePrecision)
+      throws IOException {
+    WorkloadTrace.load(inputFileName).writeBinary(outputFileName, singlePrecision);
+  }
+
+  public static void main(String[] args) throws IOException {
+    boolean singlePrecision = false;
+    int first = 0;
+    if (args.length > 0 && args[0].equals("-float")) {
+      singlePrecision = true;
+      first = 1;
+    }
+
+    if (args.length - first == 0 || (args.length - first) % 2 != 0) {
+      System.err.println("Usage: WorkloadTraceConverter [-float] input output [input output ...]");
+      System.exit(1);
+    }
+
+    for (int i = first; i < args.length; i += 2) {
+      convert(args[i], args[i + 1], singlePrecision);
+      System.out.println("Converted " + args[i] + " to " + args[i + 1]);
+    }
+  }
+
+}
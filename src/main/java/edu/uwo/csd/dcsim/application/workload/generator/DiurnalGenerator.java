@@ -0,0 +1,64 @@
+package edu.uwo.csd.dcsim.application.workload.generator;
+
+import edu.uwo.csd.dcsim.common.SimTime;
+
+/**
+ * Generates a daily (or other periodic) cycle: a sinusoid around a mean level, plus Gaussian
+ * noise.
+ * <p>
+ * value(t) = mean + amplitude * cos(2 * pi * (t - peakTime) / period) + noise * N(0, 1)
+ */
+public class DiurnalGenerator extends WorkloadGenerator {
+
+  private final double mean;
+  private final double amplitude;
+  private final long period;
+  private final long peakTime;
+  private final double noise;
+
+  /**
+   * @param mean      The mean workload level.
+   * @param amplitude The amplitude of the cycle.
+   * @param period    The period (ms) of the cycle.
+   * @param peakTime  The time (ms) within the period at which the cycle peaks.
+   * @param noise     The standard deviation of the noise added to each value.
+   */
+  public DiurnalGenerator(long stepSize, long seed, double mean, double amplitude, long period,
+                          long peakTime, double noise) {
+    super(stepSize, seed);
+
+    if (period <= 0) {
+      throw new IllegalArgumentException("Period must be positive");
+    }
+
+    this.mean = mean;
+    this.amplitude = amplitude;
+    this.period = period;
+    this.peakTime = peakTime;
+    this.noise = noise;
+  }
+
+  /**
+   * Create a daily cycle peaking at the given hour of the day
+   */
+  public DiurnalGenerator(long stepSize, long seed, double mean, double amplitude, int peakHour,
+                          double noise) {
+    this(stepSize, seed, mean, amplitude, SimTime.days(1), SimTime.hours(peakHour), noise);
+  }
+
+  @Override
+  protected void fill(double[] values, int offset, int count) {
+    //the phase is taken from the absolute time of each step, so the series is the same however it is chunked
+    double radiansPerMs = 2 * Math.PI / period;
+    long time = position * stepSize - peakTime;
+    for (int i = 0; i < count; ++i, time += stepSize) {
+      values[offset + i] = mean + amplitude * Math.cos((time % period) * radiansPerMs);
+    }
+    if (noise > 0) {
+      for (int i = 0; i < count; ++i) {
+        values[offset + i] += noise * random.nextGaussian();
+      }
+    }
+  }
+
+}
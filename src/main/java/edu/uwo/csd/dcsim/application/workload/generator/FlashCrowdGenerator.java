@@ -0,0 +1,116 @@
+package edu.uwo.csd.dcsim.application.workload.generator;
+
+import java.util.Arrays;
+
+/**
+ * Adds flash crowds to a base series: sudden spikes that arrive at random (as a Poisson process),
+ * rise linearly to their peak, and then decay exponentially back to the base. Overlapping spikes
+ * add together.
+ */
+public class FlashCrowdGenerator extends WorkloadGenerator {
+
+  private final WorkloadGenerator base; //null for a constant base level
+  private final double baseLevel;
+  private final double spikeProbability; //probability of a spike starting in a step
+  private final double peak;
+  private final int riseSteps;
+  private final double decay; //factor applied to a decaying spike each step
+
+  private double rising = 0; //total peak height of spikes currently rising
+  private double risingStep = 0; //total increase per step of spikes currently rising
+  private int[] riseRemaining = new int[4];
+  private double[] riseHeight = new double[4];
+  private int nRising = 0;
+  private double decaying = 0; //current height of decaying spikes
+
+  /**
+   * @param base     The series the spikes are added to.
+   * @param meanGap  The mean time (ms) between the start of spikes.
+   * @param peak     The height of a spike at its peak.
+   * @param riseTime The time (ms) taken to reach the peak.
+   * @param halfLife The time (ms) for a spike to decay to half its peak.
+   */
+  public FlashCrowdGenerator(long stepSize, long seed, WorkloadGenerator base, long meanGap,
+                             double peak, long riseTime, long halfLife) {
+    this(stepSize, seed, base, 0, meanGap, peak, riseTime, halfLife);
+  }
+
+  /**
+   * Create a series of spikes on a constant base level
+   */
+  public FlashCrowdGenerator(long stepSize, long seed, double baseLevel, long meanGap,
+                             double peak, long riseTime, long halfLife) {
+    this(stepSize, seed, null, baseLevel, meanGap, peak, riseTime, halfLife);
+  }
+
+  private FlashCrowdGenerator(long stepSize, long seed, WorkloadGenerator base, double baseLevel,
+                              long meanGap, double peak, long riseTime, long halfLife) {
+    super(stepSize, seed);
+
+    if (base != null && base.getStepSize() != stepSize) {
+      throw new IllegalArgumentException("Base series must have the same step size");
+    }
+    if (meanGap <= 0 || halfLife <= 0) {
+      throw new IllegalArgumentException("Mean gap and half life must be positive");
+    }
+
+    this.base = base;
+    this.baseLevel = baseLevel;
+    this.spikeProbability = 1 - Math.exp(-stepSize / (double) meanGap);
+    this.peak = peak;
+    this.riseSteps = (int) Math.max(1, Math.ceil(riseTime / (double) stepSize));
+    this.decay = Math.pow(0.5, stepSize / (double) halfLife);
+  }
+
+  @Override
+  protected void fill(double[] values, int offset, int count) {
+    if (base != null) {
+      base.generate(values, offset, count);
+    } else {
+      for (int i = 0; i < count; ++i) {
+        values[offset + i] = baseLevel;
+      }
+    }
+
+    for (int i = 0; i < count; ++i) {
+      if (random.nextDouble() < spikeProbability) {
+        startSpike();
+      }
+
+      decaying *= decay;
+      rising += risingStep;
+
+      //spikes reaching their peak start to decay
+      for (int s = 0; s < nRising; ) {
+        if (--riseRemaining[s] == 0) {
+          rising -= riseHeight[s];
+          risingStep -= riseHeight[s] / riseSteps;
+          decaying += riseHeight[s];
+          --nRising;
+          riseRemaining[s] = riseRemaining[nRising];
+          riseHeight[s] = riseHeight[nRising];
+        } else {
+          ++s;
+        }
+      }
+      if (nRising == 0) {
+        rising = 0; //clear accumulated rounding error
+        risingStep = 0;
+      }
+
+      values[offset + i] += rising + decaying;
+    }
+  }
+
+  private void startSpike() {
+    if (nRising == riseRemaining.length) {
+      riseRemaining = Arrays.copyOf(riseRemaining, nRising * 2);
+      riseHeight = Arrays.copyOf(riseHeight, nRising * 2);
+    }
+    riseRemaining[nRising] = riseSteps;
+    riseHeight[nRising] = peak;
+    ++nRising;
+    risingStep += peak / riseSteps;
+  }
+
+}
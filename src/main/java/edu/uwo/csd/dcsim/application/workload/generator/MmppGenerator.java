@@ -0,0 +1,126 @@
+package edu.uwo.csd.dcsim.application.workload.generator;
+
+/**
+ * Generates the arrivals of a Markov-modulated Poisson process. The process moves between states,
+ * each with its own arrival rate, remaining in a state for an exponentially distributed time with
+ * the state's mean holding time, and then moving to another state chosen by the transition
+ * probabilities. The value of each step is the number of arrivals during the step, normalized by
+ * the expected arrivals at the highest rate.
+ */
+public class MmppGenerator extends WorkloadGenerator {
+
+  private final double[] rates; //arrivals per second in each state
+  private final double[] holdingTimes; //mean time (ms) spent in each state
+  private final double[][] transitions; //cumulative probability of moving from state i to state j
+  private final double maxArrivals; //expected arrivals per step at the highest rate
+
+  private int state = 0;
+  private double remaining; //time (ms) remaining in the current state
+
+  /**
+   * @param rates        The arrival rate (per second) in each state.
+   * @param holdingTimes The mean time (ms) spent in each state before moving.
+   * @param transitions  The probability of moving from state i to state j, transitions[i][j]. Each
+   *                     row must sum to 1.
+   */
+  public MmppGenerator(long stepSize, long seed, double[] rates, double[] holdingTimes,
+                       double[][] transitions) {
+    super(stepSize, seed);
+
+    int n = rates.length;
+    if (n == 0 || holdingTimes.length != n || transitions.length != n) {
+      throw new IllegalArgumentException(
+          "MMPP must have a rate, holding time and transition row for each state");
+    }
+
+    this.rates = rates.clone();
+    this.holdingTimes = holdingTimes.clone();
+    this.transitions = new double[n][n];
+
+    double maxRate = 0;
+    for (int i = 0; i < n; ++i) {
+      if (transitions[i].length != n) {
+        throw new IllegalArgumentException("MMPP transition matrix must be square");
+      }
+      double cumulative = 0;
+      for (int j = 0; j < n; ++j) {
+        cumulative += transitions[i][j];
+        this.transitions[i][j] = cumulative;
+      }
+      if (Math.abs(cumulative - 1) > 1e-6) {
+        throw new IllegalArgumentException("MMPP transition probabilities must sum to 1");
+      }
+      maxRate = Math.max(maxRate, rates[i]);
+    }
+    maxArrivals = maxRate * stepSize / 1000d;
+
+    remaining = exponential(holdingTimes[state]);
+  }
+
+  /**
+   * Create a two state (on/off) MMPP, switching between a low and a high arrival rate
+   */
+  public MmppGenerator(long stepSize, long seed, double lowRate, double highRate,
+                       double lowHoldingTime, double highHoldingTime) {
+    this(stepSize, seed, new double[]{lowRate, highRate},
+         new double[]{lowHoldingTime, highHoldingTime},
+         new double[][]{{0, 1}, {1, 0}});
+  }
+
+  @Override
+  protected void fill(double[] values, int offset, int count) {
+    for (int i = 0; i < count; ++i) {
+      //accumulate the expected arrivals over the step, following state changes within it
+      double mean = 0;
+      double time = stepSize;
+      while (remaining < time) {
+        mean += rates[state] * remaining;
+        time -= remaining;
+        state = nextState();
+        remaining = exponential(holdingTimes[state]);
+      }
+      mean += rates[state] * time;
+      remaining -= time;
+
+      values[offset + i] = maxArrivals > 0 ? poisson(mean / 1000d) / maxArrivals : 0;
+    }
+  }
+
+  private int nextState() {
+    double u = random.nextDouble();
+    double[] row = transitions[state];
+    for (int j = 0; j < row.length; ++j) {
+      if (u < row[j]) {
+        return j;
+      }
+    }
+    return row.length - 1;
+  }
+
+  private double exponential(double mean) {
+    return -mean * Math.log(1 - random.nextDouble());
+  }
+
+  /**
+   * Sample a Poisson distributed value, using the normal approximation for large means
+   */
+  private double poisson(double mean) {
+    if (mean > 30) {
+      return Math.max(0, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+    }
+
+    double limit = Math.exp(-mean);
+    double product = random.nextDouble();
+    int n = 0;
+    while (product > limit) {
+      product *= random.nextDouble();
+      ++n;
+    }
+    return n;
+  }
+
+  public int getState() {
+    return state;
+  }
+
+}
@@ -0,0 +1,68 @@
+package edu.uwo.csd.dcsim.application.workload.generator;
+
+import java.util.Random;
+
+/**
+ * Generates a synthetic workload series, with one value in the range [0, 1] per step. Series are
+ * generated in blocks into primitive arrays, either up front or in chunks as a SyntheticWorkload
+ * consumes them, and successive calls continue the same series. Each generator draws from its own
+ * Random, so a series is reproducible from its seed and does not depend on the order in which
+ * workloads are updated.
+ */
+public abstract class WorkloadGenerator {
+
+  protected final long stepSize;
+  protected final Random random;
+  protected long position = 0; //the step of the next value to be generated
+
+  /**
+   * @param stepSize The time (ms) between values of the series.
+   * @param seed     The seed of the generator's random number generator.
+   */
+  public WorkloadGenerator(long stepSize, long seed) {
+    if (stepSize <= 0) {
+      throw new IllegalArgumentException("Step size must be positive");
+    }
+
+    this.stepSize = stepSize;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Generate the next count values of the series into values[offset, offset + count)
+   */
+  public final void generate(double[] values, int offset, int count) {
+    fill(values, offset, count);
+    for (int i = offset; i < offset + count; ++i) {
+      values[i] = Math.min(1, Math.max(0, values[i]));
+    }
+    position += count;
+  }
+
+  /**
+   * Generate the next steps values of the series
+   */
+  public final double[] generate(int steps) {
+    double[] values = new double[steps];
+    generate(values, 0, steps);
+    return values;
+  }
+
+  /**
+   * Fill values[offset, offset + count) with the values of the series for steps position to
+   * position + count - 1. Values are clamped to [0, 1] afterwards.
+   */
+  protected abstract void fill(double[] values, int offset, int count);
+
+  public long getStepSize() {
+    return stepSize;
+  }
+
+  /**
+   * Get the step of the next value to be generated
+   */
+  public long getPosition() {
+    return position;
+  }
+
+}
@@ -7,6 +7,7 @@ public abstract class Event {
 
   protected Simulation simulation = null;
   private long time;
+  private long logicalTime; //the time the event was sent for, before any quantization
   private SimulationEventListener target;
   private long sendOrder;
   private List<EventCallbackListener> callbackListeners = new ArrayList<EventCallbackListener>();
@@ -91,6 +92,19 @@ public abstract class Event {
     return time;
   }
 
+  protected final void setLogicalTime(long logicalTime) {
+    this.logicalTime = logicalTime;
+  }
+
+  /**
+   * Get the time the event was sent for. This is the time at which it is executed (getTime()),
+   * unless the simulation is quantizing event times, in which case it may be up to one quantum
+   * earlier.
+   */
+  public final long getLogicalTime() {
+    return logicalTime;
+  }
+
   public final SimulationEventListener getTarget() {
     return target;
   }
@@ -22,7 +22,9 @@ public abstract class RepeatingEvent extends Event implements EventCallbackListe
   public void eventCallback(Event e) {
     //resend event
     if (running != false) {
-      simulation.sendEvent(this, simulation.getSimulationTime() + interval);
+      //repeat from the logical time, which is earlier than the simulation time if event times are
+      //being quantized, so that the error does not accumulate across repetitions
+      simulation.sendEvent(this, getLogicalTime() + interval);
     }
   }
 
@@ -8,6 +8,7 @@ import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -26,6 +27,9 @@ import java.util.Random;
 import ca.carleton.dcsim.SaviCloudNetwork;
 import edu.uwo.csd.dcsim.DataCentre;
 import edu.uwo.csd.dcsim.application.Application;
+import edu.uwo.csd.dcsim.application.MvaCache;
+import edu.uwo.csd.dcsim.application.workload.TraceRepository;
+import edu.uwo.csd.dcsim.application.workload.WorkloadClock;
 import edu.uwo.csd.dcsim.common.SimTime;
 import edu.uwo.csd.dcsim.common.Utility;
 import edu.uwo.csd.dcsim.core.events.RecordMetricsEvent;
@@ -34,6 +38,7 @@ import edu.uwo.csd.dcsim.core.events.TerminateSimulationEvent;
 import edu.uwo.csd.dcsim.core.metrics.SimulationMetrics;
 import edu.uwo.csd.dcsim.host.Cluster;
 import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.HostAggregator;
 import edu.uwo.csd.dcsim.host.Rack;
 import edu.uwo.csd.dcsim.logging.LogPerRunFileAppender;
 import edu.uwo.csd.dcsim.logging.SimulationFileAppender;
@@ -94,6 +99,7 @@ public class Simulation implements SimulationEventListener {
   private long metricRecordStart;
   private boolean recordingMetrics;
   private long eventSendCount = 0;
+  private long timeQuantum = 0; //events are delayed to the next multiple of the quantum, 0 to disable
   protected SimulationMetrics simulationMetrics;
 
   private long randomSeed;
@@ -102,12 +108,21 @@ public class Simulation implements SimulationEventListener {
   private final Map<Host, Rack> host2Rack = new HashMap<>();
   private final Map<Rack, Cluster> rack2Cluster = new HashMap<>();
   private final Map<Cluster, DataCentre> cluster2DataCentre = new HashMap<>();
+  private final HostAggregator hostAggregator = new HostAggregator();
 
   private List<Application> applications = new ArrayList<>();
   private SaviCloudNetwork datacenterManager;
 
   private Multiset<String> uniqueIds;
 
+  private boolean mvaCacheChecked = false;
+  private MvaCache mvaCache = null;
+
+  private boolean workloadClockChecked = false;
+  private WorkloadClock workloadClock = null;
+
+  private final List<Closeable> resources = new ArrayList<>(); //closed when the run ends
+
   private final Path tempLqnModelFile;
   private final Path tempLqnsOutputFile;
   {
@@ -242,6 +257,11 @@ public class Simulation implements SimulationEventListener {
       enableProgressOutput = true;
     }
 
+    //check for 'timeQuantum' (merges events within the same quantum into one simulation time step)
+    if (getProperties().getProperty("timeQuantum") != null) {
+      timeQuantum = Long.parseLong(getProperties().getProperty("timeQuantum"));
+    }
+
     //configure simulation trace logger
     enableTrace = false;
     if (getProperties().getProperty("enableTrace") != null) {
@@ -282,6 +302,36 @@ public class Simulation implements SimulationEventListener {
   }
 
   public final SimulationMetrics run(long duration, long metricRecordStart) {
+    try {
+      return runSimulation(duration, metricRecordStart);
+    } finally {
+      //close resources and release workload traces held for this simulation, so that files are
+      //closed and unused traces can be evicted, whether or not the simulation completes
+      closeResources();
+      TraceRepository.getInstance().release(this);
+    }
+  }
+
+  /**
+   * Register a resource held for the simulation, such as the trace reader of a streaming workload,
+   * to be closed when the simulation run ends
+   */
+  public void addResource(Closeable resource) {
+    resources.add(resource);
+  }
+
+  private void closeResources() {
+    for (Closeable resource : resources) {
+      try {
+        resource.close();
+      } catch (IOException e) {
+        logger.error("Could not close " + resource, e);
+      }
+    }
+    resources.clear();
+  }
+
+  private SimulationMetrics runSimulation(long duration, long metricRecordStart) {
 
 	System.out.println("in Simulation.SimulationMetrics(). Duration: "+ duration + ". metricRecordStart: " + metricRecordStart);
     //ensure this simulation hasn't been run yet
@@ -297,6 +347,9 @@ public class Simulation implements SimulationEventListener {
 
     //configure simulation duration
     this.duration = duration;
+    if (timeQuantum > 0) {
+      clampQuantizedEvents();
+    }
     sendEvent(new TerminateSimulationEvent(this),
               duration); //this event runs at the last possible time in the simulation to ensure simulation updates
 
@@ -473,8 +526,10 @@ public class Simulation implements SimulationEventListener {
 
     //while not done
     boolean done = false;
+    int rounds = 0;
     while (!done) {
       done = true;
+      ++rounds;
       //schedule cpu on all hosts (in no order)
       for (Host host : hosts) {
         //schedule cpu
@@ -488,6 +543,10 @@ public class Simulation implements SimulationEventListener {
       }
     }
 
+    if (isRecordingMetrics()) {
+      simulationMetrics.recordSchedulingRounds(rounds);
+    }
+
 
   }
 
@@ -538,14 +597,61 @@ public class Simulation implements SimulationEventListener {
   }
 
   public final long sendEvent(Event event, long time) {
+    long dispatchTime = time;
+    if (timeQuantum > 0) {
+      if (time > simulationTime) {
+        dispatchTime = quantize(time);
+      } else {
+        //a logical time already passed within the current quantum is run in the current step
+        dispatchTime = simulationTime;
+      }
+    }
+
     event.initialize(this);
     event.setSendOrder(++eventSendCount);
-    event.setTime(time);
+    event.setLogicalTime(time);
+    event.setTime(dispatchTime);
     eventQueue.add(event);
 
     return event.getSendOrder();
   }
 
+  /**
+   * Delay a future event time to the next multiple of the time quantum, so that events within the
+   * same quantum are processed in a single simulation time step. Events are not delayed past the
+   * end of the simulation. Only the time at which the event is executed is delayed: its logical
+   * time is kept, so that events rescheduled from it (see RepeatingEvent) do not drift.
+   */
+  private long quantize(long time) {
+    long quantized = time;
+    if (time % timeQuantum != 0) {
+      quantized = (time / timeQuantum + 1) * timeQuantum;
+      if (duration > 0 && time <= duration) {
+        quantized = Math.min(quantized, duration);
+      }
+    }
+    simulationMetrics.recordEventQuantization(quantized - time);
+    return quantized;
+  }
+
+  /**
+   * Bring back to the end of the simulation events that were quantized past it before its duration
+   * was known
+   */
+  private void clampQuantizedEvents() {
+    List<Event> late = new ArrayList<>();
+    for (Event event : eventQueue) {
+      if (event.getTime() > duration && event.getLogicalTime() <= duration) {
+        late.add(event);
+      }
+    }
+    for (Event event : late) {
+      eventQueue.remove(event);
+      event.setTime(duration);
+      eventQueue.add(event);
+    }
+  }
+
   public final long sendEvent(Event event) {
     return sendEvent(event, getSimulationTime());
   }
@@ -612,6 +718,21 @@ public class Simulation implements SimulationEventListener {
     return simulationTime;
   }
 
+  /**
+   * Get the time quantum (ms) to which future events are delayed, or 0 if disabled
+   */
+  public final long getTimeQuantum() {
+    return timeQuantum;
+  }
+
+  /**
+   * Set the time quantum (ms). Events within the same quantum are processed in one simulation time
+   * step, trading an error of less than the quantum in event times for fewer scheduling passes.
+   */
+  public final void setTimeQuantum(long timeQuantum) {
+    this.timeQuantum = timeQuantum;
+  }
+
   public final long getDuration() {
     return duration;
   }
@@ -751,6 +872,7 @@ public class Simulation implements SimulationEventListener {
    * Add a DataCentre to the simulation
    */
   private void addDatacentre(DataCentre dc) {
+    dc.getAggregate().setParent(hostAggregator.getGlobal());
     for (Cluster cluster : dc.clusters()) {
       cluster2DataCentre.put(cluster, dc);
       addCluster(cluster);
@@ -758,6 +880,8 @@ public class Simulation implements SimulationEventListener {
   }
 
   private void addCluster(Cluster cluster) {
+    DataCentre dc = cluster2DataCentre(cluster);
+    cluster.getAggregate().setParent(dc != null ? dc.getAggregate() : hostAggregator.getGlobal());
     for (Rack rack : cluster.racks()) {
       rack2Cluster.put(rack, cluster);
       addRack(rack);
@@ -765,8 +889,10 @@ public class Simulation implements SimulationEventListener {
   }
 
   private void addRack(Rack rack) {
+    rack.getAggregate().setParent(rack2Cluster(rack).getAggregate());
     for (Host host : rack.hosts()) {
       host2Rack.put(host, rack);
+      host.setAggregate(rack.getAggregate());
     }
   }
 
@@ -866,6 +992,48 @@ public class Simulation implements SimulationEventListener {
     return datacenterManager;
   }
 
+  /**
+   * Get the cache of MVA solutions shared by the applications of this simulation, or null if
+   * caching is disabled. The cache is enabled by setting the 'mvaCacheSize' property to the maximum
+   * number of solutions to hold, and matches problems to within 'mvaCacheTolerance'.
+   */
+  public MvaCache getMvaCache() {
+    if (!mvaCacheChecked) {
+      mvaCacheChecked = true;
+      if (hasProperty("mvaCacheSize") && Integer.parseInt(getProperty("mvaCacheSize")) > 0) {
+        double tolerance = 0;
+        if (hasProperty("mvaCacheTolerance")) {
+          tolerance = Double.parseDouble(getProperty("mvaCacheTolerance"));
+        }
+        mvaCache = new MvaCache(Integer.parseInt(getProperty("mvaCacheSize")), tolerance);
+      }
+    }
+    return mvaCache;
+  }
+
+  /**
+   * Get the aggregator maintaining the running totals of hosts, by rack, cluster, data centre and
+   * over the whole simulation.
+   */
+  public HostAggregator getHostAggregator() {
+    return hostAggregator;
+  }
+
+  /**
+   * Get the clock that updates workloads sharing an update interval from a single event, or null
+   * if workloads schedule their own updates. Enabled by the 'coalesceWorkloadUpdates' property.
+   */
+  public WorkloadClock getWorkloadClock() {
+    if (!workloadClockChecked) {
+      workloadClockChecked = true;
+      if (hasProperty("coalesceWorkloadUpdates")
+          && Boolean.parseBoolean(getProperty("coalesceWorkloadUpdates"))) {
+        workloadClock = new WorkloadClock(this);
+      }
+    }
+    return workloadClock;
+  }
+
   public Path getTempLqnsOutputFile() {
     return tempLqnsOutputFile;
   }
@@ -5,12 +5,15 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.log4j.Logger;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import edu.uwo.csd.dcsim.application.Application;
 import edu.uwo.csd.dcsim.application.InteractiveApplication;
@@ -21,15 +24,19 @@ import edu.uwo.csd.dcsim.core.Simulation;
 
 public class ApplicationMetrics extends MetricCollection {
 
-  Map<Application, WeightedMetric> cpuUnderProvision = new HashMap<Application, WeightedMetric>();
-  Map<Application, WeightedMetric> cpuDemand = new HashMap<Application, WeightedMetric>();
+  //per application metrics, one row per application in order of first recording
+  List<Application> rowApplications = new ArrayList<Application>();
+  int[] rows = new int[0]; //row + 1 of each application, by application id (0 if no row)
 
-  Map<Application, WeightedMetric> slaPenalty = new HashMap<Application, WeightedMetric>();
-  Map<Application, Long> slaAchieved = new HashMap<Application, Long>();
-  Map<Application, Long> totalTime = new HashMap<Application, Long>();
-  Map<Application, WeightedMetric> responseTime = new HashMap<Application, WeightedMetric>();
-  Map<Application, WeightedMetric> throughput = new HashMap<Application, WeightedMetric>();
-  Map<Application, WeightedMetric> size = new HashMap<Application, WeightedMetric>();
+  WeightedMetricTable cpuUnderProvision = new WeightedMetricTable();
+  WeightedMetricTable cpuDemand = new WeightedMetricTable();
+
+  WeightedMetricTable slaPenalty = new WeightedMetricTable();
+  long[] slaAchieved = new long[16];
+  long[] totalTime = new long[16];
+  WeightedMetricTable responseTime = new WeightedMetricTable();
+  WeightedMetricTable throughput = new WeightedMetricTable();
+  WeightedMetricTable size = new WeightedMetricTable();
 
   WeightedMetric aggregateCpuUnderProvision = new WeightedMetric();
   WeightedMetric aggregateCpuDemand = new WeightedMetric();
@@ -37,6 +44,16 @@ public class ApplicationMetrics extends MetricCollection {
   WeightedMetric aggregateResponseTime = new WeightedMetric();
   WeightedMetric aggregateThroughput = new WeightedMetric();
 
+  //distributions of response time and SLA penalty, per application and over all applications
+  List<QuantileSketch> responseTimeSketch = new ArrayList<QuantileSketch>();
+  List<QuantileSketch> slaPenaltySketch = new ArrayList<QuantileSketch>();
+  QuantileSketch aggregateResponseTimeSketch = new QuantileSketch();
+  QuantileSketch aggregateSlaPenaltySketch = new QuantileSketch();
+
+  //per request class response time and throughput of applications with more than one class, by class name
+  Map<String, WeightedMetric> classResponseTime = new LinkedHashMap<String, WeightedMetric>();
+  Map<String, WeightedMetric> classThroughput = new LinkedHashMap<String, WeightedMetric>();
+
   DescriptiveStatistics slaPenaltyStats;
   DescriptiveStatistics slaAchievementStats;
   DescriptiveStatistics responseTimeStats;
@@ -49,14 +66,55 @@ public class ApplicationMetrics extends MetricCollection {
 
   long appSlaGraceTime = 0;
 
+  //per-step time series of the metrics of each application, written when enableTimeSeries is set.
+  //Applications come and go, so each recording writes one row per application recorded, at the
+  //same time, rather than one column per application.
+  TimeSeriesWriter timeSeries = null;
+  boolean timeSeriesEnabled;
+
+  static final String[] TIME_SERIES_COLUMNS =
+      {"application", "responseTime", "slaPenalty", "cpuDemand", "cpuScheduled"};
+
   public ApplicationMetrics(Simulation simulation) {
     super(simulation);
 
+    timeSeriesEnabled = isTimeSeriesEnabled();
+
     if (Simulation.hasProperty("appSlaGraceTime")) {
       appSlaGraceTime = Long.parseLong(Simulation.getProperty("appSlaGraceTime"));
     }
   }
 
+  /**
+   * Get the row of an application in the metric tables, adding a row on its first recording
+   */
+  private int getRow(Application application) {
+    int id = application.id();
+    if (id >= rows.length) {
+      rows = Arrays.copyOf(rows, Math.max(id + 1, rows.length * 2));
+    }
+
+    if (rows[id] == 0) {
+      int row = rowApplications.size();
+      rowApplications.add(application);
+      cpuUnderProvision.addRow();
+      cpuDemand.addRow();
+      slaPenalty.addRow();
+      responseTime.addRow();
+      throughput.addRow();
+      size.addRow();
+      responseTimeSketch.add(new QuantileSketch());
+      slaPenaltySketch.add(new QuantileSketch());
+      if (row == slaAchieved.length) {
+        slaAchieved = Arrays.copyOf(slaAchieved, row * 2);
+        totalTime = Arrays.copyOf(totalTime, row * 2);
+      }
+      rows[id] = row + 1;
+    }
+
+    return rows[id] - 1;
+  }
+
   @Override
   public void recordApplicationMetrics(Collection<Application> applications) {
 
@@ -69,63 +127,68 @@ public class ApplicationMetrics extends MetricCollection {
 
     double val;
 
-    List<Application> filtered = applications
-        .stream()
-        .filter(
-            a -> (!(a instanceof VmmApplication) &&
-                  //we don't want to record stats for inactive or complete applications
-                  (a.isActive() && !a.isComplete()) &&
-                  //don't record metrics for an application before the 'SLA grace time' is up (allows application scaling to adjust to initial load)
-                  (simulation.getSimulationTime() - a.getActivateTimeStamp() >= appSlaGraceTime)
-            ))
-        .collect(Collectors.toList());
-
-    for (Application application : filtered) {
-      if (!cpuUnderProvision.containsKey(application)) {
-        cpuUnderProvision.put(application, new WeightedMetric());
-        cpuDemand.put(application, new WeightedMetric());
-        slaPenalty.put(application, new WeightedMetric());
-        slaAchieved.put(application, 0l);
-        totalTime.put(application, 0l);
-        size.put(application, new WeightedMetric());
+    long elapsedTime = simulation.getElapsedTime();
+    double elapsedSeconds = simulation.getElapsedSeconds();
+
+    for (Application application : applications) {
+
+      //we don't want to record stats for Vmm applications
+      if (application instanceof VmmApplication) {
+        continue;
+      }
+
+      //we don't want to record stats for inactive or complete applications
+      if (!application.isActive() || application.isComplete()) {
+        continue;
       }
 
+      //don't record metrics for an application before the 'SLA grace time' is up (allows application scaling to adjust to initial load)
+      if (simulation.getSimulationTime() - application.getActivateTimeStamp() < appSlaGraceTime) {
+        continue;
+      }
+
+      int row = getRow(application);
+
       //record the size of the application as VMs/Max VMs
-      size.get(application).add(application.getSize() / (double) application.getMaxSize(),
-                                simulation.getElapsedTime());
+      size.add(row, application.getSize() / (double) application.getMaxSize(), elapsedTime);
 
       if (application.getTotalCpuDemand() > application.getTotalCpuScheduled()) {
         val = (double) application.getTotalCpuDemand() - application.getTotalCpuScheduled();
-        cpuUnderProvision.get(application).add(val, simulation.getElapsedTime());
+        cpuUnderProvision.add(row, val, elapsedTime);
         currentCpuUnderProvision += val;
       }
       val = (double) application.getTotalCpuDemand();
-      cpuDemand.get(application).add(val, simulation.getElapsedTime());
+      cpuDemand.add(row, val, elapsedTime);
       currentCpuDemand += val;
 
+      double penalty = Double.NaN;
+      double appResponseTime = Double.NaN;
+
       if (application.getSla() != null) {
         val = application.getSla().calculatePenalty();
+        penalty = val;
 
-        slaPenalty.get(application).add(val, simulation.getElapsedSeconds());
+        slaPenalty.add(row, val, elapsedSeconds);
+        slaPenaltySketch.get(row).add(val, elapsedSeconds);
         currentSlaPenalty += val;
 
         if (application.getSla().evaluate()) {
-          slaAchieved.put(application, slaAchieved.get(application) + simulation.getElapsedTime());
+          slaAchieved[row] += elapsedTime;
         }
 
       }
-      totalTime.put(application, totalTime.get(application) + simulation.getElapsedTime());
-
-      if (!responseTime.containsKey(application)) {
-        responseTime.put(application, new WeightedMetric());
-        throughput.put(application, new WeightedMetric());
-      }
+      totalTime[row] += elapsedTime;
 
       if (application instanceof InteractiveApplication) {
         InteractiveApplication interactiveApplication = (InteractiveApplication) application;
 
         val = (double) interactiveApplication.getResponseTime();
-        responseTime.get(interactiveApplication).add(val, simulation.getElapsedTime());
+        appResponseTime = val;
+        responseTime.add(row, val, elapsedTime);
+        //a dead application reports Double.MAX_VALUE, which is not a response time to rank
+        if (val != Double.MAX_VALUE) {
+          responseTimeSketch.get(row).add(val, elapsedTime);
+        }
         currentResponseTime += val;
 
         final double finalCurrentResponseTime = currentResponseTime;
@@ -136,11 +199,28 @@ public class ApplicationMetrics extends MetricCollection {
 //                                                          finalCurrentResponseTime));
 
         val = (double) interactiveApplication.getThroughput();
-        throughput.get(interactiveApplication).add(val, simulation.getElapsedTime());
+        throughput.add(row, val, elapsedTime);
         currentThroughput += val;
 
+        int nClasses = interactiveApplication.getNumRequestClasses();
+        for (int c = 0; nClasses > 1 && c < nClasses; ++c) {
+          String name = interactiveApplication.getRequestClassName(c);
+          if (!classResponseTime.containsKey(name)) {
+            classResponseTime.put(name, new WeightedMetric());
+            classThroughput.put(name, new WeightedMetric());
+          }
+          classResponseTime.get(name).add(interactiveApplication.getClassResponseTime(c),
+                                          simulation.getElapsedTime());
+          classThroughput.get(name).add(interactiveApplication.getClassThroughput(c),
+                                        simulation.getElapsedTime());
+        }
+
         ++interactiveApplications;
       }
+
+      if (timeSeriesEnabled) {
+        writeTimeSeries(application, appResponseTime, penalty);
+      }
     }
 
     aggregateCpuUnderProvision.add(currentCpuUnderProvision, simulation.getElapsedTime());
@@ -154,63 +234,136 @@ public class ApplicationMetrics extends MetricCollection {
     }
   }
 
+  /**
+   * Write the row of an application. Response time is NaN for applications that are not
+   * interactive, and SLA penalty for those without an SLA.
+   */
+  private void writeTimeSeries(Application application, double responseTime, double slaPenalty) {
+    try {
+      if (timeSeries == null) {
+        timeSeries = createTimeSeriesWriter(getTimeSeriesFile(),
+                                            Arrays.asList(TIME_SERIES_COLUMNS));
+      }
+
+      timeSeries.startRow(simulation.getSimulationTime());
+      timeSeries.set(0, application.id());
+      timeSeries.set(1, (float) responseTime);
+      timeSeries.set(2, (float) slaPenalty);
+      timeSeries.set(3, application.getTotalCpuDemand());
+      timeSeries.set(4, application.getTotalCpuScheduled());
+      timeSeries.endRow();
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write application time series", e);
+    }
+  }
+
+  /**
+   * Get the file the per-step application time series is written to, when enableTimeSeries is
+   * set. The file can be read with TimeSeriesReader.
+   */
+  public File getTimeSeriesFile() {
+    return new File(Simulation.getLogDirectory(), simulation.getName() + "-applications.series");
+  }
+
   @Override
   public void completeSimulation() {
+    if (timeSeries != null) {
+      try {
+        timeSeries.close();
+      } catch (IOException e) {
+        throw new RuntimeException("Could not write application time series", e);
+      }
+      timeSeries = null;
+    }
+
     slaPenaltyStats = new DescriptiveStatistics();
     slaAchievementStats = new DescriptiveStatistics();
     responseTimeStats = new DescriptiveStatistics();
     throughputStats = new DescriptiveStatistics();
     sizeStats = new DescriptiveStatistics();
 
-    for (Application application : slaPenalty.keySet()) {
-      slaPenaltyStats.addValue(slaPenalty.get(application).getSum());
-    }
+    aggregateResponseTimeSketch = QuantileSketch.merge(responseTimeSketch);
+    aggregateSlaPenaltySketch = QuantileSketch.merge(slaPenaltySketch);
 
-    for (Application application : slaAchieved.keySet()) {
-      slaAchievementStats
-          .addValue(slaAchieved.get(application) / (double) totalTime.get(application));
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      slaPenaltyStats.addValue(slaPenalty.getSum(row));
+      slaAchievementStats.addValue(slaAchieved[row] / (double) totalTime[row]);
+      responseTimeStats.addValue(responseTime.getMean(row));
+      throughputStats.addValue(throughput.getMean(row));
+      sizeStats.addValue(size.getMean(row));
     }
 
-    for (Application application : responseTime.keySet()) {
-      responseTimeStats.addValue(responseTime.get(application).getMean());
-    }
+  }
 
-    for (Application application : throughput.keySet()) {
-      throughputStats.addValue(throughput.get(application).getMean());
+  /**
+   * Get the per application metrics of a table, by application
+   */
+  private Map<Application, WeightedMetric> toMap(WeightedMetricTable table) {
+    Map<Application, WeightedMetric> map = new HashMap<Application, WeightedMetric>();
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      map.put(rowApplications.get(row), table.get(row));
     }
+    return map;
+  }
 
-    for (Application application : size.keySet()) {
-      sizeStats.addValue(size.get(application).getMean());
+  private Map<Application, Long> toMap(long[] column) {
+    Map<Application, Long> map = new HashMap<Application, Long>();
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      map.put(rowApplications.get(row), column[row]);
     }
-
+    return map;
   }
 
   public Map<Application, WeightedMetric> getCpuUnderProvision() {
-    return cpuUnderProvision;
+    return toMap(cpuUnderProvision);
   }
 
   public Map<Application, WeightedMetric> getCpuDemand() {
-    return cpuDemand;
+    return toMap(cpuDemand);
   }
 
   public Map<Application, WeightedMetric> getSlaPenalty() {
-    return slaPenalty;
+    return toMap(slaPenalty);
   }
 
   public Map<Application, Long> getSlaAchieved() {
-    return slaAchieved;
+    return toMap(slaAchieved);
   }
 
   public Map<Application, Long> getAppTotalTime() {
-    return totalTime;
+    return toMap(totalTime);
   }
 
   public Map<Application, WeightedMetric> getResponseTime() {
-    return responseTime;
+    return toMap(responseTime);
   }
 
   public Map<Application, WeightedMetric> getThroughput() {
-    return throughput;
+    return toMap(throughput);
+  }
+
+  public Map<String, WeightedMetric> getClassResponseTime() {
+    return classResponseTime;
+  }
+
+  public Map<String, WeightedMetric> getClassThroughput() {
+    return classThroughput;
+  }
+
+  public Map<Application, QuantileSketch> getResponseTimeSketch() {
+    Map<Application, QuantileSketch> map = new HashMap<Application, QuantileSketch>();
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      map.put(rowApplications.get(row), responseTimeSketch.get(row));
+    }
+    return map;
+  }
+
+  public Map<Application, QuantileSketch> getSlaPenaltySketch() {
+    Map<Application, QuantileSketch> map = new HashMap<Application, QuantileSketch>();
+    for (int row = 0; row < rowApplications.size(); ++row) {
+      map.put(rowApplications.get(row), slaPenaltySketch.get(row));
+    }
+    return map;
   }
 
   public WeightedMetric getAggregateCpuUnderProvision() {
@@ -233,6 +386,22 @@ public class ApplicationMetrics extends MetricCollection {
     return aggregateThroughput;
   }
 
+  /**
+   * Get the distribution of the response times of all applications. Available once the
+   * simulation is complete.
+   */
+  public QuantileSketch getAggregateResponseTimeSketch() {
+    return aggregateResponseTimeSketch;
+  }
+
+  /**
+   * Get the distribution of the SLA penalty rates of all applications. Available once the
+   * simulation is complete.
+   */
+  public QuantileSketch getAggregateSlaPenaltySketch() {
+    return aggregateSlaPenaltySketch;
+  }
+
   public DescriptiveStatistics getSlaPenaltyStats() {
     return slaPenaltyStats;
   }
@@ -282,7 +451,7 @@ public class ApplicationMetrics extends MetricCollection {
   }
 
   public long getTotalApplicationCount() {
-    return cpuUnderProvision.keySet().size();
+    return rowApplications.size();
   }
 
   public void setApplicationsSpawned(long applicationsSpawned) {
@@ -395,6 +564,13 @@ public class ApplicationMetrics extends MetricCollection {
         .roundDouble(getSlaPenaltyStats().getPercentile(25), Simulation.getMetricPrecision()));
     out.info("    min: " + Utility
         .roundDouble(getSlaPenaltyStats().getMin(), Simulation.getMetricPrecision()));
+    out.info("  penalty rate");
+    out.info("    p99: " + Utility.roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.99),
+                                                Simulation.getMetricPrecision()));
+    out.info("    p95: " + Utility.roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.95),
+                                                Simulation.getMetricPrecision()));
+    out.info("    p50: " + Utility.roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.5),
+                                                Simulation.getMetricPrecision()));
     out.info("Response Time");
     out.info("    max: " + Utility
         .roundDouble(getAggregateResponseTime().getMax(), Simulation.getMetricPrecision()));
@@ -402,6 +578,12 @@ public class ApplicationMetrics extends MetricCollection {
         .roundDouble(getAggregateResponseTime().getMean(), Simulation.getMetricPrecision()));
     out.info("    min: " + Utility
         .roundDouble(getAggregateResponseTime().getMin(), Simulation.getMetricPrecision()));
+    out.info("    p99: " + Utility.roundDouble(getAggregateResponseTimeSketch().getQuantile(0.99),
+                                                Simulation.getMetricPrecision()));
+    out.info("    p95: " + Utility.roundDouble(getAggregateResponseTimeSketch().getQuantile(0.95),
+                                                Simulation.getMetricPrecision()));
+    out.info("    p50: " + Utility.roundDouble(getAggregateResponseTimeSketch().getQuantile(0.5),
+                                                Simulation.getMetricPrecision()));
     out.info("Throughput");
     out.info("    max: " + Utility
         .roundDouble(getAggregateThroughput().getMax(), Simulation.getMetricPrecision()));
@@ -409,6 +591,16 @@ public class ApplicationMetrics extends MetricCollection {
         .roundDouble(getAggregateThroughput().getMean(), Simulation.getMetricPrecision()));
     out.info("    min: " + Utility
         .roundDouble(getAggregateThroughput().getMin(), Simulation.getMetricPrecision()));
+    if (!classResponseTime.isEmpty()) {
+      out.info("Request Classes");
+      for (String name : classResponseTime.keySet()) {
+        out.info("  " + name);
+        out.info("    response time mean: " + Utility
+            .roundDouble(classResponseTime.get(name).getMean(), Simulation.getMetricPrecision()));
+        out.info("    throughput mean: " + Utility
+            .roundDouble(classThroughput.get(name).getMean(), Simulation.getMetricPrecision()));
+      }
+    }
     out.info("Interactive Application Model Algorithm: ");
     if (!isMVAApproximate()) {
       out.info("MVA");
@@ -489,6 +681,15 @@ public class ApplicationMetrics extends MetricCollection {
         .roundDouble(getSlaPenaltyStats().getPercentile(25), Simulation.getMetricPrecision())));
     metrics.add(new ImmutablePair<String, Object>("slaApplicationMin", Utility
         .roundDouble(getSlaPenaltyStats().getMin(), Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("slaPenaltyRateP99", Utility
+        .roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.99),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("slaPenaltyRateP95", Utility
+        .roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.95),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("slaPenaltyRateP50", Utility
+        .roundDouble(getAggregateSlaPenaltySketch().getQuantile(0.5),
+                     Simulation.getMetricPrecision())));
 
     metrics.add(new ImmutablePair<String, Object>("responseTimeMax", Utility
         .roundDouble(getAggregateResponseTime().getMax(), Simulation.getMetricPrecision())));
@@ -496,6 +697,15 @@ public class ApplicationMetrics extends MetricCollection {
                                                   getAggregateResponseTime().getMean()));
     metrics.add(new ImmutablePair<String, Object>("responseTimeMin", Utility
         .roundDouble(getAggregateResponseTime().getMin(), Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("responseTimeP99", Utility
+        .roundDouble(getAggregateResponseTimeSketch().getQuantile(0.99),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("responseTimeP95", Utility
+        .roundDouble(getAggregateResponseTimeSketch().getQuantile(0.95),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("responseTimeP50", Utility
+        .roundDouble(getAggregateResponseTimeSketch().getQuantile(0.5),
+                     Simulation.getMetricPrecision())));
 
     metrics.add(new ImmutablePair<String, Object>("throughputMax", Utility
         .roundDouble(getAggregateThroughput().getMax(), Simulation.getMetricPrecision())));
@@ -504,6 +714,13 @@ public class ApplicationMetrics extends MetricCollection {
     metrics.add(new ImmutablePair<String, Object>("throughputMin", Utility
         .roundDouble(getAggregateThroughput().getMin(), Simulation.getMetricPrecision())));
 
+    for (String name : classResponseTime.keySet()) {
+      metrics.add(new ImmutablePair<String, Object>("responseTimeMean-" + name, Utility
+          .roundDouble(classResponseTime.get(name).getMean(), Simulation.getMetricPrecision())));
+      metrics.add(new ImmutablePair<String, Object>("throughputMean-" + name, Utility
+          .roundDouble(classThroughput.get(name).getMean(), Simulation.getMetricPrecision())));
+    }
+
     metrics.add(new ImmutablePair<String, Object>("applicationsSpawned", getApplicationsSpawned()));
     metrics
         .add(new ImmutablePair<String, Object>("applicationsShutdown", getApplicationsShutdown()));
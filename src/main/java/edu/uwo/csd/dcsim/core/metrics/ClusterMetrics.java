@@ -11,7 +11,6 @@ import java.util.List;
 import edu.uwo.csd.dcsim.common.Utility;
 import edu.uwo.csd.dcsim.core.Simulation;
 import edu.uwo.csd.dcsim.host.Cluster;
-import edu.uwo.csd.dcsim.host.Host;
 import edu.uwo.csd.dcsim.host.Rack;
 
 /**
@@ -63,17 +62,10 @@ public class ClusterMetrics extends MetricCollection {
           if (rack.getState() == Rack.RackState.ON) {
             activeRacksInCluster++;
 
-            // Calculate number of active Hosts.
-            int activeHosts = 0;
-            for (Host host : rack.hosts()) {
-              if (host.getState() == Host.HostState.ON) {
-                activeHosts++;
-              }
-
-              currentTotalCpuInUse += host.getResourceManager().getCpuInUse();
-            }
-
-            activeHostsPerRack.add(activeHosts, simulation.getElapsedTime());
+            // Number of active Hosts and CPU in use, from the Rack's running totals.
+            activeHostsPerRack.add(rack.getAggregate().getActiveHosts(),
+                                   simulation.getElapsedTime());
+            currentTotalCpuInUse += rack.getAggregate().getCpuInUse();
           }
         }
 
@@ -4,6 +4,8 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -11,6 +13,8 @@ import java.util.List;
 import edu.uwo.csd.dcsim.common.Utility;
 import edu.uwo.csd.dcsim.core.Simulation;
 import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.HostAggregate;
+import edu.uwo.csd.dcsim.host.HostAggregator;
 
 public class HostMetrics extends MetricCollection {
 
@@ -21,57 +25,62 @@ public class HostMetrics extends MetricCollection {
   WeightedMetric hostUtilization = new WeightedMetric();
   WeightedMetric totalUtilization = new WeightedMetric();
 
+  //distribution of the utilization of active hosts, recorded from the aggregator's utilization
+  //bins, so its quantiles are accurate to within 1 / (2 * HostAggregator.UTILIZATION_BINS) in
+  //absolute terms rather than to the sketch's relative accuracy (coarser below 10% utilization)
+  QuantileSketch hostUtilizationSketch = new QuantileSketch();
+
   long nHosts;
 
+  //per-step time series of the host metrics, written when enableTimeSeries is set
+  TimeSeriesWriter timeSeries = null;
+  int[] timeSeriesColumns; //the column of each host, indexed by host id, 0 for hosts without one
+  boolean timeSeriesEnabled;
+
+  static final String[] TIME_SERIES_COLUMNS =
+      {"power", "activeHosts", "totalUtil", "activeHostsUtil"};
+
   public HostMetrics(Simulation simulation) {
     super(simulation);
+
+    timeSeriesEnabled = isTimeSeriesEnabled();
   }
 
   @Override
   public void recordHostMetrics(Collection<Host> hosts) {
-    double currentPowerConsumption = 0;
-    int currentActiveHosts = 0;
-    double currentTotalInUse = 0;
-    double currentTotalCapacity = 0;
-    double currentTotalUtilization;
+    //read the running totals maintained by the host aggregates, rather than visiting every host
+    HostAggregator aggregator = simulation.getHostAggregator();
+    HostAggregate global = aggregator.getGlobal();
 
     nHosts = hosts.size();
-    double[] utilizations = new double[(int) nHosts];
-
-    for (Host host : hosts) {
-      currentPowerConsumption += host.getCurrentPowerConsumption();
-      int hId = host.id() - 1;
-      if (host.getState() == Host.HostState.ON) {
-        ++currentActiveHosts;
-        hostUtilization.add(host.getResourceManager().getCpuUtilization(),
-                            simulation.getElapsedTime());
-        utilizations[hId] = host.getResourceManager().getCpuUtilization();
-
-      } else {
-        utilizations[hId] = 0;
-      }
 
-      currentTotalInUse += host.getResourceManager().getCpuInUse();
-      currentTotalCapacity += host.getResourceManager().getTotalCpu();
+    double currentPowerConsumption = global.getPowerConsumption();
+    int currentActiveHosts = global.getActiveHosts();
+    double currentTotalInUse = global.getCpuInUse();
+    double currentTotalCapacity = global.getTotalCpu();
+    double currentTotalUtilization = currentTotalInUse / currentTotalCapacity;
+
+    //record the utilization of each active host, as the mean over the active hosts weighted by
+    //their number, and as the distribution of hosts by utilization. The distribution is added by
+    //utilization bin, at a fixed cost per recording whatever the number of hosts.
+    if (currentActiveHosts > 0) {
+      hostUtilization.add(global.getActiveHostUtilization(),
+                          currentActiveHosts * (double) simulation.getElapsedTime());
+      for (int bin = 0; bin <= HostAggregator.UTILIZATION_BINS; ++bin) {
+        int count = aggregator.getUtilizationCount(bin);
+        if (count > 0) {
+          hostUtilizationSketch.add(bin / (double) HostAggregator.UTILIZATION_BINS,
+                                    count * (double) simulation.getElapsedTime());
+        }
+      }
     }
 
-    currentTotalUtilization = currentTotalInUse / currentTotalCapacity;
-
     powerConsumption.add(currentPowerConsumption, simulation.getElapsedSeconds());
 
-    final double finalCurrentPowerConsumption = currentPowerConsumption;
-    final int finalCurrentActiveHosts = currentActiveHosts;
-
-    // TODO
-//    simulation.getSimDataLogger().ifPresent(
-//        logger -> {
-//          logger.writePowerConsumed(simulation.getSimulationTime(),
-//                                    finalCurrentPowerConsumption);
-//          logger.writeActiveHosts(simulation.getSimulationTime(),
-//                                  finalCurrentActiveHosts);
-//          logger.writeHostUtilizations(simulation.getSimulationTime(),
-//                                       utilizations);
-//        });
+    if (timeSeriesEnabled) {
+      writeTimeSeries(hosts, currentPowerConsumption, currentActiveHosts, currentTotalUtilization,
+                      global.getActiveHostUtilization());
+    }
 
     powerEfficiency.add(currentTotalInUse / currentPowerConsumption,
                         simulation.getElapsedSeconds());
@@ -80,6 +89,57 @@ public class HostMetrics extends MetricCollection {
 
   }
 
+  private void writeTimeSeries(Collection<Host> hosts, double power, int activeHosts,
+                               double totalUtil, double activeHostsUtil) {
+    try {
+      if (timeSeries == null) {
+        //one column per host, in addition to the global values, fixed by the hosts present at the
+        //first recording
+        List<String> columns = new ArrayList<String>();
+        for (String column : TIME_SERIES_COLUMNS) {
+          columns.add(column);
+        }
+        int maxId = -1;
+        for (Host host : hosts) {
+          maxId = Math.max(maxId, host.id());
+        }
+        timeSeriesColumns = new int[maxId + 1];
+        for (Host host : hosts) {
+          timeSeriesColumns[host.id()] = columns.size();
+          columns.add("host" + host.id());
+        }
+
+        timeSeries = createTimeSeriesWriter(getTimeSeriesFile(), columns);
+      }
+
+      timeSeries.startRow(simulation.getSimulationTime());
+      timeSeries.set(0, (float) power);
+      timeSeries.set(1, activeHosts);
+      timeSeries.set(2, (float) totalUtil);
+      timeSeries.set(3, (float) activeHostsUtil);
+      for (Host host : hosts) {
+        int id = host.id();
+        if (id < timeSeriesColumns.length && timeSeriesColumns[id] != 0) {
+          //hosts that are not on have no utilization, whatever their resource manager reports
+          timeSeries.set(timeSeriesColumns[id], host.getState() == Host.HostState.ON
+                                                ? host.getResourceManager().getCpuUtilization()
+                                                : 0);
+        }
+      }
+      timeSeries.endRow();
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write host time series", e);
+    }
+  }
+
+  /**
+   * Get the file the per-step host time series is written to, when enableTimeSeries is set. The
+   * file can be read with TimeSeriesReader.
+   */
+  public File getTimeSeriesFile() {
+    return new File(Simulation.getLogDirectory(), simulation.getName() + "-hosts.series");
+  }
+
   public WeightedMetric getPowerConsumption() {
     return powerConsumption;
   }
@@ -96,12 +156,29 @@ public class HostMetrics extends MetricCollection {
     return hostUtilization;
   }
 
+  /**
+   * Get the distribution of the utilization of active hosts over time. Utilizations are rounded to
+   * multiples of 1 / HostAggregator.UTILIZATION_BINS before being recorded, so quantiles are
+   * accurate to 0.0005 absolute, not to the sketch's relative accuracy.
+   */
+  public QuantileSketch getHostUtilizationSketch() {
+    return hostUtilizationSketch;
+  }
+
   public WeightedMetric getTotalUtilization() {
     return totalUtilization;
   }
 
   @Override
   public void completeSimulation() {
+    if (timeSeries != null) {
+      try {
+        timeSeries.close();
+      } catch (IOException e) {
+        throw new RuntimeException("Could not write host time series", e);
+      }
+      timeSeries = null;
+    }
   }
 
   @Override
@@ -117,6 +194,15 @@ public class HostMetrics extends MetricCollection {
         .roundDouble(getActiveHosts().getMin(), Simulation.getMetricPrecision()));
     out.info("   util: " + Utility.roundDouble(Utility.toPercentage(getHostUtilization().getMean()),
                                                Simulation.getMetricPrecision()) + "%");
+    out.info("   util p99: " + Utility
+        .roundDouble(Utility.toPercentage(getHostUtilizationSketch().getQuantile(0.99)),
+                     Simulation.getMetricPrecision()) + "%");
+    out.info("   util p95: " + Utility
+        .roundDouble(Utility.toPercentage(getHostUtilizationSketch().getQuantile(0.95)),
+                     Simulation.getMetricPrecision()) + "%");
+    out.info("   util p50: " + Utility
+        .roundDouble(Utility.toPercentage(getHostUtilizationSketch().getQuantile(0.5)),
+                     Simulation.getMetricPrecision()) + "%");
     out.info("   total util: " + Utility
         .roundDouble(Utility.toPercentage(getTotalUtilization().getMean()),
                      Simulation.getMetricPrecision()) + "%");
@@ -151,6 +237,15 @@ public class HostMetrics extends MetricCollection {
     metrics.add(new ImmutablePair<String, Object>("activeHostsUtil", Utility
         .roundDouble(Utility.toPercentage(getHostUtilization().getMean()),
                      Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("activeHostsUtilP99", Utility
+        .roundDouble(Utility.toPercentage(getHostUtilizationSketch().getQuantile(0.99)),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("activeHostsUtilP95", Utility
+        .roundDouble(Utility.toPercentage(getHostUtilizationSketch().getQuantile(0.95)),
+                     Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("activeHostsUtilP50", Utility
+        .roundDouble(Utility.toPercentage(getHostUtilizationSketch().getQuantile(0.5)),
+                     Simulation.getMetricPrecision())));
     metrics.add(new ImmutablePair<String, Object>("totalUtil", Utility
         .roundDouble(Utility.toPercentage(getTotalUtilization().getMean()),
                      Simulation.getMetricPrecision())));
@@ -38,19 +38,25 @@ public class ManagementMetrics extends MetricCollection {
   long intercluster = 0;
 
   public void addMessage(MessageEvent message) {
+    addMessages(message.getClass(), 1, message.getMessageSize());
+  }
 
-    long count = 0;
-    double bw = 0;
-    if (messageCount.containsKey(message.getClass())) {
-      count = messageCount.get(message.getClass());
-      bw = messageBw.get(message.getClass());
+  /**
+   * Record a number of messages of the given type at once, such as those carried by a batched
+   * message
+   *
+   * @param type  the type of message
+   * @param count the number of messages
+   * @param bw    the total size of the messages
+   */
+  public void addMessages(Class<? extends MessageEvent> type, long count, double bw) {
+    if (messageCount.containsKey(type)) {
+      count += messageCount.get(type);
+      bw += messageBw.get(type);
     }
-    ++count;
-    bw += message.getMessageSize();
-
-    messageCount.put(message.getClass(), count);
-    messageBw.put(message.getClass(), bw);
 
+    messageCount.put(type, count);
+    messageBw.put(type, bw);
   }
 
   public void addMigration(Class<?> triggeringClass) {
@@ -3,6 +3,8 @@ package edu.uwo.csd.dcsim.core.metrics;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 
@@ -40,4 +42,30 @@ public abstract class MetricCollection {
   public void recordClusterMetrics(Collection<Cluster> clusters) {
     //DO NOTHING - Override if desired
   }
+
+  /**
+   * Determine if per-step time series are to be written, by the enableTimeSeries property
+   */
+  protected static boolean isTimeSeriesEnabled() {
+    return Simulation.hasProperty("enableTimeSeries")
+           && Boolean.parseBoolean(Simulation.getProperty("enableTimeSeries"));
+  }
+
+  /**
+   * Create a time series writer, with the chunk and queue sizes of the timeSeriesChunkSize and
+   * timeSeriesQueueSize properties
+   */
+  protected static TimeSeriesWriter createTimeSeriesWriter(File file, List<String> columns)
+      throws IOException {
+    int chunkSize = TimeSeriesWriter.DEFAULT_CHUNK_SIZE;
+    if (Simulation.hasProperty("timeSeriesChunkSize")) {
+      chunkSize = Integer.parseInt(Simulation.getProperty("timeSeriesChunkSize"));
+    }
+    int queueSize = TimeSeriesWriter.DEFAULT_QUEUE_SIZE;
+    if (Simulation.hasProperty("timeSeriesQueueSize")) {
+      queueSize = Integer.parseInt(Simulation.getProperty("timeSeriesQueueSize"));
+    }
+
+    return new TimeSeriesWriter(file, columns, chunkSize, queueSize);
+  }
 }
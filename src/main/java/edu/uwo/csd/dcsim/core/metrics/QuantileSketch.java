@@ -0,0 +1,287 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import java.util.Collection;
+
+/**
+ * A weighted quantile sketch, for estimating percentiles of a metric without retaining its
+ * samples. Values are counted in logarithmically sized buckets, so that any quantile is estimated
+ * to within a relative error of 'accuracy' of a recorded value, and memory grows only with the
+ * range of values recorded rather than the number of samples. Zero, and values smaller in
+ * magnitude than MIN_VALUE, are counted separately. So are values larger in magnitude than
+ * MAX_VALUE, including infinities and sentinels such as Double.MAX_VALUE, which would otherwise
+ * widen the buckets to thousands; quantiles falling among them are reported as the max (or min).
+ * <p>
+ * Sketches with the same accuracy can be merged, for example to combine the metrics of several
+ * replications of a simulation, with the same result as recording all values in one sketch.
+ */
+public class QuantileSketch {
+
+  public static final double DEFAULT_ACCURACY = 0.01;
+  public static final double MIN_VALUE = 1e-9;
+  public static final double MAX_VALUE = 1e12;
+
+  private final double accuracy;
+  private final double gamma;
+  private final double logGamma;
+
+  private final Buckets positive = new Buckets();
+  private final Buckets negative = new Buckets();
+  private double zeroWeight = 0;
+  private double overflowWeight = 0; //values above MAX_VALUE
+  private double underflowWeight = 0; //values below -MAX_VALUE
+
+  private double totalWeight = 0;
+  private long count = 0;
+  private double max = -Double.MAX_VALUE;
+  private double min = Double.MAX_VALUE;
+
+  public QuantileSketch() {
+    this(DEFAULT_ACCURACY);
+  }
+
+  /**
+   * Create a new QuantileSketch.
+   *
+   * @param accuracy The relative accuracy of quantile estimates, in (0, 1).
+   */
+  public QuantileSketch(double accuracy) {
+    if (accuracy <= 0 || accuracy >= 1) {
+      throw new IllegalArgumentException("Accuracy must be in (0, 1)");
+    }
+    this.accuracy = accuracy;
+    gamma = (1 + accuracy) / (1 - accuracy);
+    logGamma = Math.log(gamma);
+  }
+
+  public void add(double val) {
+    add(val, 1);
+  }
+
+  public void add(double val, double weight) {
+    if (weight <= 0 || Double.isNaN(val)) {
+      return;
+    }
+
+    if (val > MAX_VALUE) {
+      overflowWeight += weight;
+    } else if (val < -MAX_VALUE) {
+      underflowWeight += weight;
+    } else if (val >= MIN_VALUE) {
+      positive.add(index(val), weight);
+    } else if (val <= -MIN_VALUE) {
+      negative.add(index(-val), weight);
+    } else {
+      zeroWeight += weight;
+    }
+
+    totalWeight += weight;
+    ++count;
+
+    if (max < val) {
+      max = val;
+    }
+    if (min > val) {
+      min = val;
+    }
+  }
+
+  /**
+   * Add the values recorded by another sketch to this sketch
+   */
+  public void merge(QuantileSketch other) {
+    if (other.accuracy != accuracy) {
+      throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+    }
+
+    positive.merge(other.positive);
+    negative.merge(other.negative);
+    zeroWeight += other.zeroWeight;
+    overflowWeight += other.overflowWeight;
+    underflowWeight += other.underflowWeight;
+    totalWeight += other.totalWeight;
+    count += other.count;
+
+    if (max < other.max) {
+      max = other.max;
+    }
+    if (min > other.min) {
+      min = other.min;
+    }
+  }
+
+  /**
+   * Create a sketch holding the values of all of the given sketches
+   */
+  public static QuantileSketch merge(Collection<QuantileSketch> sketches) {
+    QuantileSketch merged = null;
+    for (QuantileSketch sketch : sketches) {
+      if (merged == null) {
+        merged = new QuantileSketch(sketch.accuracy);
+      }
+      merged.merge(sketch);
+    }
+    return merged == null ? new QuantileSketch() : merged;
+  }
+
+  /**
+   * Estimate a quantile of the recorded values.
+   *
+   * @param q The quantile, in [0, 1] (i.e. 0.95 for the 95th percentile).
+   * @return The estimated quantile, or NaN if no values have been recorded
+   */
+  public double getQuantile(double q) {
+    if (q < 0 || q > 1) {
+      throw new IllegalArgumentException("Quantile must be in [0, 1]");
+    }
+    if (count == 0) {
+      return Double.NaN;
+    }
+    if (q == 0) {
+      return min;
+    }
+    if (q == 1) {
+      return max;
+    }
+
+    double rank = q * totalWeight;
+    double weight = underflowWeight;
+    if (weight > rank) {
+      return min;
+    }
+
+    //negative values, from the largest magnitude
+    for (int i = negative.counts.length - 1; i >= 0; --i) {
+      weight += negative.counts[i];
+      if (weight > rank) {
+        return clamp(-value(negative.offset + i));
+      }
+    }
+
+    weight += zeroWeight;
+    if (weight > rank) {
+      return clamp(0);
+    }
+
+    for (int i = 0; i < positive.counts.length; ++i) {
+      weight += positive.counts[i];
+      if (weight > rank) {
+        return clamp(value(positive.offset + i));
+      }
+    }
+    return max; //rounding error in the total weight
+  }
+
+  /**
+   * Estimate the percentile of the recorded values, as a percentage (i.e. 95 for the 95th)
+   */
+  public double getPercentile(double p) {
+    return getQuantile(p / 100);
+  }
+
+  private double clamp(double val) {
+    return Math.min(max, Math.max(min, val));
+  }
+
+  private int index(double val) {
+    return (int) Math.ceil(Math.log(val) / logGamma);
+  }
+
+  /**
+   * The value representing a bucket, with a relative error of at most 'accuracy' from any value
+   * in the bucket
+   */
+  private double value(int index) {
+    return 2 * Math.pow(gamma, index) / (gamma + 1);
+  }
+
+  public double getAccuracy() {
+    return accuracy;
+  }
+
+  /**
+   * Get the number of values recorded
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Get the weight of values larger in magnitude than MAX_VALUE, which are not held in buckets
+   */
+  public double getOutOfRangeWeight() {
+    return overflowWeight + underflowWeight;
+  }
+
+  public double getTotalWeight() {
+    return totalWeight;
+  }
+
+  public double getMax() {
+    return max;
+  }
+
+  public double getMin() {
+    return min;
+  }
+
+  /**
+   * Get the number of buckets allocated, a measure of the memory used by the sketch
+   */
+  public int getBucketCount() {
+    return positive.counts.length + negative.counts.length;
+  }
+
+  /**
+   * Weights of a contiguous range of bucket indices, grown as values outside the range are added
+   */
+  private static class Buckets {
+
+    private double[] counts = new double[0];
+    private int offset = 0; //the bucket index of counts[0]
+
+    public void add(int index, double weight) {
+      ensure(index, index);
+      counts[index - offset] += weight;
+    }
+
+    public void merge(Buckets other) {
+      if (other.counts.length == 0) {
+        return;
+      }
+      ensure(other.offset, other.offset + other.counts.length - 1);
+      for (int i = 0; i < other.counts.length; ++i) {
+        counts[other.offset + i - offset] += other.counts[i];
+      }
+    }
+
+    private void ensure(int low, int high) {
+      if (counts.length == 0) {
+        counts = new double[high - low + 1];
+        offset = low;
+        return;
+      }
+
+      int end = offset + counts.length - 1;
+      if (low >= offset && high <= end) {
+        return;
+      }
+
+      //grow by at least half again, to limit copying as the range widens
+      int newLow = Math.min(low, offset);
+      int newHigh = Math.max(high, end);
+      int extra = counts.length / 2;
+      if (newLow < offset) {
+        newLow = Math.min(newLow, offset - extra);
+      }
+      if (newHigh > end) {
+        newHigh = Math.max(newHigh, end + extra);
+      }
+
+      double[] grown = new double[newHigh - newLow + 1];
+      System.arraycopy(counts, 0, grown, offset - newLow, counts.length);
+      counts = grown;
+      offset = newLow;
+    }
+  }
+
+}
@@ -9,6 +9,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -19,7 +20,9 @@ import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableModel;
 
 import edu.uwo.csd.dcsim.application.Application;
+import edu.uwo.csd.dcsim.application.MvaCache;
 import edu.uwo.csd.dcsim.common.SimTime;
+import edu.uwo.csd.dcsim.common.Utility;
 import edu.uwo.csd.dcsim.core.Simulation;
 import edu.uwo.csd.dcsim.host.Cluster;
 import edu.uwo.csd.dcsim.host.Host;
@@ -41,6 +44,12 @@ public class SimulationMetrics {
   long executionTime;
   int applicationSchedulingTimedOut = 0;
   long nSteps = 0;
+  long[] schedulingRounds = new long[16]; //histogram, number of steps taking each number of scheduling rounds
+  long schedulingSteps = 0;
+  long quantizedEvents = 0; //future events sent while a time quantum is set
+  long delayedEvents = 0; //quantized events delayed to the next multiple of the quantum
+  long totalQuantizationDelay = 0;
+  long maxQuantizationDelay = 0;
 
   public SimulationMetrics(Simulation simulation) {
     this.simulation = simulation;
@@ -133,6 +142,90 @@ public class SimulationMetrics {
     ++applicationSchedulingTimedOut;
   }
 
+  /**
+   * Record the number of scheduling rounds needed for resource scheduling and application demand
+   * to converge in a simulation step
+   */
+  public void recordSchedulingRounds(int rounds) {
+    if (rounds >= schedulingRounds.length) {
+      schedulingRounds = Arrays.copyOf(schedulingRounds, Math.max(rounds + 1,
+                                                                  schedulingRounds.length * 2));
+    }
+    ++schedulingRounds[rounds];
+    ++schedulingSteps;
+  }
+
+  /**
+   * Get the histogram of scheduling rounds per step, where element i holds the number of steps
+   * that needed i rounds
+   */
+  public long[] getSchedulingRoundsHistogram() {
+    return Arrays.copyOf(schedulingRounds, getSchedulingRoundsMax() + 1);
+  }
+
+  public double getSchedulingRoundsMean() {
+    double total = 0;
+    for (int rounds = 0; rounds < schedulingRounds.length; ++rounds) {
+      total += rounds * (double) schedulingRounds[rounds];
+    }
+    return schedulingSteps == 0 ? 0 : total / schedulingSteps;
+  }
+
+  public int getSchedulingRoundsMax() {
+    for (int rounds = schedulingRounds.length - 1; rounds > 0; --rounds) {
+      if (schedulingRounds[rounds] > 0) {
+        return rounds;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Get the number of scheduling rounds that the given percentage of steps completed within
+   */
+  public int getSchedulingRoundsPercentile(double percentile) {
+    long target = (long) Math.ceil(schedulingSteps * percentile / 100);
+    long count = 0;
+    for (int rounds = 0; rounds < schedulingRounds.length; ++rounds) {
+      count += schedulingRounds[rounds];
+      if (count >= target && count > 0) {
+        return rounds;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Record the delay (ms) applied to a future event by the simulation time quantum
+   */
+  public void recordEventQuantization(long delay) {
+    ++quantizedEvents;
+    if (delay > 0) {
+      ++delayedEvents;
+      totalQuantizationDelay += delay;
+      maxQuantizationDelay = Math.max(maxQuantizationDelay, delay);
+    }
+  }
+
+  public long getQuantizedEvents() {
+    return quantizedEvents;
+  }
+
+  public long getDelayedEvents() {
+    return delayedEvents;
+  }
+
+  /**
+   * Get the mean delay (ms) of events delayed by the time quantum
+   */
+  public double getQuantizationDelayMean() {
+    return delayedEvents == 0 ? 0 : totalQuantizationDelay / (double) delayedEvents;
+  }
+
+  public long getQuantizationDelayMax() {
+    return maxQuantizationDelay;
+  }
+
   @SuppressWarnings("unchecked")
   public <T extends MetricCollection> T getCustomMetricCollection(Class<T> type) {
     return (T) customMetrics.get(type);
@@ -167,6 +260,26 @@ public class SimulationMetrics {
         .toHumanReadable(simulation.getDuration() - simulation.getMetricRecordStart()));
     out.info("   application scheduling timed out: " + applicationSchedulingTimedOut);
     out.info("   simulation time steps: " + nSteps);
+    out.info("   scheduling rounds per step: mean " + Utility
+        .roundDouble(getSchedulingRoundsMean(), Simulation.getMetricPrecision())
+             + ", p50 " + getSchedulingRoundsPercentile(50)
+             + ", p95 " + getSchedulingRoundsPercentile(95)
+             + ", p99 " + getSchedulingRoundsPercentile(99)
+             + ", max " + getSchedulingRoundsMax());
+    if (simulation.getTimeQuantum() > 0) {
+      out.info("   time quantum: " + simulation.getTimeQuantum() + "ms, delayed " + delayedEvents
+               + "/" + quantizedEvents + " events, delay mean " + Utility
+                   .roundDouble(getQuantizationDelayMean(), Simulation.getMetricPrecision())
+               + "ms, max " + maxQuantizationDelay + "ms");
+    }
+    if (simulation.getMvaCache() != null) {
+      MvaCache mvaCache = simulation.getMvaCache();
+      out.info("   MVA cache hit ratio: " + Utility
+          .roundDouble(Utility.toPercentage(mvaCache.getHitRatio()),
+                       Simulation.getMetricPrecision()) + "% ("
+               + mvaCache.getHits() + " hits, " + mvaCache.getMisses() + " misses, "
+               + mvaCache.size() + "/" + mvaCache.getMaxEntries() + " entries)");
+    }
 
   }
 
@@ -183,6 +296,22 @@ public class SimulationMetrics {
     metrics.add(
         new ImmutablePair<String, Object>("appSchedulingTimeout", applicationSchedulingTimedOut));
     metrics.add(new ImmutablePair<String, Object>("nSteps", nSteps));
+    metrics.add(new ImmutablePair<String, Object>("schedulingRoundsMean", Utility
+        .roundDouble(getSchedulingRoundsMean(), Simulation.getMetricPrecision())));
+    metrics.add(new ImmutablePair<String, Object>("schedulingRoundsP95",
+                                                  getSchedulingRoundsPercentile(95)));
+    metrics.add(new ImmutablePair<String, Object>("schedulingRoundsMax",
+                                                  getSchedulingRoundsMax()));
+    if (simulation.getTimeQuantum() > 0) {
+      metrics.add(new ImmutablePair<String, Object>("quantumDelayedEvents", delayedEvents));
+      metrics.add(new ImmutablePair<String, Object>("quantumDelayMean", Utility
+          .roundDouble(getQuantizationDelayMean(), Simulation.getMetricPrecision())));
+      metrics.add(new ImmutablePair<String, Object>("quantumDelayMax", maxQuantizationDelay));
+    }
+    if (simulation.getMvaCache() != null) {
+      metrics.add(new ImmutablePair<String, Object>("mvaCacheHitRatio", Utility
+          .roundDouble(simulation.getMvaCache().getHitRatio(), Simulation.getMetricPrecision())));
+    }
 
     metrics.addAll(hostMetrics.getMetricValues());
     metrics.addAll(clusterMetrics.getMetricValues());
@@ -0,0 +1,348 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads a time series written by {@link TimeSeriesWriter}. Opening the file reads only the header
+ * and the chunk summaries (row count, time range and per-column min/max); the values of a column
+ * are decompressed when they are requested, one chunk at a time.
+ */
+public final class TimeSeriesReader implements Closeable {
+
+  private final RandomAccessFile file;
+  private final List<String> columns;
+  private final List<ChunkInfo> chunks = new ArrayList<ChunkInfo>();
+  private final long rows;
+
+  public TimeSeriesReader(File file) throws IOException {
+    this.file = new RandomAccessFile(file, "r");
+
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new RandomAccessFileInputStream(this.file), 1 << 16));
+    if (in.readInt() != TimeSeriesWriter.MAGIC) {
+      throw new IOException(file + " is not a time series file");
+    }
+    int version = in.readInt();
+    if (version != TimeSeriesWriter.VERSION) {
+      throw new IOException("Unsupported time series version " + version);
+    }
+
+    int nColumns = in.readInt();
+    List<String> columns = new ArrayList<String>(nColumns);
+    long position = 12;
+    for (int c = 0; c < nColumns; ++c) {
+      String column = in.readUTF();
+      columns.add(column);
+      position += 2 + column.getBytes("UTF-8").length;
+    }
+    this.columns = Collections.unmodifiableList(columns);
+
+    //scan the chunk summaries, skipping over the compressed payloads
+    long rows = 0;
+    while (true) {
+      int chunkRows;
+      try {
+        chunkRows = in.readInt();
+      } catch (EOFException e) {
+        break;
+      }
+      ChunkInfo chunk = new ChunkInfo(nColumns);
+      chunk.rows = chunkRows;
+      chunk.firstTime = in.readLong();
+      chunk.lastTime = in.readLong();
+      for (int c = 0; c < nColumns; ++c) {
+        chunk.min[c] = in.readFloat();
+        chunk.max[c] = in.readFloat();
+      }
+      chunk.payloadLength = in.readInt();
+      position += 4 + 8 + 8 + 8L * nColumns + 4;
+      chunk.payloadPosition = position;
+      position += chunk.payloadLength;
+
+      long skipped = 0;
+      while (skipped < chunk.payloadLength) {
+        long n = in.skip(chunk.payloadLength - skipped);
+        if (n <= 0) {
+          throw new EOFException("Truncated time series chunk");
+        }
+        skipped += n;
+      }
+
+      chunks.add(chunk);
+      rows += chunkRows;
+    }
+    this.rows = rows;
+  }
+
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  public int getColumnIndex(String column) {
+    int index = columns.indexOf(column);
+    if (index < 0) {
+      throw new IllegalArgumentException("No column named " + column);
+    }
+    return index;
+  }
+
+  /**
+   * Get the total number of rows in the series
+   */
+  public long getRowCount() {
+    return rows;
+  }
+
+  public int getChunkCount() {
+    return chunks.size();
+  }
+
+  public int getChunkRows(int chunk) {
+    return chunks.get(chunk).rows;
+  }
+
+  public long getChunkStartTime(int chunk) {
+    return chunks.get(chunk).firstTime;
+  }
+
+  public long getChunkEndTime(int chunk) {
+    return chunks.get(chunk).lastTime;
+  }
+
+  public float getChunkMin(int chunk, int column) {
+    return chunks.get(chunk).min[column];
+  }
+
+  public float getChunkMax(int chunk, int column) {
+    return chunks.get(chunk).max[column];
+  }
+
+  /**
+   * Get the minimum value of a column over the whole series, from the chunk summaries
+   */
+  public float getMin(String column) {
+    int c = getColumnIndex(column);
+    float min = Float.NaN;
+    for (ChunkInfo chunk : chunks) {
+      min = Float.isNaN(min) ? chunk.min[c] : Math.min(min, chunk.min[c]);
+    }
+    return min;
+  }
+
+  /**
+   * Get the maximum value of a column over the whole series, from the chunk summaries
+   */
+  public float getMax(String column) {
+    int c = getColumnIndex(column);
+    float max = Float.NaN;
+    for (ChunkInfo chunk : chunks) {
+      max = Float.isNaN(max) ? chunk.max[c] : Math.max(max, chunk.max[c]);
+    }
+    return max;
+  }
+
+  /**
+   * Get the time of every row
+   */
+  public long[] readTimes() throws IOException {
+    long[] times = new long[checkedRows()];
+    int offset = 0;
+    for (int i = 0; i < chunks.size(); ++i) {
+      readChunkTimes(i, times, offset);
+      offset += chunks.get(i).rows;
+    }
+    return times;
+  }
+
+  /**
+   * Get the value of a column in every row
+   */
+  public float[] readColumn(String column) throws IOException {
+    int c = getColumnIndex(column);
+    float[] values = new float[checkedRows()];
+    int offset = 0;
+    for (int i = 0; i < chunks.size(); ++i) {
+      readChunkColumn(i, c, values, offset);
+      offset += chunks.get(i).rows;
+    }
+    return values;
+  }
+
+  /**
+   * Get the times of the rows of a chunk
+   */
+  public long[] readChunkTimes(int chunk) throws IOException {
+    long[] times = new long[chunks.get(chunk).rows];
+    readChunkTimes(chunk, times, 0);
+    return times;
+  }
+
+  /**
+   * Get the values of a column in the rows of a chunk
+   */
+  public float[] readChunkColumn(int chunk, int column) throws IOException {
+    float[] values = new float[chunks.get(chunk).rows];
+    readChunkColumn(chunk, column, values, 0);
+    return values;
+  }
+
+  /**
+   * Get the values of every column in the rows of a chunk, indexed by [column][row]. Reading a
+   * whole chunk at once decompresses it once, rather than once per column.
+   */
+  public float[][] readChunk(int chunk) throws IOException {
+    ChunkInfo info = chunks.get(chunk);
+    float[][] values = new float[columns.size()][info.rows];
+    DataInputStream in = openPayload(info);
+    try {
+      for (int r = 1; r < info.rows; ++r) {
+        readVarLong(in);
+      }
+      for (int c = 0; c < values.length; ++c) {
+        readValues(in, values[c], 0, info.rows);
+      }
+    } finally {
+      in.close();
+    }
+    return values;
+  }
+
+  private void readChunkTimes(int chunk, long[] times, int offset) throws IOException {
+    ChunkInfo info = chunks.get(chunk);
+    DataInputStream in = openPayload(info);
+    try {
+      times[offset] = info.firstTime;
+      for (int r = 1; r < info.rows; ++r) {
+        times[offset + r] = times[offset + r - 1] + readVarLong(in);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private void readChunkColumn(int chunk, int column, float[] values, int offset)
+      throws IOException {
+    ChunkInfo info = chunks.get(chunk);
+    DataInputStream in = openPayload(info);
+    try {
+      //skip the times, then the preceding columns
+      for (int r = 1; r < info.rows; ++r) {
+        readVarLong(in);
+      }
+      long skip = 4L * info.rows * column;
+      while (skip > 0) {
+        int n = in.skipBytes((int) Math.min(skip, Integer.MAX_VALUE));
+        if (n <= 0) {
+          throw new EOFException("Truncated time series chunk");
+        }
+        skip -= n;
+      }
+
+      readValues(in, values, offset, info.rows);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void readValues(DataInputStream in, float[] values, int offset, int rows)
+      throws IOException {
+    int previous = 0;
+    for (int r = 0; r < rows; ++r) {
+      int bits = in.readInt() ^ previous;
+      values[offset + r] = Float.intBitsToFloat(bits);
+      previous = bits;
+    }
+  }
+
+  private DataInputStream openPayload(ChunkInfo info) throws IOException {
+    byte[] payload = new byte[info.payloadLength];
+    file.seek(info.payloadPosition);
+    file.readFully(payload);
+    return new DataInputStream(new BufferedInputStream(
+        new InflaterInputStream(new ByteArrayInputStream(payload)), 1 << 12));
+  }
+
+  private int checkedRows() {
+    if (rows > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Series too long to read into an array; read by chunk");
+    }
+    return (int) rows;
+  }
+
+  static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    int shift = 0;
+    while (true) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      shift += 7;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  private static final class ChunkInfo {
+
+    int rows;
+    long firstTime;
+    long lastTime;
+    final float[] min;
+    final float[] max;
+    int payloadLength;
+    long payloadPosition;
+
+    ChunkInfo(int columns) {
+      min = new float[columns];
+      max = new float[columns];
+    }
+  }
+
+  /**
+   * Sequential stream over a RandomAccessFile, used to scan the chunk summaries
+   */
+  private static final class RandomAccessFileInputStream extends InputStream {
+
+    private final RandomAccessFile file;
+
+    RandomAccessFileInputStream(RandomAccessFile file) {
+      this.file = file;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return file.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return file.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long remaining = file.length() - file.getFilePointer();
+      long skip = Math.min(n, remaining);
+      file.seek(file.getFilePointer() + skip);
+      return skip;
+    }
+  }
+
+}
@@ -0,0 +1,301 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a time series of rows of float values (e.g. power consumption, active hosts and the
+ * utilization of every host at each time step) to a compact, column oriented file, readable with
+ * {@link TimeSeriesReader}.
+ * <p>
+ * Rows are collected into chunks of a fixed number of rows. Each full chunk is handed to a writer
+ * thread through a bounded queue, so that encoding, compression and I/O happen off the simulation
+ * thread; if the writer falls more than queueSize chunks behind, append() blocks until it catches
+ * up. Chunk buffers are reused, so memory use is bounded by (queueSize + 2) chunks.
+ * <p>
+ * File format (all values big-endian, as written by DataOutputStream):
+ * <pre>
+ *   header: int MAGIC, int VERSION, int nColumns, nColumns * UTF column name
+ *   chunk:  int nRows, long firstTime, long lastTime, nColumns * (float min, float max),
+ *           int payloadLength, payload
+ * </pre>
+ * The payload is deflate compressed, and holds the time of each row but the first as a varint of
+ * the difference from the previous time, followed by the values of each column in turn. Values are
+ * stored as the XOR of their bits with those of the previous value in the column, so that columns
+ * which change slowly compress well. The per-chunk min/max let a reader skip chunks without
+ * decompressing them.
+ */
+public final class TimeSeriesWriter implements Closeable {
+
+  static final int MAGIC = 0x44435453; //"DCTS"
+  static final int VERSION = 1;
+
+  public static final int DEFAULT_CHUNK_SIZE = 256;
+  public static final int DEFAULT_QUEUE_SIZE = 4;
+
+  private final String[] columns;
+  private final int chunkSize;
+  private final DataOutputStream out;
+
+  private final BlockingQueue<Chunk> full;
+  private final BlockingQueue<Chunk> free;
+  private final Thread writerThread;
+  private volatile IOException error = null;
+
+  private Chunk current;
+  private long lastTime = Long.MIN_VALUE;
+  private boolean closed = false;
+
+  public TimeSeriesWriter(File file, List<String> columns) throws IOException {
+    this(file, columns, DEFAULT_CHUNK_SIZE, DEFAULT_QUEUE_SIZE);
+  }
+
+  public TimeSeriesWriter(File file, List<String> columns, int chunkSize, int queueSize)
+      throws IOException {
+    this(new FileOutputStream(file), columns, chunkSize, queueSize);
+  }
+
+  public TimeSeriesWriter(OutputStream stream, List<String> columns, int chunkSize, int queueSize)
+      throws IOException {
+    if (chunkSize < 1 || queueSize < 1) {
+      throw new IllegalArgumentException("Chunk size and queue size must be positive");
+    }
+
+    this.columns = columns.toArray(new String[columns.size()]);
+    this.chunkSize = chunkSize;
+
+    out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(this.columns.length);
+    for (String column : this.columns) {
+      out.writeUTF(column);
+    }
+
+    full = new ArrayBlockingQueue<Chunk>(queueSize + 1); //+1 for the end of stream marker
+    free = new ArrayBlockingQueue<Chunk>(queueSize + 1);
+    for (int i = 0; i <= queueSize; ++i) {
+      free.add(new Chunk(this.columns.length, chunkSize));
+    }
+    current = new Chunk(this.columns.length, chunkSize);
+
+    writerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        writeChunks();
+      }
+    }, "TimeSeriesWriter");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  public List<String> getColumns() {
+    return Arrays.asList(columns);
+  }
+
+  public int getColumnCount() {
+    return columns.length;
+  }
+
+  /**
+   * Append a row. The values are copied, so the array may be reused by the caller.
+   *
+   * @param time   the time of the row, which must not be before the time of the previous row
+   * @param values one value per column
+   */
+  public void append(long time, float[] values) throws IOException {
+    if (values.length != columns.length) {
+      throw new IllegalArgumentException(
+          "Expected " + columns.length + " values, got " + values.length);
+    }
+
+    int row = startRow(time);
+    for (int c = 0; c < columns.length; ++c) {
+      current.values[c][row] = values[c];
+    }
+    endRow();
+  }
+
+  /**
+   * Start a row to be filled in with set() and completed with endRow(), avoiding the copy made by
+   * append() when the values are gathered one at a time.
+   *
+   * @return the index of the row in the current chunk
+   */
+  public int startRow(long time) throws IOException {
+    checkOpen();
+    if (time < lastTime) {
+      throw new IllegalArgumentException("Rows must be appended in time order");
+    }
+    lastTime = time;
+    current.times[current.rows] = time;
+    return current.rows;
+  }
+
+  /**
+   * Set the value of a column of the row started by startRow()
+   */
+  public void set(int column, float value) {
+    current.values[column][current.rows] = value;
+  }
+
+  public void endRow() throws IOException {
+    ++current.rows;
+    if (current.rows == chunkSize) {
+      flushChunk();
+    }
+  }
+
+  private void flushChunk() throws IOException {
+    if (current.rows == 0) {
+      return;
+    }
+    try {
+      full.put(current);
+      current = free.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing time series", e);
+    }
+    current.rows = 0;
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Time series writer is closed");
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  /**
+   * Write any remaining rows, wait for the writer thread to finish and close the file
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    try {
+      flushChunk();
+      full.put(Chunk.END);
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while closing time series", e);
+    } finally {
+      closed = true;
+      out.close();
+    }
+
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private void writeChunks() {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    try {
+      while (true) {
+        Chunk chunk = full.take();
+        if (chunk == Chunk.END) {
+          break;
+        }
+        if (error == null) {
+          try {
+            writeChunk(chunk, payload, deflater);
+          } catch (IOException e) {
+            error = e;
+          }
+        }
+        free.put(chunk);
+      }
+      out.flush();
+    } catch (InterruptedException e) {
+      error = new IOException("Time series writer interrupted", e);
+    } catch (IOException e) {
+      error = e;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void writeChunk(Chunk chunk, ByteArrayOutputStream payload, Deflater deflater)
+      throws IOException {
+    int rows = chunk.rows;
+
+    out.writeInt(rows);
+    out.writeLong(chunk.times[0]);
+    out.writeLong(chunk.times[rows - 1]);
+    for (int c = 0; c < columns.length; ++c) {
+      float[] values = chunk.values[c];
+      float min = values[0];
+      float max = values[0];
+      for (int r = 1; r < rows; ++r) {
+        min = Math.min(min, values[r]);
+        max = Math.max(max, values[r]);
+      }
+      out.writeFloat(min);
+      out.writeFloat(max);
+    }
+
+    payload.reset();
+    deflater.reset();
+    DataOutputStream data =
+        new DataOutputStream(new DeflaterOutputStream(payload, deflater, 1 << 12));
+    for (int r = 1; r < rows; ++r) {
+      writeVarLong(data, chunk.times[r] - chunk.times[r - 1]);
+    }
+    for (int c = 0; c < columns.length; ++c) {
+      float[] values = chunk.values[c];
+      int previous = 0;
+      for (int r = 0; r < rows; ++r) {
+        int bits = Float.floatToIntBits(values[r]);
+        data.writeInt(bits ^ previous);
+        previous = bits;
+      }
+    }
+    data.close(); //finishes the deflater, without ending it
+
+    out.writeInt(payload.size());
+    payload.writeTo(out);
+  }
+
+  static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static final class Chunk {
+
+    static final Chunk END = new Chunk(0, 0);
+
+    final long[] times;
+    final float[][] values;
+    int rows = 0;
+
+    Chunk(int columns, int size) {
+      times = new long[size];
+      values = new float[columns][size];
+    }
+  }
+
+}
@@ -8,6 +8,16 @@ public class WeightedMetric {
   private double min = Double.MAX_VALUE;
   private double tempValue = 0;
 
+  public WeightedMetric() {
+  }
+
+  WeightedMetric(double totalWeight, double value, double max, double min) {
+    this.totalWeight = totalWeight;
+    this.value = value;
+    this.max = max;
+    this.min = min;
+  }
+
   public void add(double val, double weight) {
     value += val * weight;
     totalWeight += weight;
@@ -0,0 +1,95 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A set of WeightedMetrics, one per row, stored as columns of primitive arrays rather than as
+ * individual objects. Rows are identified by dense integer ids assigned by addRow(), so that
+ * recording a value is an array update, with no lookup or allocation.
+ */
+public class WeightedMetricTable {
+
+  private double[] sum; //sum of value * weight
+  private double[] weight;
+  private double[] max;
+  private double[] min;
+  private int size = 0;
+
+  public WeightedMetricTable() {
+    this(16);
+  }
+
+  public WeightedMetricTable(int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 1);
+    sum = new double[capacity];
+    weight = new double[capacity];
+    max = new double[capacity];
+    min = new double[capacity];
+  }
+
+  /**
+   * Add an empty row
+   *
+   * @return The id of the new row
+   */
+  public int addRow() {
+    if (size == sum.length) {
+      int capacity = size * 2;
+      sum = Arrays.copyOf(sum, capacity);
+      weight = Arrays.copyOf(weight, capacity);
+      max = Arrays.copyOf(max, capacity);
+      min = Arrays.copyOf(min, capacity);
+    }
+    //initial max and min as in WeightedMetric
+    max[size] = 0;
+    min[size] = Double.MAX_VALUE;
+    return size++;
+  }
+
+  public void add(int row, double val, double weight) {
+    sum[row] += val * weight;
+    this.weight[row] += weight;
+
+    if (max[row] < val) {
+      max[row] = val;
+    }
+    if (min[row] > val) {
+      min[row] = val;
+    }
+  }
+
+  public double getMean(int row) {
+    return sum[row] / weight[row];
+  }
+
+  public double getSum(int row) {
+    return sum[row];
+  }
+
+  public double getWeight(int row) {
+    return weight[row];
+  }
+
+  public double getMax(int row) {
+    return max[row];
+  }
+
+  public double getMin(int row) {
+    return min[row];
+  }
+
+  /**
+   * Get a copy of a row as a WeightedMetric
+   */
+  public WeightedMetric get(int row) {
+    return new WeightedMetric(weight[row], sum[row], max[row], min[row]);
+  }
+
+  /**
+   * Get the number of rows
+   */
+  public int size() {
+    return size;
+  }
+
+}
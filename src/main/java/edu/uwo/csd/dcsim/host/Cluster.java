@@ -27,6 +27,9 @@ public final class Cluster implements SimulationEventListener {
   private final Switch mainDataSwitch;          // Data network main (top-level) switch.
   private final Switch mainMgmtSwitch;          // Management network main (top-level) switch.
 
+  private final HostAggregate aggregate;        // Totals of the Cluster's hosts.
+  private final double switchPower;             // Power consumption of all switches in the Cluster.
+
   public enum ClusterState {
     ON, SUSPENDED, OFF;
 
@@ -95,6 +98,23 @@ public final class Cluster implements SimulationEventListener {
       }
     }
 
+    this.aggregate = builder.simulation.getHostAggregator().createAggregate();
+
+    // Switch power is constant, so calculate it once.
+    double power = mainDataSwitch.getPowerConsumption() + mainMgmtSwitch.getPowerConsumption();
+    if (nSwitches > 1) {        // Star topology.
+      for (Switch s : dataSwitches) {
+        power += s.getPowerConsumption();
+      }
+      for (Switch s : mgmtSwitches) {
+        power += s.getPowerConsumption();
+      }
+    }
+    for (Rack rack : racks) {
+      power += rack.getSwitchPowerConsumption();
+    }
+    switchPower = power;
+
     // Set default state.
     state = ClusterState.OFF;
 
@@ -164,25 +184,7 @@ public final class Cluster implements SimulationEventListener {
   }
 
   public double getCurrentPowerConsumption() {
-    double power = 0;
-
-    for (Rack rack : racks) {
-      power += rack.getCurrentPowerConsumption();
-    }
-
-    // Add power consumption of the Cluster's Switches.
-    power += mainDataSwitch.getPowerConsumption();
-    power += mainMgmtSwitch.getPowerConsumption();
-    if (getSwitchCount() > 1) {        // Star topology.
-      for (Switch s : dataSwitches) {
-        power += s.getPowerConsumption();
-      }
-      for (Switch s : mgmtSwitches) {
-        power += s.getPowerConsumption();
-      }
-    }
-
-    return power;
+    return aggregate.getPowerConsumption() + switchPower;
   }
 
   public void updateState() {
@@ -252,6 +254,14 @@ public final class Cluster implements SimulationEventListener {
     return state;
   }
 
+  /**
+   * Get the running totals of the Cluster's hosts.
+   */
+  public HostAggregate getAggregate() {
+    return aggregate;
+  }
+
+
   @Override
   public boolean equals(Object o) {
     if (this == o) { return true; }
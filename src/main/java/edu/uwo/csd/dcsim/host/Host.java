@@ -83,6 +83,16 @@ public final class Host implements SimulationEventListener {
   private double utilizationSum = 0; //used to calculate average utilization
   private double powerConsumed = 0; //total power consumed by the host
 
+  /*
+   * Aggregates (see HostAggregator), and the values last pushed to them
+   */
+  private HostAggregate aggregate = null; //the aggregate of the rack containing this host
+  private boolean changed = false; //true if the host is waiting to update its aggregate
+  private boolean aggregatedActive = false;
+  private int aggregatedCpuInUse = 0;
+  private double aggregatedPower = 0;
+  private double aggregatedUtilization = 0;
+  private int aggregatedUtilizationBin = -1;
 
   private Host(Builder builder) {
 
@@ -383,6 +393,7 @@ public final class Host implements SimulationEventListener {
 
     //add the allocation to the Host list of allocations
     vmAllocations.add(newAllocation);
+    markChanged();
     startingVm.add(newAllocation);
 
     long vmStartDelay = Long.parseLong(Simulation.getProperty("vmStartTime"));
@@ -436,6 +447,7 @@ public final class Host implements SimulationEventListener {
 
     //add the allocation to the Host list of allocations
     vmAllocations.add(newAllocation);
+    markChanged();
 
     //create a new VM in the allocation
     Vm newVm = newAllocation.vmDescription().createVM(simulation, newAllocation);
@@ -475,6 +487,7 @@ public final class Host implements SimulationEventListener {
     resourceManager.deallocateResource(vmAllocation);
 
     vmAllocations.remove(vmAllocation);
+    markChanged();
   }
 
 	/*
@@ -529,6 +542,7 @@ public final class Host implements SimulationEventListener {
 
     //add the allocation to the Host list of allocations
     vmAllocations.add(newAllocation);
+    markChanged();
 
     //add the allocation to migratingIn list
     migratingIn.add(newAllocation);
@@ -594,6 +608,7 @@ public final class Host implements SimulationEventListener {
     //attach VM to allocation
     vmAllocation.setVm(vm);
     vm.setVMAllocation(vmAllocation);
+    markChanged();
 
     simulation.getLogger()
         .debug("Host #" + this.id() + " completed migrating incoming VM #" + vm.getId());
@@ -623,6 +638,7 @@ public final class Host implements SimulationEventListener {
   public void suspend(PowerStateEvent event) {
     if (state != HostState.SUSPENDED && state != HostState.SUSPENDING) {
       state = HostState.SUSPENDING;
+      markChanged();
       long delay = Long.parseLong(Simulation.getProperty("hostSuspendDelay"));
 
       PowerStateEvent completeEvent = new PowerStateEvent(this, PowerState.SUSPEND, true);
@@ -640,6 +656,7 @@ public final class Host implements SimulationEventListener {
         powerOffAfterMigrations = event;
       } else {
         state = HostState.POWERING_OFF;
+        markChanged();
         long delay = Long.parseLong(Simulation.getProperty("hostPowerOffDelay"));
 
         PowerStateEvent completeEvent = new PowerStateEvent(this, PowerState.POWER_OFF, true);
@@ -683,6 +700,7 @@ public final class Host implements SimulationEventListener {
       simulation.sendEvent(completeEvent, simulation.getSimulationTime() + delay);
 
       state = HostState.POWERING_ON;
+      markChanged();
 
       //inform any managers that the host is turning on
       if (autonomicManager != null) {
@@ -699,6 +717,7 @@ public final class Host implements SimulationEventListener {
 
     if (state != HostState.ON) {
       state = HostState.ON;
+      markChanged();
       for (Event e : powerOnEventQueue) {
         e.setBlockPostEvent(false);
         handleEvent(e);
@@ -711,6 +730,7 @@ public final class Host implements SimulationEventListener {
 
   private void completePowerOff() {
     state = HostState.OFF;
+    markChanged();
 
     if (autonomicManager != null) {
       autonomicManager.onContainerStop();
@@ -722,6 +742,7 @@ public final class Host implements SimulationEventListener {
 
   private void completeSuspend() {
     state = HostState.SUSPENDED;
+    markChanged();
 
     if (autonomicManager != null) {
       autonomicManager.onContainerStop();
@@ -733,6 +754,7 @@ public final class Host implements SimulationEventListener {
 
   public void fail() {
     state = HostState.FAILED;
+    markChanged();
   }
 
   /**
@@ -792,6 +814,86 @@ public final class Host implements SimulationEventListener {
     }
   }
 
+  /**
+   * Set the aggregate (normally that of the host's rack) that this host adds its state, CPU use and
+   * power consumption to, removing it from any previous aggregate.
+   */
+  public void setAggregate(HostAggregate aggregate) {
+    if (this.aggregate != null) {
+      this.aggregate.add(-1, aggregatedActive ? -1 : 0, -totalCpu(), -aggregatedCpuInUse,
+                         -aggregatedPower, -aggregatedUtilization);
+      simulation.getHostAggregator().moveUtilization(aggregatedUtilizationBin, -1);
+      if (aggregate == null) {
+        simulation.getHostAggregator().removeHost(this);
+      }
+    } else if (aggregate != null) {
+      simulation.getHostAggregator().addHost(this);
+    }
+
+    aggregatedActive = false;
+    aggregatedCpuInUse = 0;
+    aggregatedPower = 0;
+    aggregatedUtilization = 0;
+    aggregatedUtilizationBin = -1;
+
+    this.aggregate = aggregate;
+    if (aggregate != null) {
+      aggregate.add(1, 0, totalCpu(), 0, 0, 0);
+      changed = false;
+      markChanged();
+    }
+  }
+
+  public HostAggregate getAggregate() {
+    return aggregate;
+  }
+
+  /**
+   * Record that the state or CPU use of the host may have changed, so that it updates its
+   * aggregate before the aggregate is next read
+   */
+  public void markChanged() {
+    if (!changed && aggregate != null) {
+      changed = true;
+      simulation.getHostAggregator().markChanged(this);
+    }
+  }
+
+  /**
+   * Push the change in the host's values since the last update to its aggregate
+   */
+  void updateAggregate() {
+    changed = false;
+
+    int cpuInUse = resourceManager.getCpuInUse();
+    float utilization = (float) cpuInUse / (float) totalCpu();
+    double power = powerModel.getPowerConsumption(state, utilization);
+    boolean active = state == HostState.ON;
+    double activeUtilization = active ? utilization : 0;
+    int bin = active ? HostAggregator.utilizationBin(utilization) : -1;
+
+    aggregate.add(0, (active ? 1 : 0) - (aggregatedActive ? 1 : 0), 0,
+                  cpuInUse - aggregatedCpuInUse, power - aggregatedPower,
+                  activeUtilization - aggregatedUtilization);
+    if (bin != aggregatedUtilizationBin) {
+      simulation.getHostAggregator().moveUtilization(aggregatedUtilizationBin, bin);
+    }
+
+    aggregatedActive = active;
+    aggregatedCpuInUse = cpuInUse;
+    aggregatedPower = power;
+    aggregatedUtilization = activeUtilization;
+    aggregatedUtilizationBin = bin;
+  }
+
+  /**
+   * Add the power and utilization last pushed to the aggregate again, after the aggregator has
+   * cleared the sums to recompute them
+   */
+  void addAggregateSums() {
+    aggregate.add(0, 0, 0, 0, aggregatedPower, aggregatedUtilization);
+  }
+
   /**
    * Get the power efficiency of the host.
    */
@@ -838,6 +940,7 @@ public final class Host implements SimulationEventListener {
 
   public void setState(HostState state) {
     this.state = state;
+    markChanged();
   }
 
   public NetworkCard getDataNetworkCard() {
@@ -0,0 +1,116 @@
+package edu.uwo.csd.dcsim.host;
+
+/**
+ * Running totals of the state, CPU use and power consumption of a group of hosts, such as a Rack,
+ * Cluster, DataCentre or the whole simulation. Totals are not computed by visiting the hosts, but
+ * maintained incrementally: hosts whose state or CPU use has changed push the difference into the
+ * aggregate of their rack, which passes it on to its parent aggregates. Any pending changes are
+ * applied before a total is read, and the floating point sums are periodically recomputed (see
+ * {@link HostAggregator}).
+ * <p>
+ * Power consumption includes only the hosts, not network switches.
+ */
+public final class HostAggregate {
+
+  private final HostAggregator aggregator;
+  private HostAggregate parent = null;
+
+  private int hosts = 0;
+  private int activeHosts = 0; //hosts in the ON state
+  private long totalCpu = 0;
+  private long cpuInUse = 0;
+  private double power = 0;
+  private double utilizationSum = 0; //sum of the CPU utilization of active hosts
+
+  public HostAggregate(HostAggregator aggregator) {
+    this.aggregator = aggregator;
+  }
+
+  /**
+   * Set the aggregate containing this one, moving the totals of this aggregate to it
+   */
+  public void setParent(HostAggregate parent) {
+    if (this.parent != null) {
+      this.parent.add(-hosts, -activeHosts, -totalCpu, -cpuInUse, -power, -utilizationSum);
+    }
+    this.parent = parent;
+    if (parent != null) {
+      parent.add(hosts, activeHosts, totalCpu, cpuInUse, power, utilizationSum);
+    }
+  }
+
+  public HostAggregate getParent() {
+    return parent;
+  }
+
+  void add(int hosts, int activeHosts, long totalCpu, long cpuInUse, double power,
+           double utilizationSum) {
+    HostAggregate aggregate = this;
+    while (aggregate != null) {
+      aggregate.hosts += hosts;
+      aggregate.activeHosts += activeHosts;
+      aggregate.totalCpu += totalCpu;
+      aggregate.cpuInUse += cpuInUse;
+      aggregate.power += power;
+      aggregate.utilizationSum += utilizationSum;
+      aggregate = aggregate.parent;
+    }
+  }
+
+  void clearSums() {
+    power = 0;
+    utilizationSum = 0;
+  }
+
+  public int getHostCount() {
+    return hosts;
+  }
+
+  /**
+   * Get the number of hosts in the ON state
+   */
+  public int getActiveHosts() {
+    aggregator.update();
+    return activeHosts;
+  }
+
+  /**
+   * Get the total physical CPU capacity of the hosts
+   */
+  public long getTotalCpu() {
+    return totalCpu;
+  }
+
+  /**
+   * Get the total physical CPU in use on the hosts (real usage, not allocation)
+   */
+  public long getCpuInUse() {
+    aggregator.update();
+    return cpuInUse;
+  }
+
+  /**
+   * Get the fraction of the total CPU capacity of the hosts that is in use
+   */
+  public double getCpuUtilization() {
+    aggregator.update();
+    return totalCpu == 0 ? 0 : cpuInUse / (double) totalCpu;
+  }
+
+  /**
+   * Get the mean CPU utilization of the active hosts
+   */
+  public double getActiveHostUtilization() {
+    aggregator.update();
+    return activeHosts == 0 ? 0 : utilizationSum / activeHosts;
+  }
+
+  /**
+   * Get the current power consumption of the hosts
+   */
+  public double getPowerConsumption() {
+    aggregator.update();
+    return power;
+  }
+
+}
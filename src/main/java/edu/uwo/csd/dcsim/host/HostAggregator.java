@@ -0,0 +1,142 @@
+package edu.uwo.csd.dcsim.host;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the HostAggregates of a simulation. Hosts mark themselves as changed when their state
+ * or CPU use may have changed; before any aggregate total is read, each changed host computes its
+ * current values once and pushes the difference from the values it last pushed up its chain of
+ * aggregates. The cost of keeping the totals current is therefore proportional to the number of
+ * changed hosts, rather than the number of hosts.
+ * <p>
+ * Integer totals are exact, but the power consumption and utilization sums are floating point, and
+ * summing many differences accumulates rounding error. They are therefore recomputed from the
+ * hosts' last pushed values every RECOMPUTE_UPDATES host updates, or every host count updates if
+ * there are more hosts, which keeps the amortized cost of an update constant.
+ * <p>
+ * The aggregator also keeps the distribution of the CPU utilization of active hosts, as counts of
+ * hosts by utilization in steps of 1 / UTILIZATION_BINS.
+ */
+public final class HostAggregator {
+
+  public static final int UTILIZATION_BINS = 1000;
+  public static final int RECOMPUTE_UPDATES = 100000;
+
+  private final HostAggregate global = new HostAggregate(this);
+  private final List<HostAggregate> aggregates = new ArrayList<HostAggregate>();
+  private final List<Host> hosts = new ArrayList<Host>(); //hosts with an aggregate
+  private final List<Host> changed = new ArrayList<Host>();
+  private final int[] utilizationCounts = new int[UTILIZATION_BINS + 1];
+  private boolean updating = false;
+
+  private long hostUpdates = 0;
+  private long updatesSinceRecompute = 0;
+
+  public HostAggregator() {
+    aggregates.add(global);
+  }
+
+  /**
+   * Get the aggregate of all hosts in the simulation
+   */
+  public HostAggregate getGlobal() {
+    return global;
+  }
+
+  /**
+   * Create a new aggregate, to hold a group of hosts
+   */
+  public HostAggregate createAggregate() {
+    HostAggregate aggregate = new HostAggregate(this);
+    aggregates.add(aggregate);
+    return aggregate;
+  }
+
+  void addHost(Host host) {
+    hosts.add(host);
+  }
+
+  void removeHost(Host host) {
+    for (int i = 0; i < hosts.size(); ++i) {
+      if (hosts.get(i) == host) {
+        hosts.remove(i);
+        return;
+      }
+    }
+  }
+
+  void markChanged(Host host) {
+    changed.add(host);
+  }
+
+  /**
+   * Apply the changes of all changed hosts to the aggregates
+   */
+  public void update() {
+    if (updating || changed.isEmpty()) {
+      return;
+    }
+
+    updating = true;
+    for (int i = 0; i < changed.size(); ++i) {
+      changed.get(i).updateAggregate();
+    }
+    hostUpdates += changed.size();
+    updatesSinceRecompute += changed.size();
+    changed.clear();
+    if (updatesSinceRecompute >= Math.max(RECOMPUTE_UPDATES, hosts.size())) {
+      recomputeSums();
+    }
+    updating = false;
+  }
+
+  /**
+   * Apply any changes, and recompute the power consumption and utilization sums of the aggregates
+   * from the hosts, discarding accumulated rounding error
+   */
+  public void recompute() {
+    update();
+    recomputeSums();
+  }
+
+  private void recomputeSums() {
+    for (int i = 0; i < aggregates.size(); ++i) {
+      aggregates.get(i).clearSums();
+    }
+    for (int i = 0; i < hosts.size(); ++i) {
+      hosts.get(i).addAggregateSums();
+    }
+    updatesSinceRecompute = 0;
+  }
+
+  void moveUtilization(int oldBin, int newBin) {
+    if (oldBin >= 0) {
+      --utilizationCounts[oldBin];
+    }
+    if (newBin >= 0) {
+      ++utilizationCounts[newBin];
+    }
+  }
+
+  static int utilizationBin(double utilization) {
+    int bin = (int) Math.round(utilization * UTILIZATION_BINS);
+    return Math.max(0, Math.min(UTILIZATION_BINS, bin));
+  }
+
+  /**
+   * Get the number of active hosts with a CPU utilization of bin / UTILIZATION_BINS (rounded)
+   */
+  public int getUtilizationCount(int bin) {
+    update();
+    return utilizationCounts[bin];
+  }
+
+  /**
+   * Get the number of host updates applied to the aggregates
+   */
+  public long getHostUpdates() {
+    return hostUpdates;
+  }
+
+}
@@ -28,6 +28,8 @@ public final class Rack implements SimulationEventListener, Comparable<Rack> {
   private final Switch dataNetworkSwitch;        // Data network switch.
   private final Switch mgmtNetworkSwitch;        // Management network switch.
 
+  private final HostAggregate aggregate;   // Totals of the Rack's hosts.
+
   private final int hashCode;
 
   public enum RackState {
@@ -48,6 +50,7 @@ public final class Rack implements SimulationEventListener, Comparable<Rack> {
     this.mgmtNetworkSwitch = builder.switchFactory.newInstance();
 
     this.hosts = Collections.unmodifiableList(builder.hosts);
+    this.aggregate = simulation.getHostAggregator().createAggregate();
     for (Host host : hosts) {
 
       // Set Data Network.
@@ -135,16 +138,14 @@ public final class Rack implements SimulationEventListener, Comparable<Rack> {
   }
 
   public double getCurrentPowerConsumption() {
-    double power = 0;
-
-    for (Host host : hosts) {
-      power += host.getCurrentPowerConsumption();
-    }
-
-    power += dataNetworkSwitch.getPowerConsumption();
-    power += mgmtNetworkSwitch.getPowerConsumption();
+    return aggregate.getPowerConsumption() + getSwitchPowerConsumption();
+  }
 
-    return power;
+  /**
+   * Power consumption of the Rack's switches, which is constant.
+   */
+  public double getSwitchPowerConsumption() {
+    return dataNetworkSwitch.getPowerConsumption() + mgmtNetworkSwitch.getPowerConsumption();
   }
 
   public void updateState() {
@@ -217,6 +218,14 @@ public final class Rack implements SimulationEventListener, Comparable<Rack> {
   public RackState getState() {
     return state;
   }
+
+  /**
+   * Get the running totals of the Rack's hosts.
+   */
+  public HostAggregate getAggregate() {
+    return aggregate;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) { return true; }
@@ -0,0 +1,119 @@
+package edu.uwo.csd.dcsim.host;
+
+/**
+ * A mutable amount of CPU, memory, bandwidth and storage, for summing and comparing resources in
+ * loops without creating a new Resource at every step. A ResourceVector is meant to be reused as a
+ * scratch value by its owner; convert it to a Resource with toResource() when it must be kept or
+ * shared.
+ */
+public final class ResourceVector {
+
+  private int cpu;
+  private int memory;
+  private int bandwidth;
+  private int storage;
+
+  public ResourceVector() {
+  }
+
+  public ResourceVector(Resource resource) {
+    set(resource);
+  }
+
+  public int cpu() {
+    return cpu;
+  }
+
+  public int memory() {
+    return memory;
+  }
+
+  public int bandwidth() {
+    return bandwidth;
+  }
+
+  public int storage() {
+    return storage;
+  }
+
+  public ResourceVector clear() {
+    return set(0, 0, 0, 0);
+  }
+
+  public ResourceVector set(Resource resource) {
+    return set(resource.cpu(), resource.memory(), resource.bandwidth(), resource.storage());
+  }
+
+  public ResourceVector set(ResourceVector other) {
+    return set(other.cpu, other.memory, other.bandwidth, other.storage);
+  }
+
+  public ResourceVector set(int cpu, int memory, int bandwidth, int storage) {
+    this.cpu = cpu;
+    this.memory = memory;
+    this.bandwidth = bandwidth;
+    this.storage = storage;
+    return this;
+  }
+
+  public ResourceVector setCpu(int cpu) {
+    this.cpu = cpu;
+    return this;
+  }
+
+  public ResourceVector add(Resource resource) {
+    return add(resource.cpu(), resource.memory(), resource.bandwidth(), resource.storage());
+  }
+
+  public ResourceVector add(ResourceVector other) {
+    return add(other.cpu, other.memory, other.bandwidth, other.storage);
+  }
+
+  public ResourceVector add(int cpu, int memory, int bandwidth, int storage) {
+    this.cpu += cpu;
+    this.memory += memory;
+    this.bandwidth += bandwidth;
+    this.storage += storage;
+    return this;
+  }
+
+  public ResourceVector subtract(Resource resource) {
+    return add(-resource.cpu(), -resource.memory(), -resource.bandwidth(), -resource.storage());
+  }
+
+  public ResourceVector subtract(ResourceVector other) {
+    return add(-other.cpu, -other.memory, -other.bandwidth, -other.storage);
+  }
+
+  /**
+   * Determine if every resource in this vector is no more than the corresponding resource in the
+   * other. Unlike Resource.fitsIn, CPU is compared directly rather than as gross CPU.
+   */
+  public boolean fitsIn(ResourceVector other) {
+    return cpu <= other.cpu &&
+           memory <= other.memory &&
+           bandwidth <= other.bandwidth &&
+           storage <= other.storage;
+  }
+
+  /**
+   * Create a Resource with the values of this vector, and the given number of CPUs and cores
+   */
+  public Resource toResource(int numCpus, int numCores) {
+    return Resource.create(numCpus, numCores, cpu, memory, bandwidth, storage);
+  }
+
+  /**
+   * Create a lumped Resource (one CPU with one core) with the values of this vector
+   */
+  public Resource toResource() {
+    return Resource.createLumped(cpu, memory, bandwidth, storage);
+  }
+
+  @Override
+  public String toString() {
+    return "ResourceVector{cpu=" + cpu + ", memory=" + memory + ", bandwidth=" + bandwidth
+           + ", storage=" + storage + "}";
+  }
+
+}
@@ -0,0 +1,50 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import java.util.function.ToIntFunction;
+
+import edu.uwo.csd.dcsim.vm.Vm;
+
+/**
+ * Shares CPU among VMs subject to a per-VM reservation and cap, as hypervisors offer alongside
+ * their fair share scheduling. Each VM is first given its demand up to its reservation; the CPU
+ * that remains is then shared max-min fairly among the unmet demands, with no VM receiving more
+ * than its cap. A capped VM receives no more than its cap even when the host has idle CPU, so its
+ * effective service time is inflated regardless of contention.
+ * <p>
+ * If the reservations of the demanding VMs exceed the CPU of the host, the CPU is shared max-min
+ * fairly among the reserved demands instead.
+ */
+public class CapReservationResourceScheduler extends CpuShareResourceScheduler {
+
+  private final ToIntFunction<Vm> reservation;
+  private final ToIntFunction<Vm> cap;
+  private final FairShare fairShare = new FairShare();
+
+  private int[] reservations = new int[0];
+  private int[] caps = new int[0];
+
+  /**
+   * @param reservation gives the CPU reserved for a VM
+   * @param cap         gives the maximum CPU a VM may be scheduled
+   */
+  public CapReservationResourceScheduler(ToIntFunction<Vm> reservation, ToIntFunction<Vm> cap) {
+    this.reservation = reservation;
+    this.cap = cap;
+  }
+
+  @Override
+  protected void computeShares(Vm[] vms, int[] demands, int n, int capacity, int[] shares) {
+    if (reservations.length < n) {
+      int length = Math.max(n, reservations.length * 2);
+      reservations = new int[length];
+      caps = new int[length];
+    }
+    for (int i = 0; i < n; ++i) {
+      reservations[i] = reservation.applyAsInt(vms[i]);
+      caps[i] = cap.applyAsInt(vms[i]);
+    }
+
+    fairShare.shareWithReservations(demands, reservations, caps, n, capacity, shares);
+  }
+
+}
@@ -0,0 +1,36 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import java.util.function.ToIntFunction;
+
+import edu.uwo.csd.dcsim.common.ObjectFactory;
+import edu.uwo.csd.dcsim.vm.Vm;
+
+public class CapReservationResourceSchedulerFactory
+    implements ObjectFactory<CapReservationResourceScheduler> {
+
+  private final ToIntFunction<Vm> reservation;
+  private final ToIntFunction<Vm> cap;
+
+  /**
+   * Reserve and cap each VM at fractions of its size (the CPU of its description)
+   *
+   * @param reservationFraction the fraction of its size reserved for each VM
+   * @param capFraction         the fraction of its size each VM is capped at
+   */
+  public CapReservationResourceSchedulerFactory(double reservationFraction, double capFraction) {
+    this(vm -> (int) (vm.getMaxCpu() * reservationFraction),
+         vm -> (int) (vm.getMaxCpu() * capFraction));
+  }
+
+  public CapReservationResourceSchedulerFactory(ToIntFunction<Vm> reservation,
+                                                ToIntFunction<Vm> cap) {
+    this.reservation = reservation;
+    this.cap = cap;
+  }
+
+  @Override
+  public CapReservationResourceScheduler newInstance() {
+    return new CapReservationResourceScheduler(reservation, cap);
+  }
+
+}
@@ -0,0 +1,113 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import java.util.Arrays;
+
+import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.vm.Vm;
+import edu.uwo.csd.dcsim.vm.VmAllocation;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Base class for schedulers that differ only in how CPU is shared among VMs. The privileged domain
+ * (VMM) is scheduled its full demand, and every VM its full memory, bandwidth and storage demand,
+ * with the same checks as DefaultResourceScheduler. The CPU demands of the VMs are then gathered
+ * into primitive arrays, reused between calls, and each VM is scheduled once with the share
+ * computed by computeShares().
+ */
+public abstract class CpuShareResourceScheduler extends ResourceScheduler {
+
+  private Vm[] vms = new Vm[0];
+  private int[] demands = new int[0];
+  private int[] shares = new int[0];
+
+  @Override
+  public void scheduleResources() {
+
+    int cpuRemaining = host.getResourceManager().getTotalCpu();
+    int memoryRemaining = host.getResourceManager().getTotalMemory();
+    int bandwidthRemaining = host.getResourceManager().getTotalBandwidth();
+    int storageRemaining = host.getResourceManager().getTotalStorage();
+
+    //first, schedule privileged domain (VMM) its full demand
+    Vm privDomainVm = host.getPrivDomainAllocation().getVm();
+    Resource privResourceDemand = privDomainVm.getResourceDemand();
+
+    checkState(cpuRemaining >= privResourceDemand.cpu(),
+               "Host #%s does not have enough CPU to execute the VMM (privileged domain)",
+               host.id());
+    checkState(memoryRemaining >= privResourceDemand.memory(),
+               "Host #%s does not have enough memory to execute the VMM (privileged domain)",
+               host.id());
+    checkState(bandwidthRemaining >= privResourceDemand.bandwidth(),
+               "Host #%s does not have enough bandwidth to execute the VMM (privileged domain)",
+               host.id());
+    checkState(storageRemaining >= privResourceDemand.storage(),
+               "Host #%s does not have enough storage to execute the VMM (privileged domain)",
+               host.id());
+
+    cpuRemaining -= privResourceDemand.cpu();
+    memoryRemaining -= privResourceDemand.memory();
+    bandwidthRemaining -= privResourceDemand.bandwidth();
+    storageRemaining -= privResourceDemand.storage();
+    privDomainVm.scheduleResources(privResourceDemand);
+
+    //gather the VMs and their CPU demands, checking that all other resources are available
+    int n = 0;
+    for (VmAllocation vmAlloc : host.getVMAllocations()) {
+      Vm vm = vmAlloc.getVm();
+      if (vm == null) {
+        continue;
+      }
+
+      Resource demand = vm.getResourceDemand();
+      checkState(demand.memory() <= memoryRemaining,
+                 "Host #%s does not have enough memory to execute VM #%s",
+                 host.id(), vm.getId());
+      checkState(demand.bandwidth() <= bandwidthRemaining,
+                 "Host #%s does not have enough bandwidth to execute VM #%s",
+                 host.id(), vm.getId());
+      checkState(demand.storage() <= storageRemaining,
+                 "Host #%s does not have enough storage to execute VM #%s",
+                 host.id(), vm.getId());
+
+      memoryRemaining -= demand.memory();
+      bandwidthRemaining -= demand.bandwidth();
+      storageRemaining -= demand.storage();
+
+      ensureCapacity(n + 1);
+      vms[n] = vm;
+      demands[n] = demand.cpu();
+      ++n;
+    }
+
+    //now, share the CPU among all VMs, writing each schedule once
+    computeShares(vms, demands, n, cpuRemaining, shares);
+    for (int i = 0; i < n; ++i) {
+      vms[i].scheduleResources(vms[i].getResourceDemand().withCpu(shares[i]));
+      vms[i] = null; //do not hold on to VMs between calls
+    }
+  }
+
+  private void ensureCapacity(int size) {
+    if (vms.length < size) {
+      int length = Math.max(size, vms.length * 2);
+      vms = Arrays.copyOf(vms, length);
+      demands = Arrays.copyOf(demands, length);
+      shares = new int[length];
+    }
+  }
+
+  /**
+   * Compute the CPU share of each VM
+   *
+   * @param vms      the VMs, in allocation order
+   * @param demands  the CPU demand of each VM
+   * @param n        the number of VMs
+   * @param capacity the CPU available to the VMs, after the privileged domain
+   * @param shares   to be filled with the CPU share of each VM, each no more than its demand
+   */
+  protected abstract void computeShares(Vm[] vms, int[] demands, int n, int capacity,
+                                        int[] shares);
+
+}
@@ -6,6 +6,7 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 
 import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.ResourceVector;
 import edu.uwo.csd.dcsim.vm.Vm;
 import edu.uwo.csd.dcsim.vm.VmAllocation;
 
@@ -13,10 +14,15 @@ import static com.google.common.base.Preconditions.checkState;
 
 public class DefaultResourceScheduler extends ResourceScheduler {
 
+  //scratch state, reused between calls to avoid allocating while scheduling
+  private final ResourceVector resourceRemaining = new ResourceVector();
+  private final ArrayList<Vm> vms = new ArrayList<>();
+  private int[] scheduledCpu = new int[0];
+
   @Override
   public void scheduleResources() {
 
-    Resource resourceRemaining = Resource.createLumped(
+    resourceRemaining.set(
         host.getResourceManager().getTotalCpu(),
         host.getResourceManager().getTotalMemory(),
         host.getResourceManager().getTotalBandwidth(),
@@ -27,104 +33,99 @@ public class DefaultResourceScheduler extends ResourceScheduler {
     Resource privResourceDemand = privDomainVm.getResourceDemand();
 
     checkState(resourceRemaining.cpu() >= privResourceDemand.cpu(),
-               "Host #" + host.id()
-               + " does not have enough CPU to execute the VMM (privileged domain)");
+               "Host #%s does not have enough CPU to execute the VMM (privileged domain)",
+               host.id());
     checkState(resourceRemaining.memory() >= privResourceDemand.memory(),
-               "Host #" + host.id()
-               + " does not have enough memory to execute the VMM (privileged domain)");
+               "Host #%s does not have enough memory to execute the VMM (privileged domain)",
+               host.id());
     checkState(resourceRemaining.bandwidth() >= privResourceDemand.bandwidth(),
-               "Host #" + host.id()
-               + " does not have enough bandwidth to execute the VMM (privileged domain)");
+               "Host #%s does not have enough bandwidth to execute the VMM (privileged domain)",
+               host.id());
     checkState(resourceRemaining.storage() >= privResourceDemand.storage(),
-               "Host #" + host.id()
-               + " does not have enough storage to execute the VMM (privileged domain)");
-
-    resourceRemaining = Resource.createLumped(
-        resourceRemaining.cpu() - privResourceDemand.cpu(),
-        resourceRemaining.memory() - privResourceDemand.memory(),
-        resourceRemaining.bandwidth() - privResourceDemand.bandwidth(),
-        resourceRemaining.storage() - privResourceDemand.storage());
+               "Host #%s does not have enough storage to execute the VMM (privileged domain)",
+               host.id());
+
+    resourceRemaining.subtract(privResourceDemand);
     privDomainVm.scheduleResources(privResourceDemand);
 
-    //build list of VM allocations that current contain a VM
-    ArrayList<VmAllocation> vmAllocations = new ArrayList<>();
+    //build list of VMs of allocations that currently contain a VM
+    vms.clear();
     for (VmAllocation vmAlloc : host.getVMAllocations()) {
       if (vmAlloc.getVm() != null) {
-        vmAllocations.add(vmAlloc);
+        vms.add(vmAlloc.getVm());
       }
     }
+    if (scheduledCpu.length < vms.size()) {
+      scheduledCpu = new int[Math.max(vms.size(), scheduledCpu.length * 2)];
+    }
 
     //initialize resource scheduling
-    for (VmAllocation vmAlloc : vmAllocations) {
-      Vm vm = vmAlloc.getVm();
+    for (int i = 0; i < vms.size(); ++i) {
+      Vm vm = vms.get(i);
 
       //start with CPU at 0 and all other resources equal to demand
-      Resource scheduled = vm.getResourceDemand();
+      Resource demand = vm.getResourceDemand();
       /* Verify that enough memory, bandwidth and storage are available. For now, we simply kill
       the simulation if this is not the case, the the behaviour is presently undefined */
-      checkState(scheduled.memory() <= resourceRemaining.memory(),
-                 "Host #" + host.id() +
-                 " does not have enough memory to execute VM #" + vm.getId());
-      checkState(scheduled.bandwidth() <= resourceRemaining.bandwidth(),
-                 "Host #" + host.id() +
-                 " does not have enough bandwidth to execute VM #" + vm.getId());
-      checkState(scheduled.storage() <= resourceRemaining.storage(),
-                 "Host #" + host.id() +
-                 " does not have enough storage to execute VM #" + vm.getId());
-
-      scheduled = scheduled.withCpu(0);
-      resourceRemaining = resourceRemaining.withLumped(
-          resourceRemaining.cpu(),
-          resourceRemaining.memory() - scheduled.memory(),
-          resourceRemaining.bandwidth() - scheduled.bandwidth(),
-          resourceRemaining.storage() - scheduled.storage());
-      vm.scheduleResources(scheduled);
-
+      checkState(demand.memory() <= resourceRemaining.memory(),
+                 "Host #%s does not have enough memory to execute VM #%s",
+                 host.id(), vm.getId());
+      checkState(demand.bandwidth() <= resourceRemaining.bandwidth(),
+                 "Host #%s does not have enough bandwidth to execute VM #%s",
+                 host.id(), vm.getId());
+      checkState(demand.storage() <= resourceRemaining.storage(),
+                 "Host #%s does not have enough storage to execute VM #%s",
+                 host.id(), vm.getId());
+
+      scheduledCpu[i] = 0;
+      resourceRemaining.add(0, -demand.memory(), -demand.bandwidth(), -demand.storage());
     }
 
     //now, we schedule CPU fairly among all VMs
-    int incompleteVms = vmAllocations.size();
+    int incompleteVms = vms.size();
 
     //adjust incompleteVm count to remove any VMs that have 0 CPU demand
-    for (VmAllocation vmAlloc : vmAllocations) {
-      if (vmAlloc.getVm().getResourceDemand().cpu() == 0) {
+    for (int i = 0; i < vms.size(); ++i) {
+      if (vms.get(i).getResourceDemand().cpu() == 0) {
         --incompleteVms;
       }
     }
 
+    int cpuRemaining = resourceRemaining.cpu();
     int cpuShare;
-    while (resourceRemaining.cpu() > 0 && incompleteVms > 0) {
-      cpuShare = IntMath.divide(resourceRemaining.cpu(), incompleteVms, RoundingMode.FLOOR);
+    while (cpuRemaining > 0 && incompleteVms > 0) {
+      cpuShare = IntMath.divide(cpuRemaining, incompleteVms, RoundingMode.FLOOR);
 
       //if resourcesRemaining is small enough, it could be rounded to 0. Set '1' as minimum share.
       cpuShare = Math.max(cpuShare, 1);
 
-      for (VmAllocation vmAlloc : vmAllocations) {
-        Vm vm = vmAlloc.getVm();
-        Resource scheduled = vm.getResourceScheduled();
-
-        int remainingCpuDemand = vm.getResourceDemand().cpu() - scheduled.cpu();
+      for (int i = 0; i < vms.size(); ++i) {
+        int remainingCpuDemand = vms.get(i).getResourceDemand().cpu() - scheduledCpu[i];
 
         if (remainingCpuDemand > 0) {
           if (remainingCpuDemand <= cpuShare) {
-            scheduled = scheduled.withCpu(scheduled.cpu() + remainingCpuDemand);
-            resourceRemaining = resourceRemaining
-                .withCpu(resourceRemaining.cpu() - remainingCpuDemand);
+            scheduledCpu[i] += remainingCpuDemand;
+            cpuRemaining -= remainingCpuDemand;
             --incompleteVms;
           } else {
-            scheduled = scheduled.withCpu(scheduled.cpu() + cpuShare);
-            resourceRemaining = resourceRemaining.withCpu(resourceRemaining.cpu() - cpuShare);
+            scheduledCpu[i] += cpuShare;
+            cpuRemaining -= cpuShare;
           }
-
-          vm.scheduleResources(scheduled);
         }
 
         //check if we are out of CPU. This can occur when share is defaulted to '1' as minimum
-        if (resourceRemaining.cpu() == 0) {
+        if (cpuRemaining == 0) {
           break;
         }
 
       }
     }
+
+    //write the schedule of each VM once
+    for (int i = 0; i < vms.size(); ++i) {
+      Vm vm = vms.get(i);
+      vm.scheduleResources(vm.getResourceDemand().withCpu(scheduledCpu[i]));
+    }
+    vms.clear(); //do not hold on to VMs between calls
   }
 }
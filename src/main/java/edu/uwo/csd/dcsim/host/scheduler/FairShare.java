@@ -0,0 +1,165 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+/**
+ * Weighted max-min fair sharing of CPU, in linear time on average, over primitive arrays supplied
+ * by the caller so that no allocation takes place.
+ * <p>
+ * Each VM i receives min(demand[i], weight[i] * L), with the level L chosen so that the CPU is
+ * used up, or every demand met. Shares are whole units: each share below its demand is floored,
+ * and the units left over (fewer than the number of such VMs) are handed out one at a time in
+ * allocation order, as DefaultResourceScheduler does with its equal shares.
+ */
+final class FairShare {
+
+  private int[] order = new int[0];
+
+  private int[] reserved = new int[0];
+  private int[] residual = new int[0];
+  private int[] weights = new int[0];
+
+  /**
+   * Compute weighted max-min fair shares
+   *
+   * @param demands  the CPU demand of each VM
+   * @param weights  the weight of each VM, which must be positive
+   * @param n        the number of VMs
+   * @param capacity the CPU to share
+   * @param shares   filled with the share of each VM
+   */
+  void share(int[] demands, int[] weights, int n, int capacity, int[] shares) {
+    if (order.length < n) {
+      order = new int[Math.max(n, order.length * 2)];
+    }
+
+    long totalDemand = 0;
+    for (int i = 0; i < n; ++i) {
+      order[i] = i;
+      totalDemand += demands[i];
+    }
+
+    if (totalDemand <= capacity) {
+      //every demand can be met
+      System.arraycopy(demands, 0, shares, 0, n);
+      return;
+    }
+
+    //find the VMs satisfied at the level, those whose demand per unit of weight is no more than
+    //it. A VM is satisfied if, with every VM of lower demand per weight satisfied, the CPU left
+    //covers its demand per weight for it and every other VM not yet satisfied. Rather than sorting,
+    //partition around a pivot VM, as in quickselect: if the pivot is satisfied, so are the VMs
+    //below it, and otherwise so are none above it. Satisfied VMs collect in order[0, lo) and the
+    //others in order[hi, n).
+    long satisfiedDemand = 0;
+    long unsatisfiedWeight = 0;
+    int lo = 0;
+    int hi = n;
+    while (lo < hi) {
+      int pivot = order[(lo + hi) >>> 1];
+      long pivotDemand = demands[pivot];
+      long pivotWeight = weights[pivot];
+
+      //three way partition by demand per weight, compared exactly: order[lo, lt) below the pivot,
+      //order[lt, gt) equal and order[gt, hi) above
+      int lt = lo;
+      int gt = hi;
+      int k = lo;
+      long belowDemand = 0;
+      long atOrAboveWeight = 0;
+      while (k < gt) {
+        int i = order[k];
+        long cmp = demands[i] * pivotWeight - pivotDemand * weights[i];
+        if (cmp < 0) {
+          order[k++] = order[lt];
+          order[lt++] = i;
+          belowDemand += demands[i];
+        } else if (cmp > 0) {
+          order[k] = order[--gt];
+          order[gt] = i;
+          atOrAboveWeight += weights[i];
+        } else {
+          ++k;
+          atOrAboveWeight += weights[i];
+        }
+      }
+
+      long remaining = capacity - satisfiedDemand - belowDemand;
+      if (pivotDemand * (atOrAboveWeight + unsatisfiedWeight) <= remaining * pivotWeight) {
+        //the pivot is satisfied, and so are the VMs below and equal to it
+        for (int j = lt; j < gt; ++j) {
+          belowDemand += demands[order[j]];
+        }
+        satisfiedDemand += belowDemand;
+        lo = gt;
+      } else {
+        //the pivot is not satisfied, nor are the VMs equal to and above it
+        unsatisfiedWeight += atOrAboveWeight;
+        hi = lt;
+      }
+    }
+
+    //the VMs not satisfied demand more than the level, and share what remains by weight
+    long remaining = capacity - satisfiedDemand;
+    long leftover = remaining;
+    for (int j = lo; j < n; ++j) {
+      int i = order[j];
+      shares[i] = (int) (weights[i] * remaining / unsatisfiedWeight);
+      leftover -= shares[i];
+    }
+    for (int j = 0; j < lo; ++j) {
+      shares[order[j]] = demands[order[j]];
+    }
+
+    //hand out the units lost to flooring, in allocation order
+    for (int i = 0; i < n && leftover > 0; ++i) {
+      if (shares[i] < demands[i]) {
+        ++shares[i];
+        --leftover;
+      }
+    }
+  }
+
+  /**
+   * Compute max-min fair shares subject to a reservation and cap per VM. Each VM is first given its
+   * demand up to its reservation, and the CPU that remains is shared among the demands above the
+   * reservations, up to the caps. If the reservations in use exceed the capacity, the capacity is
+   * shared among the reserved demands instead.
+   *
+   * @param demands      the CPU demand of each VM
+   * @param reservations the CPU reserved for each VM
+   * @param caps         the maximum CPU each VM may receive
+   * @param n            the number of VMs
+   * @param capacity     the CPU to share
+   * @param shares       filled with the share of each VM
+   */
+  void shareWithReservations(int[] demands, int[] reservations, int[] caps, int n, int capacity,
+                             int[] shares) {
+    if (reserved.length < n) {
+      int length = Math.max(n, reserved.length * 2);
+      reserved = new int[length];
+      residual = new int[length];
+      weights = new int[length];
+    }
+
+    long totalReserved = 0;
+    for (int i = 0; i < n; ++i) {
+      int capped = Math.max(0, Math.min(demands[i], caps[i]));
+      reserved[i] = Math.max(0, Math.min(capped, reservations[i]));
+      residual[i] = capped - reserved[i];
+      weights[i] = 1;
+      totalReserved += reserved[i];
+    }
+
+    if (totalReserved > capacity) {
+      //reservations overcommitted: share the CPU among the reserved demands
+      share(reserved, weights, n, capacity, shares);
+      return;
+    }
+
+    //share the CPU left after reservations among the demands up to the caps
+    share(residual, weights, n, (int) (capacity - totalReserved), shares);
+    for (int i = 0; i < n; ++i) {
+      shares[i] += reserved[i];
+    }
+  }
+
+}
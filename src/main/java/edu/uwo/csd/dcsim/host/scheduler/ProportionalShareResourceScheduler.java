@@ -0,0 +1,42 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import java.util.function.ToIntFunction;
+
+import edu.uwo.csd.dcsim.vm.Vm;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Shares CPU among VMs in proportion to their weights, in the manner of a weighted credit
+ * scheduler: when the host is contended, each VM receives min(demand, weight * L), for the level L
+ * at which all of the CPU is used. CPU not wanted by VMs below their proportional share is
+ * redistributed to the others. With equal weights, the schedule is that of
+ * DefaultResourceScheduler.
+ */
+public class ProportionalShareResourceScheduler extends CpuShareResourceScheduler {
+
+  private final ToIntFunction<Vm> weight;
+  private final FairShare fairShare = new FairShare();
+  private int[] weights = new int[0];
+
+  /**
+   * @param weight gives the (positive) weight of a VM
+   */
+  public ProportionalShareResourceScheduler(ToIntFunction<Vm> weight) {
+    this.weight = weight;
+  }
+
+  @Override
+  protected void computeShares(Vm[] vms, int[] demands, int n, int capacity, int[] shares) {
+    if (weights.length < n) {
+      weights = new int[Math.max(n, weights.length * 2)];
+    }
+    for (int i = 0; i < n; ++i) {
+      weights[i] = weight.applyAsInt(vms[i]);
+      checkState(weights[i] > 0, "VM #%s must have a positive weight", vms[i].getId());
+    }
+
+    fairShare.share(demands, weights, n, capacity, shares);
+  }
+
+}
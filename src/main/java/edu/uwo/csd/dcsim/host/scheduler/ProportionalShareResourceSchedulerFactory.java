@@ -0,0 +1,29 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import java.util.function.ToIntFunction;
+
+import edu.uwo.csd.dcsim.common.ObjectFactory;
+import edu.uwo.csd.dcsim.vm.Vm;
+
+public class ProportionalShareResourceSchedulerFactory
+    implements ObjectFactory<ProportionalShareResourceScheduler> {
+
+  private final ToIntFunction<Vm> weight;
+
+  /**
+   * Weight each VM by its size (the CPU of its description)
+   */
+  public ProportionalShareResourceSchedulerFactory() {
+    this(Vm::getMaxCpu);
+  }
+
+  public ProportionalShareResourceSchedulerFactory(ToIntFunction<Vm> weight) {
+    this.weight = weight;
+  }
+
+  @Override
+  public ProportionalShareResourceScheduler newInstance() {
+    return new ProportionalShareResourceScheduler(weight);
+  }
+
+}
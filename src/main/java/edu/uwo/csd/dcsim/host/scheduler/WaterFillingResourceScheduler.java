@@ -0,0 +1,73 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import java.util.Arrays;
+
+import edu.uwo.csd.dcsim.vm.Vm;
+
+/**
+ * Schedules resources exactly as DefaultResourceScheduler does, but computes the fair CPU shares in
+ * a single pass rather than by repeatedly handing out equal shares.
+ * <p>
+ * The default scheduler converges on a max-min fair allocation: VMs demanding no more than some
+ * level L receive their full demand, every other VM receives L, and the CPU left over after
+ * flooring (fewer units than there are such VMs) is handed out one unit at a time to the first of
+ * them in allocation order. Here L is found directly by sorting the CPU demands, and each VM is
+ * scheduled once with its final share. Demands are held in primitive arrays that are reused
+ * between calls.
+ */
+public class WaterFillingResourceScheduler extends CpuShareResourceScheduler {
+
+  private int[] sorted = new int[0];
+
+  @Override
+  protected void computeShares(Vm[] vms, int[] demands, int n, int capacity, int[] shares) {
+    if (sorted.length < n) {
+      sorted = new int[Math.max(n, sorted.length * 2)];
+    }
+    waterFill(demands, n, capacity, sorted, shares);
+  }
+
+  /**
+   * Compute max-min fair shares of the given CPU capacity, identical to those reached by the equal
+   * share passes of DefaultResourceScheduler.
+   *
+   * @param demands  the CPU demand of each VM, in allocation order
+   * @param n        the number of VMs
+   * @param capacity the CPU available to the VMs
+   * @param sorted   scratch array of at least n elements
+   * @param shares   filled with the CPU share of each VM
+   */
+  static void waterFill(int[] demands, int n, int capacity, int[] sorted, int[] shares) {
+    System.arraycopy(demands, 0, sorted, 0, n);
+    Arrays.sort(sorted, 0, n);
+
+    //raise the level past each demand in turn, while the capacity covers it for every VM left
+    long satisfied = 0;
+    int i = 0;
+    while (i < n && satisfied + (long) sorted[i] * (n - i) <= capacity) {
+      satisfied += sorted[i];
+      ++i;
+    }
+
+    if (i == n) {
+      //every demand can be met
+      System.arraycopy(demands, 0, shares, 0, n);
+      return;
+    }
+
+    //the remaining VMs all demand more than the level
+    long level = (capacity - satisfied) / (n - i);
+    long leftover = (capacity - satisfied) - level * (n - i);
+    for (int j = 0; j < n; ++j) {
+      if (demands[j] <= level) {
+        shares[j] = demands[j];
+      } else if (leftover > 0) {
+        shares[j] = (int) level + 1;
+        --leftover;
+      } else {
+        shares[j] = (int) level;
+      }
+    }
+  }
+
+}
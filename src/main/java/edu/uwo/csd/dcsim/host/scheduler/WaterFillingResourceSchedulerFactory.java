@@ -0,0 +1,13 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import edu.uwo.csd.dcsim.common.ObjectFactory;
+
+public class WaterFillingResourceSchedulerFactory
+    implements ObjectFactory<WaterFillingResourceScheduler> {
+
+  @Override
+  public WaterFillingResourceScheduler newInstance() {
+    return new WaterFillingResourceScheduler();
+  }
+
+}
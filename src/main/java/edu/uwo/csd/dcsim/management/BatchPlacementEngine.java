@@ -0,0 +1,329 @@
+package edu.uwo.csd.dcsim.management;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.ResourceVector;
+import edu.uwo.csd.dcsim.vm.VmAllocationRequest;
+
+/**
+ * Places a batch of VM allocation requests together, as a multi-dimensional (CPU, memory,
+ * bandwidth, storage) bin packing, rather than one at a time in arrival order.
+ * <p>
+ * Requests are placed in decreasing order of size, the sum of their demands normalized by the
+ * largest host capacity in each dimension. Each request goes to a host that is already on if one
+ * has room, chosen by the configured heuristic, and otherwise to the first host that is off and has
+ * room, in the order the hosts are given (e.g. most power efficient first). With a local search
+ * bound above zero, the hosts powered on by the batch are then revisited, least loaded first, and
+ * closed again if all of their requests can be moved to other hosts in use within the remaining
+ * number of moves.
+ * <p>
+ * Residual capacities are held in CapacityIndexes over the hosts that are on and off, so that
+ * first-fit, best-fit and dot-product choices do not scan every host for every request.
+ */
+public final class BatchPlacementEngine {
+
+  public enum Heuristic {
+    FIRST_FIT_DECREASING,  //first host in use that has room
+    BEST_FIT_DECREASING,   //host in use with the least residual CPU that has room
+    DOT_PRODUCT            //host in use whose residual is most aligned with the request
+  }
+
+  /**
+   * Determines if an item may be placed on a host at all, regardless of residual capacity
+   */
+  public interface Compatibility {
+    boolean test(int item, int host);
+  }
+
+  private static final int CPU = 0;
+  private static final int MEMORY = 1;
+  private static final int BANDWIDTH = 2;
+  private static final int STORAGE = 3;
+  private static final int DIMENSIONS = 4;
+
+  private final Heuristic heuristic;
+  private final int maxLocalSearchMoves;
+
+  private final ResourceVector scratch = new ResourceVector();
+
+  public BatchPlacementEngine(Heuristic heuristic) {
+    this(heuristic, 0);
+  }
+
+  public BatchPlacementEngine(Heuristic heuristic, int maxLocalSearchMoves) {
+    this.heuristic = heuristic;
+    this.maxLocalSearchMoves = maxLocalSearchMoves;
+  }
+
+  public Heuristic getHeuristic() {
+    return heuristic;
+  }
+
+  public int getMaxLocalSearchMoves() {
+    return maxLocalSearchMoves;
+  }
+
+  /**
+   * Place the given requests on the given hosts, using the residual capacity of their sandbox
+   * status. Hosts that are ON or POWERING_ON are preferred; the others are used in list order.
+   * The sandbox status of the hosts is not modified.
+   *
+   * @param targetUtilization the CPU utilization hosts may be filled to, as by VmPlacementPolicy
+   * @return the host chosen for each request that could be placed
+   */
+  public Map<VmAllocationRequest, HostData> place(List<VmAllocationRequest> requests,
+                                                  List<HostData> hosts,
+                                                  double targetUtilization) {
+    int[][] demands = new int[requests.size()][];
+    for (int i = 0; i < demands.length; ++i) {
+      demands[i] = toArray(requests.get(i).vmDescription().resources());
+    }
+
+    int[][] capacities = new int[hosts.size()][];
+    boolean[] open = new boolean[hosts.size()];
+    for (int j = 0; j < capacities.length; ++j) {
+      HostData host = hosts.get(j);
+      Resource description = host.hostDecription();
+      ResourceVector inUse = host.getSandboxStatus().resourcesInUse(scratch);
+      //the residual CPU, less what must stay free for the host to remain at target utilization
+      int cpu = Math.min(description.grossCpu(),
+                         (int) Math.floor(targetUtilization * description.grossCpu()))
+                - inUse.cpu();
+      capacities[j] = new int[]{cpu,
+                                description.memory() - inUse.memory(),
+                                description.bandwidth() - inUse.bandwidth(),
+                                description.storage() - inUse.storage()};
+
+      Host.HostState state = host.getCurrentStatus().getState();
+      open[j] = state == Host.HostState.ON || state == Host.HostState.POWERING_ON;
+    }
+
+    int[] assignment = solve(demands, capacities, open,
+                             (i, j) -> isCapable(requests.get(i), hosts.get(j).hostDecription()));
+
+    Map<VmAllocationRequest, HostData> placement = new HashMap<VmAllocationRequest, HostData>();
+    for (int i = 0; i < assignment.length; ++i) {
+      if (assignment[i] >= 0) {
+        placement.put(requests.get(i), hosts.get(assignment[i]));
+      }
+    }
+    return placement;
+  }
+
+  /**
+   * Determine if a host has the capabilities (core count, core capacity and total resources) to
+   * run the requested VM, were it empty
+   */
+  private static boolean isCapable(VmAllocationRequest request, Resource hostDescription) {
+    return hostDescription.numCpus() * hostDescription.numCores() >= request.numCores() &&
+           hostDescription.coreCapacity() >= request.coreCapacity() &&
+           request.vmDescription().resources().fitsIn(hostDescription);
+  }
+
+  private static int[] toArray(Resource resource) {
+    return new int[]{resource.cpu(), resource.memory(), resource.bandwidth(), resource.storage()};
+  }
+
+  /**
+   * Pack items into hosts
+   *
+   * @param demands    the CPU, memory, bandwidth and storage demand of each item
+   * @param capacities the residual CPU, memory, bandwidth and storage of each host
+   * @param open       whether each host is already in use; not modified
+   * @param compatible whether an item may be placed on a host at all
+   * @return the host of each item, or -1 for an item that could not be placed
+   */
+  public int[] solve(int[][] demands, int[][] capacities, boolean[] open,
+                     Compatibility compatible) {
+    int n = demands.length;
+    int m = capacities.length;
+
+    int[][] residual = new int[m][];
+    double[] scale = new double[DIMENSIONS];
+    for (int j = 0; j < m; ++j) {
+      residual[j] = capacities[j].clone();
+      for (int d = 0; d < DIMENSIONS; ++d) {
+        scale[d] = Math.max(scale[d], capacities[j][d]);
+      }
+    }
+    for (int d = 0; d < DIMENSIONS; ++d) {
+      scale[d] = scale[d] > 0 ? 1 / scale[d] : 0;
+    }
+
+    boolean[] opened = new boolean[m]; //hosts put in use by this batch
+    CapacityIndex openIndex = new CapacityIndex(m);
+    CapacityIndex closedIndex = new CapacityIndex(m);
+    for (int j = 0; j < m; ++j) {
+      setResidual(open[j] ? openIndex : closedIndex, j, residual[j]);
+    }
+
+    //largest items first, ties in arrival order
+    Integer[] order = new Integer[n];
+    double[] size = new double[n];
+    for (int i = 0; i < n; ++i) {
+      order[i] = i;
+      for (int d = 0; d < DIMENSIONS; ++d) {
+        size[i] += demands[i][d] * scale[d];
+      }
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(size[b], size[a]));
+
+    int[] assignment = new int[n];
+    Arrays.fill(assignment, -1);
+    for (int k = 0; k < n; ++k) {
+      int item = order[k];
+      int[] demand = demands[item];
+
+      int host = chooseOpen(item, demand, openIndex, scale, compatible, -1);
+      if (host < 0) {
+        host = closedIndex.firstFit(demand[CPU], demand[MEMORY], demand[BANDWIDTH],
+                                    demand[STORAGE], j -> compatible.test(item, j));
+        if (host < 0) {
+          continue;
+        }
+        closedIndex.remove(host);
+        opened[host] = true;
+      }
+
+      assignment[item] = host;
+      subtract(residual[host], demand);
+      setResidual(openIndex, host, residual[host]);
+    }
+
+    if (maxLocalSearchMoves > 0) {
+      closeHosts(demands, capacities, assignment, residual, opened, openIndex, scale, compatible);
+    }
+
+    return assignment;
+  }
+
+  /**
+   * Choose a host in use with room for the item, other than the excluded host, by the configured
+   * heuristic
+   *
+   * @return the host, or -1 if there is none
+   */
+  private int chooseOpen(int item, int[] demand, CapacityIndex openIndex, double[] scale,
+                         Compatibility compatible, int excluded) {
+    switch (heuristic) {
+      case FIRST_FIT_DECREASING:
+        return openIndex.firstFit(demand[CPU], demand[MEMORY], demand[BANDWIDTH], demand[STORAGE],
+                                  j -> j != excluded && compatible.test(item, j));
+      case BEST_FIT_DECREASING:
+        return openIndex.bestFit(demand[CPU], demand[MEMORY], demand[BANDWIDTH], demand[STORAGE],
+                                 j -> j != excluded && compatible.test(item, j));
+      default:
+        //the dot product of the normalized demand and residual, with the demand and the scale
+        //folded into the weights so that the index can bound it over ranges of hosts
+        double[] weights = new double[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; ++d) {
+          weights[d] = demand[d] * scale[d] * scale[d];
+        }
+        return openIndex.maxWeightedFit(demand[CPU], demand[MEMORY], demand[BANDWIDTH],
+                                        demand[STORAGE], weights,
+                                        j -> j != excluded && compatible.test(item, j));
+    }
+  }
+
+  /**
+   * Try to take hosts put in use by the batch out of use again, least loaded first, by moving all
+   * of their items to other hosts in use. Each item moved counts against the move bound, and a host
+   * is only emptied if all of its items can be moved within the moves remaining.
+   */
+  private void closeHosts(int[][] demands, int[][] capacities, int[] assignment,
+                          int[][] residual, boolean[] opened, CapacityIndex openIndex,
+                          double[] scale, Compatibility compatible) {
+    int m = capacities.length;
+
+    List<List<Integer>> items = new ArrayList<List<Integer>>(m);
+    for (int j = 0; j < m; ++j) {
+      items.add(new ArrayList<Integer>());
+    }
+    for (int i = 0; i < assignment.length; ++i) {
+      if (assignment[i] >= 0) {
+        items.get(assignment[i]).add(i);
+      }
+    }
+
+    //hosts opened by the batch, least loaded first
+    List<Integer> candidates = new ArrayList<Integer>();
+    double[] load = new double[m];
+    for (int j = 0; j < m; ++j) {
+      if (opened[j]) {
+        candidates.add(j);
+        for (int d = 0; d < DIMENSIONS; ++d) {
+          load[j] += (capacities[j][d] - residual[j][d]) * scale[d];
+        }
+      }
+    }
+    candidates.sort((a, b) -> Double.compare(load[a], load[b]));
+
+    int moves = maxLocalSearchMoves;
+    int[] targets = new int[0];
+    for (int host : candidates) {
+      List<Integer> hostItems = items.get(host);
+      if (hostItems.isEmpty() || hostItems.size() > moves) {
+        continue;
+      }
+
+      //tentatively move every item, in request order followed by any moved here, and undo if one
+      //fails
+      openIndex.remove(host);
+      if (targets.length < hostItems.size()) {
+        targets = new int[hostItems.size()];
+      }
+      int moved = 0;
+      for (int item : hostItems) {
+        int[] demand = demands[item];
+        int target = chooseOpen(item, demand, openIndex, scale, compatible, host);
+        if (target < 0) {
+          break;
+        }
+        targets[moved++] = target;
+        subtract(residual[target], demand);
+        setResidual(openIndex, target, residual[target]);
+      }
+
+      if (moved < hostItems.size()) {
+        for (int k = 0; k < moved; ++k) {
+          add(residual[targets[k]], demands[hostItems.get(k)]);
+          setResidual(openIndex, targets[k], residual[targets[k]]);
+        }
+        setResidual(openIndex, host, residual[host]);
+        continue;
+      }
+
+      for (int k = 0; k < moved; ++k) {
+        int item = hostItems.get(k);
+        assignment[item] = targets[k];
+        items.get(targets[k]).add(item);
+      }
+      hostItems.clear();
+      residual[host] = capacities[host].clone();
+      moves -= moved;
+    }
+  }
+
+  private static void subtract(int[] residual, int[] demand) {
+    for (int d = 0; d < DIMENSIONS; ++d) {
+      residual[d] -= demand[d];
+    }
+  }
+
+  private static void add(int[] residual, int[] demand) {
+    for (int d = 0; d < DIMENSIONS; ++d) {
+      residual[d] += demand[d];
+    }
+  }
+
+  private static void setResidual(CapacityIndex index, int host, int[] residual) {
+    index.set(host, residual[CPU], residual[MEMORY], residual[BANDWIDTH], residual[STORAGE]);
+  }
+
+}
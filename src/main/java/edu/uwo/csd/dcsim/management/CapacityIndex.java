@@ -0,0 +1,255 @@
+package edu.uwo.csd.dcsim.management;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.ResourceVector;
+
+/**
+ * An index of the residual (unused) CPU, memory, bandwidth and storage of a fixed, ordered list of
+ * hosts, supporting first-fit and best-fit queries without scanning every host.
+ * <p>
+ * Hosts are identified by their position in the list. A segment tree holds, for each range of
+ * positions, the maximum residual of each resource; a first-fit query descends only into ranges
+ * whose maxima cover the request, so it takes O(log n) steps when the first host covering the
+ * request is accepted. The residual bounds are a necessary condition only: each candidate is
+ * checked with an exact predicate supplied by the caller (e.g. HostData.canHost along with a
+ * utilization threshold), and the search continues past rejected hosts. Best-fit queries use an
+ * ordered set of hosts by residual CPU, and weighted-fit queries bound each range by the weighted
+ * sum of its maxima.
+ * <p>
+ * Residuals must be updated with set() when the sandbox status of a host is changed, such as when
+ * a placeholder VM is instantiated on it; each update takes O(log n).
+ */
+public final class CapacityIndex {
+
+  private static final int NONE = Integer.MIN_VALUE;
+
+  private final int n;
+  private final int size; //number of leaves, a power of two
+
+  //max residuals over the subtree of each node; node 1 is the root, leaves start at size
+  private final int[] cpu;
+  private final int[] memory;
+  private final int[] bandwidth;
+  private final int[] storage;
+
+  //hosts ordered by residual CPU, then position, packed as (cpu << 32 | position)
+  private final TreeSet<Long> byCpu = new TreeSet<Long>();
+
+  public CapacityIndex(int n) {
+    this.n = n;
+    int size = 1;
+    while (size < n) {
+      size <<= 1;
+    }
+    this.size = size;
+
+    cpu = new int[2 * size];
+    memory = new int[2 * size];
+    bandwidth = new int[2 * size];
+    storage = new int[2 * size];
+    Arrays.fill(cpu, NONE);
+    Arrays.fill(memory, NONE);
+    Arrays.fill(bandwidth, NONE);
+    Arrays.fill(storage, NONE);
+  }
+
+  /**
+   * Create an index over the sandbox status of the given hosts, in first-fit order
+   */
+  public static CapacityIndex create(List<HostData> hosts, ResourceVector scratch) {
+    CapacityIndex index = new CapacityIndex(hosts.size());
+    for (int i = 0; i < hosts.size(); ++i) {
+      index.set(i, hosts.get(i), scratch);
+    }
+    return index;
+  }
+
+  public int size() {
+    return n;
+  }
+
+  /**
+   * Set the residuals of the host at the given position from its sandbox status
+   */
+  public void set(int position, HostData host, ResourceVector scratch) {
+    Resource description = host.hostDecription();
+    ResourceVector inUse = host.getSandboxStatus().resourcesInUse(scratch);
+    set(position,
+        description.grossCpu() - inUse.cpu(),
+        description.memory() - inUse.memory(),
+        description.bandwidth() - inUse.bandwidth(),
+        description.storage() - inUse.storage());
+  }
+
+  /**
+   * Set the residual resources of the host at the given position
+   */
+  public void set(int position, int cpu, int memory, int bandwidth, int storage) {
+    if (position < 0 || position >= n) {
+      throw new IndexOutOfBoundsException("Position " + position + " of " + n);
+    }
+
+    int node = size + position;
+    if (this.cpu[node] != NONE) {
+      byCpu.remove(key(this.cpu[node], position));
+    }
+    byCpu.add(key(cpu, position));
+
+    this.cpu[node] = cpu;
+    this.memory[node] = memory;
+    this.bandwidth[node] = bandwidth;
+    this.storage[node] = storage;
+    updateAncestors(node);
+  }
+
+  /**
+   * Remove the host at the given position from the index, so that no query returns it
+   */
+  public void remove(int position) {
+    int node = size + position;
+    if (cpu[node] == NONE) {
+      return;
+    }
+    byCpu.remove(key(cpu[node], position));
+
+    cpu[node] = NONE;
+    memory[node] = NONE;
+    bandwidth[node] = NONE;
+    storage[node] = NONE;
+    updateAncestors(node);
+  }
+
+  private void updateAncestors(int node) {
+    for (node >>= 1; node >= 1; node >>= 1) {
+      cpu[node] = Math.max(cpu[2 * node], cpu[2 * node + 1]);
+      memory[node] = Math.max(memory[2 * node], memory[2 * node + 1]);
+      bandwidth[node] = Math.max(bandwidth[2 * node], bandwidth[2 * node + 1]);
+      storage[node] = Math.max(storage[2 * node], storage[2 * node + 1]);
+    }
+  }
+
+  public int getCpu(int position) {
+    return cpu[size + position];
+  }
+
+  public int getMemory(int position) {
+    return memory[size + position];
+  }
+
+  /**
+   * Find the first position whose residuals cover the request and which is accepted by the given
+   * predicate
+   *
+   * @return the position, or -1 if there is none
+   */
+  public int firstFit(int reqCpu, int reqMemory, int reqBandwidth, int reqStorage,
+                      IntPredicate accept) {
+    return firstFit(1, reqCpu, reqMemory, reqBandwidth, reqStorage, accept);
+  }
+
+  public int firstFit(Resource request, IntPredicate accept) {
+    return firstFit(request.cpu(), request.memory(), request.bandwidth(), request.storage(),
+                    accept);
+  }
+
+  private int firstFit(int node, int reqCpu, int reqMemory, int reqBandwidth, int reqStorage,
+                       IntPredicate accept) {
+    if (!covers(node, reqCpu, reqMemory, reqBandwidth, reqStorage)) {
+      return -1;
+    }
+    if (node >= size) {
+      int position = node - size;
+      return accept.test(position) ? position : -1;
+    }
+
+    int found = firstFit(2 * node, reqCpu, reqMemory, reqBandwidth, reqStorage, accept);
+    if (found >= 0) {
+      return found;
+    }
+    return firstFit(2 * node + 1, reqCpu, reqMemory, reqBandwidth, reqStorage, accept);
+  }
+
+  /**
+   * Find the position with the least residual CPU (then the lowest position) whose residuals
+   * cover the request and which is accepted by the given predicate
+   *
+   * @return the position, or -1 if there is none
+   */
+  public int bestFit(int reqCpu, int reqMemory, int reqBandwidth, int reqStorage,
+                     IntPredicate accept) {
+    Iterator<Long> candidates = byCpu.tailSet(key(reqCpu, 0)).iterator();
+    while (candidates.hasNext()) {
+      int position = (int) (candidates.next() & 0xFFFFFFFFL);
+      if (covers(size + position, reqCpu, reqMemory, reqBandwidth, reqStorage)
+          && accept.test(position)) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  public int bestFit(Resource request, IntPredicate accept) {
+    return bestFit(request.cpu(), request.memory(), request.bandwidth(), request.storage(),
+                   accept);
+  }
+
+  /**
+   * Find the position whose residuals cover the request and which is accepted by the given
+   * predicate, with the largest weighted sum of residuals (then the lowest position). The weights
+   * must not be negative, so that the weighted sum of the maxima of a range bounds the sum of each
+   * of its hosts; ranges whose bound does not exceed the best sum found so far are skipped.
+   *
+   * @param weights the weight of the CPU, memory, bandwidth and storage residuals
+   * @return the position, or -1 if there is none
+   */
+  public int maxWeightedFit(int reqCpu, int reqMemory, int reqBandwidth, int reqStorage,
+                            double[] weights, IntPredicate accept) {
+    double[] best = {-1, -1}; //score and position of the best position found so far
+    maxWeightedFit(1, reqCpu, reqMemory, reqBandwidth, reqStorage, weights, accept, best);
+    return (int) best[1];
+  }
+
+  private void maxWeightedFit(int node, int reqCpu, int reqMemory, int reqBandwidth,
+                              int reqStorage, double[] weights, IntPredicate accept,
+                              double[] best) {
+    if (!covers(node, reqCpu, reqMemory, reqBandwidth, reqStorage)) {
+      return;
+    }
+    double score = weights[0] * cpu[node] + weights[1] * memory[node]
+                   + weights[2] * bandwidth[node] + weights[3] * storage[node];
+    if (score <= best[0]) {
+      return;
+    }
+    if (node >= size) {
+      int position = node - size;
+      if (accept.test(position)) {
+        best[0] = score;
+        best[1] = position;
+      }
+      return;
+    }
+
+    maxWeightedFit(2 * node, reqCpu, reqMemory, reqBandwidth, reqStorage, weights, accept, best);
+    maxWeightedFit(2 * node + 1, reqCpu, reqMemory, reqBandwidth, reqStorage, weights, accept,
+                   best);
+  }
+
+  private boolean covers(int node, int reqCpu, int reqMemory, int reqBandwidth, int reqStorage) {
+    return cpu[node] != NONE &&
+           cpu[node] >= reqCpu &&
+           memory[node] >= reqMemory &&
+           bandwidth[node] >= reqBandwidth &&
+           storage[node] >= reqStorage;
+  }
+
+  private static long key(int cpu, int position) {
+    return ((long) cpu << 32) | position;
+  }
+
+}
@@ -0,0 +1,177 @@
+package edu.uwo.csd.dcsim.management;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.uwo.csd.dcsim.host.ResourceVector;
+
+/**
+ * Plans consolidation migrations with the greedy semantics of the IM2013 consolidation policies:
+ * each source host in turn, unless it has already been used as a target, offers its VMs in order,
+ * and each VM is migrated to the first target (in target order) that is not the source, has not
+ * itself been used as a source, and can host the VM.
+ * <p>
+ * Rather than checking every target for every VM, the residual capacity of the targets is held in
+ * a CapacityIndex, so that targets without room for a VM are skipped a range at a time, and a VM
+ * that fits on no target is rejected at the root of the index. Targets used as sources are removed
+ * from the index. The exact placement check is still applied to each candidate, so the plan is the
+ * same as that of the full scan. A pass costs near O(VMs log hosts) when most candidates with room
+ * are accepted.
+ * <p>
+ * The engine works on hosts and VMs through its abstract methods; SandboxConsolidationEngine plans
+ * over the sandbox status of HostData. Scratch structures are reused between passes, so an engine
+ * must not be shared between threads.
+ *
+ * @param <H> the host type
+ * @param <V> the VM type
+ */
+public abstract class ConsolidationEngine<H, V> {
+
+  /**
+   * A planned migration, in the order planned
+   */
+  public static final class Migration<H, V> {
+
+    private final H source;
+    private final H target;
+    private final V vm;
+    private final boolean sourceEmptied;
+
+    public Migration(H source, H target, V vm, boolean sourceEmptied) {
+      this.source = source;
+      this.target = target;
+      this.vm = vm;
+      this.sourceEmptied = sourceEmptied;
+    }
+
+    public H getSource() {
+      return source;
+    }
+
+    public H getTarget() {
+      return target;
+    }
+
+    public V getVm() {
+      return vm;
+    }
+
+    /**
+     * @return true if the source has no VMs left once this migration (and those before it) are done
+     */
+    public boolean isSourceEmptied() {
+      return sourceEmptied;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Migration)) {
+        return false;
+      }
+      Migration<?, ?> other = (Migration<?, ?>) o;
+      return source.equals(other.source) && target.equals(other.target) && vm.equals(other.vm)
+             && sourceEmptied == other.sourceEmptied;
+    }
+
+    @Override
+    public int hashCode() {
+      return (source.hashCode() * 31 + target.hashCode()) * 31 + vm.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "Migration{" + vm + ": " + source + " -> " + target
+             + (sourceEmptied ? ", source emptied}" : "}");
+    }
+  }
+
+  private final ResourceVector scratch = new ResourceVector();
+  private final HashMap<H, Integer> positions = new HashMap<H, Integer>();
+  private boolean[] usedAsTarget = new boolean[0];
+
+  /**
+   * @return the VMs of the source, in the order they should be offered for migration
+   */
+  protected abstract List<V> orderVms(H source);
+
+  /**
+   * Set the residual CPU, memory, bandwidth and storage of the target. The residual must be an
+   * upper bound on what canMigrate accepts: a VM whose demand exceeds it is never checked.
+   */
+  protected abstract void residual(H target, ResourceVector residual);
+
+  /**
+   * Set the CPU, memory, bandwidth and storage demand of the VM
+   */
+  protected abstract void demand(V vm, ResourceVector demand);
+
+  /**
+   * Determine if the target can accept the VM, given the migrations planned so far
+   */
+  protected abstract boolean canMigrate(V vm, H target);
+
+  /**
+   * Record the migration of the VM from the source to the target, so that later checks see it
+   *
+   * @return true if the source has no VMs left
+   */
+  protected abstract boolean migrate(H source, V vm, H target);
+
+  /**
+   * Plan migrations from the given sources to the given targets, each in order of preference
+   */
+  public List<Migration<H, V>> plan(List<H> sources, List<H> targets) {
+    int n = targets.size();
+    positions.clear();
+    if (usedAsTarget.length < n) {
+      usedAsTarget = new boolean[Math.max(n, usedAsTarget.length * 2)];
+    }
+    Arrays.fill(usedAsTarget, 0, n, false);
+
+    CapacityIndex index = new CapacityIndex(n);
+    for (int i = 0; i < n; ++i) {
+      positions.put(targets.get(i), i);
+      update(index, i, targets.get(i));
+    }
+
+    List<Migration<H, V>> migrations = new ArrayList<Migration<H, V>>();
+    for (H source : sources) {
+      Integer position = positions.get(source);
+      int sourcePosition = position == null ? -1 : position;
+      if (sourcePosition >= 0 && usedAsTarget[sourcePosition]) {
+        //the source host has been used as a target
+        continue;
+      }
+
+      for (V vm : orderVms(source)) {
+        demand(vm, scratch);
+        int found = index.firstFit(scratch.cpu(), scratch.memory(), scratch.bandwidth(),
+                                   scratch.storage(),
+                                   i -> i != sourcePosition && canMigrate(vm, targets.get(i)));
+        if (found < 0) {
+          continue;
+        }
+
+        H target = targets.get(found);
+        boolean sourceEmptied = migrate(source, vm, target);
+        migrations.add(new Migration<H, V>(source, target, vm, sourceEmptied));
+
+        usedAsTarget[found] = true;
+        update(index, found, target);
+        if (sourcePosition >= 0) {
+          //a host used as a source can no longer be a target
+          index.remove(sourcePosition);
+        }
+      }
+    }
+    return migrations;
+  }
+
+  private void update(CapacityIndex index, int position, H target) {
+    residual(target, scratch);
+    index.set(position, scratch.cpu(), scratch.memory(), scratch.bandwidth(), scratch.storage());
+  }
+
+}
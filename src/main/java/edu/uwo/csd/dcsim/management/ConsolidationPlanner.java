@@ -0,0 +1,313 @@
+package edu.uwo.csd.dcsim.management;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plans consolidation migrations by evaluating several candidate plans concurrently and choosing
+ * the one of least cost. Candidates differ in the order of source hosts, the order of the VMs of
+ * each source and the target utilization. Each candidate is planned by a SandboxConsolidationEngine
+ * on its own copies of the sandbox host statuses, taken on the calling thread along with the order
+ * of the sources, so candidates do not interfere with each other or with the simulation; only the
+ * chosen plan is then applied to the sandbox statuses, before the policy issues its actions as it
+ * would for a single plan. Evaluations run on a pool of daemon threads shared by all planners.
+ * <p>
+ * The cost of a plan is a weighted sum of its migrations, less the hosts it frees, plus the targets
+ * it leaves above the stress threshold. Ties go to the earliest candidate, so the choice does not
+ * depend on the order in which evaluations complete.
+ */
+public class ConsolidationPlanner {
+
+  public static final double DEFAULT_MIGRATION_COST = 1;
+  public static final double DEFAULT_FREED_HOST_VALUE = 10;
+  public static final double DEFAULT_STRESS_COST = 20;
+
+  /**
+   * A way of planning: sources are taken in increasing order by sourceOrder, VMs in decreasing
+   * order by vmOrder, and targets filled up to targetUtilization
+   */
+  public static final class Candidate {
+
+    private final Comparator<HostData> sourceOrder;
+    private final Comparator<VmStatus> vmOrder;
+    private final double targetUtilization;
+
+    public Candidate(Comparator<HostData> sourceOrder,
+                     Comparator<VmStatus> vmOrder,
+                     double targetUtilization) {
+      this.sourceOrder = sourceOrder;
+      this.vmOrder = vmOrder;
+      this.targetUtilization = targetUtilization;
+    }
+
+    public Comparator<HostData> getSourceOrder() {
+      return sourceOrder;
+    }
+
+    public Comparator<VmStatus> getVmOrder() {
+      return vmOrder;
+    }
+
+    public double getTargetUtilization() {
+      return targetUtilization;
+    }
+  }
+
+  /**
+   * An evaluated candidate plan
+   */
+  public static final class Plan {
+
+    private final Candidate candidate;
+    private final List<ConsolidationEngine.Migration<HostData, VmStatus>> migrations;
+    private final int hostsFreed;
+    private final int stressedHosts;
+    private final double cost;
+
+    Plan(Candidate candidate,
+         List<ConsolidationEngine.Migration<HostData, VmStatus>> migrations,
+         int hostsFreed,
+         int stressedHosts,
+         double cost) {
+      this.candidate = candidate;
+      this.migrations = migrations;
+      this.hostsFreed = hostsFreed;
+      this.stressedHosts = stressedHosts;
+      this.cost = cost;
+    }
+
+    public Candidate getCandidate() {
+      return candidate;
+    }
+
+    public List<ConsolidationEngine.Migration<HostData, VmStatus>> getMigrations() {
+      return migrations;
+    }
+
+    public int getHostsFreed() {
+      return hostsFreed;
+    }
+
+    public int getStressedHosts() {
+      return stressedHosts;
+    }
+
+    public double getCost() {
+      return cost;
+    }
+  }
+
+  /**
+   * Plans on copies of the sandbox statuses and current VMs, taken before planning starts
+   */
+  private static class IsolatedEngine extends SandboxConsolidationEngine {
+
+    private final Map<HostData, HostStatus> sandboxes;
+    private final Map<HostData, List<VmStatus>> currentVms;
+
+    IsolatedEngine(Candidate candidate,
+                   Map<HostData, HostStatus> sandboxes,
+                   Map<HostData, List<VmStatus>> currentVms) {
+      super(candidate.getTargetUtilization(), candidate.getVmOrder());
+      this.sandboxes = sandboxes;
+      this.currentVms = currentVms;
+    }
+
+    @Override
+    protected HostStatus sandbox(HostData host) {
+      return sandboxes.get(host);
+    }
+
+    @Override
+    protected List<VmStatus> currentVms(HostData host) {
+      return currentVms.get(host);
+    }
+  }
+
+  /**
+   * Shared by all planners, so that planners do not hold threads of their own
+   */
+  private static final class Executor {
+
+    static final ExecutorService INSTANCE =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+          Thread thread = new Thread(runnable, "consolidation-planner");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private final List<Candidate> candidates;
+  private final double stressThreshold;
+  private final double migrationCost;
+  private final double freedHostValue;
+  private final double stressCost;
+
+  public ConsolidationPlanner(List<Candidate> candidates, double stressThreshold) {
+    this(candidates, stressThreshold,
+         DEFAULT_MIGRATION_COST, DEFAULT_FREED_HOST_VALUE, DEFAULT_STRESS_COST);
+  }
+
+  /**
+   * @param candidates      the candidates to evaluate, in order of preference on equal cost
+   * @param stressThreshold the CPU utilization above which a target is counted as stressed
+   * @param migrationCost   the cost of each migration
+   * @param freedHostValue  the value of each host left empty
+   * @param stressCost      the cost of each target left stressed
+   */
+  public ConsolidationPlanner(List<Candidate> candidates,
+                              double stressThreshold,
+                              double migrationCost,
+                              double freedHostValue,
+                              double stressCost) {
+    if (candidates.isEmpty()) {
+      throw new IllegalArgumentException("At least one candidate is required");
+    }
+
+    this.candidates = new ArrayList<Candidate>(candidates);
+    this.stressThreshold = stressThreshold;
+    this.migrationCost = migrationCost;
+    this.freedHostValue = freedHostValue;
+    this.stressCost = stressCost;
+  }
+
+  /**
+   * Create candidates for every combination of the given source orders, VM orders and target
+   * utilizations, in that order of preference
+   */
+  public static List<Candidate> combine(List<Comparator<HostData>> sourceOrders,
+                                        List<Comparator<VmStatus>> vmOrders,
+                                        double... targetUtilizations) {
+    List<Candidate> candidates = new ArrayList<Candidate>();
+    for (Comparator<HostData> sourceOrder : sourceOrders) {
+      for (Comparator<VmStatus> vmOrder : vmOrders) {
+        for (double targetUtilization : targetUtilizations) {
+          candidates.add(new Candidate(sourceOrder, vmOrder, targetUtilization));
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Create candidates that take sources by <power efficiency, CPU utilization> (as the
+   * consolidation policies do) or by <CPU utilization, power efficiency>, and VMs by size (as the
+   * policies do) or by CPU in use, at the given target utilizations
+   */
+  public static List<Candidate> defaultCandidates(double... targetUtilizations) {
+    return combine(
+        Arrays.asList(HostDataComparator.getComparator(HostDataComparator.EFFICIENCY,
+                                                       HostDataComparator.CPU_UTIL),
+                      HostDataComparator.getComparator(HostDataComparator.CPU_UTIL,
+                                                       HostDataComparator.EFFICIENCY)),
+        Arrays.asList(SandboxConsolidationEngine.VM_ORDER,
+                      VmStatusComparator.getComparator(VmStatusComparator.CPU_IN_USE,
+                                                       VmStatusComparator.MEMORY)),
+        targetUtilizations);
+  }
+
+  public List<Candidate> getCandidates() {
+    return Collections.unmodifiableList(candidates);
+  }
+
+  /**
+   * Evaluate every candidate and apply the migrations of the least costly plan to the sandbox
+   * status of its hosts
+   *
+   * @param sources the potential source hosts, in any order
+   * @param targets the potential target hosts, in order of preference
+   * @return the chosen plan
+   */
+  public Plan plan(List<HostData> sources, List<HostData> targets) {
+    //read everything needed from the hosts on this thread, so that evaluations only read their
+    //own copies and immutable VM statuses
+    LinkedHashSet<HostData> hosts = new LinkedHashSet<HostData>(sources);
+    hosts.addAll(targets);
+    HashMap<HostData, List<VmStatus>> currentVms = new HashMap<HostData, List<VmStatus>>();
+    for (HostData source : sources) {
+      currentVms.put(source, source.getCurrentStatus().getVms());
+    }
+    List<HostData> orderedTargets = new ArrayList<HostData>(targets);
+
+    List<Callable<Plan>> evaluations = new ArrayList<Callable<Plan>>();
+    for (Candidate candidate : candidates) {
+      List<HostData> orderedSources = new ArrayList<HostData>(sources);
+      Collections.sort(orderedSources, candidate.getSourceOrder());
+
+      HashMap<HostData, HostStatus> sandboxes = new HashMap<HostData, HostStatus>();
+      for (HostData host : hosts) {
+        sandboxes.put(host, host.getSandboxStatus().copy());
+      }
+
+      IsolatedEngine engine = new IsolatedEngine(candidate, sandboxes, currentVms);
+      evaluations.add(() -> evaluate(candidate, engine, orderedSources, orderedTargets));
+    }
+
+    Plan best = null;
+    try {
+      for (Future<Plan> future : Executor.INSTANCE.invokeAll(evaluations)) {
+        Plan plan = future.get();
+        if (best == null || plan.getCost() < best.getCost()) {
+          best = plan;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while evaluating consolidation plans", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Could not evaluate consolidation plan", e.getCause());
+    }
+
+    //apply the chosen plan to the sandbox, as planning on the sandbox would have
+    for (ConsolidationEngine.Migration<HostData, VmStatus> migration : best.getMigrations()) {
+      migration.getSource().getSandboxStatus().migrate(migration.getVm(),
+                                                       migration.getTarget().getSandboxStatus());
+    }
+
+    return best;
+  }
+
+  private Plan evaluate(Candidate candidate,
+                        IsolatedEngine engine,
+                        List<HostData> sources,
+                        List<HostData> targets) {
+    List<ConsolidationEngine.Migration<HostData, VmStatus>> migrations =
+        engine.plan(sources, targets);
+
+    int hostsFreed = 0;
+    HashSet<HostData> receivers = new HashSet<HostData>();
+    for (ConsolidationEngine.Migration<HostData, VmStatus> migration : migrations) {
+      if (migration.isSourceEmptied()) {
+        ++hostsFreed;
+      }
+      receivers.add(migration.getTarget());
+    }
+
+    //projected stress of the targets that receive VMs
+    int stressedHosts = 0;
+    for (HostData target : receivers) {
+      double cpuInUse = engine.sandbox(target).cpuInUse();
+      if (cpuInUse / target.hostDecription().cpu() > stressThreshold) {
+        ++stressedHosts;
+      }
+    }
+
+    double cost = migrationCost * migrations.size()
+                  - freedHostValue * hostsFreed
+                  + stressCost * stressedHosts;
+    return new Plan(candidate, migrations, hostsFreed, stressedHosts, cost);
+  }
+
+}
@@ -2,11 +2,11 @@ package edu.uwo.csd.dcsim.management;
 
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import edu.uwo.csd.dcsim.host.Host;
 import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.ResourceVector;
 import edu.uwo.csd.dcsim.vm.VmDescription;
 
 public class HostData {
@@ -22,7 +22,8 @@ public class HostData {
   private boolean statusValid = true;
   private long invalidationTime = -1;
 
-  private List<HostStatus> history = new ArrayList<>();
+  //resized to the window size of the policy adding statuses
+  private final HostStatusHistory history = new HostStatusHistory(1);
 
   private final int hashCode;
 
@@ -56,10 +57,8 @@ public class HostData {
       statusValid = true; //if status was invalidated, we now know it is correct
     }
 
-    history.add(0, hostStatus);
-    if (history.size() > historyWindowSize) {
-      history.remove(history.size() - 1);
-    }
+    history.resize(historyWindowSize);
+    history.add(hostStatus);
   }
 
   public HostStatus getCurrentStatus() {
@@ -81,13 +80,20 @@ public class HostData {
     }
   }
 
+  /**
+   * Get copies of the statuses in the history window, newest first. Prefer getStatusHistory() to
+   * read statistics of the window without copying.
+   */
   public List<HostStatus> getHistory() {
     //return a copy of the history to ensure that it is read-only
-    ArrayList<HostStatus> historyCopy = new ArrayList<HostStatus>();
-    for (HostStatus status : history) {
-      historyCopy.add(status.copy());
-    }
-    return historyCopy;
+    return history.toList();
+  }
+
+  /**
+   * Get the history window of this host, with running statistics
+   */
+  public HostStatusHistory getStatusHistory() {
+    return history;
   }
 
   public int getId() {
@@ -118,6 +124,17 @@ public class HostData {
   public static boolean canHost(VmDescription vmDescription,
                                 HostStatus currentStatus,
                                 HostData target) {
+    return canHost(vmDescription, currentStatus, target, new ResourceVector());
+  }
+
+  /**
+   * As canHost(VmDescription, HostStatus, HostData), summing the resources in use into the given
+   * scratch vector rather than allocating
+   */
+  public static boolean canHost(VmDescription vmDescription,
+                                HostStatus currentStatus,
+                                HostData target,
+                                ResourceVector scratch) {
     Resource targetRez = target.hostDecription();
     Resource reqdRez = vmDescription.resources();
 
@@ -125,7 +142,7 @@ public class HostData {
       return false;
     }
     //check available resource
-    Resource resourceInUse = currentStatus.resourcesInUse();
+    ResourceVector resourceInUse = currentStatus.resourcesInUse(scratch);
     if (targetRez.grossCpu() - resourceInUse.cpu() < reqdRez.cpu()) {
       return false;
     }
@@ -142,9 +159,20 @@ public class HostData {
   public static boolean canHost(VmStatus vm,
                                 HostStatus currentStatus,
                                 Resource hostDescription) {
+    return canHost(vm, currentStatus, hostDescription, new ResourceVector());
+  }
+
+  /**
+   * As canHost(VmStatus, HostStatus, Resource), summing the resources in use into the given
+   * scratch vector rather than allocating
+   */
+  public static boolean canHost(VmStatus vm,
+                                HostStatus currentStatus,
+                                Resource hostDescription,
+                                ResourceVector scratch) {
     return canHost(vm.getCores(), vm.getCoreCapacity(),
                    vm.getResourceInUse(), currentStatus,
-                   hostDescription);
+                   hostDescription, scratch);
   }
 
   public static boolean canHost(int reqCores,
@@ -152,6 +180,20 @@ public class HostData {
                                 Resource reqResource,
                                 HostStatus currentStatus,
                                 Resource hostDescription) {
+    return canHost(reqCores, reqCoreCapacity, reqResource, currentStatus, hostDescription,
+                   new ResourceVector());
+  }
+
+  /**
+   * As canHost(int, int, Resource, HostStatus, Resource), summing the resources in use into the
+   * given scratch vector rather than allocating
+   */
+  public static boolean canHost(int reqCores,
+                                int reqCoreCapacity,
+                                Resource reqResource,
+                                HostStatus currentStatus,
+                                Resource hostDescription,
+                                ResourceVector scratch) {
     //verify that this host can host the given vm
 
     //check capabilities (e.g. core count, core capacity)
@@ -163,7 +205,7 @@ public class HostData {
     }
 
     //check available resource
-    Resource resourceInUse = currentStatus.resourcesInUse();
+    ResourceVector resourceInUse = currentStatus.resourcesInUse(scratch);
     if (hostDescription.coreCapacity() - resourceInUse.cpu() < reqResource.cpu()) {
       return false;
     }
@@ -47,14 +47,14 @@ public enum HostDataComparator implements Comparator<HostData> {
   CPU_UTIL {
     public int compare(HostData o1, HostData o2) {
       return Double.compare(
-          o1.getCurrentStatus().resourcesInUse().cpu() / o1.hostDecription().cpu(),
-          o2.getCurrentStatus().resourcesInUse().cpu() / o2.hostDecription().cpu());
+          o1.getCurrentStatus().cpuInUse() / o1.hostDecription().cpu(),
+          o2.getCurrentStatus().cpuInUse() / o2.hostDecription().cpu());
     }
   },
   CPU_IN_USE {
     public int compare(HostData o1, HostData o2) {
-      return Integer.compare(o1.getCurrentStatus().resourcesInUse().cpu(),
-                             o2.getCurrentStatus().resourcesInUse().cpu());
+      return Integer.compare(o1.getCurrentStatus().cpuInUse(),
+                             o2.getCurrentStatus().cpuInUse());
     }
   },
   EFFICIENCY {
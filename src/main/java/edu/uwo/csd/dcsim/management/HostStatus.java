@@ -1,29 +1,54 @@
 package edu.uwo.csd.dcsim.management;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 
 import edu.uwo.csd.dcsim.host.Host;
 import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.ResourceVector;
+import edu.uwo.csd.dcsim.vm.Vm;
 import edu.uwo.csd.dcsim.vm.VmAllocation;
 
+/**
+ * A snapshot of the status of a host. VmStatus objects are immutable and are shared between
+ * copies, and between successive snapshots of the same host while the VM they describe does not
+ * change. The list of VMs is shared as well until a status is first modified, by instantiateVm()
+ * or migrate(), when that status takes a list of its own, so copying an unmodified status for a
+ * sandbox is O(1). Neither copying nor taking a snapshot writes to the status copied from. The
+ * lists returned by the getters are read-only.
+ */
 public class HostStatus {
 
   private long timeStamp;
   private int id;
   private int incomingMigrations;
   private int outgoingMigrations;
-  private List<VmStatus> migratingInVms = new ArrayList<VmStatus>();
+  private List<VmStatus> migratingInVms;
   private Host.HostState state;
-  private List<Resource> startingVmAllocations = new ArrayList<Resource>();
+  private List<Resource> startingVmAllocations;
 
   private double powerConsumption;
 
   VmStatus privDomain;
-  List<VmStatus> vms = new ArrayList<VmStatus>();
+  private List<VmStatus> vms;
+  private List<VmStatus> vmsView;
+  private boolean vmsOwned; //vms was created by this status to modify, and is not shared
 
   public HostStatus(Host host, long timeStamp) {
+    this(host, timeStamp, null);
+  }
 
+  /**
+   * Take a snapshot of the host, encoded as a delta from its previous snapshot: the status of each
+   * VM whose resources in use have not changed since the previous snapshot is reused, as is the
+   * whole list of VMs if none has changed, so that only what has changed is created. The snapshot
+   * is nonetheless a full view of the host.
+   *
+   * @param previous the previous snapshot of the same host, or null to take a full snapshot
+   */
+  public HostStatus(Host host, long timeStamp, HostStatus previous) {
     this.timeStamp = timeStamp;
 
     id = host.id();
@@ -33,32 +58,93 @@ public class HostStatus {
 
     powerConsumption = host.getCurrentPowerConsumption();
 
-    privDomain = new VmStatus(host.getPrivDomainAllocation().getVm(), timeStamp);
+    if (previous != null && previous.id != id) {
+      previous = null;
+    }
 
-    for (VmAllocation vmAlloc : host.getVMAllocations()) {
-      if (vmAlloc.getVm() != null) {
-        vms.add(new VmStatus(vmAlloc.getVm(), timeStamp));
-      }
+    Vm privVm = host.getPrivDomainAllocation().getVm();
+    if (previous != null && previous.privDomain.isCurrent(privVm)) {
+      privDomain = previous.privDomain;
+    } else {
+      privDomain = new VmStatus(privVm, timeStamp);
     }
 
+    snapshotVms(host, timeStamp, previous);
+
     //keep track of resources promised to starting VMs
+    List<Resource> starting = new ArrayList<Resource>();
     for (VmAllocation vmAlloc : host.startingVms()) {
-      startingVmAllocations.add(
+      starting.add(
           Resource.createLumped(vmAlloc.getCpu(), vmAlloc.memory(),
                                 vmAlloc.bandwidth(), vmAlloc.storage()));
     }
+    if (previous != null && starting.equals(previous.startingVmAllocations)) {
+      startingVmAllocations = previous.startingVmAllocations;
+    } else {
+      startingVmAllocations = readOnly(starting);
+    }
 
     //keep track of resources promised to incoming VMs
+    List<VmStatus> migratingIn = new ArrayList<VmStatus>();
     for (VmAllocation vmAlloc : host.getMigratingIn()) {
       Resource resource = Resource.createLumped(
           vmAlloc.vmDescription().grossCpu(), vmAlloc.vmDescription().memory(),
           vmAlloc.vmDescription().bandwidth(), vmAlloc.vmDescription().storage());
 
-      migratingInVms.add(
+      migratingIn.add(
           new VmStatus(vmAlloc.vmDescription().numCores(),
                        vmAlloc.vmDescription().coreCapacity(),
                        resource));
     }
+    migratingInVms = readOnly(migratingIn);
+  }
+
+  private void snapshotVms(Host host, long timeStamp, HostStatus previous) {
+    List<VmStatus> previousVms =
+        previous == null ? Collections.<VmStatus>emptyList() : previous.vms;
+    HashMap<Vm, VmStatus> previousByVm = null; //built if VMs are not in the previous order
+
+    List<VmStatus> current = null; //created at the first difference from previousVms
+    int count = 0;
+    for (VmAllocation vmAlloc : host.getVMAllocations()) {
+      Vm vm = vmAlloc.getVm();
+      if (vm == null) {
+        continue;
+      }
+
+      if (current == null) {
+        if (count < previousVms.size() && previousVms.get(count).isCurrent(vm)) {
+          ++count;
+          continue;
+        }
+        current = new ArrayList<VmStatus>(previousVms.subList(0, count));
+      }
+
+      VmStatus status = null;
+      if (!previousVms.isEmpty()) {
+        if (previousByVm == null) {
+          previousByVm = new HashMap<Vm, VmStatus>();
+          for (VmStatus previousVm : previousVms) {
+            previousByVm.put(previousVm.getVm(), previousVm);
+          }
+        }
+        status = previousByVm.get(vm);
+      }
+      if (status == null || !status.isCurrent(vm)) {
+        status = new VmStatus(vm, timeStamp);
+      }
+      current.add(status);
+    }
+
+    if (current == null && count == previousVms.size() && previous != null) {
+      //no VM has changed
+      shareVms(previous);
+    } else {
+      if (current == null) {
+        current = new ArrayList<VmStatus>(previousVms.subList(0, count));
+      }
+      setVms(current);
+    }
   }
 
   public HostStatus(HostStatus host) {
@@ -69,33 +155,59 @@ public class HostStatus {
     outgoingMigrations = host.outgoingMigrations;
     state = host.state;
 
-    startingVmAllocations = new ArrayList<>();
-    for (Resource r : host.startingVmAllocations) {
-      startingVmAllocations.add(r);
-    }
+    //neither list is modified after construction
+    startingVmAllocations = host.startingVmAllocations;
+    migratingInVms = host.migratingInVms;
 
     powerConsumption = host.powerConsumption;
 
-    privDomain = host.privDomain.copy();
+    privDomain = host.privDomain;
+
+    shareVms(host);
+  }
 
-    for (VmStatus vm : host.vms) {
-      vms.add(vm.copy());
+  private static <T> List<T> readOnly(List<T> list) {
+    return list.isEmpty() ? Collections.<T>emptyList() : Collections.unmodifiableList(list);
+  }
+
+  private void setVms(List<VmStatus> vms) {
+    this.vms = vms;
+    vmsView = Collections.unmodifiableList(vms);
+  }
+
+  /**
+   * Hold the list of VMs of another status: the list itself, with its view, if it is never to be
+   * modified, or a copy if the other status owns it
+   */
+  private void shareVms(HostStatus status) {
+    if (status.vmsOwned) {
+      setVms(new ArrayList<VmStatus>(status.vms));
+    } else {
+      vms = status.vms;
+      vmsView = status.vmsView;
     }
+  }
 
-    for (VmStatus vm : host.migratingInVms) {
-      migratingInVms.add(vm.copy());
+  /**
+   * Get the list of VMs for modification, copying it first if this status does not own it
+   */
+  private List<VmStatus> mutableVms() {
+    if (!vmsOwned) {
+      setVms(new ArrayList<VmStatus>(vms));
+      vmsOwned = true;
     }
+    return vms;
   }
 
   public void instantiateVm(VmStatus vm) {
-    vms.add(vm);
+    mutableVms().add(vm);
   }
 
   public void migrate(VmStatus vm, HostStatus target) {
     ++outgoingMigrations;
-    vms.remove(vm);
+    mutableVms().remove(vm);
 
-    target.vms.add(vm);
+    target.mutableVms().add(vm);
     ++target.incomingMigrations;
   }
 
@@ -124,7 +236,7 @@ public class HostStatus {
   }
 
   public List<VmStatus> getVms() {
-    return vms;
+    return vmsView;
   }
 
   public List<Resource> getStartingVmAllocations() {
@@ -156,23 +268,56 @@ public class HostStatus {
   }
 
   public Resource resourcesInUse() {
-    Resource resourceInUse = privDomain.getResourceInUse();
+    Resource privResource = privDomain.getResourceInUse();
+    ResourceVector resourceInUse = resourcesInUse(new ResourceVector());
+    return privResource.withLumped(resourceInUse.cpu(), resourceInUse.memory(),
+                                   resourceInUse.bandwidth(), resourceInUse.storage());
+  }
 
-    for (VmStatus vmStatus : vms) {
-      resourceInUse = resourceInUse.add(vmStatus.getResourceInUse());
+  /**
+   * Sum the resources in use into the given vector, without allocating
+   *
+   * @return the vector, holding the resources in use
+   */
+  public ResourceVector resourcesInUse(ResourceVector resourceInUse) {
+    resourceInUse.set(privDomain.getResourceInUse());
+
+    for (int i = 0; i < vms.size(); ++i) {
+      resourceInUse.add(vms.get(i).getResourceInUse());
     }
     //add resources promised to starting VMs
-    for (Resource resource : startingVmAllocations) {
-      resourceInUse = resourceInUse.add(resource);
+    for (int i = 0; i < startingVmAllocations.size(); ++i) {
+      resourceInUse.add(startingVmAllocations.get(i));
     }
     //add resources promised to incoming VMs
-    for (VmStatus vmStatus : migratingInVms) {
-      resourceInUse = resourceInUse.add(vmStatus.getResourceInUse());
+    for (int i = 0; i < migratingInVms.size(); ++i) {
+      resourceInUse.add(migratingInVms.get(i).getResourceInUse());
     }
 
     return resourceInUse;
   }
 
+  /**
+   * Get the CPU in use, equal to resourcesInUse().cpu() but without allocating
+   */
+  public int cpuInUse() {
+    int cpu = privDomain.getResourceInUse().cpu();
+
+    for (int i = 0; i < vms.size(); ++i) {
+      cpu += vms.get(i).getResourceInUse().cpu();
+    }
+    //add resources promised to starting VMs
+    for (int i = 0; i < startingVmAllocations.size(); ++i) {
+      cpu += startingVmAllocations.get(i).cpu();
+    }
+    //add resources promised to incoming VMs
+    for (int i = 0; i < migratingInVms.size(); ++i) {
+      cpu += migratingInVms.get(i).getResourceInUse().cpu();
+    }
+
+    return cpu;
+  }
+
   public double getPowerConsumption() {
     return powerConsumption;
   }
@@ -0,0 +1,286 @@
+package edu.uwo.csd.dcsim.management;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uwo.csd.dcsim.host.Host;
+
+/**
+ * A fixed-size window of the most recent status updates of a host, held in a ring buffer of
+ * primitive fields, with aggregates of the CPU in use maintained as statuses are added.
+ * <p>
+ * As in the policies that read the history, only statuses from times when the host was ON are
+ * aggregated. The sum and count, and so the average, are updated in O(1) per status; the minimum
+ * and maximum are kept with monotonic queues, in O(1) amortized; and the exponentially weighted
+ * moving average is carried across the whole history of the host, not just the window. Every
+ * statistic is read in O(1) without copying statuses.
+ */
+public final class HostStatusHistory {
+
+  public static final double DEFAULT_EWMA_WEIGHT = 0.5;
+
+  private final double ewmaWeight;
+
+  private int capacity;
+  private long added; //number of statuses ever added; the newest has sequence number added - 1
+
+  private HostStatus[] statuses;
+  private long[] timeStamps;
+  private int[] cpuInUse;
+  private boolean[] on;
+
+  private int onCount;
+  private long cpuSum;
+  private double ewma = Double.NaN;
+
+  //sequence numbers of ON statuses in the window, with increasing (min) or decreasing (max) CPU
+  private final LongQueue minQueue = new LongQueue();
+  private final LongQueue maxQueue = new LongQueue();
+
+  public HostStatusHistory(int capacity) {
+    this(capacity, DEFAULT_EWMA_WEIGHT);
+  }
+
+  /**
+   * @param capacity   the number of statuses in the window; with 0, no status is kept and the window
+   *                   statistics are 0, while the moving average is still maintained
+   * @param ewmaWeight the weight of each new status in the moving average, in (0, 1]
+   */
+  public HostStatusHistory(int capacity, double ewmaWeight) {
+    this.ewmaWeight = ewmaWeight;
+    allocate(capacity);
+  }
+
+  private void allocate(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("History capacity must not be negative");
+    }
+    this.capacity = capacity;
+    statuses = new HostStatus[capacity];
+    timeStamps = new long[capacity];
+    cpuInUse = new int[capacity];
+    on = new boolean[capacity];
+    minQueue.reset(capacity);
+    maxQueue.reset(capacity);
+  }
+
+  /**
+   * Add the newest status, evicting the oldest if the window is full
+   */
+  void add(HostStatus status) {
+    add(status, status.getTimeStamp(), status.cpuInUse(),
+        status.getState() == Host.HostState.ON);
+  }
+
+  void add(HostStatus status, long timeStamp, int cpu, boolean isOn) {
+    if (capacity == 0) {
+      if (isOn) {
+        updateEwma(cpu);
+      }
+      return;
+    }
+
+    long sequence = added;
+    int slot = (int) (sequence % capacity);
+
+    if (sequence >= capacity) {
+      //evict the oldest status, which occupies this slot
+      if (on[slot]) {
+        --onCount;
+        cpuSum -= cpuInUse[slot];
+      }
+      long evicted = sequence - capacity;
+      minQueue.removeFirstIf(evicted);
+      maxQueue.removeFirstIf(evicted);
+    }
+
+    statuses[slot] = status;
+    timeStamps[slot] = timeStamp;
+    cpuInUse[slot] = cpu;
+    on[slot] = isOn;
+    ++added;
+
+    if (isOn) {
+      ++onCount;
+      cpuSum += cpu;
+      updateEwma(cpu);
+
+      while (!minQueue.isEmpty() && cpuAt(minQueue.last()) >= cpu) {
+        minQueue.removeLast();
+      }
+      minQueue.addLast(sequence);
+      while (!maxQueue.isEmpty() && cpuAt(maxQueue.last()) <= cpu) {
+        maxQueue.removeLast();
+      }
+      maxQueue.addLast(sequence);
+    }
+  }
+
+  private void updateEwma(int cpu) {
+    ewma = Double.isNaN(ewma) ? cpu : ewmaWeight * cpu + (1 - ewmaWeight) * ewma;
+  }
+
+  /**
+   * Change the number of statuses in the window, keeping the most recent
+   */
+  void resize(int newCapacity) {
+    if (newCapacity == capacity) {
+      return;
+    }
+    int keep = Math.min(size(), newCapacity);
+    HostStatus[] keptStatuses = new HostStatus[keep];
+    long[] keptTimes = new long[keep];
+    int[] keptCpu = new int[keep];
+    boolean[] keptOn = new boolean[keep];
+    for (int age = keep - 1, i = 0; age >= 0; --age, ++i) {
+      int slot = slot(age);
+      keptStatuses[i] = statuses[slot];
+      keptTimes[i] = timeStamps[slot];
+      keptCpu[i] = cpuInUse[slot];
+      keptOn[i] = on[slot];
+    }
+
+    double keptEwma = ewma;
+    allocate(newCapacity);
+    added = 0;
+    onCount = 0;
+    cpuSum = 0;
+    for (int i = 0; i < keep; ++i) {
+      add(keptStatuses[i], keptTimes[i], keptCpu[i], keptOn[i]);
+    }
+    ewma = keptEwma;
+  }
+
+  private int slot(int age) {
+    if (age < 0 || age >= size()) {
+      throw new IndexOutOfBoundsException("Age " + age + " of " + size());
+    }
+    return (int) ((added - 1 - age) % capacity);
+  }
+
+  private int cpuAt(long sequence) {
+    return cpuInUse[(int) (sequence % capacity)];
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of statuses in the window
+   */
+  public int size() {
+    return (int) Math.min(added, capacity);
+  }
+
+  /**
+   * @return the status of the given age, 0 being the newest. The status must not be modified.
+   */
+  public HostStatus get(int age) {
+    return statuses[slot(age)];
+  }
+
+  public long getTimeStamp(int age) {
+    return timeStamps[slot(age)];
+  }
+
+  public int getCpuInUse(int age) {
+    return cpuInUse[slot(age)];
+  }
+
+  public boolean isOn(int age) {
+    return on[slot(age)];
+  }
+
+  /**
+   * @return the number of statuses in the window from times when the host was ON
+   */
+  public int getOnCount() {
+    return onCount;
+  }
+
+  /**
+   * @return the average CPU in use while ON over the window, or 0 if the host was never ON
+   */
+  public double getAverageCpuInUse() {
+    return onCount == 0 ? 0.0 : (double) cpuSum / onCount;
+  }
+
+  /**
+   * @return the minimum CPU in use while ON over the window, or 0 if the host was never ON
+   */
+  public int getMinCpuInUse() {
+    return minQueue.isEmpty() ? 0 : cpuAt(minQueue.first());
+  }
+
+  /**
+   * @return the maximum CPU in use while ON over the window, or 0 if the host was never ON
+   */
+  public int getMaxCpuInUse() {
+    return maxQueue.isEmpty() ? 0 : cpuAt(maxQueue.first());
+  }
+
+  /**
+   * @return the exponentially weighted moving average of the CPU in use while ON, or 0 if the host
+   * has never been ON
+   */
+  public double getEwmaCpuInUse() {
+    return Double.isNaN(ewma) ? 0.0 : ewma;
+  }
+
+  /**
+   * @return copies of the statuses in the window, newest first
+   */
+  public List<HostStatus> toList() {
+    ArrayList<HostStatus> list = new ArrayList<HostStatus>(size());
+    for (int age = 0; age < size(); ++age) {
+      list.add(get(age).copy());
+    }
+    return list;
+  }
+
+  /**
+   * A bounded double-ended queue of sequence numbers
+   */
+  private static final class LongQueue {
+
+    private long[] values = new long[0];
+    private int head;
+    private int size;
+
+    void reset(int capacity) {
+      values = new long[capacity];
+      head = 0;
+      size = 0;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    long first() {
+      return values[head];
+    }
+
+    long last() {
+      return values[(head + size - 1) % values.length];
+    }
+
+    void addLast(long value) {
+      values[(head + size) % values.length] = value;
+      ++size;
+    }
+
+    void removeLast() {
+      --size;
+    }
+
+    void removeFirstIf(long value) {
+      if (size > 0 && values[head] == value) {
+        head = (head + 1) % values.length;
+        --size;
+      }
+    }
+  }
+
+}
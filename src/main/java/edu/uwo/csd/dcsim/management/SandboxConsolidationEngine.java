@@ -0,0 +1,105 @@
+package edu.uwo.csd.dcsim.management;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.ResourceVector;
+
+/**
+ * Plans consolidation migrations over the sandbox status of hosts, as shared by the consolidation
+ * policies. A VM may be migrated to a target that can host it and whose CPU utilization will not
+ * exceed the target utilization. Planned migrations are applied to the sandbox status of the source
+ * and target, as returned by sandbox(), which may be overridden, with currentVms(), to plan on
+ * copies.
+ */
+public class SandboxConsolidationEngine extends ConsolidationEngine<HostData, VmStatus> {
+
+  // Sort VMs in decreasing order by <overall capacity, CPU load>.
+  // (Note: since CPU can be oversubscribed, but memory can't, memory
+  // takes priority over CPU when comparing VMs by _size_ (capacity).)
+  public static final Comparator<VmStatus> VM_ORDER =
+      VmStatusComparator.getComparator(VmStatusComparator.MEMORY,
+                                       VmStatusComparator.CPU_CORES,
+                                       VmStatusComparator.CORE_CAP,
+                                       VmStatusComparator.CPU_IN_USE);
+
+  private final double targetUtilization;
+  private final Comparator<VmStatus> vmOrder;
+
+  private final ResourceVector scratch = new ResourceVector(); //resources in use of a candidate
+
+  public SandboxConsolidationEngine(double targetUtilization) {
+    this(targetUtilization, VM_ORDER);
+  }
+
+  /**
+   * @param targetUtilization the CPU utilization targets may be filled to
+   * @param vmOrder           VMs of a source are offered in decreasing order by this comparator
+   */
+  public SandboxConsolidationEngine(double targetUtilization, Comparator<VmStatus> vmOrder) {
+    this.targetUtilization = targetUtilization;
+    this.vmOrder = vmOrder;
+  }
+
+  /**
+   * @return the status on which migrations are planned for the given host
+   */
+  protected HostStatus sandbox(HostData host) {
+    return host.getSandboxStatus();
+  }
+
+  /**
+   * @return the VMs currently on the given host, from which migrations are chosen
+   */
+  protected List<VmStatus> currentVms(HostData host) {
+    return host.getCurrentStatus().getVms();
+  }
+
+  @Override
+  protected List<VmStatus> orderVms(HostData source) {
+    ArrayList<VmStatus> vms = new ArrayList<VmStatus>(currentVms(source));
+
+    Collections.sort(vms, vmOrder);
+    Collections.reverse(vms);
+
+    return vms;
+  }
+
+  @Override
+  protected void residual(HostData target, ResourceVector residual) {
+    //as checked by HostData.canHost, which compares CPU against the core capacity
+    Resource description = target.hostDecription();
+    ResourceVector inUse = sandbox(target).resourcesInUse(scratch);
+    residual.set(description.coreCapacity() - inUse.cpu(),
+                 description.memory() - inUse.memory(),
+                 description.bandwidth() - inUse.bandwidth(),
+                 description.storage() - inUse.storage());
+  }
+
+  @Override
+  protected void demand(VmStatus vm, ResourceVector demand) {
+    demand.set(vm.getResourceInUse());
+  }
+
+  @Override
+  protected boolean canMigrate(VmStatus vm, HostData target) {
+    return HostData.canHost(vm, sandbox(target), target.hostDecription(), scratch) &&
+           //target has capability and capacity to host VM
+           (sandbox(target).cpuInUse() + vm.getResourceInUse().cpu())
+           / target.hostDecription().cpu()
+           <= targetUtilization;                  //target will not exceed target utilization
+  }
+
+  @Override
+  protected boolean migrate(HostData source, VmStatus vm, HostData target) {
+    //modify host and vm states to indicate the future migration. Note we can do this because
+    //we are using the designated 'sandbox' host status
+    sandbox(source).migrate(vm, sandbox(target));
+
+    return sandbox(source).getVms().size() == 0;
+  }
+
+}
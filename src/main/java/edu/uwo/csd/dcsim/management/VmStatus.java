@@ -4,6 +4,11 @@ import edu.uwo.csd.dcsim.host.Resource;
 import edu.uwo.csd.dcsim.vm.Vm;
 import edu.uwo.csd.dcsim.vm.VmDescription;
 
+/**
+ * The status of a VM at the time of a host snapshot. A VmStatus is immutable, so it is shared
+ * rather than copied, and a snapshot reuses the status from the previous snapshot of its host while
+ * the VM is unchanged; the time stamp is then that of the snapshot in which the status was taken.
+ */
 public class VmStatus {
 
   private final long timeStamp;
@@ -69,8 +74,18 @@ public class VmStatus {
     return totalResources.coreCapacity();
   }
 
+  /**
+   * @return this status, as it is immutable
+   */
   public VmStatus copy() {
-    return new VmStatus(this);
+    return this;
+  }
+
+  /**
+   * @return true if this is the status of the given VM and its resources in use have not changed
+   */
+  boolean isCurrent(Vm vm) {
+    return this.vm == vm && resourceInUse.equals(vm.getResourceScheduled());
   }
 
   public Vm getVm() {
@@ -0,0 +1,38 @@
+package edu.uwo.csd.dcsim.management.events;
+
+import java.util.List;
+
+import edu.uwo.csd.dcsim.core.SimulationEventListener;
+import edu.uwo.csd.dcsim.management.HostStatus;
+
+/**
+ * Carries the status of several hosts, as collected by a single monitor for a rack or cluster. It
+ * is accounted in the management metrics as one HostStatusEvent per status, each of the message
+ * size set on this event, so that message counts and bandwidth are the same as with one monitor
+ * per host.
+ */
+public class HostStatusBatchEvent extends MessageEvent {
+
+  private final List<HostStatus> hostStatuses;
+
+  public HostStatusBatchEvent(SimulationEventListener target, List<HostStatus> hostStatuses) {
+    super(target);
+
+    this.hostStatuses = hostStatuses;
+  }
+
+  public List<HostStatus> getHostStatuses() {
+    return hostStatuses;
+  }
+
+  @Override
+  public void preExecute() {
+    //record message count metric as if each status was sent separately
+    if (simulation.isRecordingMetrics()) {
+      simulation.getSimulationMetrics().getManagementMetrics()
+          .addMessages(HostStatusEvent.class, hostStatuses.size(),
+                       hostStatuses.size() * getMessageSize());
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+package edu.uwo.csd.dcsim.management.policies;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.uwo.csd.dcsim.core.SimulationEventListener;
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.management.HostStatus;
+import edu.uwo.csd.dcsim.management.Policy;
+import edu.uwo.csd.dcsim.management.events.HostStatusBatchEvent;
+
+/**
+ * Monitors a group of hosts, such as a rack or cluster, from a single AutonomicManager, sending the
+ * status of every host that is ON or POWERING_ON in one HostStatusBatchEvent per execution. This
+ * replaces a HostMonitoringPolicy repeating on the manager of each host, which would report for the
+ * same hosts. The final status of a host that shuts down is still sent by a HostMonitoringPolicy
+ * installed on the host's own manager without an execution interval.
+ * <p>
+ * A host that is POWERING_ON is reported as it would be by its own monitor: the repeating event of
+ * a per-host monitor is sent to the host's AutonomicManager, which handles events while its host is
+ * ON or POWERING_ON, not to the host, which would hold them until it is ON. The status of such a
+ * host is therefore sent at the same times in both cases.
+ */
+public class BatchHostMonitoringPolicy extends Policy {
+
+  private final SimulationEventListener target;
+  private final List<Host> hosts;
+  //the last status sent for each host, by host id, from which the next is encoded
+  private final HashMap<Integer, HostStatus> lastStatuses = new HashMap<Integer, HostStatus>();
+
+  public BatchHostMonitoringPolicy(SimulationEventListener target, List<Host> hosts) {
+    this.target = target;
+    this.hosts = new ArrayList<Host>(hosts);
+  }
+
+  public void execute() {
+    long time = simulation.getSimulationTime();
+
+    List<HostStatus> statuses = new ArrayList<HostStatus>(hosts.size());
+    for (Host host : hosts) {
+      //only the managers of hosts that are on or powering on would process their own monitoring
+      //event
+      if (host.getState() == Host.HostState.ON || host.getState() == Host.HostState.POWERING_ON) {
+        HostStatus status = new HostStatus(host, time, lastStatuses.get(host.id()));
+        lastStatuses.put(host.id(), status);
+        statuses.add(status);
+      }
+    }
+
+    if (!statuses.isEmpty()) {
+      simulation.sendEvent(new HostStatusBatchEvent(target, statuses));
+    }
+  }
+
+  public List<Host> getHosts() {
+    return hosts;
+  }
+
+  @Override
+  public void onInstall() {
+  }
+
+  @Override
+  public void onManagerStart() {
+  }
+
+  @Override
+  public void onManagerStop() {
+  }
+
+}
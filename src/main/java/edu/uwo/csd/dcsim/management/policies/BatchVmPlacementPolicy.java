@@ -0,0 +1,69 @@
+package edu.uwo.csd.dcsim.management.policies;
+
+import java.util.List;
+import java.util.Map;
+
+import edu.uwo.csd.dcsim.management.BatchPlacementEngine;
+import edu.uwo.csd.dcsim.management.HostData;
+import edu.uwo.csd.dcsim.management.VmStatus;
+import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+import edu.uwo.csd.dcsim.management.events.VmPlacementEvent;
+import edu.uwo.csd.dcsim.vm.VmAllocationRequest;
+
+/**
+ * Places all of the requests of a VmPlacementEvent together with a BatchPlacementEngine, rather than
+ * one at a time in arrival order, to power on fewer hosts for large bursts of requests. Hosts are
+ * classified and offered to the engine in the same order as by VmPlacementPolicy, with stressed
+ * hosts left out.
+ */
+public class BatchVmPlacementPolicy extends VmPlacementPolicy {
+
+  private final BatchPlacementEngine engine;
+
+  public BatchVmPlacementPolicy(double lowerThreshold, double upperThreshold,
+                                double targetUtilization) {
+    this(new BatchPlacementEngine(BatchPlacementEngine.Heuristic.FIRST_FIT_DECREASING),
+         lowerThreshold, upperThreshold, targetUtilization);
+  }
+
+  /**
+   * @param targetUtilization the CPU utilization a host may be filled to by placing VMs on it
+   */
+  public BatchVmPlacementPolicy(BatchPlacementEngine engine, double lowerThreshold,
+                                double upperThreshold, double targetUtilization) {
+    super(lowerThreshold, upperThreshold, targetUtilization);
+
+    this.engine = engine;
+  }
+
+  @Override
+  public void execute(VmPlacementEvent event) {
+
+    HostPoolManager hostPool = manager.getCapability(HostPoolManager.class);
+
+    List<HostData> targets = targetHosts(hostPool.getHosts());
+
+    Map<VmAllocationRequest, HostData> placement =
+        engine.place(event.getVMAllocationRequests(), targets, targetUtilization);
+
+    for (VmAllocationRequest vmAllocationRequest : event.getVMAllocationRequests()) {
+      HostData target = placement.get(vmAllocationRequest);
+      if (target != null) {
+        //add a dummy placeholder VM to keep track of placed VM resource requirements
+        target.getSandboxStatus().instantiateVm(
+            new VmStatus(vmAllocationRequest.numCores(),
+                         vmAllocationRequest.coreCapacity(),
+                         vmAllocationRequest.vmDescription().resources()));
+
+        //invalidate this host status, as we know it to be incorrect until the next status update arrives
+        target.invalidateStatus(simulation.getSimulationTime());
+
+        sendVM(vmAllocationRequest, target);
+      } else {
+        event.addFailedRequest(
+            vmAllocationRequest); //add a failed request to the event for any event callback listeners to check
+      }
+    }
+  }
+
+}
@@ -3,17 +3,16 @@ package edu.uwo.csd.dcsim.management.policies;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.OptionalDouble;
 import java.util.stream.Collectors;
 
-import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.management.ConsolidationEngine;
+import edu.uwo.csd.dcsim.management.ConsolidationPlanner;
 import edu.uwo.csd.dcsim.management.HostData;
 import edu.uwo.csd.dcsim.management.HostDataComparator;
 import edu.uwo.csd.dcsim.management.Policy;
+import edu.uwo.csd.dcsim.management.SandboxConsolidationEngine;
 import edu.uwo.csd.dcsim.management.VmStatus;
-import edu.uwo.csd.dcsim.management.VmStatusComparator;
 import edu.uwo.csd.dcsim.management.action.ConcurrentManagementActionExecutor;
 import edu.uwo.csd.dcsim.management.action.MigrationAction;
 import edu.uwo.csd.dcsim.management.action.SequentialManagementActionExecutor;
@@ -31,14 +30,31 @@ public class ConsolidationPolicy extends Policy {
   final double upperThreshold;
   final double targetUtilization;
 
+  private final SandboxConsolidationEngine engine;
+  private final ConsolidationPlanner planner; //null to plan once, in the fixed order
+
   public ConsolidationPolicy(double lowerThreshold,
                              double upperThreshold,
                              double targetUtilization) {
+    this(lowerThreshold, upperThreshold, targetUtilization, null);
+  }
+
+  /**
+   * Create a policy that chooses among the candidate plans of the given planner, evaluated
+   * concurrently, rather than planning once in the fixed order
+   */
+  public ConsolidationPolicy(double lowerThreshold,
+                             double upperThreshold,
+                             double targetUtilization,
+                             ConsolidationPlanner planner) {
     addRequiredCapability(HostPoolManager.class);
 
     this.lowerThreshold = lowerThreshold;
     this.upperThreshold = upperThreshold;
     this.targetUtilization = targetUtilization;
+
+    engine = new SandboxConsolidationEngine(targetUtilization);
+    this.planner = planner;
   }
 
   public void execute() {
@@ -70,64 +86,36 @@ public class ConsolidationPolicy extends Policy {
         .filter(host -> host.getCurrentStatus().getIncomingMigrationCount() == 0)
         .collect(Collectors.toList());
 
-    List<HostData> sources = orderSourceHosts(unsortedSources);
-
     List<HostData> targets = orderTargetHosts(partiallyUtilized, underUtilized);
 
+    List<ConsolidationEngine.Migration<HostData, VmStatus>> plan;
+    if (planner != null) {
+      plan = planner.plan(unsortedSources, targets).getMigrations();
+    } else {
+      plan = engine.plan(orderSourceHosts(unsortedSources), targets);
+    }
+
     ConcurrentManagementActionExecutor migrations = new ConcurrentManagementActionExecutor();
     ConcurrentManagementActionExecutor shutdownActions = new ConcurrentManagementActionExecutor();
 
-    HashSet<HostData> usedSources = new HashSet<HostData>();
-    HashSet<HostData> usedTargets = new HashSet<HostData>();
-
-    for (HostData source : sources) {
-      if (!usedTargets
-          .contains(source)) {        // Check that the source host hasn't been used as a target.
-        List<VmStatus> vmList = this.orderSourceVms(source.getCurrentStatus().getVms());
-
-        for (VmStatus vm : vmList) {
-
-		
-          for (HostData target : targets) {
-        	  
-            if (source != target &&
-                !usedSources.contains(target) &&
-                //Check that the target host hasn't been used as a source.
-                HostData.canHost(vm, target.getSandboxStatus(), target.hostDecription()) &&
-                //target has capability and capacity to host VM
-                (target.getSandboxStatus().resourcesInUse().cpu() + vm.getResourceInUse().cpu())
-                / target.hostDecription().cpu()
-                <= targetUtilization) {                                //target will not exceed target utilization
-
-              //modify host and vm states to indicate the future migration. Note we can do this because
-              //we are using the designated 'sandbox' host status
-              source.getSandboxStatus().migrate(vm, target.getSandboxStatus());
-              
-              
-              
-              simulation.getLogger().info("ConsolidationPolicy. Can migrate ");
-              
-              //invalidate source and target status, as we know them to be incorrect until the next status update arrives
-              source.invalidateStatus(simulation.getSimulationTime());
-              target.invalidateStatus(simulation.getSimulationTime());
-
-              migrations.addAction(new MigrationAction(source.getHostManager(),
-                                                       source.getHost(),
-                                                       target.getHost(),
-                                                       vm.getId()));
-
-              //if the host will be empty after this migration, instruct it to shut down
-              if (source.getSandboxStatus().getVms().size() == 0) {
-                shutdownActions.addAction(new ShutdownHostAction(source.getHost()));
-              }
-
-              usedTargets.add(target);
-              usedSources.add(source);
-
-              break;
-            }
-          }
-        }
+    for (ConsolidationEngine.Migration<HostData, VmStatus> migration : plan) {
+      HostData source = migration.getSource();
+      HostData target = migration.getTarget();
+
+      simulation.getLogger().info("ConsolidationPolicy. Can migrate ");
+
+      //invalidate source and target status, as we know them to be incorrect until the next status update arrives
+      source.invalidateStatus(simulation.getSimulationTime());
+      target.invalidateStatus(simulation.getSimulationTime());
+
+      migrations.addAction(new MigrationAction(source.getHostManager(),
+                                               source.getHost(),
+                                               target.getHost(),
+                                               migration.getVm().getId()));
+
+      //if the host will be empty after this migration, instruct it to shut down
+      if (migration.isSourceEmptied()) {
+        shutdownActions.addAction(new ShutdownHostAction(source.getHost()));
       }
     }
 
@@ -170,31 +158,10 @@ public class ConsolidationPolicy extends Policy {
   }
 
   private double averageCpu(HostData host) {
-    OptionalDouble avg = host.getHistory()
-        .stream()
-        .filter(status -> status.getState() == Host.HostState.ON)
-        .mapToInt(status -> status.resourcesInUse().cpu())
-        .average();
-
-    return avg.isPresent() ? avg.getAsDouble() : 0.0;
+    return host.getStatusHistory().getAverageCpuInUse();
   }
 
 
-  private List<VmStatus> orderSourceVms(List<VmStatus> sourceVms) {
-
-    ArrayList<VmStatus> sources = new ArrayList<VmStatus>(sourceVms);
-
-    // Sort VMs in decreasing order by <overall capacity, CPU load>.
-    // (Note: since CPU can be oversubscribed, but memory can't, memory
-    // takes priority over CPU when comparing VMs by _size_ (capacity).)
-    Collections.sort(sources, VmStatusComparator.getComparator(VmStatusComparator.MEMORY,
-                                                               VmStatusComparator.CPU_CORES,
-                                                               VmStatusComparator.CORE_CAP,
-                                                               VmStatusComparator.CPU_IN_USE));
-    Collections.reverse(sources);
-
-    return sources;
-  }
 
   private List<HostData> orderSourceHosts(List<HostData> underUtilized) {
 
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 
 import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.ResourceVector;
 import edu.uwo.csd.dcsim.management.AutonomicManager;
 import edu.uwo.csd.dcsim.management.HostData;
 import edu.uwo.csd.dcsim.management.Policy;
@@ -23,6 +24,8 @@ import edu.uwo.csd.dcsim.vm.VmAllocationRequest;
  */
 public class DefaultVmPlacementPolicy extends Policy {
 
+  private final ResourceVector scratch = new ResourceVector(); //resources in use of a candidate
+
   public DefaultVmPlacementPolicy() {
     addRequiredCapability(HostPoolManager.class);
   }
@@ -47,23 +50,23 @@ public class DefaultVmPlacementPolicy extends Policy {
     //iterate though each VM to place
     for (VmAllocationRequest vmAllocationRequest : event.getVMAllocationRequests()) {
       HostData allocatedHost = null;
+      Resource reqResource = Resource.create(
+          1,
+          vmAllocationRequest.numCores(),
+          vmAllocationRequest.coreCapacity(),
+          vmAllocationRequest.memory(),
+          vmAllocationRequest.bandwidth(),
+          vmAllocationRequest.storage());
 
       //simply iterate through the list of hosts until we find one that has enough capacity for the VM
       for (HostData target : hosts) {
-        Resource reqResource = Resource.create(
-            1,
-            vmAllocationRequest.numCores(),
-            vmAllocationRequest.coreCapacity(),
-            vmAllocationRequest.memory(),
-            vmAllocationRequest.bandwidth(),
-            vmAllocationRequest.storage());
-
         //target has capability and capacity to host VM
         if (HostData.canHost(vmAllocationRequest.numCores(),
                              vmAllocationRequest.coreCapacity(),
                              reqResource,
                              target.getSandboxStatus(),
-                             target.hostDecription())) {
+                             target.hostDecription(),
+                             scratch)) {
           allocatedHost = target;
 
           //add a dummy placeholder VM to keep track of placed VM resource requirements
@@ -12,6 +12,9 @@ public class HostMonitoringPolicy extends Policy {
 
   SimulationEventListener target;
 
+  //the last status sent, from which the next is encoded
+  private HostStatus lastStatus;
+
   public HostMonitoringPolicy(SimulationEventListener target) {
     addRequiredCapability(HostManager.class);
 
@@ -27,7 +30,9 @@ public class HostMonitoringPolicy extends Policy {
   public void execute() {
     HostManager hostManager = manager.getCapability(HostManager.class);
 
-    HostStatus hostState = new HostStatus(hostManager.getHost(), simulation.getSimulationTime());
+    HostStatus hostState = new HostStatus(hostManager.getHost(), simulation.getSimulationTime(),
+                                          lastStatus);
+    lastStatus = hostState;
 
     simulation.sendEvent(new HostStatusEvent(target, hostState));
 
@@ -5,8 +5,10 @@ import java.util.List;
 
 import edu.uwo.csd.dcsim.core.Event;
 import edu.uwo.csd.dcsim.management.HostData;
+import edu.uwo.csd.dcsim.management.HostStatus;
 import edu.uwo.csd.dcsim.management.Policy;
 import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+import edu.uwo.csd.dcsim.management.events.HostStatusBatchEvent;
 import edu.uwo.csd.dcsim.management.events.HostStatusEvent;
 
 public class HostStatusPolicy extends Policy {
@@ -31,6 +33,14 @@ public class HostStatusPolicy extends Policy {
     hostData.addHostStatus(event.getHostStatus(), windowSize);
   }
 
+  public void execute(HostStatusBatchEvent event) {
+    HostPoolManager hostPool = manager.getCapability(HostPoolManager.class);
+
+    for (HostStatus hostStatus : event.getHostStatuses()) {
+      hostPool.getHost(hostStatus.getId()).addHostStatus(hostStatus, windowSize);
+    }
+  }
+
   @Override
   public void onInstall() {
     // TODO Auto-generated method stub
@@ -5,10 +5,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.ResourceVector;
 import edu.uwo.csd.dcsim.management.HostData;
 import edu.uwo.csd.dcsim.management.HostDataComparator;
-import edu.uwo.csd.dcsim.management.HostStatus;
 import edu.uwo.csd.dcsim.management.Policy;
 import edu.uwo.csd.dcsim.management.VmStatus;
 import edu.uwo.csd.dcsim.management.VmStatusComparator;
@@ -26,6 +25,8 @@ public class RelocationPolicy extends Policy {
   double upperThreshold;
   double targetUtilization;
 
+  private final ResourceVector scratch = new ResourceVector(); //resources in use of a candidate
+
   public RelocationPolicy(double lowerThreshold,
                           double upperThreshold,
                           double targetUtilization) {
@@ -75,9 +76,9 @@ public class RelocationPolicy extends Policy {
         for (HostData target : targets) {
           if (target.getSandboxStatus().getIncomingMigrationCount() < 2 &&
               //restrict target incoming migrations to 2 for some reason
-              HostData.canHost(vm, target.getSandboxStatus(), target.hostDecription()) &&
+              HostData.canHost(vm, target.getSandboxStatus(), target.hostDecription(), scratch) &&
               //target has capability and capacity to host VM
-              (target.getSandboxStatus().resourcesInUse().cpu() + vm.getResourceInUse()
+              (target.getSandboxStatus().cpuInUse() + vm.getResourceInUse()
                   .cpu()) /
               target.hostDecription().cpu()
               <= targetUtilization) {                                //target will not exceed target utilization
@@ -127,18 +128,8 @@ public class RelocationPolicy extends Policy {
       if (host.isStatusValid()) {
 
         // Calculate host's avg CPU utilization in the last window of time
-        double avgCpuInUse = 0;
-        int count = 0;
-        for (HostStatus status : host.getHistory()) {
-          //only consider times when the host is powered on TODO should there be events from hosts that are off?
-          if (status.getState() == Host.HostState.ON) {
-            avgCpuInUse += status.resourcesInUse().cpu();
-            ++count;
-          }
-        }
-        if (count != 0) {
-          avgCpuInUse = avgCpuInUse / count;
-        }
+        //only consider times when the host is powered on TODO should there be events from hosts that are off?
+        double avgCpuInUse = host.getStatusHistory().getAverageCpuInUse();
 
         double
             avgCpuUtilization =
@@ -177,7 +168,7 @@ public class RelocationPolicy extends Policy {
     // Remove VMs with less CPU load than the CPU load by which the source
     // host is stressed.
     double cpuExcess =
-        source.getCurrentStatus().resourcesInUse().cpu()
+        source.getCurrentStatus().cpuInUse()
         - source.hostDecription().cpu() * this.upperThreshold;
     for (VmStatus vm : sourceVms) {
       if (vm.getResourceInUse().cpu() >= cpuExcess) {
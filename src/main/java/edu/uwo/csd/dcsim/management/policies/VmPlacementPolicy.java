@@ -6,12 +6,13 @@ import java.util.Collections;
 import java.util.List;
 
 import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.ResourceVector;
 import edu.uwo.csd.dcsim.host.events.PowerStateEvent;
 import edu.uwo.csd.dcsim.host.events.PowerStateEvent.PowerState;
 import edu.uwo.csd.dcsim.management.AutonomicManager;
+import edu.uwo.csd.dcsim.management.CapacityIndex;
 import edu.uwo.csd.dcsim.management.HostData;
 import edu.uwo.csd.dcsim.management.HostDataComparator;
-import edu.uwo.csd.dcsim.management.HostStatus;
 import edu.uwo.csd.dcsim.management.Policy;
 import edu.uwo.csd.dcsim.management.VmStatus;
 import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
@@ -22,9 +23,11 @@ import edu.uwo.csd.dcsim.vm.VmAllocationRequest;
 
 public class VmPlacementPolicy extends Policy {
 
-  private double lowerThreshold;
-  private double upperThreshold;
-  private double targetUtilization;
+  protected double lowerThreshold;
+  protected double upperThreshold;
+  protected double targetUtilization;
+
+  private final ResourceVector scratch = new ResourceVector(); //resources in use of a candidate
 
   public VmPlacementPolicy(double lowerThreshold, double upperThreshold, double targetUtilization) {
     addRequiredCapability(HostPoolManager.class);
@@ -34,9 +37,9 @@ public class VmPlacementPolicy extends Policy {
     this.targetUtilization = targetUtilization;
   }
 
-  private List<HostData> orderTargetHosts(List<HostData> partiallyUtilized,
-                                          List<HostData> underUtilized,
-                                          List<HostData> empty) {
+  protected List<HostData> orderTargetHosts(List<HostData> partiallyUtilized,
+                                            List<HostData> underUtilized,
+                                            List<HostData> empty) {
 
     ArrayList<HostData> targets = new ArrayList<HostData>();
 
@@ -61,28 +64,18 @@ public class VmPlacementPolicy extends Policy {
     return targets;
   }
 
-  private void classifyHosts(List<HostData> partiallyUtilized,
-                             List<HostData> underUtilized,
-                             List<HostData> empty,
-                             Collection<HostData> hosts) {
+  protected void classifyHosts(List<HostData> partiallyUtilized,
+                               List<HostData> underUtilized,
+                               List<HostData> empty,
+                               Collection<HostData> hosts) {
 
     for (HostData host : hosts) {
 
       //filter out hosts with a currently invalid status
       if (host.isStatusValid()) {
         // Calculate host's avg CPU utilization in the last window of time
-        double avgCpuInUse = 0;
-        int count = 0;
-        for (HostStatus status : host.getHistory()) {
-          //only consider times when the host is powered on TODO should there be events from hosts that are off?
-          if (status.getState() == Host.HostState.ON) {
-            avgCpuInUse += status.resourcesInUse().cpu();
-            ++count;
-          }
-        }
-        if (count != 0) {
-          avgCpuInUse = avgCpuInUse / count;
-        }
+        //only consider times when the host is powered on TODO should there be events from hosts that are off?
+        double avgCpuInUse = host.getStatusHistory().getAverageCpuInUse();
 
         double
             avgCpuUtilization =
@@ -102,11 +95,12 @@ public class VmPlacementPolicy extends Policy {
 
   }
 
-  public void execute(VmPlacementEvent event) {
-
-    HostPoolManager hostPool = manager.getCapability(HostPoolManager.class);
-
-    Collection<HostData> hosts = hostPool.getHosts();
+  /**
+   * Reset the sandbox status of the hosts to their current status, and list the hosts that may
+   * take new VMs in the order they should be tried: partially-utilized, underutilized, then empty.
+   * Stressed hosts and hosts with an invalid status are left out.
+   */
+  protected List<HostData> targetHosts(Collection<HostData> hosts) {
 
     //reset the sandbox host status to the current host status
     for (HostData host : hosts) {
@@ -121,36 +115,51 @@ public class VmPlacementPolicy extends Policy {
     this.classifyHosts(partiallyUtilized, underUtilized, empty, hosts);
 
     // Create target hosts list.
-    List<HostData> targets = this.orderTargetHosts(partiallyUtilized, underUtilized, empty);
+    return this.orderTargetHosts(partiallyUtilized, underUtilized, empty);
+  }
+
+  private boolean canPlace(VmAllocationRequest vmAllocationRequest, HostData target) {
+    // Target has capability and capacity to host VM
+    boolean canHost = HostData.canHost(vmAllocationRequest.vmDescription(),
+                                       target.getSandboxStatus(),
+                                       target,
+                                       scratch);
+    // Target will not exceed target utilization
+    int expectedUtilization = (target.getSandboxStatus().cpuInUse() +
+                               vmAllocationRequest.coreCapacity()) /
+                              (target.hostDecription().cpu() *
+                               target.hostDecription().numCores() *
+                               target.hostDecription().numCpus());
+    return canHost && expectedUtilization <= targetUtilization;
+  }
+
+  public void execute(VmPlacementEvent event) {
+
+    HostPoolManager hostPool = manager.getCapability(HostPoolManager.class);
+
+    List<HostData> targets = targetHosts(hostPool.getHosts());
+
+    //index the residual capacity of the targets, to find the first suitable target without
+    //scanning every host for every request
+    CapacityIndex index = CapacityIndex.create(targets, scratch);
 
     for (VmAllocationRequest vmAllocationRequest : event.getVMAllocationRequests()) {
       HostData allocatedHost = null;
-      for (HostData target : targets) {
-
-        // Target has capability and capacity to host VM
-        boolean canHost = HostData.canHost(vmAllocationRequest.vmDescription(),
-                                           target.getSandboxStatus(),
-                                           target);
-        // Target will not exceed target utilization
-        int expectedUtilization = (target.getSandboxStatus().resourcesInUse().cpu() +
-                                   vmAllocationRequest.coreCapacity()) /
-                                  (target.hostDecription().cpu() *
-                                   target.hostDecription().numCores() *
-                                   target.hostDecription().numCpus());
-        if (canHost && expectedUtilization <= targetUtilization) {
-          allocatedHost = target;
-
-          //add a dummy placeholder VM to keep track of placed VM resource requirements
-          target.getSandboxStatus().instantiateVm(
-              new VmStatus(vmAllocationRequest.numCores(),
-                           vmAllocationRequest.coreCapacity(),
-                           vmAllocationRequest.vmDescription().resources()));
-
-          //invalidate this host status, as we know it to be incorrect until the next status update arrives
-          target.invalidateStatus(simulation.getSimulationTime());
-
-          break;
-        }
+      int position = index.firstFit(vmAllocationRequest.vmDescription().resources(),
+                                    i -> canPlace(vmAllocationRequest, targets.get(i)));
+      if (position >= 0) {
+        HostData target = targets.get(position);
+        allocatedHost = target;
+
+        //add a dummy placeholder VM to keep track of placed VM resource requirements
+        target.getSandboxStatus().instantiateVm(
+            new VmStatus(vmAllocationRequest.numCores(),
+                         vmAllocationRequest.coreCapacity(),
+                         vmAllocationRequest.vmDescription().resources()));
+        index.set(position, target, scratch);
+
+        //invalidate this host status, as we know it to be incorrect until the next status update arrives
+        target.invalidateStatus(simulation.getSimulationTime());
       }
 
       if (allocatedHost != null) {
@@ -162,7 +171,7 @@ public class VmPlacementPolicy extends Policy {
     }
   }
 
-  private long sendVM(VmAllocationRequest vmAllocationRequest, HostData host) {
+  protected long sendVM(VmAllocationRequest vmAllocationRequest, HostData host) {
     //if the host is not ON or POWERING_ON, then send an event to power on the host
     if (host.getCurrentStatus().getState() != Host.HostState.ON
         && host.getCurrentStatus().getState() != Host.HostState.POWERING_ON) {
@@ -62,6 +62,10 @@ public class Vm implements SimulationEventListener {
 
     this.resourceScheduled = resource;
     taskInstance.setResourceScheduled(resource);
+
+    if (vmAllocation != null) {
+      vmAllocation.host().markChanged();
+    }
   }
 
   public int getMaxCpu() {
@@ -0,0 +1,49 @@
+package edu.uwo.csd.dcsim.application;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FixedPointAcceleratorTest {
+
+  /**
+   * Iterate the oscillating linear map g(x) = b - 0.9 * M x, returning the number of iterations
+   * needed to converge.
+   */
+  private int iterate(FixedPointAccelerator accelerator, double[] x) {
+    double[] g = new double[x.length];
+    accelerator.reset(x.length);
+
+    for (int iteration = 1; iteration <= 1000; ++iteration) {
+      g[0] = 1 - 0.9 * (x[0] + x[1]) / 2;
+      g[1] = 0.5 - 0.9 * (x[1] + x[2]) / 2;
+      g[2] = 0.25 - 0.9 * x[0];
+      if (accelerator.next(x, g) < 1e-9) {
+        return iteration;
+      }
+    }
+    return Integer.MAX_VALUE;
+  }
+
+  @Test
+  public void andersonConvergesFasterThanDamped() {
+    double[] damped = new double[3];
+    double[] anderson = new double[3];
+
+    int dampedIterations = iterate(new FixedPointAccelerator(0.5, 0), damped);
+    int andersonIterations = iterate(new FixedPointAccelerator(0.5, 2), anderson);
+
+    assertTrue(dampedIterations < 1000);
+    assertTrue(andersonIterations < dampedIterations);
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(anderson[i], damped[i], 1e-6);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsInvalidDamping() {
+    new FixedPointAccelerator(0, 1);
+  }
+
+}
@@ -0,0 +1,123 @@
+package edu.uwo.csd.dcsim.application;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.host.Resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InteractiveApplicationTest {
+
+  private static final double MAX_QUEUE_ERROR = 0.01f;
+
+  /**
+   * The maximum workload as found by stepping through every number of clients with Schweitzer's
+   * approximate MVA, before the search was bracketed and bisected
+   */
+  private static int linearMaxWorkload(double[] serviceTimes, double[] visitRatios,
+                                       double thinkTime, double responseTimeLimit,
+                                       double utilizationLimit) {
+    int size = serviceTimes.length;
+    double[] queueLengths = new double[size];
+    double[] responseTimes = new double[size];
+
+    double responseTime = 0;
+    boolean done = false;
+    int nClients = 0;
+    while (responseTime <= responseTimeLimit && !done) {
+      ++nClients;
+
+      for (int k = 0; k < size; ++k) {
+        queueLengths[k] = nClients / size;
+      }
+
+      double maxChange = Double.MAX_VALUE;
+      double throughput = 0;
+      while (maxChange > MAX_QUEUE_ERROR) {
+        responseTime = 0;
+        for (int k = 0; k < size; ++k) {
+          responseTimes[k] =
+              serviceTimes[k] * (1 + ((nClients - 1) / (double) nClients) * queueLengths[k]);
+          responseTime += responseTimes[k] * visitRatios[k];
+        }
+
+        throughput = nClients / (thinkTime + responseTime);
+
+        maxChange = 0;
+        for (int k = 0; k < size; ++k) {
+          double queueLength = throughput * visitRatios[k] * responseTimes[k];
+          maxChange = Math.max(maxChange, Math.abs(queueLengths[k] - queueLength));
+          queueLengths[k] = queueLength;
+
+          //terminate if utilization reaches the limit on one task instance, at any iteration
+          if (throughput * serviceTimes[k] * visitRatios[k] >= utilizationLimit) {
+            done = true;
+          }
+        }
+      }
+    }
+
+    return nClients - 1;
+  }
+
+  @Test
+  public void approxMaxWorkloadMatchesLinearSearchWithinExactLimits() {
+    Simulation simulation = new Simulation("max-workload-test");
+    Random random = new Random(1);
+    int nonTrivial = 0; //trials with more than one client
+    for (int trial = 0; trial < 200; ++trial) {
+      float thinkTime = 1 + random.nextInt(5);
+      InteractiveApplication.Builder builder =
+          new InteractiveApplication.Builder(simulation).thinkTime(thinkTime);
+
+      int nTasks = 1 + random.nextInt(3);
+      int size = 0;
+      int[] maxInstances = new int[nTasks];
+      double[] taskServiceTimes = new double[nTasks];
+      double[] taskVisitRatios = new double[nTasks];
+      for (int t = 0; t < nTasks; ++t) {
+        maxInstances[t] = 1 + random.nextInt(3);
+        taskServiceTimes[t] = 0.005 + random.nextDouble() * 0.1;
+        taskVisitRatios[t] = 0.5 + random.nextDouble() * 1.5;
+        builder.task(1, maxInstances[t], Resource.create(1, 1, 1000, 1024, 1024, 1024),
+                     taskServiceTimes[t], taskVisitRatios[t]);
+        size += maxInstances[t];
+      }
+      InteractiveApplication application = builder.build();
+
+      //the stations of the network, as the search builds them
+      double[] serviceTimes = new double[size];
+      double[] visitRatios = new double[size];
+      int station = 0;
+      for (int t = 0; t < nTasks; ++t) {
+        for (int i = 0; i < maxInstances[t]; ++i) {
+          serviceTimes[station] = taskServiceTimes[t];
+          visitRatios[station] = taskVisitRatios[t] / maxInstances[t];
+          ++station;
+        }
+      }
+
+      double responseTimeLimit = random.nextBoolean() ? Double.MAX_VALUE
+                                                      : 0.1 + random.nextDouble() * 2;
+      double utilizationLimit = responseTimeLimit == Double.MAX_VALUE || random.nextBoolean()
+                                ? 0.5 + random.nextDouble() * 0.49 : Double.MAX_VALUE;
+
+      //the approximate boundary, stepped down to where exact MVA is within the limits
+      int exact = InteractiveApplication.calculateMaxWorkloadMVA(application, responseTimeLimit,
+                                                                 utilizationLimit);
+      int expected = Math.min(exact, linearMaxWorkload(serviceTimes, visitRatios, thinkTime,
+                                                       responseTimeLimit, utilizationLimit));
+      assertEquals(expected, InteractiveApplication.calculateMaxWorkloadApproxMVA(
+          application, responseTimeLimit, utilizationLimit));
+      if (expected > 1) {
+        ++nonTrivial;
+      }
+    }
+    assertTrue(nonTrivial > 150);
+  }
+
+}
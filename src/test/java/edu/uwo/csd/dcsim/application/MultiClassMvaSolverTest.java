@@ -0,0 +1,75 @@
+package edu.uwo.csd.dcsim.application;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MultiClassMvaSolverTest {
+
+  @Test
+  public void singleClassMatchesSchweitzer() {
+    MvaSolver mva = new MvaSolver();
+    mva.reset(3);
+    mva.set(0, 0.01, 1);
+    mva.set(1, 0.02, 0.5);
+    mva.set(2, 0.02, 0.5);
+    mva.solveApproximate(20, 1, 0.0001);
+
+    MultiClassMvaSolver multi = new MultiClassMvaSolver();
+    multi.reset(1, 3);
+    multi.setClass(0, 20, 1);
+    multi.set(0, 0, 0.01, 1);
+    multi.set(0, 1, 0.02, 0.5);
+    multi.set(0, 2, 0.02, 0.5);
+    multi.solve(0.0001);
+
+    assertEquals(multi.getResponseTime(0), mva.getResponseTime(), 1e-6);
+    assertEquals(multi.getThroughput(0), mva.getThroughput(), 1e-6);
+    assertEquals(multi.getResponseTime(), mva.getResponseTime(), 1e-6);
+    for (int k = 0; k < 3; ++k) {
+      assertEquals(multi.getQueueLength(0, k), mva.getQueueLength(k), 1e-4);
+    }
+  }
+
+  @Test
+  public void identicalClassesShareNetwork() {
+    MultiClassMvaSolver multi = new MultiClassMvaSolver();
+    multi.reset(2, 2);
+    for (int c = 0; c < 2; ++c) {
+      multi.setClass(c, 10, 2);
+      multi.set(c, 0, 0.02, 1);
+      multi.set(c, 1, 0.05, 1);
+    }
+    multi.solve(0.0001);
+
+    MvaSolver mva = new MvaSolver();
+    mva.reset(2);
+    mva.set(0, 0.02, 1);
+    mva.set(1, 0.05, 1);
+    mva.solve(20, 2);
+
+    //identical classes are served identically, and together approximate the combined population
+    assertEquals(multi.getThroughput(0), multi.getThroughput(1), 1e-9);
+    assertEquals(multi.getThroughput(), mva.getThroughput(), mva.getThroughput() * 0.05);
+    assertEquals(multi.getResponseTime(), mva.getResponseTime(), mva.getResponseTime() * 0.05);
+  }
+
+  @Test
+  public void classWithoutClients() {
+    MultiClassMvaSolver multi = new MultiClassMvaSolver();
+    multi.reset(2, 2);
+    multi.setClass(0, 5, 0);
+    multi.set(0, 0, 2, 1);
+    multi.set(0, 1, 1, 1);
+    multi.setClass(1, 0, 1);
+    multi.set(1, 0, 10, 1);
+    multi.set(1, 1, 10, 1);
+    multi.solve(0.0001);
+
+    assertEquals(multi.getThroughput(1), 0, 0);
+    assertEquals(multi.getResponseTime(1), 0, 0);
+    assertEquals(multi.getThroughput(), multi.getThroughput(0), 0);
+    assertEquals(multi.getResponseTime(), multi.getResponseTime(0), 1e-9);
+  }
+
+}
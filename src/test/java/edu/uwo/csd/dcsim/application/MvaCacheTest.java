@@ -0,0 +1,53 @@
+package edu.uwo.csd.dcsim.application;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MvaCacheTest {
+
+  private MvaSolver solver(double serviceTime) {
+    MvaSolver mva = new MvaSolver();
+    mva.reset(2);
+    mva.set(0, serviceTime, 1);
+    mva.set(1, 0.02, 0.5);
+    return mva;
+  }
+
+  @Test
+  public void reusesSolutionOfMatchingProblem() {
+    MvaCache cache = new MvaCache(10, 1e-6);
+
+    MvaSolver first = solver(0.01);
+    cache.solve(first, false, 30, 1, 0.01);
+
+    MvaSolver second = solver(0.01 + 1e-8);
+    cache.solve(second, false, 30, 1, 0.01);
+
+    assertEquals(cache.getHits(), 1);
+    assertEquals(cache.getMisses(), 1);
+    assertEquals(second.getResponseTime(), first.getResponseTime(), 0);
+    assertEquals(second.getQueueLength(1), first.getQueueLength(1), 0);
+
+    cache.solve(second, false, 31, 1, 0.01);
+    cache.solve(second, true, 30, 1, 0.01);
+    assertEquals(cache.getMisses(), 3);
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    MvaCache cache = new MvaCache(2, 0);
+
+    cache.solve(solver(0.01), false, 10, 1, 0.01);
+    cache.solve(solver(0.02), false, 10, 1, 0.01);
+    cache.solve(solver(0.01), false, 10, 1, 0.01);
+    cache.solve(solver(0.03), false, 10, 1, 0.01);
+    assertEquals(cache.size(), 2);
+
+    cache.solve(solver(0.01), false, 10, 1, 0.01);
+    assertEquals(cache.getHits(), 2);
+    cache.solve(solver(0.02), false, 10, 1, 0.01);
+    assertEquals(cache.getHits(), 2);
+  }
+
+}
@@ -0,0 +1,52 @@
+package edu.uwo.csd.dcsim.application;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MvaSolverTest {
+
+  @Test
+  public void singleStationWithoutThinkTime() {
+    MvaSolver mva = new MvaSolver();
+    mva.reset(1);
+    mva.set(0, 2, 1);
+
+    mva.solve(5, 0);
+
+    assertEquals(mva.getResponseTime(), 10, 1e-9);
+    assertEquals(mva.getThroughput(), 0.5, 1e-9);
+    assertEquals(mva.getQueueLength(0), 5, 1e-9);
+    assertEquals(mva.getMaxUtilization(), 1, 1e-9);
+  }
+
+  @Test
+  public void approximateCloseToExact() {
+    MvaSolver mva = new MvaSolver();
+    mva.reset(3);
+    mva.set(0, 0.01, 1);
+    mva.set(1, 0.02, 0.5);
+    mva.set(2, 0.02, 0.5);
+
+    mva.solve(20, 1);
+    double exact = mva.getResponseTime();
+
+    mva.solveApproximate(20, 1, 0.001);
+    assertEquals(mva.getResponseTime(), exact, exact * 0.05);
+  }
+
+  @Test
+  public void noClients() {
+    MvaSolver mva = new MvaSolver();
+    mva.reset(2);
+    mva.set(0, 1, 1);
+    mva.set(1, 1, 1);
+
+    mva.solve(3, 1);
+    mva.solve(0, 1);
+
+    assertEquals(mva.getThroughput(), 0, 0);
+    assertEquals(mva.getQueueLength(0), 0, 0);
+  }
+
+}
@@ -0,0 +1,63 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import ca.carleton.dcsim.SaviCloudNetwork;
+import ca.carleton.dcsim.managment.capabilities.ApplicationManager;
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.management.AutonomicManager;
+import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingTraceWorkloadTest {
+
+  private String writeTextTrace() throws IOException {
+    File file = File.createTempFile("trace", ".txt");
+    file.deleteOnExit();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("100\n");
+      for (int i = 0; i < 10; ++i) {
+        writer.write((i * 100) + ", " + (i / 10.0) + "\n");
+      }
+    }
+    return file.getPath();
+  }
+
+  private static Simulation simulation() {
+    Simulation simulation = new Simulation("streaming-trace-test");
+    HostPoolManager hostPool = new HostPoolManager();
+    ApplicationManager appPool = new ApplicationManager();
+    simulation.addSaviNetwork(
+        new SaviCloudNetwork.Builder(simulation)
+            .hostPool(hostPool)
+            .applicationPool(appPool)
+            .autonomicManager(new AutonomicManager(simulation, hostPool, appPool))
+            .dc2Index(new HashMap<>())
+            .datacentres(new ArrayList<>())
+            .build());
+    return simulation;
+  }
+
+  @Test
+  public void closedWhenRunEnds() throws IOException {
+    Simulation simulation = simulation();
+    StreamingTraceWorkload workload =
+        new StreamingTraceWorkload(simulation, writeTextTrace(), 100, 0);
+    workload.setEnabled(true);
+    assertFalse(workload.reader.isClosed());
+
+    simulation.run(500000, 0);
+
+    assertTrue(workload.reader.isClosed());
+    assertTrue(Double.isNaN(workload.reader.next()));
+  }
+
+}
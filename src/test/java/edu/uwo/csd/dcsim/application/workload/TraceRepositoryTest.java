@@ -0,0 +1,121 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TraceRepositoryTest {
+
+  private String writeTextTrace() throws IOException {
+    File file = File.createTempFile("trace", ".txt");
+    file.deleteOnExit();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("100\n0, 0.25\n100, 0.5\n");
+    }
+    return file.getPath();
+  }
+
+  @Test
+  public void sharedUntilReleased() throws IOException {
+    TraceRepository repository = new TraceRepository();
+    String fileName = writeTextTrace();
+    Object first = new Object();
+    Object second = new Object();
+
+    WorkloadTrace trace = repository.acquire(first, fileName);
+    assertSame(repository.acquire(second, fileName), trace);
+    assertSame(repository.acquire(second, fileName), trace);
+    assertEquals(repository.getLoads(), 1);
+    assertEquals(repository.getMisses(), 1);
+    assertEquals(repository.getHits(), 2);
+
+    repository.release(first);
+    assertTrue(repository.contains(fileName));
+
+    repository.release(second);
+    assertFalse(repository.contains(fileName));
+    assertEquals(repository.getEvictions(), 1);
+
+    //a released trace is loaded again when next requested
+    repository.acquire(first, fileName);
+    assertEquals(repository.getLoads(), 2);
+  }
+
+  @Test
+  public void releasedWhenOwnerCollected() throws Exception {
+    TraceRepository repository = new TraceRepository();
+    String fileName = writeTextTrace();
+    Object[] owner = {new Object()};
+    repository.acquire(owner[0], fileName);
+    repository.acquire(new Object(), fileName);
+
+    //an owner that is still reachable keeps its reference
+    for (int i = 0; i < 5 && repository.getEvictions() == 0; ++i) {
+      System.gc();
+      Thread.sleep(10);
+      repository.size();
+    }
+    assertTrue(repository.contains(fileName));
+
+    owner[0] = null;
+    for (int i = 0; i < 100 && repository.contains(fileName); ++i) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertFalse(repository.contains(fileName));
+    assertEquals(repository.getEvictions(), 1);
+  }
+
+  @Test
+  public void loadedOnceAcrossThreads() throws Exception {
+    final TraceRepository repository = new TraceRepository();
+    final String fileName = writeTextTrace();
+    final CountDownLatch start = new CountDownLatch(1);
+    final WorkloadTrace[] traces = new WorkloadTrace[8];
+
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < traces.length; ++i) {
+      final int index = i;
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        traces[index] = repository.acquire(new Object(), fileName);
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(repository.getLoads(), 1);
+    for (WorkloadTrace trace : traces) {
+      assertSame(trace, traces[0]);
+    }
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void missingTraceNotHeld() {
+    TraceRepository repository = new TraceRepository();
+    try {
+      repository.acquire(new Object(), "does-not-exist");
+    } finally {
+      assertEquals(repository.size(), 0);
+    }
+  }
+
+}
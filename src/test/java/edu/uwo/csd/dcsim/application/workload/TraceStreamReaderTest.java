@@ -0,0 +1,111 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TraceStreamReaderTest {
+
+  private String writeTextTrace() throws IOException {
+    File file = File.createTempFile("trace", ".txt");
+    file.deleteOnExit();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("100\n");
+      for (int i = 1; i <= 10; ++i) {
+        writer.write((i * 100) + ", " + (i / 10.0) + "\n");
+      }
+    }
+    return file.getPath();
+  }
+
+  /**
+   * Check that the reader produces the same sequence as stepping through the trace in memory, as
+   * TraceWorkload does
+   */
+  private void assertMatchesTrace(String fileName, long offset) {
+    WorkloadTrace trace = WorkloadTrace.load(fileName);
+    int position = (int) Math.floor((offset % (trace.getLastTime() + trace.getStepSize()))
+                                    / trace.getStepSize());
+
+    TraceStreamReader reader = new TraceStreamReader(fileName, offset, true, 3, 2);
+    for (int i = 0; i < 3 * trace.size(); ++i) {
+      assertEquals(reader.next(), trace.getValue(position), 0);
+      if (++position >= trace.size()) {
+        position = 0;
+      }
+    }
+    reader.close();
+  }
+
+  @Test
+  public void textMatchesTrace() throws IOException {
+    String fileName = writeTextTrace();
+    assertMatchesTrace(fileName, 0);
+    assertMatchesTrace(fileName, 250000);
+    assertMatchesTrace(fileName, 2750000); //longer than the trace
+  }
+
+  @Test
+  public void binaryMatchesTrace() throws IOException {
+    File binary = File.createTempFile("trace", ".bin");
+    binary.deleteOnExit();
+    WorkloadTraceConverter.convert(writeTextTrace(), binary.getPath(), false);
+
+    assertMatchesTrace(binary.getPath(), 0);
+    assertMatchesTrace(binary.getPath(), 250000);
+    assertMatchesTrace(binary.getPath(), 2750000);
+  }
+
+  @Test
+  public void endWithoutWrapAround() throws IOException {
+    TraceStreamReader reader = new TraceStreamReader(writeTextTrace(), 900000, false, 4, 1);
+    assertEquals(reader.next(), 0.9, 0);
+    assertEquals(reader.next(), 1.0, 0);
+    assertTrue(Double.isNaN(reader.next()));
+    assertTrue(Double.isNaN(reader.next()));
+  }
+
+  @Test
+  public void readersShareThreads() throws IOException {
+    String fileName = writeTextTrace();
+    WorkloadTrace trace = WorkloadTrace.load(fileName);
+
+    List<TraceStreamReader> readers = new ArrayList<TraceStreamReader>();
+    for (int r = 0; r < 50; ++r) {
+      readers.add(new TraceStreamReader(fileName, r * 100000, true, 2, 3));
+    }
+    //interleaved, as workloads are updated
+    for (int i = 0; i < 3 * trace.size(); ++i) {
+      for (int r = 0; r < readers.size(); ++r) {
+        assertEquals(trace.getValue((r + i) % trace.size()), readers.get(r).next(), 0);
+      }
+    }
+    for (TraceStreamReader reader : readers) {
+      reader.close();
+    }
+
+    int threads = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals("trace-stream-reader")) {
+        ++threads;
+      }
+    }
+    assertTrue(threads <= 4);
+  }
+
+  @Test
+  public void closedReaderEnds() throws IOException {
+    TraceStreamReader reader = new TraceStreamReader(writeTextTrace(), 0, true, 2, 2);
+    assertEquals(reader.next(), 0.0, 0);
+    reader.close();
+    assertTrue(Double.isNaN(reader.next()));
+  }
+
+}
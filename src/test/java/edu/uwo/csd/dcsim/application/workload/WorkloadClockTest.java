@@ -0,0 +1,214 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import ca.carleton.dcsim.SaviCloudNetwork;
+import ca.carleton.dcsim.managment.capabilities.ApplicationManager;
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.management.AutonomicManager;
+import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+
+import static org.junit.Assert.assertEquals;
+
+public class WorkloadClockTest {
+
+  /**
+   * A simulation with an empty network that coalesces workload updates, whatever its properties
+   */
+  private static class ClockedSimulation extends Simulation {
+
+    final WorkloadClock clock;
+
+    ClockedSimulation(boolean coalesce) {
+      super("workload-clock-test");
+      clock = coalesce ? new WorkloadClock(this) : null;
+
+      HostPoolManager hostPool = new HostPoolManager();
+      ApplicationManager appPool = new ApplicationManager();
+      addSaviNetwork(
+          new SaviCloudNetwork.Builder(this)
+              .hostPool(hostPool)
+              .applicationPool(appPool)
+              .autonomicManager(new AutonomicManager(this, hostPool, appPool))
+              .dc2Index(new HashMap<>())
+              .datacentres(new ArrayList<>())
+              .build());
+    }
+
+    @Override
+    public WorkloadClock getWorkloadClock() {
+      return clock;
+    }
+  }
+
+  /**
+   * Records the time of each update, and changes every 'step' ms
+   */
+  private static class TestWorkload extends Workload {
+
+    final List<Long> updates = new ArrayList<Long>();
+    long interval;
+    long step;
+
+    TestWorkload(Simulation simulation, long interval, long step) {
+      super(simulation);
+      this.interval = interval;
+      this.step = step;
+    }
+
+    @Override
+    protected int getCurrentWorkLevel() {
+      return 0;
+    }
+
+    @Override
+    protected long updateWorkLevel() {
+      long time = simulation.getSimulationTime();
+      updates.add(time);
+      return time + step;
+    }
+
+    @Override
+    protected long getUpdateInterval() {
+      return interval;
+    }
+  }
+
+  private static List<Long> times(long first, long last, long step) {
+    List<Long> times = new ArrayList<Long>();
+    for (long time = first; time <= last; time += step) {
+      times.add(time);
+    }
+    return times;
+  }
+
+  @Test
+  public void sharedIntervalUpdatedByOneEvent() {
+    ClockedSimulation simulation = new ClockedSimulation(true);
+    List<TestWorkload> workloads = new ArrayList<TestWorkload>();
+    for (int i = 0; i < 5; ++i) {
+      workloads.add(new TestWorkload(simulation, 100, 100));
+    }
+    TestWorkload other = new TestWorkload(simulation, 250, 250);
+    simulation.run(1000, 0);
+
+    for (TestWorkload workload : workloads) {
+      assertEquals(times(0, 1000, 100), workload.updates);
+    }
+    assertEquals(times(0, 1000, 250), other.updates);
+
+    //one tick per interval and time after the first updates, which workloads make themselves
+    assertEquals(10 + 4, simulation.clock.getTickCount());
+    assertEquals(5 * 10 + 4, simulation.clock.getUpdateCount());
+    assertEquals(6, simulation.clock.size());
+  }
+
+  @Test
+  public void zeroIntervalSchedulesItself() {
+    ClockedSimulation simulation = new ClockedSimulation(true);
+    TestWorkload workload = new TestWorkload(simulation, 0, 100);
+    simulation.run(1000, 0);
+
+    assertEquals(times(0, 1000, 100), workload.updates);
+    assertEquals(0, simulation.clock.getTickCount());
+    assertEquals(0, simulation.clock.size());
+  }
+
+  @Test
+  public void matchesUncoalescedUpdates() {
+    List<List<Long>> updates = new ArrayList<List<Long>>();
+    for (boolean coalesce : new boolean[]{false, true}) {
+      ClockedSimulation simulation = new ClockedSimulation(coalesce);
+      TestWorkload a = new TestWorkload(simulation, 100, 100);
+      TestWorkload b = new TestWorkload(simulation, 100, 100);
+      TestWorkload c = new TestWorkload(simulation, 300, 300);
+      simulation.run(2000, 0);
+      updates.add(a.updates);
+      assertEquals(a.updates, b.updates);
+      assertEquals(times(0, 1800, 300), c.updates);
+    }
+    assertEquals(updates.get(0), updates.get(1));
+  }
+
+  @Test
+  public void leavesTickWhenOffInterval() {
+    ClockedSimulation simulation = new ClockedSimulation(true);
+    TestWorkload stays = new TestWorkload(simulation, 100, 100);
+    TestWorkload leaves = new TestWorkload(simulation, 100, 100) {
+      @Override
+      protected long updateWorkLevel() {
+        //after its update at 300, the workload changes at times off its interval
+        long next = super.updateWorkLevel();
+        if (simulation.getSimulationTime() >= 300) {
+          step = 150;
+          next = simulation.getSimulationTime() + step;
+        }
+        return next;
+      }
+    };
+    simulation.run(1000, 0);
+
+    assertEquals(times(0, 1000, 100), stays.updates);
+    assertEquals(Arrays.asList(0L, 100L, 200L, 300L, 450L, 600L, 750L, 900L), leaves.updates);
+    assertEquals(1, simulation.clock.size());
+  }
+
+  @Test
+  public void lastWorkloadLeavingRemovesTick() {
+    ClockedSimulation simulation = new ClockedSimulation(true);
+    TestWorkload workload = new TestWorkload(simulation, 100, 100) {
+      @Override
+      protected long updateWorkLevel() {
+        long next = super.updateWorkLevel();
+        long time = simulation.getSimulationTime();
+        //off the interval between 200 and 500, then back on it
+        return time >= 200 && time < 400 ? time + 150 : next;
+      }
+    };
+    simulation.run(1000, 0);
+
+    assertEquals(Arrays.asList(0L, 100L, 200L, 350L, 500L, 600L, 700L, 800L, 900L, 1000L),
+                 workload.updates);
+    //ticks at 100 and 200, then from 500 once the workload has rejoined
+    assertEquals(2 + 6, simulation.clock.getTickCount());
+    assertEquals(1, simulation.clock.size());
+  }
+
+  @Test
+  public void joinsDuringTick() {
+    ClockedSimulation simulation = new ClockedSimulation(true);
+    List<TestWorkload> created = new ArrayList<TestWorkload>();
+    //not updated by the clock until registered, after its first update
+    TestWorkload registered = new TestWorkload(simulation, 0, 10000);
+    TestWorkload creator = new TestWorkload(simulation, 100, 100) {
+      @Override
+      protected long updateWorkLevel() {
+        if (simulation.getSimulationTime() == 300) {
+          //a new workload, which makes its first update itself
+          created.add(new TestWorkload(simulation, 100, 100));
+          //and an existing one, registered while the tick is running
+          registered.interval = 100;
+          registered.step = 100;
+          simulation.getWorkloadClock().register(registered, 400);
+        }
+        return super.updateWorkLevel();
+      }
+    };
+    simulation.run(1000, 0);
+
+    assertEquals(times(0, 1000, 100), creator.updates);
+    assertEquals(times(300, 1000, 100), created.get(0).updates);
+    //the workload registered during the tick is first updated by the next tick
+    List<Long> expected = new ArrayList<Long>();
+    expected.add(0L);
+    expected.addAll(times(400, 1000, 100));
+    assertEquals(expected, registered.updates);
+    assertEquals(3, simulation.clock.size());
+  }
+
+}
@@ -0,0 +1,110 @@
+package edu.uwo.csd.dcsim.application.workload;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WorkloadTraceTest {
+
+  private File writeTextTrace(String contents) throws IOException {
+    File file = File.createTempFile("trace", ".txt");
+    file.deleteOnExit();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write(contents);
+    }
+    return file;
+  }
+
+  @Test
+  public void loadText() throws IOException {
+    File text = writeTextTrace("100\n100, 0.25\n200, 0.5\n300, 1\n");
+
+    WorkloadTrace trace = WorkloadTrace.load(text.getPath());
+
+    //(0, 0) is added when the trace does not start at time 0
+    assertFalse(trace.isBinary());
+    assertEquals(trace.size(), 4);
+    assertEquals(trace.getStepSize(), 100000);
+    assertEquals(trace.getLastTime(), 300000);
+    assertEquals(trace.getValue(0), 0, 0);
+    assertEquals(trace.getValue(1), 0.25, 0);
+    assertEquals(trace.getValue(3), 1, 0);
+  }
+
+  @Test
+  public void binaryMatchesText() throws IOException {
+    File text = writeTextTrace("60\n0, 0.1\n60, 0.7\n120, 0.35\n");
+    File binary = File.createTempFile("trace", ".bin");
+    binary.deleteOnExit();
+
+    WorkloadTraceConverter.convert(text.getPath(), binary.getPath(), false);
+
+    WorkloadTrace textTrace = WorkloadTrace.load(text.getPath());
+    WorkloadTrace binaryTrace = WorkloadTrace.load(binary.getPath());
+
+    assertTrue(binaryTrace.isBinary());
+    assertEquals(binaryTrace.size(), textTrace.size());
+    assertEquals(binaryTrace.getStepSize(), textTrace.getStepSize());
+    assertEquals(binaryTrace.getLastTime(), textTrace.getLastTime());
+    for (int i = 0; i < textTrace.size(); ++i) {
+      assertEquals(binaryTrace.getValue(i), textTrace.getValue(i), 0);
+    }
+  }
+
+  @Test
+  public void singlePrecision() throws IOException {
+    File text = writeTextTrace("60\n0, 0.1\n60, 0.7\n");
+    File binary = File.createTempFile("trace", ".bin");
+    binary.deleteOnExit();
+
+    WorkloadTraceConverter.convert(text.getPath(), binary.getPath(), true);
+    WorkloadTrace trace = WorkloadTrace.load(binary.getPath());
+
+    assertEquals(binary.length(), WorkloadTrace.HEADER_SIZE + 2 * 4);
+    assertEquals(trace.getValue(0), 0.1, 1e-7);
+    assertEquals(trace.getValue(1), 0.7, 1e-7);
+  }
+
+  @Test
+  public void binaryLargerThanTwoGigabytes() throws IOException {
+    File binary = File.createTempFile("trace", ".bin");
+    binary.deleteOnExit();
+
+    //a sparse file of more than 2 GB of doubles, spanning several segments
+    int size = 2 * WorkloadTrace.SEGMENT_VALUES + 1000;
+    int[] positions = {0, WorkloadTrace.SEGMENT_VALUES - 1, WorkloadTrace.SEGMENT_VALUES,
+                       2 * WorkloadTrace.SEGMENT_VALUES + 1, size - 1};
+    try (RandomAccessFile file = new RandomAccessFile(binary, "rw")) {
+      file.writeInt(WorkloadTrace.MAGIC);
+      file.writeInt(WorkloadTrace.VERSION);
+      file.writeInt(8);
+      file.writeInt(size);
+      file.writeLong(1000);
+      file.writeLong((size - 1) * 1000L);
+      file.setLength(WorkloadTrace.HEADER_SIZE + size * 8L);
+      for (int i = 0; i < positions.length; ++i) {
+        file.seek(WorkloadTrace.HEADER_SIZE + positions[i] * 8L);
+        file.writeDouble(0.1 * (i + 1));
+      }
+    }
+    assertTrue(binary.length() > Integer.MAX_VALUE);
+
+    WorkloadTrace trace = WorkloadTrace.load(binary.getPath());
+    assertEquals(size, trace.size());
+    assertEquals((size - 1) * 1000L, trace.getLastTime());
+    for (int i = 0; i < positions.length; ++i) {
+      assertEquals(0.1 * (i + 1), trace.getValue(positions[i]), 0);
+    }
+    assertEquals(0, trace.getValue(1), 0);
+
+    binary.delete();
+  }
+
+}
@@ -0,0 +1,74 @@
+package edu.uwo.csd.dcsim.application.workload.generator;
+
+import org.junit.Test;
+
+import edu.uwo.csd.dcsim.common.SimTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WorkloadGeneratorTest {
+
+  private static final long STEP = SimTime.minutes(5);
+
+  @Test
+  public void diurnalPeaksAtPeakTime() {
+    DiurnalGenerator generator = new DiurnalGenerator(STEP, 1, 0.5, 0.4, 14, 0);
+    double[] values = generator.generate(288 * 2);
+
+    int peak = (int) (SimTime.hours(14) / STEP);
+    assertEquals(values[peak], 0.9, 1e-9);
+    assertEquals(values[peak + 288], 0.9, 1e-9);
+    assertEquals(values[peak - 144], 0.1, 1e-9);
+  }
+
+  @Test
+  public void chunksMatchUpFront() {
+    double[] upFront = new FlashCrowdGenerator(STEP, 7,
+        new DiurnalGenerator(STEP, 3, 0.4, 0.2, 12, 0.05),
+        SimTime.hours(6), 0.5, SimTime.minutes(20), SimTime.hours(1)).generate(1000);
+
+    FlashCrowdGenerator chunked = new FlashCrowdGenerator(STEP, 7,
+        new DiurnalGenerator(STEP, 3, 0.4, 0.2, 12, 0.05),
+        SimTime.hours(6), 0.5, SimTime.minutes(20), SimTime.hours(1));
+    double[] values = new double[1000];
+    for (int offset = 0; offset < 1000; offset += 100) {
+      chunked.generate(values, offset, 100);
+    }
+
+    for (int i = 0; i < 1000; ++i) {
+      assertEquals(values[i], upFront[i], 0);
+    }
+    assertEquals(chunked.getPosition(), 1000);
+  }
+
+  @Test
+  public void flashCrowdRisesAndDecays() {
+    double[] values = new FlashCrowdGenerator(STEP, 11, 0.1, SimTime.days(1), 0.6,
+                                              SimTime.minutes(15), SimTime.minutes(30))
+        .generate(288 * 30);
+
+    double max = 0;
+    for (double value : values) {
+      assertTrue(value >= 0.1 - 1e-9 && value <= 1);
+      max = Math.max(max, value);
+    }
+    assertTrue(max >= 0.7 - 1e-9);
+  }
+
+  @Test
+  public void mmppMeanFollowsStates() {
+    //equal time in each state, so the mean rate is halfway between the low and high rates
+    MmppGenerator generator = new MmppGenerator(STEP, 5, 1, 3, SimTime.hours(1),
+                                                SimTime.hours(1));
+    double[] values = generator.generate(100000);
+
+    double sum = 0;
+    for (double value : values) {
+      assertTrue(value >= 0 && value <= 1);
+      sum += value;
+    }
+    assertEquals(sum / values.length, 2 / 3.0, 0.02);
+  }
+
+}
@@ -0,0 +1,125 @@
+package edu.uwo.csd.dcsim.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import ca.carleton.dcsim.SaviCloudNetwork;
+import ca.carleton.dcsim.managment.capabilities.ApplicationManager;
+import edu.uwo.csd.dcsim.common.SimTime;
+import edu.uwo.csd.dcsim.management.AutonomicManager;
+import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimulationQuantumTest {
+
+  /**
+   * Records the simulation time and logical time of each event it handles
+   */
+  private static class Recorder implements SimulationEventListener {
+
+    final Simulation simulation;
+    final List<Long> times = new ArrayList<Long>();
+    final List<Long> logicalTimes = new ArrayList<Long>();
+
+    Recorder(Simulation simulation) {
+      this.simulation = simulation;
+    }
+
+    @Override
+    public void handleEvent(Event e) {
+      times.add(simulation.getSimulationTime());
+      logicalTimes.add(e.getLogicalTime());
+    }
+  }
+
+  private static class TestEvent extends Event {
+
+    TestEvent(SimulationEventListener target) {
+      super(target);
+    }
+  }
+
+  private static class TestRepeatingEvent extends RepeatingEvent {
+
+    TestRepeatingEvent(Simulation simulation, SimulationEventListener target, long interval) {
+      super(simulation, target, interval);
+    }
+  }
+
+  private static Simulation simulation(long timeQuantum) {
+    Simulation simulation = new Simulation("quantum-test");
+    simulation.setTimeQuantum(timeQuantum);
+
+    //an empty network, so that only the events of the test are run
+    HostPoolManager hostPool = new HostPoolManager();
+    ApplicationManager appPool = new ApplicationManager();
+    simulation.addSaviNetwork(
+        new SaviCloudNetwork.Builder(simulation)
+            .hostPool(hostPool)
+            .applicationPool(appPool)
+            .autonomicManager(new AutonomicManager(simulation, hostPool, appPool))
+            .dc2Index(new HashMap<>())
+            .datacentres(new ArrayList<>())
+            .build());
+    return simulation;
+  }
+
+  @Test
+  public void mergesEventsWithinQuantum() {
+    Simulation simulation = simulation(10);
+    Recorder recorder = new Recorder(simulation);
+    simulation.sendEvent(new TestEvent(recorder), 3);
+    simulation.sendEvent(new TestEvent(recorder), 7);
+    simulation.sendEvent(new TestEvent(recorder), 10);
+    simulation.sendEvent(new TestEvent(recorder), 11);
+    simulation.run(100, 0);
+
+    assertEquals(Arrays.asList(10L, 10L, 10L, 20L), recorder.times);
+    assertEquals(Arrays.asList(3L, 7L, 10L, 11L), recorder.logicalTimes);
+  }
+
+  @Test
+  public void doesNotDelayPastDuration() {
+    Simulation simulation = simulation(10);
+    Recorder recorder = new Recorder(simulation);
+    simulation.sendEvent(new TestEvent(recorder), 93);
+    simulation.run(95, 0);
+
+    assertEquals(Arrays.asList(95L), recorder.times);
+    assertEquals(Arrays.asList(93L), recorder.logicalTimes);
+  }
+
+  @Test
+  public void repeatingEventDoesNotDrift() {
+    long interval = SimTime.seconds(1) + 5;
+    Simulation simulation = simulation(10);
+    Recorder recorder = new Recorder(simulation);
+    new TestRepeatingEvent(simulation, recorder, interval).start(0);
+    simulation.run(SimTime.seconds(100), 0);
+
+    assertEquals(100, recorder.times.size());
+    for (int i = 0; i < recorder.times.size(); ++i) {
+      long logical = i * interval;
+      assertEquals(logical, (long) recorder.logicalTimes.get(i));
+      //executed at the next multiple of the quantum, however many times it has repeated
+      assertEquals((logical + 9) / 10 * 10, (long) recorder.times.get(i));
+    }
+  }
+
+  @Test
+  public void unquantizedTimesAreExact() {
+    Simulation simulation = simulation(0);
+    Recorder recorder = new Recorder(simulation);
+    new TestRepeatingEvent(simulation, recorder, 7).start(3);
+    simulation.run(30, 0);
+
+    assertEquals(Arrays.asList(3L, 10L, 17L, 24L), recorder.times);
+    assertEquals(recorder.times, recorder.logicalTimes);
+  }
+
+}
@@ -0,0 +1,111 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.uwo.csd.dcsim.application.Application;
+import edu.uwo.csd.dcsim.application.Task;
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.management.TestHosts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApplicationMetricsTest {
+
+  /**
+   * An application without tasks, and so always active, with a fixed CPU demand
+   */
+  private static class TestApplication extends Application {
+
+    final int demand;
+    final int scheduled;
+
+    TestApplication(Simulation simulation, int demand, int scheduled) {
+      super(simulation);
+      this.demand = demand;
+      this.scheduled = scheduled;
+    }
+
+    @Override
+    public void initializeScheduling() {
+    }
+
+    @Override
+    public boolean updateDemand() {
+      return false;
+    }
+
+    @Override
+    public void postScheduling() {
+    }
+
+    @Override
+    public void advanceSimulation() {
+    }
+
+    @Override
+    public int getTotalCpuDemand() {
+      return demand;
+    }
+
+    @Override
+    public int getTotalCpuScheduled() {
+      return scheduled;
+    }
+
+    @Override
+    public List<Task> getTasks() {
+      return Collections.emptyList();
+    }
+  }
+
+  @Test
+  public void timeSeriesWritesRowPerApplication() throws IOException {
+    final File file = File.createTempFile("applications", ".series");
+    file.deleteOnExit();
+
+    Simulation simulation = TestHosts.simulation();
+    ApplicationMetrics metrics = new ApplicationMetrics(simulation) {
+      @Override
+      public File getTimeSeriesFile() {
+        return file;
+      }
+    };
+    metrics.timeSeriesEnabled = true;
+    metrics.appSlaGraceTime = 0;
+
+    Application first = new TestApplication(simulation, 1000, 800);
+    Application second = new TestApplication(simulation, 500, 500);
+    List<Application> applications = new ArrayList<Application>(Arrays.asList(first, second));
+    metrics.recordApplicationMetrics(applications);
+    //an application that arrives later gets rows from its first recording
+    Application third = new TestApplication(simulation, 200, 100);
+    applications.add(third);
+    metrics.recordApplicationMetrics(applications);
+    metrics.completeSimulation();
+
+    TimeSeriesReader reader = new TimeSeriesReader(file);
+    assertEquals(Arrays.asList(ApplicationMetrics.TIME_SERIES_COLUMNS), reader.getColumns());
+    assertArrayEquals(new float[]{first.id(), second.id(), first.id(), second.id(), third.id()},
+                      reader.readColumn("application"), 0);
+    assertArrayEquals(new float[]{1000, 500, 1000, 500, 200}, reader.readColumn("cpuDemand"), 0);
+    assertArrayEquals(new float[]{800, 500, 800, 500, 100}, reader.readColumn("cpuScheduled"), 0);
+    //not interactive and without an SLA
+    for (float value : reader.readColumn("responseTime")) {
+      assertTrue(Float.isNaN(value));
+    }
+    for (float value : reader.readColumn("slaPenalty")) {
+      assertTrue(Float.isNaN(value));
+    }
+    reader.close();
+  }
+
+}
@@ -0,0 +1,59 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.management.TestHosts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class HostMetricsTest {
+
+  @Test
+  public void timeSeriesWritesZeroForHostsNotOn() throws IOException {
+    final File file = File.createTempFile("hosts", ".series");
+    file.deleteOnExit();
+
+    Simulation simulation = TestHosts.simulation();
+    List<Host> hosts = new ArrayList<Host>();
+    Host.HostState[] states = {Host.HostState.ON, Host.HostState.OFF, Host.HostState.POWERING_ON,
+                               Host.HostState.SUSPENDED, Host.HostState.ON};
+    for (Host.HostState state : states) {
+      Host host = TestHosts.host(simulation, 4, 1000, 16384);
+      //CPU in use whatever the state, as for a VM left on a host being powered off
+      TestHosts.vm(simulation, host, 1000, 1024, 400);
+      host.setState(state);
+      hosts.add(host);
+    }
+
+    HostMetrics metrics = new HostMetrics(simulation) {
+      @Override
+      public File getTimeSeriesFile() {
+        return file;
+      }
+    };
+    metrics.timeSeriesEnabled = true;
+    metrics.recordHostMetrics(hosts);
+    hosts.get(1).setState(Host.HostState.ON);
+    hosts.get(4).setState(Host.HostState.OFF);
+    metrics.recordHostMetrics(hosts);
+    metrics.completeSimulation();
+
+    TimeSeriesReader reader = new TimeSeriesReader(file);
+    assertEquals(HostMetrics.TIME_SERIES_COLUMNS.length + hosts.size(),
+                 reader.getColumns().size());
+    float[][] expected = {{0.1f, 0.1f}, {0, 0.1f}, {0, 0}, {0, 0}, {0.1f, 0}};
+    for (int h = 0; h < hosts.size(); ++h) {
+      assertArrayEquals(expected[h], reader.readColumn("host" + hosts.get(h).id()), 0);
+    }
+    reader.close();
+  }
+
+}
@@ -0,0 +1,94 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuantileSketchTest {
+
+  private static final double ACCURACY = 0.01;
+
+  @Test
+  public void quantilesWithinAccuracy() {
+    Random random = new Random(1);
+    QuantileSketch sketch = new QuantileSketch(ACCURACY);
+    double[] values = new double[10000];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = Math.exp(random.nextGaussian() * 2); //spans several orders of magnitude
+      sketch.add(values[i]);
+    }
+    Arrays.sort(values);
+
+    for (double q : new double[]{0.01, 0.25, 0.5, 0.95, 0.99}) {
+      double exact = values[(int) (q * values.length)];
+      assertEquals(exact, sketch.getQuantile(q), exact * ACCURACY * 1.0001);
+    }
+    assertEquals(values[0], sketch.getQuantile(0), 0);
+    assertEquals(values[values.length - 1], sketch.getQuantile(1), 0);
+    assertTrue(sketch.getBucketCount() < 2000);
+  }
+
+  @Test
+  public void outOfRangeValuesCountedSeparately() {
+    QuantileSketch sketch = new QuantileSketch(ACCURACY);
+    for (int i = 0; i < 90; ++i) {
+      sketch.add(0.05 + i * 0.001);
+    }
+    sketch.add(Double.MAX_VALUE, 5); //the response time of a dead application
+    sketch.add(Double.POSITIVE_INFINITY, 3);
+    sketch.add(Double.NEGATIVE_INFINITY, 2);
+    int buckets = sketch.getBucketCount();
+    assertTrue(buckets < 100);
+
+    assertEquals(10, sketch.getOutOfRangeWeight(), 0);
+    assertEquals(100, sketch.getTotalWeight(), 0);
+    assertEquals(Double.NEGATIVE_INFINITY, sketch.getQuantile(0.01), 0);
+    //after the two values at -infinity
+    assertEquals(0.05 + 48 * 0.001, sketch.getQuantile(0.5), 0.1 * ACCURACY);
+    assertEquals(Double.POSITIVE_INFINITY, sketch.getQuantile(0.99), 0);
+
+    //merging keeps them out of the buckets
+    QuantileSketch merged = new QuantileSketch(ACCURACY);
+    merged.merge(sketch);
+    assertEquals(buckets, merged.getBucketCount());
+    assertEquals(10, merged.getOutOfRangeWeight(), 0);
+  }
+
+  @Test
+  public void weightsAndZeros() {
+    QuantileSketch sketch = new QuantileSketch(ACCURACY);
+    sketch.add(0, 50);
+    sketch.add(10, 40);
+    sketch.add(100, 10);
+
+    assertEquals(0, sketch.getQuantile(0.4), 0);
+    assertEquals(10, sketch.getQuantile(0.6), 10 * ACCURACY);
+    assertEquals(100, sketch.getQuantile(0.95), 100 * ACCURACY);
+    assertEquals(100, sketch.getTotalWeight(), 0);
+    assertEquals(3, sketch.getCount());
+  }
+
+  @Test
+  public void mergeMatchesSingleSketch() {
+    Random random = new Random(2);
+    QuantileSketch all = new QuantileSketch(ACCURACY);
+    QuantileSketch a = new QuantileSketch(ACCURACY);
+    QuantileSketch b = new QuantileSketch(ACCURACY);
+    for (int i = 0; i < 5000; ++i) {
+      double val = random.nextDouble() * 10 - 1;
+      all.add(val);
+      (i % 3 == 0 ? a : b).add(val);
+    }
+
+    QuantileSketch merged = QuantileSketch.merge(Arrays.asList(a, b));
+    for (double q = 0; q <= 1; q += 0.05) {
+      assertEquals(all.getQuantile(q), merged.getQuantile(q), 0);
+    }
+    assertEquals(all.getCount(), merged.getCount());
+  }
+
+}
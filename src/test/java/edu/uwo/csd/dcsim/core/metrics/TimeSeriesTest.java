@@ -0,0 +1,65 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TimeSeriesTest {
+
+  /**
+   * Write a series spanning several chunks, with a partial last chunk, and read it back
+   */
+  @Test
+  public void roundTrip() throws Exception {
+    File file = File.createTempFile("timeseries", ".series");
+    file.deleteOnExit();
+
+    Random random = new Random(1);
+    int rows = 1000;
+    long[] times = new long[rows];
+    float[][] values = new float[3][rows];
+    long time = 0;
+
+    TimeSeriesWriter writer =
+        new TimeSeriesWriter(file, Arrays.asList("power", "activeHosts", "host0"), 64, 2);
+    float[] row = new float[3];
+    for (int r = 0; r < rows; ++r) {
+      time += random.nextInt(3) * 300000;
+      times[r] = time;
+      values[0][r] = row[0] = 1000 + random.nextFloat() * 500;
+      values[1][r] = row[1] = random.nextInt(100);
+      values[2][r] = row[2] = r % 10 == 0 ? random.nextFloat() : (r == 0 ? 0 : values[2][r - 1]);
+      writer.append(time, row);
+    }
+    writer.close();
+
+    TimeSeriesReader reader = new TimeSeriesReader(file);
+    assertEquals(Arrays.asList("power", "activeHosts", "host0"), reader.getColumns());
+    assertEquals(rows, reader.getRowCount());
+    assertEquals(16, reader.getChunkCount());
+    assertEquals(rows % 64, reader.getChunkRows(15));
+
+    assertArrayEquals(times, reader.readTimes());
+    assertArrayEquals(values[0], reader.readColumn("power"), 0);
+    assertArrayEquals(values[1], reader.readColumn("activeHosts"), 0);
+    assertArrayEquals(values[2], reader.readColumn("host0"), 0);
+
+    float[][] chunk = reader.readChunk(1);
+    assertArrayEquals(Arrays.copyOfRange(values[1], 64, 128), chunk[1], 0);
+    assertEquals(times[64], reader.getChunkStartTime(1));
+    assertEquals(times[127], reader.getChunkEndTime(1));
+
+    float max = 0;
+    for (float v : values[0]) {
+      max = Math.max(max, v);
+    }
+    assertEquals(max, reader.getMax("power"), 0);
+    reader.close();
+  }
+
+}
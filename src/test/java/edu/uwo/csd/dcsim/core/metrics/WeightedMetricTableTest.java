@@ -0,0 +1,42 @@
+package edu.uwo.csd.dcsim.core.metrics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class WeightedMetricTableTest {
+
+  /**
+   * Check that each row of the table matches a WeightedMetric recording the same values
+   */
+  @Test
+  public void rowsMatchWeightedMetric() {
+    Random random = new Random(1);
+    WeightedMetricTable table = new WeightedMetricTable(2);
+    WeightedMetric[] metrics = new WeightedMetric[20];
+    for (int i = 0; i < metrics.length; ++i) {
+      assertEquals(i, table.addRow());
+      metrics[i] = new WeightedMetric();
+    }
+
+    for (int n = 0; n < 1000; ++n) {
+      int row = random.nextInt(metrics.length);
+      double val = random.nextDouble() * 100;
+      double weight = random.nextInt(1000);
+      table.add(row, val, weight);
+      metrics[row].add(val, weight);
+    }
+
+    for (int row = 0; row < metrics.length; ++row) {
+      assertEquals(metrics[row].getSum(), table.getSum(row), 0);
+      assertEquals(metrics[row].getMean(), table.getMean(row), 0);
+      assertEquals(metrics[row].getMax(), table.getMax(row), 0);
+      assertEquals(metrics[row].getMin(), table.getMin(row), 0);
+      assertEquals(metrics[row].getMean(), table.get(row).getMean(), 0);
+    }
+    assertEquals(metrics.length, table.size());
+  }
+
+}
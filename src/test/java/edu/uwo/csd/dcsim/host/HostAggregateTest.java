@@ -0,0 +1,107 @@
+package edu.uwo.csd.dcsim.host;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.management.TestHosts;
+
+import static org.junit.Assert.assertEquals;
+
+public class HostAggregateTest {
+
+  @Test
+  public void changesPropagateToParents() {
+    HostAggregator aggregator = new HostAggregator();
+    HostAggregate cluster = aggregator.createAggregate();
+    HostAggregate rack1 = aggregator.createAggregate();
+    HostAggregate rack2 = aggregator.createAggregate();
+    cluster.setParent(aggregator.getGlobal());
+    rack1.setParent(cluster);
+
+    rack1.add(2, 1, 2000, 500, 150, 0.5);
+    rack2.add(1, 1, 1000, 1000, 200, 1);
+    assertEquals(1, cluster.getActiveHosts());
+
+    //totals move with the aggregate when it joins a parent
+    rack2.setParent(cluster);
+    assertEquals(3, cluster.getHostCount());
+    assertEquals(2, aggregator.getGlobal().getActiveHosts());
+    assertEquals(1500, aggregator.getGlobal().getCpuInUse());
+    assertEquals(0.5, aggregator.getGlobal().getCpuUtilization(), 0);
+    assertEquals(0.75, aggregator.getGlobal().getActiveHostUtilization(), 0);
+    assertEquals(350, aggregator.getGlobal().getPowerConsumption(), 0);
+
+    //a host on rack1 powers off
+    rack1.add(0, -1, 0, -500, -50, -0.5);
+    assertEquals(0, rack1.getActiveHosts());
+    assertEquals(1, aggregator.getGlobal().getActiveHosts());
+    assertEquals(300, cluster.getPowerConsumption(), 0);
+    assertEquals(1000, aggregator.getGlobal().getCpuInUse());
+  }
+
+  @Test
+  public void utilizationBins() {
+    assertEquals(0, HostAggregator.utilizationBin(0));
+    assertEquals(500, HostAggregator.utilizationBin(0.5));
+    assertEquals(HostAggregator.UTILIZATION_BINS, HostAggregator.utilizationBin(1.2));
+
+    HostAggregator aggregator = new HostAggregator();
+    aggregator.moveUtilization(-1, 500);
+    aggregator.moveUtilization(-1, 500);
+    aggregator.moveUtilization(500, 800);
+    assertEquals(1, aggregator.getUtilizationCount(500));
+    assertEquals(1, aggregator.getUtilizationCount(800));
+  }
+
+  @Test
+  public void sumsRecomputedFromHosts() {
+    Simulation simulation = TestHosts.simulation();
+    HostAggregator aggregator = simulation.getHostAggregator();
+    HostAggregate global = aggregator.getGlobal();
+    HostAggregate rack = aggregator.createAggregate();
+    rack.setParent(global);
+
+    List<Host> hosts = new ArrayList<Host>();
+    for (int h = 0; h < 3; ++h) {
+      Host host = TestHosts.host(simulation, 4, 1000, 16384);
+      host.setAggregate(rack);
+      host.setState(Host.HostState.ON);
+      TestHosts.vm(simulation, host, 1000, 1024, 300 * h);
+      hosts.add(host);
+    }
+    double power = 0;
+    double utilizationSum = 0;
+    for (Host host : hosts) {
+      power += host.getCurrentPowerConsumption();
+      utilizationSum += host.getResourceManager().getCpuUtilization();
+    }
+    assertEquals(power, global.getPowerConsumption(), 1e-9);
+
+    //error, as accumulated by summing many differences
+    rack.add(0, 0, 0, 0, 1e-3, 1e-3);
+    assertEquals(power + 1e-3, global.getPowerConsumption(), 1e-9);
+    aggregator.recompute();
+    assertEquals(power, global.getPowerConsumption(), 1e-9);
+    assertEquals(power, rack.getPowerConsumption(), 1e-9);
+    assertEquals(utilizationSum / 3, global.getActiveHostUtilization(), 1e-6);
+
+    //and recomputed after enough host updates
+    rack.add(0, 0, 0, 0, 1e-3, 1e-3);
+    for (int i = 0; i < HostAggregator.RECOMPUTE_UPDATES; ++i) {
+      hosts.get(i % hosts.size()).markChanged();
+      aggregator.update();
+    }
+    assertEquals(power, global.getPowerConsumption(), 1e-9);
+    assertEquals(utilizationSum / 3, global.getActiveHostUtilization(), 1e-6);
+
+    //hosts leaving the aggregate are no longer counted
+    hosts.get(0).setAggregate(null);
+    aggregator.recompute();
+    assertEquals(power - hosts.get(0).getCurrentPowerConsumption(), global.getPowerConsumption(),
+                 1e-9);
+  }
+
+}
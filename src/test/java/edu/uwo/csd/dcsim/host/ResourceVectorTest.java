@@ -0,0 +1,27 @@
+package edu.uwo.csd.dcsim.host;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceVectorTest {
+
+  @Test
+  public void matchesResourceArithmetic() {
+    Resource a = Resource.create(2, 4, 1000, 2048, 100, 50);
+    Resource b = Resource.createLumped(300, 1024, 10, 5);
+
+    ResourceVector v = new ResourceVector(a);
+    assertEquals(a.add(b), v.add(b).toResource(a.numCpus(), a.numCores()));
+    assertEquals(a, v.subtract(b).toResource(a.numCpus(), a.numCores()));
+    assertEquals(a.subtract(b).withCpu(0),
+                 v.subtract(b).setCpu(0).toResource(a.numCpus(), a.numCores()));
+
+    assertTrue(new ResourceVector(b).fitsIn(new ResourceVector(a)));
+    assertFalse(new ResourceVector(a).fitsIn(new ResourceVector(b)));
+    assertEquals(Resource.createLumped(0, 0, 0, 0), v.clear().toResource());
+  }
+
+}
@@ -0,0 +1,159 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import edu.uwo.csd.dcsim.host.Host;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FairShareTest {
+
+  /**
+   * Weighted max-min fair shares by raising the level past each VM in order of demand per unit of
+   * weight, while the remaining CPU covers it
+   */
+  private static int[] sortedShares(int[] demands, int[] weights, int capacity) {
+    int n = demands.length;
+    Integer[] order = new Integer[n];
+    long totalDemand = 0;
+    long remainingWeight = 0;
+    for (int i = 0; i < n; ++i) {
+      order[i] = i;
+      totalDemand += demands[i];
+      remainingWeight += weights[i];
+    }
+    if (totalDemand <= capacity) {
+      return demands.clone();
+    }
+    Arrays.sort(order, (a, b) -> Long.compare((long) demands[a] * weights[b],
+                                              (long) demands[b] * weights[a]));
+
+    int[] shares = new int[n];
+    long remaining = capacity;
+    int k = 0;
+    while (demands[order[k]] * remainingWeight <= remaining * weights[order[k]]) {
+      shares[order[k]] = demands[order[k]];
+      remaining -= demands[order[k]];
+      remainingWeight -= weights[order[k]];
+      ++k;
+    }
+    long leftover = remaining;
+    for (int j = k; j < n; ++j) {
+      shares[order[j]] = (int) (weights[order[j]] * remaining / remainingWeight);
+      leftover -= shares[order[j]];
+    }
+    for (int i = 0; i < n && leftover > 0; ++i) {
+      if (shares[i] < demands[i]) {
+        ++shares[i];
+        --leftover;
+      }
+    }
+    return shares;
+  }
+
+  @Test
+  public void equalWeightsMatchWaterFilling() {
+    Random random = new Random(1);
+    FairShare fairShare = new FairShare();
+    for (int trial = 0; trial < 5000; ++trial) {
+      int n = 1 + random.nextInt(64);
+      int[] demands = new int[n];
+      for (int i = 0; i < n; ++i) {
+        demands[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(5000);
+      }
+      int[] weights = new int[n];
+      Arrays.fill(weights, 3);
+      int capacity = random.nextInt(n * 3000 + 1);
+
+      int[] expected = new int[n];
+      WaterFillingResourceScheduler.waterFill(demands, n, capacity, new int[n], expected);
+      int[] shares = new int[n];
+      fairShare.share(demands, weights, n, capacity, shares);
+      assertArrayEquals(expected, shares);
+    }
+  }
+
+  @Test
+  public void matchesSortedLevels() {
+    Random random = new Random(1);
+    FairShare fairShare = new FairShare();
+    for (int trial = 0; trial < 5000; ++trial) {
+      int n = 1 + random.nextInt(trial % 2 == 0 ? 8 : 256);
+      int[] demands = new int[n];
+      int[] weights = new int[n];
+      for (int i = 0; i < n; ++i) {
+        //some zeros and some ties, of demand and of demand per weight
+        demands[i] = random.nextInt(4) == 0 ? 0 : 500 * (1 + random.nextInt(8));
+        weights[i] = 1 + random.nextInt(4);
+      }
+      int capacity = random.nextInt(n * 3000 + 1);
+
+      int[] shares = new int[n];
+      fairShare.share(demands, weights, n, capacity, shares);
+      assertArrayEquals(sortedShares(demands, weights, capacity), shares);
+    }
+  }
+
+  @Test
+  public void sharesByWeight() {
+    int[] shares = new int[3];
+    new FairShare().share(new int[]{5000, 5000, 500}, new int[]{1, 3, 1}, 3, 4500, shares);
+    //the small VM is satisfied, the others split the remaining 4000 in the ratio 1:3
+    assertArrayEquals(new int[]{1000, 3000, 500}, shares);
+
+    new FairShare().share(new int[]{5000, 5000, 5000}, new int[]{1, 1, 1}, 3, 1001, shares);
+    assertArrayEquals(new int[]{334, 334, 333}, shares);
+  }
+
+  @Test
+  public void capsAndReservations() {
+    FairShare fairShare = new FairShare();
+    int[] shares = new int[3];
+
+    //reserve 1000 and cap at 2000 for every VM
+    int[] reservations = {1000, 1000, 1000};
+    int[] caps = {2000, 2000, 2000};
+    fairShare.shareWithReservations(new int[]{3000, 500, 3000}, reservations, caps, 3, 10000,
+                                    shares);
+    assertArrayEquals(new int[]{2000, 500, 2000}, shares);
+
+    fairShare.shareWithReservations(new int[]{3000, 500, 3000}, reservations, caps, 3, 3000,
+                                    shares);
+    assertArrayEquals(new int[]{1250, 500, 1250}, shares);
+
+    //overcommitted reservations
+    fairShare.shareWithReservations(new int[]{3000, 3000, 3000}, reservations, caps, 3, 2400,
+                                    shares);
+    assertArrayEquals(new int[]{800, 800, 800}, shares);
+    assertEquals(2400, shares[0] + shares[1] + shares[2]);
+  }
+
+  /**
+   * Schedule a contended host with thousands of VMs with each scheduler built on FairShare: the
+   * throughput is comparable to the default scheduler's, within a factor of two to allow for noise
+   */
+  @Test
+  public void comparableToDefaultOnLargeVmSet() {
+    Host passes = SchedulerTiming.host(new DefaultResourceSchedulerFactory(), 1);
+    long passesTime = SchedulerTiming.bestTime(passes);
+
+    //VMs are all the same size, so the default weights are equal and give the default's shares
+    Host proportional = SchedulerTiming.host(new ProportionalShareResourceSchedulerFactory(), 1);
+    long proportionalTime = SchedulerTiming.bestTime(proportional);
+    assertArrayEquals(SchedulerTiming.scheduledCpu(passes),
+                      SchedulerTiming.scheduledCpu(proportional));
+    assertTrue("proportional share " + proportionalTime + " ns, equal share passes "
+               + passesTime + " ns", proportionalTime < 2 * passesTime);
+
+    long capReservationTime = SchedulerTiming.bestTime(
+        SchedulerTiming.host(new CapReservationResourceSchedulerFactory(0.05, 0.5), 1));
+    assertTrue("cap/reservation " + capReservationTime + " ns, equal share passes "
+               + passesTime + " ns", capReservationTime < 2 * passesTime);
+  }
+
+}
@@ -0,0 +1,88 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import java.util.Random;
+
+import edu.uwo.csd.dcsim.common.ObjectFactory;
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.power.LinearHostPowerModel;
+import edu.uwo.csd.dcsim.host.resourcemanager.DefaultResourceManagerFactory;
+import edu.uwo.csd.dcsim.management.TestHosts;
+import edu.uwo.csd.dcsim.vm.Vm;
+import edu.uwo.csd.dcsim.vm.VmAllocation;
+
+/**
+ * Times resource schedulers on a contended host with a large number of VMs, for comparison with
+ * DefaultResourceScheduler
+ */
+final class SchedulerTiming {
+
+  static final int VMS = 2000;
+
+  private static final int WARM_UP = 3000; //schedules before measuring, for the JIT compiler
+  private static final int ROUNDS = 20;    //schedules per measurement
+  private static final int MEASUREMENTS = 7;
+
+  private SchedulerTiming() {
+  }
+
+  /**
+   * Create a host with VMS single core VMs of skewed CPU demand, totalling several times its
+   * CPU. The same seed gives the same demands, whatever the scheduler.
+   */
+  static Host host(ObjectFactory<? extends ResourceScheduler> schedulerFactory, long seed) {
+    Simulation simulation = TestHosts.simulation();
+    Host host = new Host.Builder(simulation)
+        .specification(1, 64, 2500, 1 << 20, 1 << 24, 1 << 24)
+        .powerModel(new LinearHostPowerModel(100, 200))
+        .privCpu(0)
+        .resourceManagerFactory(new DefaultResourceManagerFactory())
+        .resourceSchedulerFactory(schedulerFactory)
+        .build();
+
+    Random random = new Random(seed);
+    for (int i = 0; i < VMS; ++i) {
+      Vm vm = TestHosts.vm(simulation, host, 1000, 64, 0);
+      int kind = random.nextInt(4);
+      int cpu = kind == 0 ? 0 : kind == 1 ? 500 : (int) Math.pow(random.nextInt(32), 2);
+      vm.getTaskInstance().setResourceDemand(Resource.create(1, 1, cpu, 64, 0, 0));
+    }
+    return host;
+  }
+
+  /**
+   * Get the CPU scheduled to each VM of the host, in allocation order
+   */
+  static int[] scheduledCpu(Host host) {
+    int[] scheduled = new int[host.getVMAllocations().size()];
+    int i = 0;
+    for (VmAllocation allocation : host.getVMAllocations()) {
+      scheduled[i++] = allocation.getVm().getResourceScheduled().cpu();
+    }
+    return scheduled;
+  }
+
+  /**
+   * Get the least time, over several measurements after a warm-up, taken to schedule the host
+   * ROUNDS times
+   *
+   * @return the time, in nanoseconds
+   */
+  static long bestTime(Host host) {
+    ResourceScheduler scheduler = host.getResourceScheduler();
+    for (int round = 0; round < WARM_UP; ++round) {
+      scheduler.scheduleResources();
+    }
+    long best = Long.MAX_VALUE;
+    for (int measurement = 0; measurement < MEASUREMENTS; ++measurement) {
+      long start = System.nanoTime();
+      for (int round = 0; round < ROUNDS; ++round) {
+        scheduler.scheduleResources();
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+}
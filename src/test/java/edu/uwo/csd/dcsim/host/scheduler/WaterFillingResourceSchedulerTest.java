@@ -0,0 +1,86 @@
+package edu.uwo.csd.dcsim.host.scheduler;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import edu.uwo.csd.dcsim.host.Host;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WaterFillingResourceSchedulerTest {
+
+  /**
+   * The CPU sharing loop of DefaultResourceScheduler, over plain arrays
+   */
+  private static int[] equalSharePasses(int[] demands, int capacity) {
+    int[] scheduled = new int[demands.length];
+    int remaining = capacity;
+    int incompleteVms = 0;
+    for (int demand : demands) {
+      if (demand > 0) {
+        ++incompleteVms;
+      }
+    }
+
+    while (remaining > 0 && incompleteVms > 0) {
+      int cpuShare = Math.max(remaining / incompleteVms, 1);
+      for (int i = 0; i < demands.length; ++i) {
+        int remainingCpuDemand = demands[i] - scheduled[i];
+        if (remainingCpuDemand > 0) {
+          if (remainingCpuDemand <= cpuShare) {
+            scheduled[i] += remainingCpuDemand;
+            remaining -= remainingCpuDemand;
+            --incompleteVms;
+          } else {
+            scheduled[i] += cpuShare;
+            remaining -= cpuShare;
+          }
+        }
+        if (remaining == 0) {
+          break;
+        }
+      }
+    }
+    return scheduled;
+  }
+
+  @Test
+  public void matchesEqualSharePasses() {
+    Random random = new Random(1);
+    for (int trial = 0; trial < 20000; ++trial) {
+      int n = 1 + random.nextInt(trial % 2 == 0 ? 8 : 256);
+      int[] demands = new int[n];
+      for (int i = 0; i < n; ++i) {
+        //skewed demands, with some zeros and some ties
+        int kind = random.nextInt(4);
+        demands[i] = kind == 0 ? 0 : kind == 1 ? 500 : (int) Math.pow(random.nextInt(100), 2);
+      }
+      int capacity = random.nextInt(n * 3000 + 1);
+
+      int[] shares = new int[n];
+      WaterFillingResourceScheduler.waterFill(demands, n, capacity, new int[n], shares);
+      assertArrayEquals(equalSharePasses(demands, capacity), shares);
+    }
+  }
+
+  /**
+   * Schedule a contended host with thousands of VMs: the shares are the same as the default
+   * scheduler's, and the throughput is comparable, within a factor of two to allow for noise. Most
+   * of the time of either goes to gathering demands and writing schedules, not to sharing the CPU.
+   */
+  @Test
+  public void fasterThanDefaultOnLargeVmSet() {
+    Host waterFilling = SchedulerTiming.host(new WaterFillingResourceSchedulerFactory(), 1);
+    Host passes = SchedulerTiming.host(new DefaultResourceSchedulerFactory(), 1);
+
+    long waterFillingTime = SchedulerTiming.bestTime(waterFilling);
+    long passesTime = SchedulerTiming.bestTime(passes);
+    assertArrayEquals(SchedulerTiming.scheduledCpu(passes),
+                      SchedulerTiming.scheduledCpu(waterFilling));
+    assertTrue("water-filling " + waterFillingTime + " ns, equal share passes " + passesTime
+               + " ns", waterFillingTime < 2 * passesTime);
+  }
+
+}
@@ -0,0 +1,155 @@
+package edu.uwo.csd.dcsim.management;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.vm.VmAllocationRequest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchPlacementEngineTest {
+
+  private static final BatchPlacementEngine.Compatibility ANY = (item, host) -> true;
+
+  private static int[][] hosts(int m, int[] capacity) {
+    int[][] capacities = new int[m][];
+    for (int j = 0; j < m; ++j) {
+      capacities[j] = capacity.clone();
+    }
+    return capacities;
+  }
+
+  private static int hostsUsed(int[] assignment, int m) {
+    boolean[] used = new boolean[m];
+    int count = 0;
+    for (int host : assignment) {
+      if (host >= 0 && !used[host]) {
+        used[host] = true;
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  private static void assertFeasible(int[][] demands, int[][] capacities, int[] assignment) {
+    int[][] used = new int[capacities.length][4];
+    for (int i = 0; i < demands.length; ++i) {
+      if (assignment[i] >= 0) {
+        for (int d = 0; d < 4; ++d) {
+          used[assignment[i]][d] += demands[i][d];
+        }
+      }
+    }
+    for (int j = 0; j < capacities.length; ++j) {
+      for (int d = 0; d < 4; ++d) {
+        assertTrue(used[j][d] <= capacities[j][d]);
+      }
+    }
+  }
+
+  @Test
+  public void packsWithinCapacity() {
+    Random random = new Random(1);
+    int m = 200;
+    int[][] capacities = hosts(m, new int[]{10000, 16384, 1000, 1000});
+    int[][] demands = new int[1000][];
+    for (int i = 0; i < demands.length; ++i) {
+      demands[i] = new int[]{100 + random.nextInt(2400), 256 * (1 + random.nextInt(16)),
+                             random.nextInt(100), random.nextInt(50)};
+    }
+
+    for (BatchPlacementEngine.Heuristic heuristic : BatchPlacementEngine.Heuristic.values()) {
+      int[] greedy = new BatchPlacementEngine(heuristic).solve(demands, capacities, new boolean[m],
+                                                               ANY);
+      int[] improved = new BatchPlacementEngine(heuristic, 50).solve(demands, capacities,
+                                                                     new boolean[m], ANY);
+      for (int[] assignment : new int[][]{greedy, improved}) {
+        assertFeasible(demands, capacities, assignment);
+        for (int host : assignment) {
+          assertTrue(host >= 0);
+        }
+      }
+      assertTrue(hostsUsed(improved, m) <= hostsUsed(greedy, m));
+    }
+  }
+
+  @Test
+  public void prefersHostsInUse() {
+    int[][] capacities = hosts(3, new int[]{100, 100, 100, 100});
+    boolean[] open = {false, false, true};
+    BatchPlacementEngine engine =
+        new BatchPlacementEngine(BatchPlacementEngine.Heuristic.BEST_FIT_DECREASING);
+
+    int[][] demands = {{30, 30, 30, 30}, {60, 60, 60, 60}, {50, 10, 10, 10}};
+    //largest first: 60 and 30 fill the host in use, then 50 opens the first host
+    assertArrayEquals(new int[]{2, 2, 0}, engine.solve(demands, capacities, open, ANY));
+    assertTrue(!open[0] && !open[1] && open[2]);
+  }
+
+  @Test
+  public void respectsCompatibility() {
+    int[][] capacities = hosts(2, new int[]{100, 100, 100, 100});
+    BatchPlacementEngine engine =
+        new BatchPlacementEngine(BatchPlacementEngine.Heuristic.DOT_PRODUCT);
+
+    int[][] demands = {{10, 10, 10, 10}, {10, 10, 10, 10}};
+    int[] assignment = engine.solve(demands, capacities, new boolean[2],
+                                    (item, host) -> item == host);
+    assertArrayEquals(new int[]{0, 1}, assignment);
+  }
+
+  @Test
+  public void localSearchClosesHost() {
+    //the small, more efficient host is opened first, and its item can then join the large host
+    int[][] capacities = {{50, 50, 50, 50}, {100, 100, 100, 100}};
+    int[][] demands = {{40, 40, 40, 40}, {40, 40, 40, 40}};
+
+    int[] greedy = new BatchPlacementEngine(BatchPlacementEngine.Heuristic.FIRST_FIT_DECREASING)
+        .solve(demands, capacities, new boolean[2], ANY);
+    assertArrayEquals(new int[]{0, 1}, greedy);
+
+    BatchPlacementEngine engine =
+        new BatchPlacementEngine(BatchPlacementEngine.Heuristic.FIRST_FIT_DECREASING, 1);
+    assertArrayEquals(new int[]{1, 1}, engine.solve(demands, capacities, new boolean[2], ANY));
+  }
+
+  @Test
+  public void placeRespectsTargetUtilization() {
+    Simulation simulation = TestHosts.simulation();
+    Host host = TestHosts.host(simulation, 4, 1000, 16384);
+    TestHosts.vm(simulation, host, 1000, 1024, 1000);
+    TestHosts.vm(simulation, host, 1000, 1024, 1000);
+    HostData data = TestHosts.hostData(simulation, host);
+    data.addHostStatus(new HostStatus(host, 0), 1);
+    data.resetSandboxStatusToCurrent();
+    List<HostData> hosts = Collections.singletonList(data);
+
+    //2000 of 4000 in use, so 400 more reaches a target of 0.6
+    VmAllocationRequest fits = TestHosts.request(simulation, 400, 1024);
+    VmAllocationRequest exceeds = TestHosts.request(simulation, 500, 1024);
+    BatchPlacementEngine engine =
+        new BatchPlacementEngine(BatchPlacementEngine.Heuristic.FIRST_FIT_DECREASING);
+
+    Map<VmAllocationRequest, HostData> placement =
+        engine.place(Collections.singletonList(exceeds), hosts, 0.6);
+    assertNull(placement.get(exceeds));
+
+    placement = engine.place(Collections.singletonList(fits), hosts, 0.6);
+    assertSame(data, placement.get(fits));
+
+    placement = engine.place(Arrays.asList(fits, exceeds), hosts, 1.0);
+    assertEquals(2, placement.size());
+  }
+
+}
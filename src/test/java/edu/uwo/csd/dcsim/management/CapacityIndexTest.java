@@ -0,0 +1,69 @@
+package edu.uwo.csd.dcsim.management;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+import static org.junit.Assert.assertEquals;
+
+public class CapacityIndexTest {
+
+  /**
+   * Compare queries against linear scans, while residuals are updated
+   */
+  @Test
+  public void matchesLinearScan() {
+    Random random = new Random(1);
+    int n = 37;
+    int[][] residuals = new int[n][4];
+    CapacityIndex index = new CapacityIndex(n);
+    for (int i = 0; i < n; ++i) {
+      residuals[i] = new int[]{random.nextInt(4000) - 500, random.nextInt(8192), 100, 100};
+      index.set(i, residuals[i][0], residuals[i][1], residuals[i][2], residuals[i][3]);
+    }
+    IntPredicate accept = i -> i % 5 != 3;
+
+    for (int query = 0; query < 2000; ++query) {
+      int cpu = random.nextInt(3000);
+      int memory = random.nextInt(4096);
+      double[] weights = {cpu / 16e6, memory / 64e6, 0, 0};
+
+      int first = -1;
+      int best = -1;
+      int weighted = -1;
+      double bestScore = -1;
+      for (int i = 0; i < n; ++i) {
+        if (residuals[i][0] >= cpu && residuals[i][1] >= memory && accept.test(i)) {
+          if (first < 0) {
+            first = i;
+          }
+          if (best < 0 || residuals[i][0] < residuals[best][0]) {
+            best = i;
+          }
+          double score = weights[0] * residuals[i][0] + weights[1] * residuals[i][1];
+          if (score > bestScore) {
+            weighted = i;
+            bestScore = score;
+          }
+        }
+      }
+      assertEquals(first, index.firstFit(cpu, memory, 100, 100, accept));
+      assertEquals(best, index.bestFit(cpu, memory, 100, 100, accept));
+      assertEquals(weighted, index.maxWeightedFit(cpu, memory, 100, 100, weights, accept));
+
+      //place on the first fit, as a placement policy would
+      if (first >= 0) {
+        residuals[first][0] -= cpu;
+        residuals[first][1] -= memory;
+        index.set(first, residuals[first][0], residuals[first][1], 100, 100);
+      } else {
+        int i = random.nextInt(n);
+        residuals[i][0] = random.nextInt(4000);
+        residuals[i][1] = random.nextInt(8192);
+        index.set(i, residuals[i][0], residuals[i][1], 100, 100);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,163 @@
+package edu.uwo.csd.dcsim.management;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import edu.uwo.csd.dcsim.host.ResourceVector;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConsolidationEngineTest {
+
+  /**
+   * Hosts and VMs numbered from 0, with CPU, memory, bandwidth and storage held in arrays
+   */
+  private static class Model extends ConsolidationEngine<Integer, Integer> {
+
+    final int[][] capacity;
+    final int[][] used;
+    final int[][] demand;
+    final int[] hostOf;
+    final boolean[][] compatible;
+    final double targetUtilization;
+    final List<List<Integer>> initialVms = new ArrayList<List<Integer>>();
+
+    Model(Random random, int hosts, int vms) {
+      capacity = new int[hosts][];
+      used = new int[hosts][4];
+      demand = new int[vms][];
+      hostOf = new int[vms];
+      compatible = new boolean[vms][hosts];
+      targetUtilization = random.nextBoolean() ? 0.9 : 1.0;
+
+      for (int h = 0; h < hosts; ++h) {
+        capacity[h] = new int[]{1000 * (1 + random.nextInt(4)), 4096 * (1 + random.nextInt(4)),
+                                1000, 1000};
+        initialVms.add(new ArrayList<Integer>());
+      }
+      for (int v = 0; v < vms; ++v) {
+        int h = random.nextInt(hosts);
+        demand[v] = new int[]{random.nextInt(1500), 512 * random.nextInt(8), random.nextInt(200),
+                              random.nextInt(200)};
+        hostOf[v] = h;
+        for (int d = 0; d < 4; ++d) {
+          used[h][d] += demand[v][d];
+        }
+        initialVms.get(h).add(v);
+        for (int t = 0; t < hosts; ++t) {
+          compatible[v][t] = random.nextInt(8) != 0;
+        }
+      }
+      for (List<Integer> list : initialVms) {
+        //largest memory first, as the consolidation policies order VMs
+        list.sort((a, b) -> demand[b][1] != demand[a][1] ? demand[b][1] - demand[a][1] : a - b);
+      }
+    }
+
+    @Override
+    protected List<Integer> orderVms(Integer source) {
+      return initialVms.get(source);
+    }
+
+    @Override
+    protected void residual(Integer target, ResourceVector residual) {
+      residual.set(capacity[target][0] - used[target][0], capacity[target][1] - used[target][1],
+                   capacity[target][2] - used[target][2], capacity[target][3] - used[target][3]);
+    }
+
+    @Override
+    protected void demand(Integer vm, ResourceVector demand) {
+      demand.set(this.demand[vm][0], this.demand[vm][1], this.demand[vm][2], this.demand[vm][3]);
+    }
+
+    @Override
+    protected boolean canMigrate(Integer vm, Integer target) {
+      for (int d = 0; d < 4; ++d) {
+        if (capacity[target][d] - used[target][d] < demand[vm][d]) {
+          return false;
+        }
+      }
+      return compatible[vm][target] &&
+             (used[target][0] + demand[vm][0]) / capacity[target][0] <= targetUtilization;
+    }
+
+    @Override
+    protected boolean migrate(Integer source, Integer vm, Integer target) {
+      for (int d = 0; d < 4; ++d) {
+        used[source][d] -= demand[vm][d];
+        used[target][d] += demand[vm][d];
+      }
+      hostOf[vm] = target;
+      for (int host : hostOf) {
+        if (host == source) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * The loop of the consolidation policies: every target is checked for every VM
+     */
+    List<Migration<Integer, Integer>> greedy(List<Integer> sources, List<Integer> targets) {
+      List<Migration<Integer, Integer>> migrations = new ArrayList<Migration<Integer, Integer>>();
+      HashSet<Integer> usedSources = new HashSet<Integer>();
+      HashSet<Integer> usedTargets = new HashSet<Integer>();
+      for (Integer source : sources) {
+        if (!usedTargets.contains(source)) {
+          for (Integer vm : orderVms(source)) {
+            for (Integer target : targets) {
+              if (!source.equals(target) &&
+                  !usedSources.contains(target) &&
+                  canMigrate(vm, target)) {
+                migrations.add(new Migration<Integer, Integer>(source, target, vm,
+                                                               migrate(source, vm, target)));
+                usedTargets.add(target);
+                usedSources.add(source);
+                break;
+              }
+            }
+          }
+        }
+      }
+      return migrations;
+    }
+  }
+
+  @Test
+  public void matchesGreedyPlan() {
+    for (int trial = 0; trial < 2000; ++trial) {
+      int hosts = 1 + new Random(trial).nextInt(trial % 2 == 0 ? 8 : 100);
+      int vms = new Random(trial).nextInt(hosts * 4 + 1);
+
+      List<Integer> sources = new ArrayList<Integer>();
+      List<Integer> targets = new ArrayList<Integer>();
+      Random random = new Random(trial);
+      for (int h = 0; h < hosts; ++h) {
+        //sources are mostly also targets, as under-utilized hosts are in the policies
+        int kind = random.nextInt(4);
+        if (kind != 0) {
+          targets.add(h);
+        }
+        if (kind != 3) {
+          sources.add(h);
+        }
+      }
+      Collections.shuffle(sources, random);
+      Collections.shuffle(targets, random);
+
+      Model expected = new Model(new Random(trial), hosts, vms);
+      Model actual = new Model(new Random(trial), hosts, vms);
+      assertEquals(expected.greedy(sources, targets), actual.plan(sources, targets));
+
+      //planning again reuses the scratch structures of the engine
+      assertEquals(expected.greedy(sources, targets), actual.plan(sources, targets));
+    }
+  }
+
+}
@@ -0,0 +1,208 @@
+package edu.uwo.csd.dcsim.management;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.host.Host;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConsolidationPlannerTest {
+
+  private static final Comparator<HostData> SOURCE_ORDER =
+      HostDataComparator.getComparator(HostDataComparator.EFFICIENCY, HostDataComparator.CPU_UTIL);
+
+  /**
+   * Hosts with up to three VMs each, with the status of each host received
+   */
+  private static List<HostData> hosts(long seed) {
+    Simulation simulation = TestHosts.simulation();
+    Random random = new Random(seed);
+    List<HostData> hosts = new ArrayList<HostData>();
+    int count = 2 + random.nextInt(10);
+    for (int h = 0; h < count; ++h) {
+      Host host = TestHosts.host(simulation, 4, 1000, 16384);
+      int vms = random.nextInt(4);
+      for (int v = 0; v < vms; ++v) {
+        TestHosts.vm(simulation, host, 1000, 1024 * (1 + random.nextInt(4)), random.nextInt(1000));
+      }
+
+      HostData data = TestHosts.hostData(simulation, host);
+      data.addHostStatus(new HostStatus(host, 0), 1);
+      hosts.add(data);
+    }
+    return hosts;
+  }
+
+  private static List<HostData> sources(List<HostData> hosts) {
+    List<HostData> sources = new ArrayList<HostData>();
+    for (HostData host : hosts) {
+      if (!host.getCurrentStatus().getVms().isEmpty()) {
+        sources.add(host);
+      }
+    }
+    return sources;
+  }
+
+  private static List<HostData> targets(List<HostData> hosts) {
+    //as ordered by the consolidation policies
+    List<HostData> targets = new ArrayList<HostData>(hosts);
+    Collections.sort(targets, SOURCE_ORDER);
+    Collections.reverse(targets);
+    return targets;
+  }
+
+  private static void resetSandboxes(List<HostData> hosts) {
+    for (HostData host : hosts) {
+      host.resetSandboxStatusToCurrent();
+    }
+  }
+
+  /**
+   * The VM ids of each host, with its migration counts
+   */
+  private static Map<HostData, List<Integer>> describe(List<HostData> hosts,
+                                                       Map<HostData, HostStatus> statuses) {
+    Map<HostData, List<Integer>> description = new HashMap<HostData, List<Integer>>();
+    for (HostData host : hosts) {
+      HostStatus status = statuses.get(host);
+      List<Integer> ids = new ArrayList<Integer>();
+      for (VmStatus vm : status.getVms()) {
+        ids.add(vm.getId());
+      }
+      ids.add(status.getIncomingMigrationCount());
+      ids.add(status.getOutgoingMigrationCount());
+      description.put(host, ids);
+    }
+    return description;
+  }
+
+  private static Map<HostData, HostStatus> sandboxes(List<HostData> hosts) {
+    Map<HostData, HostStatus> sandboxes = new HashMap<HostData, HostStatus>();
+    for (HostData host : hosts) {
+      sandboxes.put(host, host.getSandboxStatus());
+    }
+    return sandboxes;
+  }
+
+  @Test
+  public void singleCandidateMatchesEngine() {
+    int migrations = 0;
+    for (long seed = 0; seed < 50; ++seed) {
+      List<HostData> hosts = hosts(seed);
+      List<HostData> sources = sources(hosts);
+      List<HostData> targets = targets(hosts);
+
+      ConsolidationPlanner planner = new ConsolidationPlanner(
+          Collections.singletonList(new ConsolidationPlanner.Candidate(
+              SOURCE_ORDER, SandboxConsolidationEngine.VM_ORDER, 0.9)), 0.85);
+      resetSandboxes(hosts);
+      List<ConsolidationEngine.Migration<HostData, VmStatus>> planned =
+          planner.plan(sources, targets).getMigrations();
+      Map<HostData, List<Integer>> plannedSandboxes = describe(hosts, sandboxes(hosts));
+
+      resetSandboxes(hosts);
+      List<HostData> orderedSources = new ArrayList<HostData>(sources);
+      Collections.sort(orderedSources, SOURCE_ORDER);
+      assertEquals(new SandboxConsolidationEngine(0.9).plan(orderedSources, targets), planned);
+      assertEquals(describe(hosts, sandboxes(hosts)), plannedSandboxes);
+
+      migrations += planned.size();
+    }
+    assertTrue(migrations > 0);
+  }
+
+  @Test
+  public void choosesCheapestCandidate() {
+    List<ConsolidationPlanner.Candidate> candidates =
+        ConsolidationPlanner.defaultCandidates(0.5, 0.8, 1.0);
+    ConsolidationPlanner planner = new ConsolidationPlanner(candidates, 0.85);
+
+    for (long seed = 0; seed < 50; ++seed) {
+      List<HostData> hosts = hosts(seed);
+      List<HostData> sources = sources(hosts);
+      List<HostData> targets = targets(hosts);
+
+      resetSandboxes(hosts);
+      ConsolidationPlanner.Plan chosen = planner.plan(sources, targets);
+
+      //the first candidate of least cost, each evaluated alone
+      int cheapest = -1;
+      double cheapestCost = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < candidates.size(); ++i) {
+        resetSandboxes(hosts);
+        double cost = new ConsolidationPlanner(candidates.subList(i, i + 1), 0.85)
+            .plan(sources, targets).getCost();
+        if (cost < cheapestCost) {
+          cheapest = i;
+          cheapestCost = cost;
+        }
+      }
+
+      assertEquals(cheapestCost, chosen.getCost(), 0);
+      assertSame(candidates.get(cheapest), chosen.getCandidate());
+    }
+  }
+
+  @Test
+  public void tiesGoToFirstCandidate() {
+    //candidates that plan identically, so that every plan has the same cost
+    List<ConsolidationPlanner.Candidate> candidates =
+        new ArrayList<ConsolidationPlanner.Candidate>();
+    for (int i = 0; i < 8; ++i) {
+      candidates.add(new ConsolidationPlanner.Candidate(
+          SOURCE_ORDER, SandboxConsolidationEngine.VM_ORDER, 0.9));
+    }
+    ConsolidationPlanner planner = new ConsolidationPlanner(candidates, 0.85);
+
+    List<HostData> hosts = hosts(7);
+    for (int run = 0; run < 50; ++run) {
+      resetSandboxes(hosts);
+      assertSame(candidates.get(0), planner.plan(sources(hosts), targets(hosts)).getCandidate());
+    }
+  }
+
+  @Test
+  public void onlyChosenPlanApplied() {
+    ConsolidationPlanner planner =
+        new ConsolidationPlanner(ConsolidationPlanner.defaultCandidates(0.5, 0.8, 1.0), 0.85);
+
+    for (long seed = 0; seed < 50; ++seed) {
+      List<HostData> hosts = hosts(seed);
+
+      Map<HostData, HostStatus> current = new HashMap<HostData, HostStatus>();
+      Map<HostData, HostStatus> expected = new HashMap<HostData, HostStatus>();
+      for (HostData host : hosts) {
+        current.put(host, host.getCurrentStatus());
+        expected.put(host, host.getCurrentStatus());
+      }
+      Map<HostData, List<Integer>> before = describe(hosts, current);
+
+      resetSandboxes(hosts);
+      ConsolidationPlanner.Plan chosen = planner.plan(sources(hosts), targets(hosts));
+
+      for (ConsolidationEngine.Migration<HostData, VmStatus> migration : chosen.getMigrations()) {
+        expected.get(migration.getSource()).migrate(migration.getVm(),
+                                                    expected.get(migration.getTarget()));
+      }
+      assertEquals(describe(hosts, expected), describe(hosts, sandboxes(hosts)));
+
+      //the current statuses are untouched
+      for (HostData host : hosts) {
+        current.put(host, host.getCurrentStatus());
+      }
+      assertEquals(before, describe(hosts, current));
+    }
+  }
+
+}
@@ -0,0 +1,98 @@
+package edu.uwo.csd.dcsim.management;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class HostStatusHistoryTest {
+
+  @Test
+  public void matchesWindowRecomputation() {
+    Random random = new Random(1);
+    for (int trial = 0; trial < 200; ++trial) {
+      int capacity = 1 + random.nextInt(10);
+      HostStatusHistory history = new HostStatusHistory(capacity, 0.25);
+
+      //newest first, as HostData kept its history
+      List<int[]> window = new ArrayList<int[]>();
+      double ewma = Double.NaN;
+      for (int step = 0; step < 200; ++step) {
+        if (random.nextInt(50) == 0) {
+          capacity = 1 + random.nextInt(10);
+          history.resize(capacity);
+        }
+
+        int cpu = random.nextInt(5) * 1000;
+        boolean on = random.nextInt(4) != 0;
+        history.add(null, step, cpu, on);
+        if (on) {
+          ewma = Double.isNaN(ewma) ? cpu : 0.25 * cpu + 0.75 * ewma;
+        }
+
+        window.add(0, new int[]{step, cpu, on ? 1 : 0});
+        while (window.size() > capacity) {
+          window.remove(window.size() - 1);
+        }
+
+        long sum = 0;
+        int count = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int[] status : window) {
+          if (status[2] == 1) {
+            sum += status[1];
+            ++count;
+            min = Math.min(min, status[1]);
+            max = Math.max(max, status[1]);
+          }
+        }
+
+        assertEquals(window.size(), history.size());
+        assertEquals(count, history.getOnCount());
+        assertEquals(count == 0 ? 0.0 : (double) sum / count, history.getAverageCpuInUse(), 0);
+        assertEquals(count == 0 ? 0 : min, history.getMinCpuInUse());
+        assertEquals(count == 0 ? 0 : max, history.getMaxCpuInUse());
+        assertEquals(Double.isNaN(ewma) ? 0.0 : ewma, history.getEwmaCpuInUse(), 1e-9);
+        for (int age = 0; age < window.size(); ++age) {
+          assertEquals(window.get(age)[0], history.getTimeStamp(age));
+          assertEquals(window.get(age)[1], history.getCpuInUse(age));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void emptyWindow() {
+    //as a history window size of 0 kept no statuses
+    HostStatusHistory history = new HostStatusHistory(0, 0.5);
+    history.add(null, 1, 1000, true);
+    history.add(null, 2, 3000, true);
+
+    assertEquals(0, history.size());
+    assertEquals(0, history.getOnCount());
+    assertEquals(0.0, history.getAverageCpuInUse(), 0);
+    assertEquals(0, history.getMinCpuInUse());
+    assertEquals(0, history.getMaxCpuInUse());
+    assertEquals(2000.0, history.getEwmaCpuInUse(), 0);
+    assertEquals(0, history.toList().size());
+
+    //and the window may grow and shrink again
+    history.resize(2);
+    history.add(null, 3, 2000, true);
+    assertEquals(1, history.size());
+    assertEquals(2000.0, history.getAverageCpuInUse(), 0);
+    history.resize(0);
+    assertEquals(0, history.size());
+    assertEquals(0.0, history.getAverageCpuInUse(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNegativeCapacity() {
+    new HostStatusHistory(-1);
+  }
+
+}
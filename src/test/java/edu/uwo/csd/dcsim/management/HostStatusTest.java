@@ -0,0 +1,192 @@
+package edu.uwo.csd.dcsim.management;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.vm.Vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class HostStatusTest {
+
+  private Simulation simulation;
+  private Host host;
+  private Vm vm1;
+  private Vm vm2;
+  private Vm vm3;
+
+  @Before
+  public void setUp() {
+    simulation = TestHosts.simulation();
+    host = TestHosts.host(simulation, 4, 1000, 16384);
+    vm1 = TestHosts.vm(simulation, host, 1000, 1024, 100);
+    vm2 = TestHosts.vm(simulation, host, 1000, 1024, 200);
+    vm3 = TestHosts.vm(simulation, host, 1000, 1024, 300);
+  }
+
+  private static List<Vm> vms(HostStatus status) {
+    List<Vm> vms = new ArrayList<Vm>();
+    for (VmStatus vm : status.getVms()) {
+      vms.add(vm.getVm());
+    }
+    return vms;
+  }
+
+  private static List<Integer> cpu(HostStatus status) {
+    List<Integer> cpu = new ArrayList<Integer>();
+    for (VmStatus vm : status.getVms()) {
+      cpu.add(vm.getResourceInUse().cpu());
+    }
+    return cpu;
+  }
+
+  /**
+   * A snapshot taken without a previous snapshot, to compare snapshots taken as deltas against
+   */
+  private void assertFullSnapshot(HostStatus status) {
+    HostStatus full = new HostStatus(host, status.getTimeStamp());
+    assertEquals(vms(full), vms(status));
+    assertEquals(cpu(full), cpu(status));
+    assertEquals(full.cpuInUse(), status.cpuInUse());
+  }
+
+  @Test
+  public void reusesUnchangedVms() {
+    HostStatus first = new HostStatus(host, 1);
+    HostStatus second = new HostStatus(host, 2, first);
+
+    assertSame(first.getVms(), second.getVms());
+    assertSame(first.getPrivDomainState(), second.getPrivDomainState());
+    assertEquals(2, second.getTimeStamp());
+    assertFullSnapshot(second);
+  }
+
+  @Test
+  public void replacesChangedVm() {
+    HostStatus first = new HostStatus(host, 1);
+    vm2.scheduleResources(Resource.create(1, 1, 250, 1024, 0, 0));
+    HostStatus second = new HostStatus(host, 2, first);
+
+    assertSame(first.getVms().get(0), second.getVms().get(0));
+    assertNotSame(first.getVms().get(1), second.getVms().get(1));
+    assertSame(first.getVms().get(2), second.getVms().get(2));
+    assertEquals(2, second.getVms().get(1).getTimeStamp());
+    assertEquals(200, first.getVms().get(1).getResourceInUse().cpu());
+    assertFullSnapshot(second);
+  }
+
+  @Test
+  public void addsVm() {
+    HostStatus first = new HostStatus(host, 1);
+    Vm vm4 = TestHosts.vm(simulation, host, 1000, 1024, 400);
+    HostStatus second = new HostStatus(host, 2, first);
+
+    assertEquals(3, first.getVms().size());
+    for (int i = 0; i < 3; ++i) {
+      assertSame(first.getVms().get(i), second.getVms().get(i));
+    }
+    assertSame(vm4, second.getVms().get(3).getVm());
+    assertFullSnapshot(second);
+  }
+
+  @Test
+  public void removesVm() {
+    HostStatus first = new HostStatus(host, 1);
+    host.deallocate(vm2.getVMAllocation());
+    HostStatus second = new HostStatus(host, 2, first);
+
+    assertEquals(3, first.getVms().size());
+    assertSame(first.getVms().get(0), second.getVms().get(0));
+    assertSame(first.getVms().get(2), second.getVms().get(1));
+    assertFullSnapshot(second);
+  }
+
+  @Test
+  public void reordersVms() {
+    HostStatus first = new HostStatus(host, 1);
+    Collections.swap(host.getVMAllocations(), 0, 2);
+    HostStatus second = new HostStatus(host, 2, first);
+
+    assertSame(first.getVms().get(2), second.getVms().get(0));
+    assertSame(first.getVms().get(1), second.getVms().get(1));
+    assertSame(first.getVms().get(0), second.getVms().get(2));
+    assertFullSnapshot(second);
+  }
+
+  @Test
+  public void sandboxChangesDoNotReachSnapshots() {
+    Host other = TestHosts.host(simulation, 4, 1000, 16384);
+    HostStatus first = new HostStatus(host, 1);
+    HostStatus current = new HostStatus(host, 2, first);
+    HostStatus otherCurrent = new HostStatus(other, 2);
+
+    HostStatus sandbox = current.copy();
+    HostStatus otherSandbox = otherCurrent.copy();
+    VmStatus migrated = sandbox.getVms().get(1);
+    sandbox.migrate(migrated, otherSandbox);
+    sandbox.instantiateVm(new VmStatus(1, 1000, Resource.createLumped(500, 1024, 0, 0)));
+
+    assertEquals(vms(first), vms(current));
+    assertEquals(3, current.getVms().size());
+    assertEquals(0, current.getOutgoingMigrationCount());
+    assertEquals(3, first.getVms().size());
+    assertEquals(0, otherCurrent.getVms().size());
+    assertEquals(0, otherCurrent.getIncomingMigrationCount());
+
+    assertEquals(3, sandbox.getVms().size());
+    assertEquals(1, sandbox.getOutgoingMigrationCount());
+    assertSame(migrated, otherSandbox.getVms().get(0));
+    assertEquals(1, otherSandbox.getIncomingMigrationCount());
+
+    //a copy of the modified sandbox is independent of it as well
+    HostStatus sandboxCopy = sandbox.copy();
+    sandboxCopy.migrate(sandboxCopy.getVms().get(0), otherSandbox);
+    assertEquals(3, sandbox.getVms().size());
+    assertEquals(2, sandboxCopy.getVms().size());
+
+    //and the next snapshot is taken from the host alone
+    assertFullSnapshot(new HostStatus(host, 3, current));
+  }
+
+  @Test
+  public void snapshotOfModifiedStatusIsIndependent() {
+    HostStatus first = new HostStatus(host, 1);
+    first.instantiateVm(new VmStatus(1, 1000, Resource.createLumped(500, 1024, 0, 0)));
+    HostStatus second = new HostStatus(host, 2, first);
+
+    assertEquals(3, second.getVms().size());
+    first.instantiateVm(new VmStatus(1, 1000, Resource.createLumped(500, 1024, 0, 0)));
+    assertEquals(3, second.getVms().size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void vmsAreReadOnly() {
+    new HostStatus(host, 1).getVms().clear();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void copiedVmsAreReadOnly() {
+    new HostStatus(host, 1).copy().getVms().remove(0);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void startingVmAllocationsAreReadOnly() {
+    new HostStatus(host, 1).getStartingVmAllocations().add(Resource.createLumped(1, 1, 0, 0));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void migratingInVmsAreReadOnly() {
+    new HostStatus(host, 1).getMigratingInVms()
+        .add(new VmStatus(1, 1000, Resource.createLumped(500, 1024, 0, 0)));
+  }
+
+}
@@ -0,0 +1,127 @@
+package edu.uwo.csd.dcsim.management;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import ca.carleton.dcsim.SaviCloudNetwork;
+import ca.carleton.dcsim.managment.capabilities.ApplicationManager;
+import edu.uwo.csd.dcsim.application.Application;
+import edu.uwo.csd.dcsim.application.Task;
+import edu.uwo.csd.dcsim.application.TaskInstance;
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.Resource;
+import edu.uwo.csd.dcsim.host.power.LinearHostPowerModel;
+import edu.uwo.csd.dcsim.host.resourcemanager.DefaultResourceManagerFactory;
+import edu.uwo.csd.dcsim.host.scheduler.DefaultResourceSchedulerFactory;
+import edu.uwo.csd.dcsim.management.capabilities.HostManager;
+import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+import edu.uwo.csd.dcsim.vm.Vm;
+import edu.uwo.csd.dcsim.vm.VmAllocation;
+import edu.uwo.csd.dcsim.vm.VmAllocationRequest;
+import edu.uwo.csd.dcsim.vm.VmDescription;
+
+/**
+ * Builds hosts with VMs placed directly on them, for tests of management code
+ */
+public final class TestHosts {
+
+  private TestHosts() {
+  }
+
+  /**
+   * Create a simulation with an empty network
+   */
+  public static Simulation simulation() {
+    Simulation simulation = new Simulation("test");
+    HostPoolManager hostPool = new HostPoolManager();
+    ApplicationManager appPool = new ApplicationManager();
+    simulation.addSaviNetwork(
+        new SaviCloudNetwork.Builder(simulation)
+            .hostPool(hostPool)
+            .applicationPool(appPool)
+            .autonomicManager(new AutonomicManager(simulation, hostPool, appPool))
+            .dc2Index(new HashMap<>())
+            .datacentres(new ArrayList<>())
+            .build());
+    return simulation;
+  }
+
+  public static Host host(Simulation simulation, int cores, int coreCapacity, int memory) {
+    return new Host.Builder(simulation)
+        .specification(1, cores, coreCapacity, memory, 1310720, 36864)
+        .powerModel(new LinearHostPowerModel(100, 200))
+        .privCpu(0)
+        .resourceManagerFactory(new DefaultResourceManagerFactory())
+        .resourceSchedulerFactory(new DefaultResourceSchedulerFactory())
+        .build();
+  }
+
+  /**
+   * Create a VM on the host, using the given CPU
+   */
+  public static Vm vm(Simulation simulation, Host host, int coreCapacity, int memory, int cpu) {
+    host.submitVm(request(simulation, coreCapacity, memory));
+    List<VmAllocation> allocations = host.getVMAllocations();
+    Vm vm = allocations.get(allocations.size() - 1).getVm();
+    vm.scheduleResources(Resource.create(1, 1, cpu, memory, 0, 0));
+    return vm;
+  }
+
+  /**
+   * Create a request for a single core VM
+   */
+  public static VmAllocationRequest request(Simulation simulation, int coreCapacity, int memory) {
+    Task task = new TestTask(simulation, Resource.create(1, 1, coreCapacity, memory, 1024, 1024));
+    return new VmAllocationRequest(new VmDescription(task));
+  }
+
+  public static HostData hostData(Simulation simulation, Host host) {
+    return new HostData(host, new AutonomicManager(simulation, new HostManager(host)));
+  }
+
+  private static class TestTask extends Task {
+
+    private final List<TaskInstance> instances = new ArrayList<TaskInstance>();
+
+    TestTask(Simulation simulation, Resource resourceSize) {
+      super(1, resourceSize, simulation);
+    }
+
+    @Override
+    public TaskInstance createInstance() {
+      TaskInstance instance = new TaskInstance(simulation) {
+        @Override
+        public void postScheduling() {
+        }
+
+        @Override
+        public Task getTask() {
+          return TestTask.this;
+        }
+      };
+      instances.add(instance);
+      return instance;
+    }
+
+    @Override
+    public void doStartInstance(TaskInstance instance) {
+    }
+
+    @Override
+    public void doStopInstance(TaskInstance instance) {
+    }
+
+    @Override
+    public List<TaskInstance> getInstances() {
+      return instances;
+    }
+
+    @Override
+    public Application getApplication() {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,183 @@
+package edu.uwo.csd.dcsim.management.policies;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import ca.carleton.dcsim.SaviCloudNetwork;
+import ca.carleton.dcsim.managment.capabilities.ApplicationManager;
+import edu.uwo.csd.dcsim.DataCentre;
+import edu.uwo.csd.dcsim.common.SimTime;
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.core.metrics.ManagementMetrics;
+import edu.uwo.csd.dcsim.host.Cluster;
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.host.Rack;
+import edu.uwo.csd.dcsim.host.SwitchFactory;
+import edu.uwo.csd.dcsim.management.AutonomicManager;
+import edu.uwo.csd.dcsim.management.HostData;
+import edu.uwo.csd.dcsim.management.Policy;
+import edu.uwo.csd.dcsim.management.TestHosts;
+import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+import edu.uwo.csd.dcsim.management.events.HostStatusBatchEvent;
+import edu.uwo.csd.dcsim.management.events.HostStatusEvent;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchHostMonitoringPolicyTest {
+
+  private static final int CLUSTERS = 2;
+  private static final int RACKS = 2;
+  private static final int HOSTS = 3;
+  //monitors first run at 1000 s + 5 and then every 1000 s
+  private static final long DURATION = SimTime.seconds(3500);
+  private static final int EXECUTIONS = 3;
+
+  /**
+   * Counts the messages of each kind that reach the host pool manager
+   */
+  public static class MessageCounter extends Policy {
+
+    int statusEvents;
+    int batchEvents;
+    int batchStatuses;
+
+    public void execute(HostStatusEvent event) {
+      ++statusEvents;
+    }
+
+    public void execute(HostStatusBatchEvent event) {
+      ++batchEvents;
+      batchStatuses += event.getHostStatuses().size();
+    }
+
+    @Override
+    public void onInstall() {
+    }
+
+    @Override
+    public void onManagerStart() {
+    }
+
+    @Override
+    public void onManagerStop() {
+    }
+  }
+
+  private static class Run {
+
+    final MessageCounter counter = new MessageCounter();
+    HostPoolManager hostPool;
+    ManagementMetrics metrics;
+  }
+
+  /**
+   * Run a data centre of two clusters of two racks of three hosts. In each rack, the first host is
+   * off, the second powering on and the third on, for the whole run.
+   */
+  private static Run run(SaviCloudNetwork.Monitoring monitoring) {
+    Simulation simulation = new Simulation("monitoring-test");
+    List<Host> hosts = new ArrayList<Host>();
+    List<Cluster> clusters = new ArrayList<Cluster>();
+    for (int c = 0; c < CLUSTERS; ++c) {
+      List<Rack> racks = new ArrayList<Rack>();
+      for (int r = 0; r < RACKS; ++r) {
+        List<Host> rackHosts = new ArrayList<Host>();
+        for (int h = 0; h < HOSTS; ++h) {
+          rackHosts.add(TestHosts.host(simulation, 4, 1000, 16384));
+        }
+        racks.add(new Rack.Builder(simulation).nSlots(HOSTS)
+                      .switchFactory(SwitchFactory.switch10g48p()).hosts(rackHosts).build());
+        hosts.addAll(rackHosts);
+      }
+      clusters.add(new Cluster.Builder(simulation).nSwitches(1)
+                       .switchFactory(SwitchFactory.switch10g48p()).racks(racks).build());
+    }
+    List<DataCentre> dataCentres = new ArrayList<DataCentre>();
+    dataCentres.add(new DataCentre.Builder(simulation).switchFactory(SwitchFactory.switch10g48p())
+                        .clusters(clusters).build());
+
+    Run run = new Run();
+    run.hostPool = new HostPoolManager();
+    ApplicationManager appPool = new ApplicationManager();
+    AutonomicManager autonomicManager = new AutonomicManager(simulation, run.hostPool, appPool);
+    autonomicManager.installPolicy(new HostStatusPolicy(5));
+    autonomicManager.installPolicy(run.counter);
+
+    HashMap<DataCentre, Integer> dc2Index = new HashMap<DataCentre, Integer>();
+    dc2Index.put(dataCentres.get(0), 0);
+    simulation.addSaviNetwork(
+        new SaviCloudNetwork.Builder(simulation)
+            .hostPool(run.hostPool)
+            .applicationPool(appPool)
+            .autonomicManager(autonomicManager)
+            .dc2Index(dc2Index)
+            .datacentres(dataCentres)
+            .monitoring(monitoring)
+            .build());
+
+    //hosts are turned off by the network
+    for (int i = 0; i < hosts.size(); ++i) {
+      if (i % HOSTS == 1) {
+        hosts.get(i).setState(Host.HostState.POWERING_ON);
+      } else if (i % HOSTS == 2) {
+        hosts.get(i).setState(Host.HostState.ON);
+      }
+    }
+
+    run.metrics = simulation.run(DURATION, 0).getManagementMetrics();
+    return run;
+  }
+
+  private static int reportingHosts() {
+    return CLUSTERS * RACKS * 2;
+  }
+
+  private static void assertMetricsMatchPerHost(Run run, Run perHost) {
+    assertEquals(perHost.metrics.getMessageCount(), run.metrics.getMessageCount());
+    assertEquals(perHost.metrics.getMessageBw(), run.metrics.getMessageBw());
+
+    assertEquals(historySizes(perHost), historySizes(run));
+  }
+
+  private static List<Integer> historySizes(Run run) {
+    List<Integer> sizes = new ArrayList<Integer>();
+    for (HostData host : run.hostPool.getHosts()) {
+      sizes.add(host.getHistory().size());
+    }
+    return sizes;
+  }
+
+  @Test
+  public void perHostSendsOneMessagePerHost() {
+    Run perHost = run(SaviCloudNetwork.Monitoring.PER_HOST);
+
+    assertEquals(reportingHosts() * EXECUTIONS, perHost.counter.statusEvents);
+    assertEquals(0, perHost.counter.batchEvents);
+    assertEquals(reportingHosts() * EXECUTIONS,
+                 (long) perHost.metrics.getMessageCount().get(HostStatusEvent.class));
+  }
+
+  @Test
+  public void perRackSendsOneBatchPerRack() {
+    Run perRack = run(SaviCloudNetwork.Monitoring.PER_RACK);
+
+    assertEquals(0, perRack.counter.statusEvents);
+    assertEquals(CLUSTERS * RACKS * EXECUTIONS, perRack.counter.batchEvents);
+    assertEquals(reportingHosts() * EXECUTIONS, perRack.counter.batchStatuses);
+    assertMetricsMatchPerHost(perRack, run(SaviCloudNetwork.Monitoring.PER_HOST));
+  }
+
+  @Test
+  public void perClusterSendsOneBatchPerCluster() {
+    Run perCluster = run(SaviCloudNetwork.Monitoring.PER_CLUSTER);
+
+    assertEquals(0, perCluster.counter.statusEvents);
+    assertEquals(CLUSTERS * EXECUTIONS, perCluster.counter.batchEvents);
+    assertEquals(reportingHosts() * EXECUTIONS, perCluster.counter.batchStatuses);
+    assertMetricsMatchPerHost(perCluster, run(SaviCloudNetwork.Monitoring.PER_HOST));
+  }
+
+}
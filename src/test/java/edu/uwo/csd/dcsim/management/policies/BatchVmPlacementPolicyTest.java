@@ -0,0 +1,93 @@
+package edu.uwo.csd.dcsim.management.policies;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import edu.uwo.csd.dcsim.core.Simulation;
+import edu.uwo.csd.dcsim.host.Host;
+import edu.uwo.csd.dcsim.management.AutonomicManager;
+import edu.uwo.csd.dcsim.management.BatchPlacementEngine;
+import edu.uwo.csd.dcsim.management.HostData;
+import edu.uwo.csd.dcsim.management.HostStatus;
+import edu.uwo.csd.dcsim.management.TestHosts;
+import edu.uwo.csd.dcsim.management.capabilities.HostManager;
+import edu.uwo.csd.dcsim.management.capabilities.HostPoolManager;
+import edu.uwo.csd.dcsim.management.events.VmPlacementEvent;
+import edu.uwo.csd.dcsim.vm.VmAllocationRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchVmPlacementPolicyTest {
+
+  private static final int HOSTS = 300;
+  private static final int LOADED = 20; //hosts already on with VMs, the first of them stressed
+  private static final int REQUESTS = 1000;
+
+  /**
+   * Place the same burst of requests on the same data centre with the given policy
+   *
+   * @return the number of hosts that were off and had VMs placed on them
+   */
+  private static int hostsPoweredOn(VmPlacementPolicy policy) {
+    Random random = new Random(1);
+    Simulation simulation = TestHosts.simulation();
+    HostPoolManager hostPool = new HostPoolManager();
+    AutonomicManager manager = new AutonomicManager(simulation, hostPool);
+    manager.installPolicy(policy);
+
+    List<Host> hosts = new ArrayList<Host>();
+    for (int h = 0; h < HOSTS; ++h) {
+      Host host = TestHosts.host(simulation, h % 2 == 0 ? 4 : 8, 1000, 16384);
+      if (h < LOADED) {
+        host.setState(Host.HostState.ON);
+        int vms = h == 0 ? 4 : 1 + random.nextInt(3);
+        for (int v = 0; v < vms; ++v) {
+          TestHosts.vm(simulation, host, 1000, 1024, h == 0 ? 1000 : 100 + random.nextInt(900));
+        }
+      }
+      hostPool.addHost(host, new AutonomicManager(simulation, new HostManager(host)));
+      hostPool.getHost(host.id()).addHostStatus(new HostStatus(host, 0), 1);
+      hosts.add(host);
+    }
+
+    List<VmAllocationRequest> requests = new ArrayList<VmAllocationRequest>();
+    for (int i = 0; i < REQUESTS; ++i) {
+      requests.add(TestHosts.request(simulation, 100 + random.nextInt(900),
+                                     256 * (1 + random.nextInt(4))));
+    }
+    VmPlacementEvent event = new VmPlacementEvent(manager, requests);
+    event.initialize(simulation);
+    policy.execute(event, manager);
+    assertEquals(0, event.getFailedRequests().size());
+
+    //the stressed host is not a target
+    HostData stressed = hostPool.getHost(hosts.get(0).id());
+    assertEquals(4, stressed.getSandboxStatus().getVms().size());
+
+    int poweredOn = 0;
+    for (Host host : hosts) {
+      HostData data = hostPool.getHost(host.id());
+      if (host.getState() != Host.HostState.ON && data.getSandboxStatus().getVms().size() > 0) {
+        ++poweredOn;
+      }
+    }
+    return poweredOn;
+  }
+
+  @Test
+  public void powersOnNoMoreHostsThanVmPlacementPolicy() {
+    int sequential = hostsPoweredOn(new VmPlacementPolicy(0.5, 0.85, 1.0));
+    assertTrue(sequential > 0);
+
+    for (BatchPlacementEngine.Heuristic heuristic : BatchPlacementEngine.Heuristic.values()) {
+      BatchPlacementEngine engine = new BatchPlacementEngine(heuristic, 50);
+      int batch = hostsPoweredOn(new BatchVmPlacementPolicy(engine, 0.5, 0.85, 1.0));
+      assertTrue(heuristic + ": " + batch + " > " + sequential, batch <= sequential);
+    }
+  }
+
+}